@@ -6,12 +6,27 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.Collections;
+import java.util.Enumeration;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
 import java.util.zip.ZipInputStream;
 
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLEventFactory;
+import javax.xml.stream.XMLEventReader;
+import javax.xml.stream.XMLEventWriter;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.events.Attribute;
+import javax.xml.stream.events.StartElement;
+import javax.xml.stream.events.XMLEvent;
+
 import de.unikassel.android.sdcframework.data.independent.BasicSample;
 import de.unikassel.android.sdcframework.data.independent.BasicSampleCollection;
 import de.unikassel.android.sdcframework.data.independent.DeviceInformation;
@@ -36,6 +51,49 @@ public class ArchiveContent
 	 */
 	private final static LogUtil log = new LogUtil( ArchiveContent.class );
 
+	/**
+	 * The buffer size to extract files and write the raw data
+	 */
+	private static final int BUFFER_SIZE = 64 << 10;
+
+	/**
+	 * The root element of the serialized raw data
+	 */
+	private static final QName RAW_DATA = new QName( "sdcRawData" );
+
+	/**
+	 * The sample data element
+	 */
+	private static final QName DATA = new QName( "data" );
+
+	/**
+	 * The file element of file reference sample data
+	 */
+	private static final QName FILE = new QName( "file" );
+
+	/**
+	 * The class attribute of the sample data element
+	 */
+	private static final QName CLASS = new QName( "class" );
+
+	/**
+	 * The XML input factory ( thread safe after configuration )
+	 */
+	private static final XMLInputFactory inputFactory = XMLInputFactory
+			.newInstance();
+
+	/**
+	 * The XML output factory ( thread safe after configuration )
+	 */
+	private static final XMLOutputFactory outputFactory = XMLOutputFactory
+			.newInstance();
+
+	/**
+	 * The XML event factory
+	 */
+	private static final XMLEventFactory eventFactory = XMLEventFactory
+			.newInstance();
+
 	/**
 	 * The raw SDCF data
 	 */
@@ -189,4 +247,231 @@ public class ArchiveContent
 		}
 		return content;
 	}
-}
\ No newline at end of file
+
+	/**
+	 * Does extract an archive and write the serialized raw data without
+	 * creating the sample objects. The device information and the samples are
+	 * copied element by element from the archive into the raw data XML file,
+	 * the paths of file references are updated to the extracted files on the
+	 * fly. The raw data file is written under a temporary name and renamed when
+	 * complete.
+	 * 
+	 * @param archive
+	 *            the archive file
+	 * @param filePath
+	 *            the directory to store the files in
+	 * @param xmlFile
+	 *            the raw data XML file to write
+	 * @return true if successful, false otherwise
+	 */
+	public static boolean writeRawData( File archive, String filePath,
+			File xmlFile )
+	{
+		if ( !filePath.endsWith( File.separator ) )
+			filePath += File.separatorChar;
+
+		File tmpFile = new File( xmlFile.getPath() + ".tmp" );
+		ZipFile zipFile = null;
+		OutputStream outStream = null;
+		boolean success = false;
+		try
+		{
+			zipFile = new ZipFile( archive );
+			ZipEntry devInfoEntry = zipFile
+					.getEntry( DeviceInformation.DEVICE_INFO_FILE );
+			ZipEntry samplesEntry = zipFile
+					.getEntry( BasicSampleCollection.SAMPLE_COLLECTION_FILE );
+			if ( devInfoEntry == null || samplesEntry == null )
+			{
+				throw new IOException( "missing device information or samples" );
+			}
+
+			// extract the files first, the names resolve the file references
+			Map< String, String > mapFiles = new HashMap< String, String >();
+			byte[] buffer = new byte[ BUFFER_SIZE ];
+			for ( Enumeration< ? extends ZipEntry > entries = zipFile.entries(); entries
+					.hasMoreElements(); )
+			{
+				ZipEntry entry = entries.nextElement();
+				if ( entry == devInfoEntry || entry == samplesEntry
+						|| entry.isDirectory() )
+					continue;
+				String destFileName = filePath + entry.getName();
+				mapFiles.put( entry.getName(), destFileName );
+				extract( zipFile, entry, destFileName, buffer );
+			}
+
+			outStream = new BufferedOutputStream( new FileOutputStream(
+					tmpFile ), BUFFER_SIZE );
+			XMLEventWriter writer = outputFactory.createXMLEventWriter(
+					outStream, "UTF-8" );
+			writer.add( eventFactory.createStartDocument( "UTF-8" ) );
+			writer.add( eventFactory.createStartElement( RAW_DATA, null, null ) );
+			copy( zipFile, devInfoEntry, writer,
+					Collections.< String, String > emptyMap() );
+			copy( zipFile, samplesEntry, writer, mapFiles );
+			writer.add( eventFactory.createEndElement( RAW_DATA, null ) );
+			writer.add( eventFactory.createEndDocument() );
+			writer.close();
+			outStream.close();
+			outStream = null;
+
+			success = tmpFile.renameTo( xmlFile );
+		}
+		catch ( Exception e )
+		{
+			log.error( "Failed to extract archive content from file \""
+					+ archive + "\". Reason: " + e.getMessage() );
+		}
+		finally
+		{
+			close( outStream );
+			if ( zipFile != null )
+			{
+				try
+				{
+					zipFile.close();
+				}
+				catch ( IOException e )
+				{}
+			}
+			if ( !success )
+			{
+				tmpFile.delete();
+			}
+		}
+		return success;
+	}
+
+	/**
+	 * Does extract a file of an archive
+	 * 
+	 * @param zipFile
+	 *            the archive
+	 * @param entry
+	 *            the archive entry
+	 * @param destFileName
+	 *            the destination file name
+	 * @param buffer
+	 *            the copy buffer
+	 * @throws IOException
+	 */
+	private static void extract( ZipFile zipFile, ZipEntry entry,
+			String destFileName, byte[] buffer ) throws IOException
+	{
+		InputStream inStream = zipFile.getInputStream( entry );
+		OutputStream outStream = null;
+		try
+		{
+			outStream = new FileOutputStream( destFileName );
+			int count = inStream.read( buffer );
+			while ( count != -1 )
+			{
+				outStream.write( buffer, 0, count );
+				count = inStream.read( buffer );
+			}
+		}
+		finally
+		{
+			inStream.close();
+			close( outStream );
+		}
+	}
+
+	/**
+	 * Does copy the XML content of an archive entry into the raw data. The
+	 * file element of file reference sample data is replaced by the extracted
+	 * file path, or dropped if the file is not contained in the archive.
+	 * 
+	 * @param zipFile
+	 *            the archive
+	 * @param entry
+	 *            the archive entry
+	 * @param writer
+	 *            the raw data writer
+	 * @param mapFiles
+	 *            the file map ( name to location mapping )
+	 * @throws IOException
+	 * @throws XMLStreamException
+	 */
+	private static void copy( ZipFile zipFile, ZipEntry entry,
+			XMLEventWriter writer, Map< String, String > mapFiles )
+			throws IOException, XMLStreamException
+	{
+		InputStream inStream = new BufferedInputStream(
+				zipFile.getInputStream( entry ), BUFFER_SIZE );
+		try
+		{
+			XMLEventReader reader = inputFactory.createXMLEventReader( inStream );
+			boolean inFileReference = false;
+			int depth = 0;
+			int fileReferenceDepth = 0;
+			while ( reader.hasNext() )
+			{
+				XMLEvent event = reader.nextEvent();
+				if ( event.isStartDocument() || event.isEndDocument() )
+					continue;
+				if ( event.isStartElement() )
+				{
+					StartElement element = event.asStartElement();
+					++depth;
+					if ( DATA.equals( element.getName() ) )
+					{
+						Attribute attribute = element.getAttributeByName( CLASS );
+						inFileReference = attribute != null
+								&& attribute.getValue().endsWith(
+										FileReferenceSampleData.class
+												.getSimpleName() );
+						fileReferenceDepth = depth;
+					}
+					else if ( inFileReference
+							&& FILE.equals( element.getName() ) )
+					{
+						String fileName = mapFiles.get( reader.getElementText() );
+						--depth;
+						if ( fileName != null )
+						{
+							writer.add( element );
+							writer.add( eventFactory.createCharacters( fileName ) );
+							writer.add( eventFactory.createEndElement( FILE, null ) );
+						}
+						continue;
+					}
+				}
+				else if ( event.isEndElement() )
+				{
+					if ( inFileReference && depth == fileReferenceDepth )
+					{
+						inFileReference = false;
+					}
+					--depth;
+				}
+				writer.add( event );
+			}
+			reader.close();
+		}
+		finally
+		{
+			inStream.close();
+		}
+	}
+
+	/**
+	 * Does close a stream quietly
+	 * 
+	 * @param stream
+	 *            the stream to close
+	 */
+	private static void close( OutputStream stream )
+	{
+		if ( stream != null )
+		{
+			try
+			{
+				stream.close();
+			}
+			catch ( IOException e )
+			{}
+		}
+	}
+}
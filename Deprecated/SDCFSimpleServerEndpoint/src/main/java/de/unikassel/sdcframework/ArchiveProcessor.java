@@ -9,13 +9,25 @@ import de.unikassel.android.sdcframework.util.FileUtils;
 import de.unikassel.android.sdcframework.util.facade.Encryption;
 
 /**
- * SDF framework archive extractor.
+ * SDF framework archive extractor. The processing of different archives is
+ * thread safe, archives of the same device have to be processed in upload
+ * order by one thread at a time ( see {@link ArchiveWatcher} ).
  * 
  * @author Katy Hilgenberg
  * 
  */
-public class ArchiveProcessor implements Runnable
+public class ArchiveProcessor
 {
+	/**
+	 * The suffix of archives not yet completely uploaded
+	 */
+	public static final String UPLOAD_SUFFIX = ".part";
+
+	/**
+	 * The suffix of temporary files ( decrypted archives )
+	 */
+	private static final String TMP_SUFFIX = ".tmp";
+
 	/**
 	 * The log helper class
 	 */
@@ -75,51 +87,75 @@ public class ArchiveProcessor implements Runnable
 		}
 	}
 
-	/*
-	 * (non-Javadoc)
+	/**
+	 * Getter for the working directory
 	 * 
-	 * @see java.lang.Runnable#run()
+	 * @return the working directory
 	 */
-	@Override
-	public void run()
+	public File getWorkdir()
 	{
-		int cnt = 0;
-		
-		// new log file will be created -> mark older files for transfer
-        for ( File file : workdir.listFiles() )
-        {
-        	if( file.isDirectory() ) continue;
-        	try
-    		{
-        		String xmlFile = process( file );
-				if ( xmlFile != null )
-				{
-					if ( new File( xmlFile ).exists() )
-					{
-						// in case of success ... delete archive
-						file.delete();
-					}
-					cnt++;
-					log.info( "Successfully processed archive: "
-							+ file.getName() );
-				}
-				else
+		return workdir;
+	}
+
+	/**
+	 * Test method for archives to process
+	 * 
+	 * @param file
+	 *            the file to test
+	 * @return true if the file is a completely uploaded archive, false for
+	 *         directories, uploads in progress and temporary files
+	 */
+	public static boolean isArchive( File file )
+	{
+		String name = file.getName();
+		return !name.endsWith( UPLOAD_SUFFIX ) && !name.endsWith( TMP_SUFFIX )
+				&& name.lastIndexOf( '-' ) > 0 && file.isFile();
+	}
+
+	/**
+	 * Getter for the device identifier of an archive
+	 * 
+	 * @param file
+	 *            the archive file named &lt;uuid&gt;-&lt;time
+	 *            stamp&gt;.&lt;format&gt;
+	 * @return the device identifier
+	 */
+	public static String getDeviceId( File file )
+	{
+		String name = file.getName();
+		return name.substring( 0, name.lastIndexOf( '-' ) );
+	}
+
+	/**
+	 * Does process an archive and delete it in case of success
+	 * 
+	 * @param file
+	 *            the archive file
+	 * @return true if successful, false otherwise
+	 */
+	public boolean processArchive( File file )
+	{
+		try
+		{
+			String xmlFile = process( file );
+			if ( xmlFile != null )
+			{
+				if ( new File( xmlFile ).exists() )
 				{
-					log.error( "Failed to process file "
-							+ file.getName() );
+					// in case of success ... delete archive
+					file.delete();
 				}
-    		}
-    		catch ( Exception e )
-    		{
-    			log.error( "Failed to query new data from mesurement table. Reason: "
-    					+ e.getMessage() );
-    		}
-    		finally
-    		{
-    		}
-        }
-        
-		log.info( "Processed " + cnt + " archives!" );
+				log.info( "Successfully processed archive: " + file.getName() );
+				return true;
+			}
+			log.error( "Failed to process file " + file.getName() );
+		}
+		catch ( Exception e )
+		{
+			log.error( "Failed to process file " + file.getName()
+					+ ". Reason: " + e.getMessage() );
+		}
+		return false;
 	}
 
 	/**
@@ -140,7 +176,7 @@ public class ArchiveProcessor implements Runnable
 
 		if ( "octet-stream".equals( format ) )
 		{
-			// decrypt rsa encrypted archives
+			// decrypt hybrid or rsa encrypted archives
 			String newArchiveFile = decrypt( archiveFile );
 			archiveFile = newArchiveFile;
 		}
@@ -193,46 +229,26 @@ public class ArchiveProcessor implements Runnable
 		// store path as return value
 		String rawDataPath = dir.getPath();
 
-		// extract files
-		File archive = new File( archiveFile );
-		ArchiveContent content = ArchiveContent.createFromArchive( archive,
-				rawDataPath );
+		// extract files and stream the serialized raw data
+		path.append( File.separatorChar );
+		path.append( SDCFRawData.FILE_NAME );
+		String xmlFile = path.toString();
+		boolean success = ArchiveContent.writeRawData( new File( archiveFile ),
+				rawDataPath, new File( xmlFile ) );
 
 		// clean up temporary files
-		File tmpFile = new File( rawFileName + ".tmp" );
+		File tmpFile = new File( rawFileName + TMP_SUFFIX );
 		if ( tmpFile.exists() )
 		{
 			tmpFile.delete();
 		}
 
-		if ( content != null )
-		{
-			// store serialized raw data
-			path.append( File.separatorChar );
-			path.append( SDCFRawData.FILE_NAME );
-			SDCFRawData rawData = content.getRawData();
-			String xmlFile = path.toString();
-			try
-			{
-				if ( FileUtils.writeToTextFile( SDCFRawData.toXML( rawData ),
-						xmlFile ) )
-				{
-					return xmlFile;
-				}
-				log.debug( "Failed to store serialized raw data to \""
-						+ xmlFile + "\". Reason: IO Error" );
-			}
-			catch ( Exception e )
-			{
-				log.debug( "Failed to store serialized raw data to \""
-						+ xmlFile + "\". Reason: " + e.getMessage() );
-			}
-		}
-		else
+		if ( success )
 		{
-			log.debug( "Failed to extract archive content to \"" + rawDataPath
-					+ "\"" );
+			return xmlFile;
 		}
+		log.debug( "Failed to extract archive content to \"" + rawDataPath
+				+ "\"" );
 		return null;
 	}
 
@@ -248,11 +264,33 @@ public class ArchiveProcessor implements Runnable
 		
 		String filename = archiveFile.substring( 0,
 				archiveFile.lastIndexOf( '.' ) );
-		String decryptedFile = filename + ".tmp";
+		String decryptedFile = filename + TMP_SUFFIX;
+		File srcFile = new File( archiveFile );
 		File destFile = new File( decryptedFile );
 
-		if ( key != null &&
-				Encryption.decryptRSA( key, new File( archiveFile ), destFile ) )
+		boolean success = false;
+		if ( key != null )
+		{
+			if ( HybridDecryption.isHybridEncrypted( srcFile ) )
+			{
+				try
+				{
+					HybridDecryption.decrypt( key, srcFile, destFile );
+					success = true;
+				}
+				catch ( Exception e )
+				{
+					log.error( "Hybrid decryption failed for file \""
+							+ archiveFile + "\". Reason: " + e.getMessage() );
+				}
+			}
+			else
+			{
+				success = Encryption.decryptRSA( key, srcFile, destFile );
+			}
+		}
+
+		if ( success )
 		{
 			log.debug( "Decryption of file \"" + archiveFile + "\" done." );
 		}
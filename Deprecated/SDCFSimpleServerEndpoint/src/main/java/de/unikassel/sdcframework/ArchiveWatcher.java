@@ -0,0 +1,223 @@
+package de.unikassel.sdcframework;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Event driven dispatcher of uploaded archives to the archive processor. <br/>
+ * <br/>
+ * The working directory is watched for new archives ( the UploadServlet does
+ * rename complete uploads, see {@link ArchiveProcessor#UPLOAD_SUFFIX} ). The
+ * archives are processed by a pool of single threaded workers, the archives of
+ * a device are always assigned to the same worker, which keeps their upload
+ * order while archives of different devices are processed in parallel. A
+ * directory scan does pick up archives left from the last run, missed events
+ * and failed archives.
+ * 
+ * @author Katy Hilgenberg
+ * 
+ */
+public class ArchiveWatcher implements Runnable
+{
+	/**
+	 * The log helper class
+	 */
+	private final LogUtil log;
+
+	/**
+	 * The archive processor
+	 */
+	private final ArchiveProcessor processor;
+
+	/**
+	 * The watch service for the working directory
+	 */
+	private final WatchService watchService;
+
+	/**
+	 * The single threaded workers
+	 */
+	private final ExecutorService[] workers;
+
+	/**
+	 * The paths of the archives queued or in process
+	 */
+	private final Set< String > pending = Collections
+			.newSetFromMap( new ConcurrentHashMap< String, Boolean >() );
+
+	/**
+	 * Constructor
+	 * 
+	 * @param processor
+	 *            the archive processor
+	 * @param cntWorkers
+	 *            the count of worker threads
+	 * @throws IOException
+	 *             if the working directory can not be watched
+	 */
+	public ArchiveWatcher( ArchiveProcessor processor, int cntWorkers )
+			throws IOException
+	{
+		if ( cntWorkers < 1 )
+		{
+			throw new IllegalArgumentException( "invalid worker count!" );
+		}
+		this.log = new LogUtil( this.getClass() );
+		this.processor = processor;
+		this.watchService = FileSystems.getDefault().newWatchService();
+		processor.getWorkdir().toPath().register( watchService,
+				StandardWatchEventKinds.ENTRY_CREATE );
+		this.workers = new ExecutorService[ cntWorkers ];
+		for ( int i = 0; i < cntWorkers; ++i )
+		{
+			workers[ i ] = Executors.newSingleThreadExecutor();
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.lang.Runnable#run()
+	 */
+	@Override
+	public void run()
+	{
+		Path dir = processor.getWorkdir().toPath();
+		scan();
+		try
+		{
+			while ( true )
+			{
+				WatchKey key = watchService.take();
+				for ( WatchEvent< ? > event : key.pollEvents() )
+				{
+					if ( event.kind() == StandardWatchEventKinds.OVERFLOW )
+					{
+						scan();
+					}
+					else
+					{
+						Path name = (Path) event.context();
+						submit( dir.resolve( name ).toFile() );
+					}
+				}
+				if ( !key.reset() )
+				{
+					log.error( "Working directory is no longer accessible" );
+					break;
+				}
+			}
+		}
+		catch ( InterruptedException e )
+		{
+			Thread.currentThread().interrupt();
+		}
+		catch ( ClosedWatchServiceException e )
+		{
+			// closed
+		}
+	}
+
+	/**
+	 * Does submit all archives of the working directory in upload order
+	 */
+	public void scan()
+	{
+		File[] files = processor.getWorkdir().listFiles();
+		if ( files == null )
+			return;
+		Arrays.sort( files, new Comparator< File >()
+		{
+			@Override
+			public int compare( File f1, File f2 )
+			{
+				long diff = f1.lastModified() - f2.lastModified();
+				return diff < 0 ? -1 : ( diff > 0 ? 1 : f1.getName()
+						.compareTo( f2.getName() ) );
+			}
+		} );
+		for ( File file : files )
+		{
+			submit( file );
+		}
+	}
+
+	/**
+	 * Does submit an archive to the worker of its device, archives already
+	 * queued or in process are ignored
+	 * 
+	 * @param file
+	 *            the archive file
+	 */
+	private void submit( final File file )
+	{
+		if ( !ArchiveProcessor.isArchive( file )
+				|| !pending.add( file.getAbsolutePath() ) )
+			return;
+
+		int worker = ( ArchiveProcessor.getDeviceId( file ).hashCode() & 0x7fffffff )
+				% workers.length;
+		workers[ worker ].execute( new Runnable()
+		{
+			@Override
+			public void run()
+			{
+				try
+				{
+					// the file may be processed by an earlier event already
+					if ( file.exists() )
+					{
+						processor.processArchive( file );
+					}
+				}
+				finally
+				{
+					pending.remove( file.getAbsolutePath() );
+				}
+			}
+		} );
+	}
+
+	/**
+	 * Does stop watching and waits for the running archive processing
+	 */
+	public void close()
+	{
+		try
+		{
+			watchService.close();
+		}
+		catch ( IOException e )
+		{}
+		for ( ExecutorService worker : workers )
+		{
+			worker.shutdown();
+		}
+		try
+		{
+			for ( ExecutorService worker : workers )
+			{
+				worker.awaitTermination( 60, TimeUnit.SECONDS );
+			}
+		}
+		catch ( InterruptedException e )
+		{
+			Thread.currentThread().interrupt();
+		}
+	}
+}
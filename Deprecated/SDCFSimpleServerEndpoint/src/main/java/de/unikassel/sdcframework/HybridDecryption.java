@@ -0,0 +1,230 @@
+package de.unikassel.sdcframework;
+
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.MessageDigest;
+import java.security.PrivateKey;
+
+import javax.crypto.Cipher;
+import javax.crypto.Mac;
+import javax.crypto.spec.IvParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * Streaming decryption of hybrid encrypted archives ( AES session key wrapped
+ * with the public RSA key, compare
+ * de.unikassel.android.sdcframework.util.facade.Encryption#encryptHybrid of
+ * the framework library version 1.3.4 ). <br/>
+ * <br/>
+ * File format: magic "SDCH", version byte, wrapped key length ( 2 bytes ),
+ * wrapped session keys, initialization vector, AES/CTR cipher text,
+ * HMAC-SHA256 over all preceding bytes.
+ *
+ * @author Katy Hilgenberg
+ *
+ */
+public final class HybridDecryption
+{
+	/**
+	 * The magic bytes at the start of hybrid encrypted files
+	 */
+	private static final byte[] MAGIC = { 'S', 'D', 'C', 'H' };
+
+	/**
+	 * The supported file format version
+	 */
+	private static final int VERSION = 1;
+
+	/**
+	 * The AES session key length in bytes
+	 */
+	private static final int AES_KEY_LENGTH = 16;
+
+	/**
+	 * The MAC session key length in bytes
+	 */
+	private static final int MAC_KEY_LENGTH = 32;
+
+	/**
+	 * The MAC length in bytes
+	 */
+	private static final int MAC_LENGTH = 32;
+
+	/**
+	 * The AES initialization vector length in bytes
+	 */
+	private static final int IV_LENGTH = 16;
+
+	/**
+	 * The buffer size for the stream decryption
+	 */
+	private static final int BUFFER_SIZE = 64 << 10;
+
+	/**
+	 * Constructor
+	 */
+	private HybridDecryption()
+	{}
+
+	/**
+	 * Test method for the hybrid file format
+	 *
+	 * @param file
+	 *            the file to test
+	 * @return true if the file starts with the hybrid file format header,
+	 *         false otherwise
+	 */
+	public static boolean isHybridEncrypted( File file )
+	{
+		byte[] header = new byte[ MAGIC.length + 1 ];
+		InputStream is = null;
+		try
+		{
+			is = new FileInputStream( file );
+			new DataInputStream( is ).readFully( header );
+			for ( int i = 0; i < MAGIC.length; ++i )
+			{
+				if ( header[ i ] != MAGIC[ i ] )
+					return false;
+			}
+			return header[ MAGIC.length ] == VERSION;
+		}
+		catch ( IOException e )
+		{
+			return false;
+		}
+		finally
+		{
+			close( is );
+		}
+	}
+
+	/**
+	 * Method to decrypt a hybrid encrypted file. The destination file is
+	 * deleted if the decryption fails or the MAC does not match.
+	 *
+	 * @param key
+	 *            the private key to unwrap the session keys
+	 * @param srcFile
+	 *            the encrypted source file
+	 * @param destFile
+	 *            the file to store decrypted data in
+	 * @throws Exception
+	 *             if decryption or authentication fails
+	 */
+	public static void decrypt( PrivateKey key, File srcFile, File destFile )
+			throws Exception
+	{
+		DataInputStream is = null;
+		OutputStream os = null;
+		boolean success = false;
+		try
+		{
+			is = new DataInputStream( new FileInputStream( srcFile ) );
+			byte[] magic = new byte[ MAGIC.length ];
+			is.readFully( magic );
+			int version = is.readUnsignedByte();
+			byte[] wrappedKeys = new byte[ is.readUnsignedShort() ];
+			is.readFully( wrappedKeys );
+			byte[] iv = new byte[ IV_LENGTH ];
+			is.readFully( iv );
+			if ( !MessageDigest.isEqual( magic, MAGIC ) || version != VERSION )
+			{
+				throw new IOException( "unknown file format" );
+			}
+			long headerLength = MAGIC.length + 3 + wrappedKeys.length
+					+ IV_LENGTH;
+			long cntRemaining = srcFile.length() - headerLength - MAC_LENGTH;
+			if ( cntRemaining < 0 )
+			{
+				throw new IOException( "file is truncated" );
+			}
+
+			// unwrap the session keys
+			Cipher rsaCipher = Cipher.getInstance( "RSA/ECB/PKCS1Padding" );
+			rsaCipher.init( Cipher.DECRYPT_MODE, key );
+			byte[] sessionKeys = rsaCipher.doFinal( wrappedKeys );
+			if ( sessionKeys.length != AES_KEY_LENGTH + MAC_KEY_LENGTH )
+			{
+				throw new IOException( "invalid session key" );
+			}
+
+			Cipher cipher = Cipher.getInstance( "AES/CTR/NoPadding" );
+			cipher.init( Cipher.DECRYPT_MODE, new SecretKeySpec( sessionKeys,
+					0, AES_KEY_LENGTH, "AES" ), new IvParameterSpec( iv ) );
+			Mac mac = Mac.getInstance( "HmacSHA256" );
+			mac.init( new SecretKeySpec( sessionKeys, AES_KEY_LENGTH,
+					MAC_KEY_LENGTH, "HmacSHA256" ) );
+
+			// authenticate the header as written by the encryption
+			mac.update( magic );
+			mac.update( (byte) version );
+			mac.update( (byte) ( wrappedKeys.length >> 8 ) );
+			mac.update( (byte) wrappedKeys.length );
+			mac.update( wrappedKeys );
+			mac.update( iv );
+
+			os = new FileOutputStream( destFile );
+			byte[] bytes = new byte[ BUFFER_SIZE ];
+			byte[] decBytes = new byte[ cipher.getOutputSize( BUFFER_SIZE ) ];
+			while ( cntRemaining > 0 )
+			{
+				int i = is.read( bytes, 0,
+						(int) Math.min( bytes.length, cntRemaining ) );
+				if ( i == -1 )
+				{
+					throw new IOException( "file is truncated" );
+				}
+				cntRemaining -= i;
+				mac.update( bytes, 0, i );
+				int cnt = cipher.update( bytes, 0, i, decBytes );
+				os.write( decBytes, 0, cnt );
+			}
+			int cnt = cipher.doFinal( decBytes, 0 );
+			os.write( decBytes, 0, cnt );
+			os.flush();
+
+			byte[] expectedMac = new byte[ MAC_LENGTH ];
+			is.readFully( expectedMac );
+			if ( !MessageDigest.isEqual( expectedMac, mac.doFinal() ) )
+			{
+				throw new SecurityException( "MAC verification failed" );
+			}
+			success = true;
+		}
+		finally
+		{
+			close( is );
+			close( os );
+			if ( !success && destFile.exists() )
+			{
+				destFile.delete();
+			}
+		}
+	}
+
+	/**
+	 * Does close a stream quietly
+	 *
+	 * @param stream
+	 *            the stream to close
+	 */
+	private static void close( Closeable stream )
+	{
+		if ( stream != null )
+		{
+			try
+			{
+				stream.close();
+			}
+			catch ( IOException e )
+			{}
+		}
+	}
+}
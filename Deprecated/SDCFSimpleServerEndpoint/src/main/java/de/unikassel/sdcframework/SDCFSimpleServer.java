@@ -1,6 +1,7 @@
 package de.unikassel.sdcframework;
 
 import java.io.File;
+import java.io.IOException;
 import java.net.URL;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
@@ -20,25 +21,51 @@ public class SDCFSimpleServer
 {
 	private static final int PORT = 8081;
 
+	/**
+	 * The interval of the working directory scans in minutes, which retry
+	 * failed archives
+	 */
+	private static final int SCAN_INTERVAL = 5;
+
 	/**
 	 * The archive processor
 	 */
 	private final ArchiveProcessor archiveProcessor;
 	
+	/**
+	 * The archive watcher
+	 */
+	private final ArchiveWatcher archiveWatcher;
+	
+	/**
+	 * The watcher thread
+	 */
+	private final Thread watcherThread;
+	
 	/**
 	 * The task executor
 	 */
 	private final ScheduledExecutorService executor;
 	
 	/**
-	 * The processor handle of the archive processing runnable
+	 * The processor handle of the directory scan runnable
 	 */
 	private final ScheduledFuture< ? > processorHandle;
 	
 	/**
 	 * Constructor
+	 * 
+	 * @param path
+	 *            the working directory path
+	 * @param keyFileName
+	 *            the rsa private key file, or null
+	 * @param cntWorkers
+	 *            the count of archive processing threads
+	 * @throws IOException
+	 *             if the working directory can not be watched
 	 */
-	public SDCFSimpleServer( String path, String keyFileName )
+	public SDCFSimpleServer( String path, String keyFileName, int cntWorkers )
+			throws IOException
 	{
 		super();
 		if ( keyFileName != null )
@@ -50,16 +77,37 @@ public class SDCFSimpleServer
 		{
 			archiveProcessor = new ArchiveProcessor( path );
 		}
+		archiveWatcher = new ArchiveWatcher( archiveProcessor, cntWorkers );
+		watcherThread = new Thread( archiveWatcher, "ArchiveWatcher" );
+		watcherThread.start();
 		executor = Executors.newSingleThreadScheduledExecutor();
-		processorHandle = executor.scheduleWithFixedDelay( archiveProcessor, 1, 15, TimeUnit.SECONDS );
+		processorHandle = executor.scheduleWithFixedDelay( new Runnable()
+		{
+			@Override
+			public void run()
+			{
+				archiveWatcher.scan();
+			}
+		}, SCAN_INTERVAL, SCAN_INTERVAL, TimeUnit.MINUTES );
 	}
 	
 	/**
 	 * Constructor
 	 */
-	public SDCFSimpleServer( String path )
+	public SDCFSimpleServer( String path ) throws IOException
+	{
+		this( path, null, Runtime.getRuntime().availableProcessors() );
+	}
+
+	/**
+	 * Does stop the archive processing
+	 */
+	public void stop()
 	{
-		this( path, null );
+		processorHandle.cancel( true );
+		executor.shutdown();
+		archiveWatcher.close();
+		watcherThread.interrupt();
 	}
 
 	/**
@@ -83,6 +131,11 @@ public class SDCFSimpleServer
 		opt.setArgs( 1 );
 		opt.setRequired( true );
 		options.addOption( opt );
+		opt = new Option( "t", "threads", false,
+				"the count of archive processing threads ( default: count of cores )" );
+		opt.setArgs( 1 );
+		opt.setRequired( false );
+		options.addOption( opt );
 
 		// Handle the command line parameters.
 		// start the post processing thread
@@ -96,6 +149,8 @@ public class SDCFSimpleServer
 
 			String keyFileName = cmd.getOptionValue( "key" );
 			String path = cmd.getOptionValue( "p" );
+			int cntWorkers = Integer.parseInt( cmd.getOptionValue( "t",
+					String.valueOf( Runtime.getRuntime().availableProcessors() ) ) );
 			
 			if( keyFileName != null && !new File( keyFileName ).exists() )
 			{
@@ -108,7 +163,7 @@ public class SDCFSimpleServer
 				try
 				{
 					// create the asynchrounous task
-					processor = new SDCFSimpleServer( path, keyFileName );
+					processor = new SDCFSimpleServer( path, keyFileName, cntWorkers );
 				}
 				catch ( Exception e )
 				{
@@ -150,7 +205,7 @@ public class SDCFSimpleServer
 		{
 			server.start();
 			server.join();
-			processor.processorHandle.cancel( true );
+			processor.stop();
 		}
 		catch ( Exception e )
 		{
@@ -80,9 +80,12 @@ public class UploadServlet extends HttpServlet
 			File dir = new File( filePath );
 			if ( ( dir.exists() && dir.isDirectory() ) || dir.mkdir() )
 			{
-				FileOutputStream out = new FileOutputStream(
-						new File( fileName ) );
+				// the archive processor does watch for complete archives only
+				File partFile = new File( fileName
+						+ ArchiveProcessor.UPLOAD_SUFFIX );
+				FileOutputStream out = new FileOutputStream( partFile );
 				ServletInputStream in = request.getInputStream();
+				boolean complete = false;
 				try
 				{
 					byte buffer[] = new byte[1024];
@@ -92,13 +95,23 @@ public class UploadServlet extends HttpServlet
 						out.write( buffer, 0, cnt );
 						cnt = in.read( buffer );
 					}
-					response.setStatus( HttpServletResponse.SC_OK );
+					complete = true;
 				}
 				finally
 				{
 					out.close();
 					in.close();
 				}
+				if ( complete && partFile.renameTo( new File( fileName ) ) )
+				{
+					response.setStatus( HttpServletResponse.SC_OK );
+				}
+				else
+				{
+					partFile.delete();
+					response.sendError( HttpServletResponse.SC_INTERNAL_SERVER_ERROR,
+							"Could not store " + fileName );
+				}
 			}
 		}
 		catch ( Exception e )
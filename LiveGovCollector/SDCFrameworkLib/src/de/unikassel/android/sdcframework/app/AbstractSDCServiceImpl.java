@@ -40,6 +40,7 @@ import de.unikassel.android.sdcframework.service.facade.ServiceManager;
 import de.unikassel.android.sdcframework.util.DefaultUncaughtExceptionHandler;
 import de.unikassel.android.sdcframework.util.LogfileManager;
 import de.unikassel.android.sdcframework.util.Logger;
+import de.unikassel.android.sdcframework.util.MetricsRegistry;
 
 /**
  * Abstract base class for the sticky SDCF service.
@@ -106,6 +107,15 @@ public abstract class AbstractSDCServiceImpl
       {
         getServiceManager().doTriggerSampleTransfer();
       }
+
+      /* (non-Javadoc)
+       * @see de.unikassel.android.sdcframework.app.facade.ISDCService#getMetrics()
+       */
+      @Override
+      public String getMetrics() throws RemoteException
+      {
+        return MetricsRegistry.getInstance().dump();
+      }
   };
   
   /**
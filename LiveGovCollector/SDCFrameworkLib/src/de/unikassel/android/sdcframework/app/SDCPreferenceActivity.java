@@ -539,6 +539,14 @@ public final class SDCPreferenceActivity extends PreferenceActivity
     encryptionCheckBox.setDefaultValue( transmissionPreference.getDefault().isEncryptionEnabled() );
     categoryPref.addPreference( encryptionCheckBox );
     
+    // create check box for sample deletion after upload
+    CheckBoxPreference deleteAfterUploadCheckBox = new CheckBoxPreference( this );
+    deleteAfterUploadCheckBox.setKey( transmissionPreference.getDeleteAfterUploadPreference().getKey() );
+    deleteAfterUploadCheckBox.setTitle( getText( R.string.titel_delete_after_upload_checkbox ) );
+    deleteAfterUploadCheckBox.setSummary( R.string.sum_delete_after_upload_checkbox );
+    deleteAfterUploadCheckBox.setDefaultValue( transmissionPreference.getDefault().isDeleteAfterUpload() );
+    categoryPref.addPreference( deleteAfterUploadCheckBox );
+    
     // create selection for transfer strategy type
     ListPreference listStrategies = new ListPreference( this );
     CharSequence[] strategyEntries =
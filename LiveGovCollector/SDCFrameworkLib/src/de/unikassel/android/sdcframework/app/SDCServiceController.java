@@ -47,6 +47,7 @@ import de.unikassel.android.sdcframework.service.ServiceUtils;
 import de.unikassel.android.sdcframework.util.LogEvent;
 import de.unikassel.android.sdcframework.util.LogfileManager;
 import de.unikassel.android.sdcframework.util.Logger;
+import de.unikassel.android.sdcframework.util.MetricsRegistry;
 import de.unikassel.android.sdcframework.util.facade.BroadcastableEvent;
 import de.unikassel.android.sdcframework.util.facade.EventObserver;
 import de.unikassel.android.sdcframework.util.facade.LogLevel;
@@ -58,7 +59,8 @@ import de.unikassel.android.sdcframework.util.facade.ObservableEventSource;
  * <ul>
  * <li>a view to start and stop the {@linkplain SDCServiceImpl},</li>
  * <li>an option menu to start the {@linkplain SDCPreferenceActivity preference
- * activity } for configuration,</li>
+ * activity } for configuration and to show the {@linkplain MetricsRegistry
+ * pipeline metrics},</li>
  * <li>and a text view to display {@linkplain LogEvent log event messages}.</li>
  * </ul>
  * 
@@ -295,9 +297,31 @@ public final class SDCServiceController
       result = onClearDB();
       
     }
+    else if ( itemId == R.id.showMetrics )
+    {
+      result = onShowMetrics();
+    }
     return result;
   }
   
+  /**
+   * Method to handle the selection of "show metrics" in the option menu. The
+   * controller runs in the service process, so the metrics are read from the
+   * registry directly.
+   * 
+   * @return true if successful, false otherwise
+   */
+  private boolean onShowMetrics()
+  {
+    String metrics = MetricsRegistry.getInstance().dump();
+    if ( metrics.length() == 0 )
+    {
+      metrics = getText( R.string.str_no_metrics ).toString();
+    }
+    showAlertMessage( this, metrics );
+    return true;
+  }
+  
   /**
    * Method to handle the selection of "clear database" in the option menu
    * 
@@ -26,6 +26,7 @@ import android.content.Context;
 import android.os.SystemClock;
 import de.unikassel.android.sdcframework.broadcast.facade.SampleBroadcastService;
 import de.unikassel.android.sdcframework.data.Sample;
+import de.unikassel.android.sdcframework.data.SampleChunker;
 import de.unikassel.android.sdcframework.data.SampleCollection;
 import de.unikassel.android.sdcframework.util.AbstractAsynchrounousSampleObserver;
 import de.unikassel.android.sdcframework.util.Logger;
@@ -35,6 +36,12 @@ import de.unikassel.android.sdcframework.util.Logger;
  * <br/>
  * This service can observe a sample event source, like the device manager, and
  * is broadcasting observed samples with the configured frequency to the system.
+ * <br/>
+ * <br/>
+ * The samples collected between two broadcasts are split into
+ * {@linkplain SampleCollection sample collections} of the configured maximum
+ * size in bytes, so large backlogs do not exceed the binder transaction limit
+ * ( exceeding broadcasts are lost silently ).
  * 
  * @see SampleBroadcastService
  * @see AbstractAsynchrounousSampleObserver
@@ -65,6 +72,11 @@ public class SampleBroadcastServiceImpl
    */
   private final AtomicLong lastExecutionTimeStamp;
   
+  /**
+   * The chunker for the cached samples
+   */
+  private final SampleChunker chunker;
+  
   /**
    * Constructor
    * 
@@ -74,12 +86,29 @@ public class SampleBroadcastServiceImpl
    *          the frequency
    */
   public SampleBroadcastServiceImpl( Context applicationContext, long frequency )
+  {
+    this( applicationContext, frequency, SampleChunker.DEFAULT_CHUNK_SIZE );
+  }
+  
+  /**
+   * Constructor
+   * 
+   * @param applicationContext
+   *          the application context
+   * @param frequency
+   *          the frequency
+   * @param chunkSize
+   *          the maximum size of a broadcast sample collection in bytes
+   */
+  public SampleBroadcastServiceImpl( Context applicationContext,
+      long frequency, int chunkSize )
   {
     super();
     this.applicationContext = applicationContext;
     this.frequencyWaitLock = new Object();
     this.frequency = new AtomicLong( frequency );
     this.lastExecutionTimeStamp = new AtomicLong();
+    this.chunker = new SampleChunker( chunkSize );
   }
   
   /*
@@ -133,6 +162,7 @@ public class SampleBroadcastServiceImpl
         // -> backward compatibility
         Sample sample = collector.dequeue();
         applicationContext.sendBroadcast( sample.getIntent() );
+        sample.release();
       }
       else
       {
@@ -170,7 +200,46 @@ public class SampleBroadcastServiceImpl
     SampleCollection sc = new SampleCollection();
     if ( collector.dequeue( sc, collector.getEventCount() ) > 0 )
     {
-      applicationContext.sendBroadcast( sc.getIntent() );
+      int cntFailed = 0;
+      for ( Sample sample : sc )
+      {
+        try
+        {
+          broadcastChunk( chunker.add( sample ) );
+        }
+        catch ( Exception e )
+        {
+          sample.release();
+          ++cntFailed;
+        }
+      }
+      broadcastChunk( chunker.flush() );
+      
+      if ( cntFailed > 0 )
+      {
+        Logger.getInstance().warning( this,
+            "{} samples not broadcasted, encoding failed", cntFailed );
+      }
+    }
+  }
+  
+  /**
+   * Method to broadcast a completed chunk of samples
+   * 
+   * @param chunk
+   *          the chunk to broadcast, can be null
+   */
+  private void broadcastChunk( SampleCollection chunk )
+  {
+    if ( chunk == null )
+      return;
+    
+    applicationContext.sendBroadcast( chunk.getIntent() );
+    
+    // the samples are parceled by now
+    for ( Sample sample : chunk )
+    {
+      sample.release();
     }
   }
   
@@ -192,6 +261,19 @@ public class SampleBroadcastServiceImpl
     }
   }
   
+  /*
+   * (non-Javadoc)
+   * 
+   * @see
+   * de.unikassel.android.sdcframework.broadcast.facade.SampleBroadcastService
+   * #updateChunkSize(int)
+   */
+  @Override
+  public synchronized void updateChunkSize( int chunkSize )
+  {
+    chunker.setMaxChunkSize( chunkSize );
+  }
+  
   /**
    * Method to signal frequency changes
    */
@@ -48,4 +48,13 @@ public interface SampleBroadcastService
    *          the new frequency value
    */
   void updateFrequency( long frequency );
+  
+  /**
+   * Method to update the maximum size of a broadcast sample collection in
+   * bytes. Collected samples exceeding it are broadcasted in several chunks.
+   * 
+   * @param chunkSize
+   *          the new maximum chunk size value
+   */
+  void updateChunkSize( int chunkSize );
 }
@@ -34,8 +34,10 @@ import org.simpleframework.xml.Root;
  * overrun ( database is full ),</li>
  * <li>the parameters of the sample deletion strategy ( count of samples to
  * delete and the flag for preferred deletion of lowest priority samples ),</li>
- * <li>and the parameter of the wait strategy ( the time to wait in milliseconds
- * ).</li>
+ * <li>the parameter of the wait strategy ( the time to wait in milliseconds
+ * ),</li>
+ * <li>and the flag for the storage of known sensor samples in typed sensor
+ * tables.</li>
  * </ul>
  * 
  * @see SDCConfiguration
@@ -81,6 +83,13 @@ public final class DatabaseConfigurationEntry
   @Element( name = "dbFullStrategy", required = false )
   private String dbFullStrategy;
   
+  /**
+   * The flag which is indicating that samples of known sensor types are stored
+   * in typed sensor tables.
+   */
+  @Element( name = "typedTables", required = false )
+  private Boolean isUsingTypedTables;
+  
   /**
    * Constructor
    */
@@ -134,6 +143,29 @@ public final class DatabaseConfigurationEntry
     return isDBFullDeletionPriorityBased;
   }
   
+  /**
+   * Setter for the flag which is indicating that samples of known sensor types
+   * are stored in typed sensor tables.
+   * 
+   * @param isUsingTypedTables
+   *          the flag to set
+   */
+  public final void setUsingTypedTables( Boolean isUsingTypedTables )
+  {
+    this.isUsingTypedTables = isUsingTypedTables;
+  }
+  
+  /**
+   * Getter for the flag which is indicating that samples of known sensor types
+   * are stored in typed sensor tables.
+   * 
+   * @return true if typed sensor tables are used
+   */
+  public final Boolean isUsingTypedTables()
+  {
+    return isUsingTypedTables;
+  }
+  
   /**
    * Setter for the record count to delete in case of database full and deletion
    * strategy is executed.
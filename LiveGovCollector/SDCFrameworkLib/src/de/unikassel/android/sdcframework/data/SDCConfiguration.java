@@ -53,7 +53,8 @@ import de.unikassel.android.sdcframework.data.independent.SerializableData;
  * &lt;sensor id="Bluetooth" enabled="true" frequency="60000" prio="Level3"/&gt;<br/>
  * &lt;sensor id="Wifi" enabled="true" frequency="60000" prio="Level2"/&gt;<br/>
  * &lt;sensor id="GPS" enabled="true" frequency="120000" prio="Level1"/&gt;<br/>
- * &lt;sensor id="GSM" enabled="true" frequency="60000" prio="Level0"/&gt;
+ * &lt;sensor id="GSM" enabled="true" frequency="60000" prio="Level0"&gt;
+ * &lt;filter duplicates="true"/&gt; &lt;/sensor&gt;
  * </blockquote> &lt;/sensors&gt;<br/>
  * <br/>
  * <font color="#008000"> &lt;!-- flag to indicate if sample broadcasting is
@@ -64,6 +65,15 @@ import de.unikassel.android.sdcframework.data.independent.SerializableData;
  * added to each sample --&gt; </font><br/>
  * &lt;addSampleLocation&gt;true&lt;/addSampleLocation&gt;<br/>
  * <br/>
+ * <font color="#008000"> &lt;!-- the optional capacity of the sample queue
+ * between the sensor scanners and the sample consumers ( default is 8192 )
+ * --&gt; </font><br/>
+ * &lt;sampleQueueCapacity&gt;8192&lt;/sampleQueueCapacity&gt;<br/>
+ * <br/>
+ * <font color="#008000"> &lt;!-- the optional maximum size of a broadcast
+ * sample collection in bytes ( default is 131072 ) --&gt; </font><br/>
+ * &lt;broadcastChunkSize&gt;131072&lt;/broadcastChunkSize&gt;<br/>
+ * <br/>
  * <font color="#008000"> &lt;!-- flag to indicate if samples shall be stored
  * for transmission --&gt; </font><br/>
  * &lt;storeSamples&gt;true&lt;/storeSamples&gt;<br/>
@@ -99,7 +109,12 @@ import de.unikassel.android.sdcframework.data.independent.SerializableData;
  * for lower priorities first by the sample deletion strategy ( if true the
  * oldest samples with the lowest priority will be selected first for deletion,
  * otherwise just the oldest samples ) --&gt; </font><br/>
- * &lt;delStrategyUsePrio&gt;true&lt;/delStrategyUsePrio&gt; </blockquote>
+ * &lt;delStrategyUsePrio&gt;true&lt;/delStrategyUsePrio&gt;<br/>
+ * <br/>
+ * <font color="#008000"> &lt;!-- the optional flag indicating if samples of
+ * known sensor types are stored in typed sensor tables ( default is false )
+ * --&gt; </font><br/>
+ * &lt;typedTables&gt;false&lt;/typedTables&gt; </blockquote>
  * &lt;/dbConfig&gt;<br/>
  * <br/>
  * <font color="#008000"> &lt;!-- the transmission configuration section --&gt;
@@ -120,6 +135,10 @@ import de.unikassel.android.sdcframework.data.independent.SerializableData;
  * --&gt; </font><br/>
  * &lt;archiveType&gt;zip&lt;/archiveType&gt;<br/>
  * <br/>
+ * <font color="#008000"> &lt;!-- flag to keep samples in the database until
+ * the upload is acknowledged ( default is false ) --&gt; </font><br/>
+ * &lt;deleteAfterUpload&gt;false&lt;/deleteAfterUpload&gt;<br/>
+ * <br/>
  * &lt;protocolConfig&gt;<blockquote> <font color="#008000"> &lt;!-- the URL to
  * transfer files to --&gt; </font><br/>
  * &lt;url&gt;http://localhost&lt;/url&gt;<br/>
@@ -171,6 +190,18 @@ public final class SDCConfiguration implements SerializableData
   @Element( name = "broadcastFrequency", required = false )
   private Long broadcastFrequency;
   
+  /**
+   * The capacity of the sample queue
+   */
+  @Element( name = "sampleQueueCapacity", required = false )
+  private Integer sampleQueueCapacity;
+  
+  /**
+   * The maximum size of a broadcast sample collection in bytes
+   */
+  @Element( name = "broadcastChunkSize", required = false )
+  private Integer broadcastChunkSize;
+  
   /**
    * The flag for the sampling enabled state
    */
@@ -310,6 +341,48 @@ public final class SDCConfiguration implements SerializableData
     this.broadcastFrequency = broadcastFrequency;
   }
   
+  /**
+   * Getter for the sample queue capacity
+   * 
+   * @return the sample queue capacity
+   */
+  public Integer getSampleQueueCapacity()
+  {
+    return sampleQueueCapacity;
+  }
+  
+  /**
+   * Setter for the sample queue capacity
+   * 
+   * @param sampleQueueCapacity
+   *          the sample queue capacity to set
+   */
+  public void setSampleQueueCapacity( Integer sampleQueueCapacity )
+  {
+    this.sampleQueueCapacity = sampleQueueCapacity;
+  }
+  
+  /**
+   * Getter for the maximum size of a broadcast sample collection
+   * 
+   * @return the maximum broadcast chunk size in bytes
+   */
+  public Integer getBroadcastChunkSize()
+  {
+    return broadcastChunkSize;
+  }
+  
+  /**
+   * Setter for the maximum size of a broadcast sample collection
+   * 
+   * @param broadcastChunkSize
+   *          the maximum broadcast chunk size in bytes to set
+   */
+  public void setBroadcastChunkSize( Integer broadcastChunkSize )
+  {
+    this.broadcastChunkSize = broadcastChunkSize;
+  }
+  
   /**
    * Setter for the isSamplingEnabled flag
    * 
@@ -20,6 +20,8 @@
  */
 package de.unikassel.android.sdcframework.data;
 
+import java.util.concurrent.atomic.AtomicInteger;
+
 import org.simpleframework.xml.Root;
 
 import android.content.Intent;
@@ -28,11 +30,14 @@ import android.os.Parcelable;
 
 import de.unikassel.android.sdcframework.data.independent.AccelerometerSampleData;
 import de.unikassel.android.sdcframework.data.independent.BasicSample;
+import de.unikassel.android.sdcframework.data.independent.BinarySerializer;
 import de.unikassel.android.sdcframework.data.independent.BluetoothSampleData;
 import de.unikassel.android.sdcframework.data.independent.GPSSampleData;
 import de.unikassel.android.sdcframework.data.independent.GSMSampleData;
 import de.unikassel.android.sdcframework.data.independent.GeoLocation;
+import de.unikassel.android.sdcframework.data.independent.ObjectPool;
 import de.unikassel.android.sdcframework.data.independent.SampleData;
+import de.unikassel.android.sdcframework.data.independent.SampleDataPool;
 import de.unikassel.android.sdcframework.data.independent.WifiSampleData;
 import de.unikassel.android.sdcframework.devices.facade.SensorDeviceIdentifier;
 import de.unikassel.android.sdcframework.util.facade.BroadcastableEvent;
@@ -42,7 +47,13 @@ import de.unikassel.android.sdcframework.util.facade.ObservableEvent;
  * Implementation of the sensor device sample used inside of the framework. <br/>
  * <br/>
  * A sensor device sample is observable, parcelable and broadcastable. It does
- * extend the {@linkplain BasicSample pure Java sample representation}.
+ * extend the {@linkplain BasicSample pure Java sample representation}. <br/>
+ * <br/>
+ * Samples taken from the pool by {@link #obtain()} are reference counted. Each
+ * component holding such a sample beyond the notification call has to
+ * {@link #retain()} it and to {@link #release()} it when done. The sample, its
+ * data and its location are recycled when the last reference is released. For
+ * samples created by a constructor both methods have no effect.
  * 
  * @see SampleData
  * @see GSMSampleData
@@ -84,6 +95,27 @@ public final class Sample
     }
   };
   
+  /**
+   * The maximum count of pooled samples
+   */
+  public static final int POOL_SIZE = 256;
+  
+  /**
+   * The sample pool
+   */
+  private static final ObjectPool< Sample > pool =
+      new ObjectPool< Sample >( POOL_SIZE );
+  
+  /**
+   * The reference count of a pooled sample
+   */
+  private final AtomicInteger refCount = new AtomicInteger();
+  
+  /**
+   * Flag if the sample was taken from the pool
+   */
+  private volatile boolean pooled;
+  
   /**
    * Constructor
    */
@@ -92,6 +124,64 @@ public final class Sample
     super();
   }
   
+  /**
+   * Method to take a sample from the pool. The caller does hold the only
+   * reference of the returned sample.
+   * 
+   * @return a recycled or new sample
+   */
+  public static Sample obtain()
+  {
+    Sample sample = pool.obtain();
+    if ( sample == null )
+    {
+      sample = new Sample();
+    }
+    sample.refCount.set( 1 );
+    sample.pooled = true;
+    return sample;
+  }
+  
+  /**
+   * Method to add a reference to a pooled sample
+   */
+  public final void retain()
+  {
+    if ( pooled )
+    {
+      refCount.incrementAndGet();
+    }
+  }
+  
+  /**
+   * Method to release a reference to a pooled sample. The sample is recycled
+   * when the last reference is released and must not be used afterwards.
+   */
+  public final void release()
+  {
+    if ( pooled && refCount.decrementAndGet() == 0 )
+    {
+      pooled = false;
+      SampleDataPool.recycle( getData() );
+      SampleDataPool.recycle( getLocation() );
+      setData( null );
+      setLocation( null );
+      setDeviceIdentifier( null );
+      pool.recycle( this );
+    }
+  }
+  
+  /**
+   * Test method for pooled samples
+   * 
+   * @return true if the sample was taken from the pool and is not recycled
+   *         yet, false otherwise
+   */
+  public final boolean isPooled()
+  {
+    return pooled;
+  }
+  
   /**
    * Constructor
    * 
@@ -186,20 +276,12 @@ public final class Sample
    */
   private void readFromParcel( Parcel source )
   {
-    setDeviceIdentifier( source.readString() );
-    setTimeStamp( source.readLong() );
-    setPriority( source.readInt() );
-    setTimeSynced( source.readByte() == 1 );
-    boolean hasGeoLocation = source.readByte() == 1;
-    if ( hasGeoLocation )
+    try
     {
-      GeoLocation location = new GeoLocation();
-      location.setLat( source.readDouble() );
-      location.setLon( source.readDouble() );
-      setLocation( location );
+      BinarySerializer.sampleFromBytes( source.createByteArray(), this );
     }
-    String className = source.readString();
-    setDataFromXML( className, source.readString() );
+    catch ( Exception e )
+    {}
   }
   
   /*
@@ -210,26 +292,14 @@ public final class Sample
   @Override
   public void writeToParcel( Parcel dest, int flags )
   {
-    dest.writeString( getDeviceIdentifier() );
-    dest.writeLong( getTimeStamp() );
-    dest.writeInt( getPriority() );
-    dest.writeByte( (byte) ( isTimeSynced() ? 1 : 0 ) );
-    
-    GeoLocation location = getLocation();
-    dest.writeByte( (byte) ( location != null ? 1 : 0 ) );
-    if ( location != null )
-    {
-      dest.writeDouble( location.getLat() );
-      dest.writeDouble( location.getLon() );
-    }
-    
+    byte[] bytes = null;
     try
     {
-      dest.writeString( getData().getClass().getName() );
-      dest.writeString( getData().toXML() );
+      bytes = BinarySerializer.sampleToBytes( this );
     }
     catch ( Exception e )
     {}
+    dest.writeByteArray( bytes );
   }
   
   /*
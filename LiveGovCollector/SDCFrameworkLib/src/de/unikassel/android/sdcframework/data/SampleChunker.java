@@ -0,0 +1,173 @@
+/*
+ * Copyright (C) 2012, Katy Hilgenberg.
+ * Special acknowledgments to: Knowledge & Data Engineering Group, University of Kassel (http://www.kde.cs.uni-kassel.de).
+ * Contact: sdcf@cs.uni-kassel.de
+ *
+ * This file is part of the SDCFramework (Sensor Data Collection Framework) project.
+ *
+ * The SDCFramework is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The SDCFramework is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the SDCFramework.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.unikassel.android.sdcframework.data;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+
+import de.unikassel.android.sdcframework.data.independent.BinarySerializer;
+
+/**
+ * Helper class to split samples into {@linkplain SampleCollection sample
+ * collections} of a limited size for transport. <br/>
+ * <br/>
+ * Each added sample is encoded once in the compact
+ * {@linkplain BinarySerializer binary encoding}, the resulting chunks do carry
+ * the encoding for parceling. A chunk is completed as soon as the next sample
+ * would exceed the maximum chunk size, a single sample larger than the maximum
+ * does form a chunk of its own. <br/>
+ * <br/>
+ * The class is not thread safe.
+ * 
+ * @see SampleCollection
+ * @author Katy Hilgenberg
+ * 
+ */
+public final class SampleChunker
+{
+  /**
+   * The default maximum chunk size in bytes, well below the binder transaction
+   * buffer limit of 1 MB which is shared by all transactions of a process
+   */
+  public static final int DEFAULT_CHUNK_SIZE = 128 * 1024;
+  
+  /**
+   * The minimum chunk size in bytes
+   */
+  public static final int MIN_CHUNK_SIZE = 1024;
+  
+  /**
+   * The encoding of the samples of the current chunk
+   */
+  private final ByteArrayOutputStream chunkBuffer;
+  
+  /**
+   * The encoding of the sample to add
+   */
+  private final ByteArrayOutputStream sampleBuffer;
+  
+  /**
+   * The data output for the sample encoding
+   */
+  private final DataOutputStream sampleOut;
+  
+  /**
+   * The samples of the current chunk
+   */
+  private SampleCollection chunk;
+  
+  /**
+   * The maximum chunk size in bytes
+   */
+  private int maxChunkSize;
+  
+  /**
+   * Constructor
+   * 
+   * @param maxChunkSize
+   *          the maximum chunk size in bytes
+   */
+  public SampleChunker( int maxChunkSize )
+  {
+    super();
+    this.chunkBuffer = new ByteArrayOutputStream( 4096 );
+    this.sampleBuffer = new ByteArrayOutputStream( 256 );
+    this.sampleOut = new DataOutputStream( sampleBuffer );
+    this.chunk = new SampleCollection();
+    setMaxChunkSize( maxChunkSize );
+  }
+  
+  /**
+   * Setter for the maximum chunk size, applies to the next added sample
+   * 
+   * @param maxChunkSize
+   *          the maximum chunk size in bytes ( at least
+   *          {@link #MIN_CHUNK_SIZE} )
+   */
+  public final void setMaxChunkSize( int maxChunkSize )
+  {
+    this.maxChunkSize = Math.max( maxChunkSize, MIN_CHUNK_SIZE );
+  }
+  
+  /**
+   * Getter for the maximum chunk size
+   * 
+   * @return the maximum chunk size in bytes
+   */
+  public final int getMaxChunkSize()
+  {
+    return maxChunkSize;
+  }
+  
+  /**
+   * Method to add a sample to the current chunk
+   * 
+   * @param sample
+   *          the sample to add
+   * @return the completed previous chunk if the sample did not fit into it,
+   *         null otherwise
+   * @throws Exception
+   *           if the sample can not be encoded, it is not added in this case
+   */
+  public final SampleCollection add( Sample sample ) throws Exception
+  {
+    sampleBuffer.reset();
+    BinarySerializer.writeSample( sampleOut, sample );
+    sampleOut.flush();
+    
+    SampleCollection completed = null;
+    if ( !chunk.isEmpty()
+        && chunkBuffer.size() + sampleBuffer.size() > maxChunkSize )
+    {
+      completed = flush();
+    }
+    sampleBuffer.writeTo( chunkBuffer );
+    chunk.add( sample );
+    return completed;
+  }
+  
+  /**
+   * Method to complete the current chunk
+   * 
+   * @return the current chunk, or null if it is empty
+   */
+  public final SampleCollection flush()
+  {
+    if ( chunk.isEmpty() )
+      return null;
+    
+    SampleCollection completed = chunk;
+    completed.setEncodedSamples( chunkBuffer.toByteArray() );
+    chunk = new SampleCollection();
+    chunkBuffer.reset();
+    return completed;
+  }
+  
+  /**
+   * Getter for the sample count of the current chunk
+   * 
+   * @return the count of samples added since the last completed chunk
+   */
+  public final int getPendingCount()
+  {
+    return chunk.size();
+  }
+}
@@ -20,6 +20,10 @@
  */
 package de.unikassel.android.sdcframework.data;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
@@ -32,13 +36,19 @@ import android.content.Intent;
 import android.os.Parcel;
 import android.os.Parcelable;
 
+import de.unikassel.android.sdcframework.data.independent.BinarySerializer;
 import de.unikassel.android.sdcframework.data.independent.GlobalSerializer;
 import de.unikassel.android.sdcframework.util.Logger;
 import de.unikassel.android.sdcframework.util.facade.BroadcastableEvent;
 import de.unikassel.android.sdcframework.util.facade.ObservableEventCollection;
 
 /**
- * Implementation of a collection of {@linkplain Sample}s.
+ * Implementation of a collection of {@linkplain Sample}s. <br/>
+ * <br/>
+ * Parcels do contain the sample count and the samples in the compact
+ * {@linkplain BinarySerializer binary encoding} as one byte array. A collection
+ * created by the {@linkplain SampleChunker} does carry this encoding already,
+ * it is computed during parceling otherwise.
  * 
  * @author Katy Hilgenberg
  * 
@@ -83,6 +93,11 @@ public class SampleCollection
   @ElementList( name = "samples" )
   private List< Sample > samples;
   
+  /**
+   * The binary encoding of the samples if known in advance, null otherwise
+   */
+  private byte[] encodedSamples;
+  
   /**
    * Constructor
    */
@@ -100,7 +115,27 @@ public class SampleCollection
   public SampleCollection( Parcel source )
   {
     this.samples = new Vector< Sample >();
-    source.readList( this.samples, Sample.class.getClassLoader() );
+    int count = source.readInt();
+    byte[] bytes = source.createByteArray();
+    if ( bytes == null )
+      return;
+    
+    DataInputStream in =
+        new DataInputStream( new ByteArrayInputStream( bytes ) );
+    try
+    {
+      for ( int i = 0; i < count; ++i )
+      {
+        Sample sample = new Sample();
+        BinarySerializer.readSample( in, sample );
+        samples.add( sample );
+      }
+    }
+    catch ( Exception e )
+    {
+      Logger.getInstance().error( this,
+          "Failed to decode parceled samples: " + e.getMessage() );
+    }
   }
   
   /* (non-Javadoc)
@@ -109,7 +144,51 @@ public class SampleCollection
   @Override
   public void writeToParcel( Parcel dest, int flags )
   {
-    dest.writeList( samples );
+    byte[] bytes = encodedSamples;
+    if ( bytes == null )
+    {
+      try
+      {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream( buffer );
+        for ( Sample sample : samples )
+        {
+          BinarySerializer.writeSample( out, sample );
+        }
+        out.flush();
+        bytes = buffer.toByteArray();
+      }
+      catch ( Exception e )
+      {
+        Logger.getInstance().error( this,
+            "Failed to encode samples: " + e.getMessage() );
+      }
+    }
+    dest.writeInt( bytes != null ? samples.size() : 0 );
+    dest.writeByteArray( bytes );
+  }
+  
+  /**
+   * Setter for the binary encoding of the samples in advance
+   * 
+   * @param encodedSamples
+   *          the binary encoding of all samples of this collection in order
+   */
+  final void setEncodedSamples( byte[] encodedSamples )
+  {
+    this.encodedSamples = encodedSamples;
+  }
+  
+  /**
+   * Getter for the size of the binary encoding of the samples in advance
+   * 
+   * @return the size of the binary encoding in bytes, or -1 if the samples
+   *         are not encoded in advance
+   */
+  public final int getEncodedSize()
+  {
+    byte[] bytes = encodedSamples;
+    return bytes != null ? bytes.length : -1;
   }
   
   /**
@@ -121,6 +200,7 @@ public class SampleCollection
   public final void setSamples( List< Sample > samples )
   {
     this.samples = samples;
+    this.encodedSamples = null;
   }
   
   /**
@@ -138,6 +218,7 @@ public class SampleCollection
    */
   public void clear()
   {
+    encodedSamples = null;
     samples.clear();
   }
   
@@ -170,6 +251,7 @@ public class SampleCollection
   @Override
   public boolean add( Sample sample )
   {
+    encodedSamples = null;
     return samples.add( sample );
   }
   
@@ -181,6 +263,7 @@ public class SampleCollection
   @Override
   public boolean addAll( Collection< ? extends Sample > samples )
   {
+    encodedSamples = null;
     return this.samples.addAll( samples );
   }
   
@@ -236,6 +319,7 @@ public class SampleCollection
   @Override
   public boolean remove( Object object )
   {
+    encodedSamples = null;
     return samples.remove( object );
   }
   
@@ -247,6 +331,7 @@ public class SampleCollection
   @Override
   public boolean removeAll( Collection< ? > samples )
   {
+    encodedSamples = null;
     return this.samples.removeAll( samples );
   }
   
@@ -258,6 +343,7 @@ public class SampleCollection
   @Override
   public boolean retainAll( Collection< ? > samples )
   {
+    encodedSamples = null;
     return this.samples.retainAll( samples );
   }
   
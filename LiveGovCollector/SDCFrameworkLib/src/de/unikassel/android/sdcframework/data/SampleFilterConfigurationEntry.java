@@ -0,0 +1,203 @@
+/*
+ * Copyright (C) 2012, Katy Hilgenberg.
+ * Special acknowledgments to: Knowledge & Data Engineering Group, University of Kassel (http://www.kde.cs.uni-kassel.de).
+ * Contact: sdcf@cs.uni-kassel.de
+ *
+ * This file is part of the SDCFramework (Sensor Data Collection Framework) project.
+ *
+ * The SDCFramework is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The SDCFramework is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the SDCFramework.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.unikassel.android.sdcframework.data;
+
+import org.simpleframework.xml.Attribute;
+import org.simpleframework.xml.Root;
+
+/**
+ * A sample filter configuration does describe the filter stage between a
+ * sensor scanner and the sample consumers. <br/>
+ * <br/>
+ * The following filters can be configured, all of them are optional:
+ * <ul>
+ * <li>a deadband dropping numeric samples whose values all differ less than
+ * the configured threshold from the last forwarded sample,</li>
+ * <li>the duplicate suppression dropping samples with data identical to the
+ * previous sample, where the last sample of a run is forwarded when the data
+ * changes and a run is interrupted each time it reaches the optional maximum
+ * run length,</li>
+ * <li>and a windowed aggregator reducing the numeric samples of each time
+ * window to one sample holding the mean, the minimum or the maximum of the
+ * values ( compare
+ * {@linkplain de.unikassel.android.sdcframework.devices.facade.SampleAggregationTypes
+ * SampleAggregationTypes} ).</li>
+ * </ul>
+ * Examples: <br/>
+ * <blockquote> &lt;filter deadband="2.5"/&gt; <br/>
+ * &lt;filter duplicates="true" maxRun="120"/&gt; <br/>
+ * &lt;filter window="10000" aggregate="Mean"/&gt; </blockquote>
+ * 
+ * @see SensorConfigurationEntry
+ * @author Katy Hilgenberg
+ * 
+ */
+@Root( name = "filter" )
+public final class SampleFilterConfigurationEntry
+{
+  /**
+   * The deadband threshold for numeric sample values, 0 to disable the
+   * deadband
+   */
+  @Attribute( name = "deadband", required = false )
+  private float deadband;
+  
+  /**
+   * The flag to enable the duplicate suppression
+   */
+  @Attribute( name = "duplicates", required = false )
+  private boolean suppressDuplicates;
+  
+  /**
+   * The maximum count of suppressed duplicates in a run, 0 for unlimited runs
+   */
+  @Attribute( name = "maxRun", required = false )
+  private int maxRunLength;
+  
+  /**
+   * The aggregation window in milliseconds, 0 to disable the aggregation
+   */
+  @Attribute( name = "window", required = false )
+  private int window;
+  
+  /**
+   * The aggregation function which has to be a valid string representation of
+   * a
+   * {@linkplain de.unikassel.android.sdcframework.devices.facade.SampleAggregationTypes }
+   * enumeration value ( e.g.: "Mean" for SampleAggregationTypes.Mean )
+   */
+  @Attribute( name = "aggregate", required = false )
+  private String aggregation;
+  
+  /**
+   * Constructor
+   */
+  public SampleFilterConfigurationEntry()
+  {
+    super();
+  }
+  
+  /**
+   * Getter for the deadband threshold
+   * 
+   * @return the deadband threshold
+   */
+  public final float getDeadband()
+  {
+    return deadband;
+  }
+  
+  /**
+   * Setter for the deadband threshold
+   * 
+   * @param deadband
+   *          the deadband threshold to set
+   */
+  public final void setDeadband( float deadband )
+  {
+    this.deadband = deadband;
+  }
+  
+  /**
+   * Getter for the duplicate suppression flag
+   * 
+   * @return the duplicate suppression flag
+   */
+  public final boolean getSuppressDuplicates()
+  {
+    return suppressDuplicates;
+  }
+  
+  /**
+   * Setter for the duplicate suppression flag
+   * 
+   * @param suppressDuplicates
+   *          the duplicate suppression flag to set
+   */
+  public final void setSuppressDuplicates( boolean suppressDuplicates )
+  {
+    this.suppressDuplicates = suppressDuplicates;
+  }
+  
+  /**
+   * Getter for the maximum run length
+   * 
+   * @return the maximum run length
+   */
+  public final int getMaxRunLength()
+  {
+    return maxRunLength;
+  }
+  
+  /**
+   * Setter for the maximum run length
+   * 
+   * @param maxRunLength
+   *          the maximum run length to set
+   */
+  public final void setMaxRunLength( int maxRunLength )
+  {
+    this.maxRunLength = maxRunLength;
+  }
+  
+  /**
+   * Getter for the aggregation window
+   * 
+   * @return the aggregation window in milliseconds
+   */
+  public final int getWindow()
+  {
+    return window;
+  }
+  
+  /**
+   * Setter for the aggregation window
+   * 
+   * @param window
+   *          the aggregation window in milliseconds to set
+   */
+  public final void setWindow( int window )
+  {
+    this.window = window;
+  }
+  
+  /**
+   * Getter for the aggregation function
+   * 
+   * @return the aggregation function
+   */
+  public final String getAggregation()
+  {
+    return aggregation;
+  }
+  
+  /**
+   * Setter for the aggregation function
+   * 
+   * @param aggregation
+   *          the aggregation function to set
+   */
+  public final void setAggregation( String aggregation )
+  {
+    this.aggregation = aggregation;
+  }
+  
+}
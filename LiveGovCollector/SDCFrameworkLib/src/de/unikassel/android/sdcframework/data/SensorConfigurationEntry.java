@@ -21,6 +21,7 @@
 package de.unikassel.android.sdcframework.data;
 
 import org.simpleframework.xml.Attribute;
+import org.simpleframework.xml.Element;
 import org.simpleframework.xml.Root;
 
 /**
@@ -34,7 +35,11 @@ import org.simpleframework.xml.Root;
  * <blockquote> &lt;sensor id="Wifi" enabled="true" frequency="30000"
  * prio="Level2"/&gt; <br/>
  * &lt;sensor id="GSM"/&gt; <br/>
- * &lt;sensor id="Accelerometer" enabled="true" frequency="1000"/> </blockquote>
+ * &lt;sensor id="Accelerometer" enabled="true" frequency="1000"/> <br/>
+ * &lt;sensor id="Gyroscope" enabled="true" frequency="5000" batch="500"/> <br/>
+ * &lt;sensor id="Light" enabled="true" frequency="1000"&gt; &lt;filter
+ * deadband="5" duplicates="true"/&gt; &lt;/sensor&gt;
+ * </blockquote>
  * 
  * @see SDCConfiguration
  * @author Katy Hilgenberg
@@ -72,6 +77,21 @@ public final class SensorConfigurationEntry
   @Attribute( name = "prio", required = false )
   private String priority;
   
+  /**
+   * The count of raw sensor events per batch sample. A positive value does
+   * enable the raw event capture for Android sensor devices, each sample then
+   * holds all events received within the configured frequency or up to this
+   * count.
+   */
+  @Attribute( name = "batch", required = false )
+  private int batchSize;
+  
+  /**
+   * The optional filter stage for the sensor samples
+   */
+  @Element( name = "filter", required = false )
+  private SampleFilterConfigurationEntry filter;
+  
   /**
    * Constructor
    */
@@ -164,4 +184,46 @@ public final class SensorConfigurationEntry
     return priority;
   }
   
+  /**
+   * Setter for the batch size
+   * 
+   * @param batchSize
+   *          the batch size to set
+   */
+  public final void setBatchSize( int batchSize )
+  {
+    this.batchSize = batchSize;
+  }
+  
+  /**
+   * Getter for the batch size
+   * 
+   * @return the batch size
+   */
+  public final int getBatchSize()
+  {
+    return batchSize;
+  }
+  
+  /**
+   * Setter for the filter configuration
+   * 
+   * @param filter
+   *          the filter configuration to set
+   */
+  public final void setFilter( SampleFilterConfigurationEntry filter )
+  {
+    this.filter = filter;
+  }
+  
+  /**
+   * Getter for the filter configuration
+   * 
+   * @return the filter configuration or null if not configured
+   */
+  public final SampleFilterConfigurationEntry getFilter()
+  {
+    return filter;
+  }
+  
 }
@@ -33,7 +33,9 @@ import org.simpleframework.xml.Root;
  * <li>the {@link TransmissionProtocolConfigurationEntry configuration for the transmission protocol},
  * <li>a lower limit for the transmissions frequency in seconds,</li>
  * <li>the archive type ( jar or zip format ),</li>
- * <li>and the encryption flag (for rsa archive encryption).</li>
+ * <li>the encryption flag (for hybrid AES/RSA archive encryption),</li>
+ * <li>and the flag to keep samples in the database until the upload is
+ * acknowledged.</li>
  * </ul>
  * 
  * @author Katy Hilgenberg
@@ -73,6 +75,12 @@ public final class TransmissionConfigurationEntry
   @Element( name = "encrypt", required = false )
   private Boolean isEncryptionEnabled;
   
+  /**
+   * The flag to delete samples after the upload only
+   */
+  @Element( name = "deleteAfterUpload", required = false )
+  private Boolean isDeleteAfterUpload;
+  
   /**
    * The transmission protocol configuration
    */
@@ -211,4 +219,24 @@ public final class TransmissionConfigurationEntry
   {
     this.isEncryptionEnabled = isEncryptionEnabled;
   }  
+  
+  /**
+   * Getter for the delete after upload flag
+  
+   * @return the delete after upload flag
+   */
+  public Boolean getIsDeleteAfterUpload()
+  {
+    return isDeleteAfterUpload;
+  }
+  
+  /**
+   * Setter for the delete after upload flag
+  
+   * @param isDeleteAfterUpload the delete after upload flag to set
+   */
+  public void setIsDeleteAfterUpload( Boolean isDeleteAfterUpload )
+  {
+    this.isDeleteAfterUpload = isDeleteAfterUpload;
+  }
 }
@@ -49,6 +49,17 @@ public abstract class AbstractSampleData
     return doClone();
   }
   
+  /**
+   * Method to copy the sample data into an object taken from the
+   * {@link SampleDataPool}. Types without a pool do return a clone.
+   * 
+   * @return the copy
+   */
+  public SampleData obtainCopy()
+  {
+    return doClone();
+  }
+  
   /*
    * (non-Javadoc)
    * 
@@ -90,6 +90,25 @@ extends AbstractSampleData
     return new AccelerometerSampleData( this );
   }
   
+  /*
+   * (non-Javadoc)
+   * 
+   * @see
+   * de.unikassel.android.sdcframework.data.independent.AbstractSampleData#
+   * obtainCopy()
+   */
+  @Override
+  public final SampleData obtainCopy()
+  {
+    AccelerometerSampleData copy = SampleDataPool.obtain( AccelerometerSampleData.class );
+    if ( copy == null )
+      return doClone();
+    copy.setAccelerationX( getAccelerationX() );
+    copy.setAccelerationY( getAccelerationY() );
+    copy.setAccelerationZ( getAccelerationZ() );
+    return copy;
+  }
+  
   /*
    * (non-Javadoc)
    * 
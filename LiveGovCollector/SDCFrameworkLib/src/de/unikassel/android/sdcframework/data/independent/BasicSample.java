@@ -87,6 +87,13 @@ public class BasicSample implements SerializableData
   @Element( name = "location", required = false )
   private GeoLocation location;
   
+  /**
+   * The id of the associated location in the location track of a transmission
+   * archive, used instead of the location itself
+   */
+  @Attribute( name = "loc", required = false )
+  private Integer locationReference;
+  
   /**
    * Constructor
    */
@@ -331,6 +338,29 @@ public class BasicSample implements SerializableData
   {
     return location;
   }
+  
+  /**
+   * Setter for the location reference
+   * 
+   * @param locationReference
+   *          the id of the location in the {@linkplain LocationTrack location
+   *          track} or null for none
+   */
+  public void setLocationReference( Integer locationReference )
+  {
+    this.locationReference = locationReference;
+  }
+  
+  /**
+   * Getter for the location reference
+   * 
+   * @return the id of the location in the {@linkplain LocationTrack location
+   *         track} or null for none
+   */
+  public Integer getLocationReference()
+  {
+    return locationReference;
+  }
 
   /*
    * (non-Javadoc)
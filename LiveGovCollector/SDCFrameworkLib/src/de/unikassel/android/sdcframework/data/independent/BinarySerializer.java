@@ -0,0 +1,901 @@
+/*
+ * Copyright (C) 2012, Katy Hilgenberg.
+ * Special acknowledgments to: Knowledge & Data Engineering Group, University of Kassel (http://www.kde.cs.uni-kassel.de).
+ * Contact: sdcf@cs.uni-kassel.de
+ *
+ * This file is part of the SDCFramework (Sensor Data Collection Framework) project.
+ *
+ * The SDCFramework is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The SDCFramework is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the SDCFramework.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.unikassel.android.sdcframework.data.independent;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.Vector;
+
+/**
+ * The binary serializer is the compact counterpart of the
+ * {@linkplain GlobalSerializer} for the framework internal persistence and
+ * transport of sample data. <br/>
+ * <br/>
+ * Each encoded sample data starts with the {@link #FORMAT_VERSION format
+ * version} and a one byte type code, followed by the type specific field
+ * values. Sample data types without an own type code are written as class name
+ * and XML representation, so any {@linkplain SampleData} implementation can be
+ * encoded. <br/>
+ * <b>Important:</b> <br/>
+ * Type codes are part of the persistent format. New types have to be appended,
+ * existing codes must never be changed or reused.
+ *
+ * @author Katy Hilgenberg
+ *
+ */
+public final class BinarySerializer
+{
+  /**
+   * The current binary format version
+   */
+  public static final byte FORMAT_VERSION = 1;
+
+  /**
+   * Type code for sample data without a binary representation ( class name
+   * and XML )
+   */
+  private static final byte TYPE_GENERIC = 0;
+
+  /**
+   * Type code for the accelerometer sample data
+   */
+  private static final byte TYPE_ACCELEROMETER = 1;
+
+  /**
+   * Type code for the gyroscope sample data
+   */
+  private static final byte TYPE_GYROSCOPE = 2;
+
+  /**
+   * Type code for the magnetic field sample data
+   */
+  private static final byte TYPE_MAGNETIC_FIELD = 3;
+
+  /**
+   * Type code for the orientation sample data
+   */
+  private static final byte TYPE_ORIENTATION = 4;
+
+  /**
+   * Type code for the light sample data
+   */
+  private static final byte TYPE_LIGHT = 5;
+
+  /**
+   * Type code for the proximity sample data
+   */
+  private static final byte TYPE_PROXIMITY = 6;
+
+  /**
+   * Type code for the pressure sample data
+   */
+  private static final byte TYPE_PRESSURE = 7;
+
+  /**
+   * Type code for the temperature sample data
+   */
+  private static final byte TYPE_TEMPERATURE = 8;
+
+  /**
+   * Type code for the GPS sample data
+   */
+  private static final byte TYPE_GPS = 9;
+
+  /**
+   * Type code for the network location sample data
+   */
+  private static final byte TYPE_NETWORK_LOCATION = 10;
+
+  /**
+   * Type code for the plain location sample data
+   */
+  private static final byte TYPE_LOCATION = 11;
+
+  /**
+   * Type code for the GSM sample data
+   */
+  private static final byte TYPE_GSM = 12;
+
+  /**
+   * Type code for the wifi sample data
+   */
+  private static final byte TYPE_WIFI = 13;
+
+  /**
+   * Type code for the bluetooth sample data
+   */
+  private static final byte TYPE_BLUETOOTH = 14;
+
+  /**
+   * Type code for the text sample data
+   */
+  private static final byte TYPE_TEXT = 15;
+
+  /**
+   * Type code for the twitter sample data
+   */
+  private static final byte TYPE_TWITTER = 16;
+
+  /**
+   * Type code for the file reference sample data
+   */
+  private static final byte TYPE_FILE_REFERENCE = 17;
+
+  /**
+   * Type code for the time provider sample data
+   */
+  private static final byte TYPE_TIME_PROVIDER = 18;
+
+  /**
+   * Type code for the sensor batch sample data
+   */
+  private static final byte TYPE_SENSOR_BATCH = 19;
+
+  /**
+   * The encoding used for strings
+   */
+  private static final String CHARSET = "UTF-8";
+
+  /**
+   * The initial buffer size for encoding
+   */
+  private static final int INITIAL_BUFFER_SIZE = 64;
+
+  /**
+   * Sample flag for a valid time stamp
+   */
+  private static final int FLAG_TIME_SYNCED = 1;
+
+  /**
+   * Sample flag for an attached location
+   */
+  private static final int FLAG_LOCATION = 2;
+
+  /**
+   * Sample flag for attached sample data
+   */
+  private static final int FLAG_DATA = 4;
+
+  /**
+   * Sample flag for an unknown time stamp state
+   */
+  private static final int FLAG_TIME_SYNC_UNKNOWN = 8;
+
+  /**
+   * Constructor
+   */
+  private BinarySerializer()
+  {}
+
+  /**
+   * Method to encode sample data
+   *
+   * @param data
+   *          the sample data to encode
+   * @return the binary representation of the sample data
+   * @throws Exception
+   *           if the encoding fails
+   */
+  public static byte[] toBytes( SampleData data ) throws Exception
+  {
+    ByteArrayOutputStream buffer =
+        new ByteArrayOutputStream( INITIAL_BUFFER_SIZE );
+    DataOutputStream out = new DataOutputStream( buffer );
+    writeData( out, data );
+    out.flush();
+    return buffer.toByteArray();
+  }
+
+  /**
+   * Method to decode sample data
+   *
+   * @param bytes
+   *          the binary representation of the sample data
+   * @return the decoded sample data
+   * @throws Exception
+   *           if the decoding fails
+   */
+  public static SampleData fromBytes( byte[] bytes ) throws Exception
+  {
+    if ( bytes == null )
+      throw new IOException( "no data to decode" );
+    return readData( new DataInputStream( new ByteArrayInputStream( bytes ) ) );
+  }
+
+  /**
+   * Method to encode a complete sample
+   *
+   * @param sample
+   *          the sample to encode
+   * @return the binary representation of the sample
+   * @throws Exception
+   *           if the encoding fails
+   */
+  public static byte[] sampleToBytes( BasicSample sample ) throws Exception
+  {
+    ByteArrayOutputStream buffer =
+        new ByteArrayOutputStream( INITIAL_BUFFER_SIZE );
+    DataOutputStream out = new DataOutputStream( buffer );
+    writeSample( out, sample );
+    out.flush();
+    return buffer.toByteArray();
+  }
+
+  /**
+   * Method to decode a complete sample
+   *
+   * @param bytes
+   *          the binary representation of the sample
+   * @param sample
+   *          the sample to read the values in
+   * @throws Exception
+   *           if the decoding fails
+   */
+  public static void sampleFromBytes( byte[] bytes, BasicSample sample )
+      throws Exception
+  {
+    if ( bytes == null )
+      throw new IOException( "no sample to decode" );
+    readSample( new DataInputStream( new ByteArrayInputStream( bytes ) ),
+        sample );
+  }
+
+  /**
+   * Method to encode a location
+   *
+   * @param location
+   *          the location to encode
+   * @return the binary representation of the location
+   * @throws IOException
+   *           if the encoding fails
+   */
+  public static byte[] locationToBytes( GeoLocation location )
+      throws IOException
+  {
+    ByteArrayOutputStream buffer = new ByteArrayOutputStream( 17 );
+    DataOutputStream out = new DataOutputStream( buffer );
+    writeLocation( out, location );
+    out.flush();
+    return buffer.toByteArray();
+  }
+
+  /**
+   * Method to decode a location
+   *
+   * @param bytes
+   *          the binary representation of the location
+   * @return the decoded location
+   * @throws IOException
+   *           if the decoding fails
+   */
+  public static GeoLocation locationFromBytes( byte[] bytes )
+      throws IOException
+  {
+    if ( bytes == null )
+      throw new IOException( "no location to decode" );
+    return readLocation( new DataInputStream( new ByteArrayInputStream( bytes ) ) );
+  }
+
+  /**
+   * Method to write a location to a data output
+   *
+   * @param out
+   *          the data output
+   * @param location
+   *          the location to write
+   * @throws IOException
+   *           if writing fails
+   */
+  public static void writeLocation( DataOutput out, GeoLocation location )
+      throws IOException
+  {
+    out.writeByte( FORMAT_VERSION );
+    out.writeDouble( location.getLat() );
+    out.writeDouble( location.getLon() );
+  }
+
+  /**
+   * Method to read a location from a data input
+   *
+   * @param in
+   *          the data input
+   * @return the location read
+   * @throws IOException
+   *           if reading fails or the format version is unknown
+   */
+  public static GeoLocation readLocation( DataInput in ) throws IOException
+  {
+    checkVersion( in.readByte() );
+    GeoLocation location = new GeoLocation();
+    location.setLat( in.readDouble() );
+    location.setLon( in.readDouble() );
+    return location;
+  }
+
+  /**
+   * Method to write sample data to a data output
+   *
+   * @param out
+   *          the data output
+   * @param data
+   *          the sample data to write
+   * @throws Exception
+   *           if writing fails
+   */
+  public static void writeData( DataOutput out, SampleData data )
+      throws Exception
+  {
+    if ( data == null )
+      throw new IOException( "no data to encode" );
+    out.writeByte( FORMAT_VERSION );
+
+    if ( data instanceof AccelerometerSampleData )
+    {
+      AccelerometerSampleData d = (AccelerometerSampleData) data;
+      out.writeByte( TYPE_ACCELEROMETER );
+      out.writeFloat( d.getAccelerationX() );
+      out.writeFloat( d.getAccelerationY() );
+      out.writeFloat( d.getAccelerationZ() );
+    }
+    else if ( data instanceof GyroscopeSampleData )
+    {
+      GyroscopeSampleData d = (GyroscopeSampleData) data;
+      out.writeByte( TYPE_GYROSCOPE );
+      out.writeFloat( d.getAngularSpeedX() );
+      out.writeFloat( d.getAngularSpeedY() );
+      out.writeFloat( d.getAngularSpeedZ() );
+    }
+    else if ( data instanceof MagneticFieldSampleData )
+    {
+      MagneticFieldSampleData d = (MagneticFieldSampleData) data;
+      out.writeByte( TYPE_MAGNETIC_FIELD );
+      out.writeFloat( d.getMagneticFieldX() );
+      out.writeFloat( d.getMagneticFieldY() );
+      out.writeFloat( d.getMagneticFieldZ() );
+    }
+    else if ( data instanceof OrientationSampleData )
+    {
+      OrientationSampleData d = (OrientationSampleData) data;
+      out.writeByte( TYPE_ORIENTATION );
+      out.writeFloat( d.getHeading() );
+      out.writeFloat( d.getPitch() );
+      out.writeFloat( d.getRoll() );
+    }
+    else if ( data instanceof LightSampleData )
+    {
+      out.writeByte( TYPE_LIGHT );
+      out.writeFloat( ( (LightSampleData) data ).getLightLevel() );
+    }
+    else if ( data instanceof ProximitySampleData )
+    {
+      out.writeByte( TYPE_PROXIMITY );
+      out.writeFloat( ( (ProximitySampleData) data ).getProximityDistance() );
+    }
+    else if ( data instanceof PressureSampleData )
+    {
+      out.writeByte( TYPE_PRESSURE );
+      out.writeFloat( ( (PressureSampleData) data ).getPressure() );
+    }
+    else if ( data instanceof TemperatureSampleData )
+    {
+      out.writeByte( TYPE_TEMPERATURE );
+      out.writeFloat( ( (TemperatureSampleData) data ).getTemperature() );
+    }
+    else if ( data instanceof GPSSampleData )
+    {
+      out.writeByte( TYPE_GPS );
+      writeLocationData( out, (LocationSampleData) data );
+    }
+    else if ( data instanceof NetworkLocationSampleData )
+    {
+      out.writeByte( TYPE_NETWORK_LOCATION );
+      writeLocationData( out, (LocationSampleData) data );
+    }
+    else if ( data.getClass() == LocationSampleData.class )
+    {
+      out.writeByte( TYPE_LOCATION );
+      writeLocationData( out, (LocationSampleData) data );
+    }
+    else if ( data instanceof GSMSampleData )
+    {
+      GSMSampleData d = (GSMSampleData) data;
+      out.writeByte( TYPE_GSM );
+      writeString( out, d.getOperator() );
+      out.writeInt( d.getCellId() );
+      out.writeInt( d.getLocationAreaCode() );
+      out.writeInt( d.getSignalStrength() );
+      List< GSMNeighborCell > neighbors = d.getNeighbors();
+      int count = neighbors == null ? 0 : neighbors.size();
+      out.writeInt( count );
+      for ( int i = 0; i < count; ++i )
+      {
+        GSMNeighborCell cell = neighbors.get( i );
+        out.writeInt( cell.getCellId() );
+        out.writeInt( cell.getSignalStrength() );
+      }
+    }
+    else if ( data instanceof WifiSampleData )
+    {
+      WifiSampleData d = (WifiSampleData) data;
+      out.writeByte( TYPE_WIFI );
+      writeString( out, d.getSSID() );
+      writeString( out, d.getBSSID() );
+      writeString( out, d.getCapabilities() );
+      out.writeInt( d.getFrequency() );
+      out.writeInt( d.getLevel() );
+      out.writeBoolean( d.isConnected() );
+    }
+    else if ( data instanceof BluetoothSampleData )
+    {
+      BluetoothSampleData d = (BluetoothSampleData) data;
+      out.writeByte( TYPE_BLUETOOTH );
+      Short rssi = d.getRSSI();
+      out.writeBoolean( rssi != null );
+      if ( rssi != null )
+        out.writeShort( rssi );
+      writeString( out, d.getName() );
+      writeString( out, d.getAddress() );
+      writeString( out, d.getBluetoothClass() );
+    }
+    else if ( data instanceof TextSampleData )
+    {
+      out.writeByte( TYPE_TEXT );
+      writeString( out, ( (TextSampleData) data ).getText() );
+    }
+    else if ( data instanceof TwitterSampleData )
+    {
+      out.writeByte( TYPE_TWITTER );
+      writeString( out, ( (TwitterSampleData) data ).getMessage() );
+    }
+    else if ( data instanceof FileReferenceSampleData )
+    {
+      out.writeByte( TYPE_FILE_REFERENCE );
+      writeString( out, ( (FileReferenceSampleData) data ).getFile() );
+    }
+    else if ( data instanceof TimeProviderSampleData )
+    {
+      out.writeByte( TYPE_TIME_PROVIDER );
+      out.writeBoolean( ( (TimeProviderSampleData) data ).isSynced() );
+    }
+    else if ( data instanceof SensorBatchSampleData )
+    {
+      SensorBatchSampleData d = (SensorBatchSampleData) data;
+      out.writeByte( TYPE_SENSOR_BATCH );
+      long[] timeStamps = d.getTimeStamps();
+      float[] values = d.getValues();
+      out.writeInt( d.getAxes() );
+      out.writeInt( timeStamps.length );
+      out.writeInt( values.length );
+      for ( long timeStamp : timeStamps )
+        out.writeLong( timeStamp );
+      for ( float value : values )
+        out.writeFloat( value );
+    }
+    else
+    {
+      // fall back to XML for any unknown sample data type
+      out.writeByte( TYPE_GENERIC );
+      writeString( out, data.getClass().getName() );
+      writeString( out, data.toXML() );
+    }
+  }
+
+  /**
+   * Method to read sample data from a data input
+   *
+   * @param in
+   *          the data input
+   * @return the sample data read
+   * @throws Exception
+   *           if reading fails, the format version or the type code is unknown
+   */
+  public static SampleData readData( DataInput in ) throws Exception
+  {
+    checkVersion( in.readByte() );
+    byte type = in.readByte();
+
+    switch ( type )
+    {
+      case TYPE_ACCELEROMETER:
+      {
+        AccelerometerSampleData d = new AccelerometerSampleData();
+        d.setAccelerationX( in.readFloat() );
+        d.setAccelerationY( in.readFloat() );
+        d.setAccelerationZ( in.readFloat() );
+        return d;
+      }
+      case TYPE_GYROSCOPE:
+      {
+        GyroscopeSampleData d = new GyroscopeSampleData();
+        d.setAngularSpeedX( in.readFloat() );
+        d.setAngularSpeedY( in.readFloat() );
+        d.setAngularSpeedZ( in.readFloat() );
+        return d;
+      }
+      case TYPE_MAGNETIC_FIELD:
+      {
+        MagneticFieldSampleData d = new MagneticFieldSampleData();
+        d.setMagneticFieldX( in.readFloat() );
+        d.setMagneticFieldY( in.readFloat() );
+        d.setMagneticFieldZ( in.readFloat() );
+        return d;
+      }
+      case TYPE_ORIENTATION:
+      {
+        OrientationSampleData d = new OrientationSampleData();
+        d.setHeading( in.readFloat() );
+        d.setPitch( in.readFloat() );
+        d.setRoll( in.readFloat() );
+        return d;
+      }
+      case TYPE_LIGHT:
+      {
+        LightSampleData d = new LightSampleData();
+        d.setLightLevel( in.readFloat() );
+        return d;
+      }
+      case TYPE_PROXIMITY:
+      {
+        ProximitySampleData d = new ProximitySampleData();
+        d.setProximityDistance( in.readFloat() );
+        return d;
+      }
+      case TYPE_PRESSURE:
+      {
+        PressureSampleData d = new PressureSampleData();
+        d.setPressure( in.readFloat() );
+        return d;
+      }
+      case TYPE_TEMPERATURE:
+      {
+        TemperatureSampleData d = new TemperatureSampleData();
+        d.setTemperature( in.readFloat() );
+        return d;
+      }
+      case TYPE_GPS:
+      {
+        return readLocationData( in, new GPSSampleData() );
+      }
+      case TYPE_NETWORK_LOCATION:
+      {
+        return readLocationData( in, new NetworkLocationSampleData() );
+      }
+      case TYPE_LOCATION:
+      {
+        return readLocationData( in, new LocationSampleData() );
+      }
+      case TYPE_GSM:
+      {
+        GSMSampleData d = new GSMSampleData();
+        d.setOperator( readString( in ) );
+        d.setCellId( in.readInt() );
+        d.setLocationAreaCode( in.readInt() );
+        d.setSignalStrength( in.readInt() );
+        int count = in.readInt();
+        List< GSMNeighborCell > neighbors = new Vector< GSMNeighborCell >( count );
+        for ( int i = 0; i < count; ++i )
+        {
+          int cellId = in.readInt();
+          neighbors.add( new GSMNeighborCell( cellId, in.readInt() ) );
+        }
+        d.setNeighbors( neighbors );
+        return d;
+      }
+      case TYPE_WIFI:
+      {
+        WifiSampleData d = new WifiSampleData();
+        d.setSSID( readString( in ) );
+        d.setBSSID( readString( in ) );
+        d.setCapabilities( readString( in ) );
+        d.setFrequency( in.readInt() );
+        d.setLevel( in.readInt() );
+        d.setConnected( in.readBoolean() );
+        return d;
+      }
+      case TYPE_BLUETOOTH:
+      {
+        BluetoothSampleData d = new BluetoothSampleData();
+        if ( in.readBoolean() )
+          d.setRSSI( in.readShort() );
+        d.setName( readString( in ) );
+        d.setAddress( readString( in ) );
+        d.setBluetoothClass( readString( in ) );
+        return d;
+      }
+      case TYPE_TEXT:
+      {
+        TextSampleData d = new TextSampleData();
+        d.setText( readString( in ) );
+        return d;
+      }
+      case TYPE_TWITTER:
+      {
+        TwitterSampleData d = new TwitterSampleData();
+        d.setMessage( readString( in ) );
+        return d;
+      }
+      case TYPE_FILE_REFERENCE:
+      {
+        FileReferenceSampleData d = new FileReferenceSampleData();
+        d.setFile( readString( in ) );
+        return d;
+      }
+      case TYPE_TIME_PROVIDER:
+      {
+        TimeProviderSampleData d = new TimeProviderSampleData();
+        d.setSynced( in.readBoolean() );
+        return d;
+      }
+      case TYPE_SENSOR_BATCH:
+      {
+        int axes = in.readInt();
+        long[] timeStamps = new long[ in.readInt() ];
+        float[] values = new float[ in.readInt() ];
+        for ( int i = 0; i < timeStamps.length; ++i )
+          timeStamps[ i ] = in.readLong();
+        for ( int i = 0; i < values.length; ++i )
+          values[ i ] = in.readFloat();
+        return new SensorBatchSampleData( axes, timeStamps, values );
+      }
+      case TYPE_GENERIC:
+      {
+        Class< ? > c = Class.forName( readString( in ) );
+        Object object = GlobalSerializer.fromXML( c, readString( in ) );
+        if ( object instanceof SampleData )
+          return (SampleData) object;
+        throw new IOException( "unexpected data type " + c.getName() );
+      }
+      default:
+        throw new IOException( "unknown data type code " + type );
+    }
+  }
+
+  /**
+   * Method to write a complete sample ( device identifier, time stamp,
+   * priority, sync flag, location and data ) to a data output
+   *
+   * @param out
+   *          the data output
+   * @param sample
+   *          the sample to write
+   * @throws Exception
+   *           if writing fails
+   */
+  public static void writeSample( DataOutput out, BasicSample sample )
+      throws Exception
+  {
+    GeoLocation location = sample.getLocation();
+    SampleData data = sample.getData();
+    int flags = 0;
+    Boolean timeSynced = sample.isTimeSynced();
+    if ( timeSynced == null )
+      flags |= FLAG_TIME_SYNC_UNKNOWN;
+    else if ( timeSynced )
+      flags |= FLAG_TIME_SYNCED;
+    if ( location != null )
+      flags |= FLAG_LOCATION;
+    if ( data != null )
+      flags |= FLAG_DATA;
+
+    out.writeByte( FORMAT_VERSION );
+    writeString( out, sample.getDeviceIdentifier() );
+    out.writeLong( sample.getTimeStamp() );
+    out.writeByte( sample.getPriority() );
+    out.writeByte( flags );
+    if ( location != null )
+      writeLocation( out, location );
+    if ( data != null )
+      writeData( out, data );
+  }
+
+  /**
+   * Method to read a complete sample from a data input
+   *
+   * @param in
+   *          the data input
+   * @param sample
+   *          the sample to read the values in
+   * @throws Exception
+   *           if reading fails
+   */
+  public static void readSample( DataInput in, BasicSample sample )
+      throws Exception
+  {
+    checkVersion( in.readByte() );
+    sample.setDeviceIdentifier( readString( in ) );
+    sample.setTimeStamp( in.readLong() );
+    sample.setPriority( in.readByte() );
+    int flags = in.readByte();
+    sample.setTimeSynced( ( flags & FLAG_TIME_SYNC_UNKNOWN ) != 0 ? null
+        : ( flags & FLAG_TIME_SYNCED ) != 0 );
+    sample.setLocation( ( flags & FLAG_LOCATION ) != 0 ? readLocation( in )
+        : null );
+    sample.setData( ( flags & FLAG_DATA ) != 0 ? readData( in ) : null );
+  }
+
+  /**
+   * Method to write the location sample data values
+   *
+   * @param out
+   *          the data output
+   * @param data
+   *          the location sample data
+   * @throws IOException
+   *           if writing fails
+   */
+  private static void writeLocationData( DataOutput out,
+      LocationSampleData data ) throws IOException
+  {
+    writeDouble( out, data.getLongitude() );
+    writeDouble( out, data.getLatitude() );
+    writeDouble( out, data.getAltitude() );
+    writeFloat( out, data.getSpeed() );
+    writeFloat( out, data.getAccuracy() );
+  }
+
+  /**
+   * Method to read the location sample data values
+   *
+   * @param in
+   *          the data input
+   * @param data
+   *          the location sample data to initialize
+   * @return the initialized location sample data
+   * @throws IOException
+   *           if reading fails
+   */
+  private static LocationSampleData readLocationData( DataInput in,
+      LocationSampleData data ) throws IOException
+  {
+    data.setLongitude( readDouble( in ) );
+    data.setLatitude( readDouble( in ) );
+    data.setAltitude( readDouble( in ) );
+    data.setSpeed( readFloat( in ) );
+    data.setAccuracy( readFloat( in ) );
+    return data;
+  }
+
+  /**
+   * Method to write an optional double value
+   *
+   * @param out
+   *          the data output
+   * @param value
+   *          the value or null
+   * @throws IOException
+   *           if writing fails
+   */
+  private static void writeDouble( DataOutput out, Double value )
+      throws IOException
+  {
+    out.writeBoolean( value != null );
+    if ( value != null )
+      out.writeDouble( value );
+  }
+
+  /**
+   * Method to read an optional double value
+   *
+   * @param in
+   *          the data input
+   * @return the value or null
+   * @throws IOException
+   *           if reading fails
+   */
+  private static Double readDouble( DataInput in ) throws IOException
+  {
+    return in.readBoolean() ? Double.valueOf( in.readDouble() ) : null;
+  }
+
+  /**
+   * Method to write an optional float value
+   *
+   * @param out
+   *          the data output
+   * @param value
+   *          the value or null
+   * @throws IOException
+   *           if writing fails
+   */
+  private static void writeFloat( DataOutput out, Float value )
+      throws IOException
+  {
+    out.writeBoolean( value != null );
+    if ( value != null )
+      out.writeFloat( value );
+  }
+
+  /**
+   * Method to read an optional float value
+   *
+   * @param in
+   *          the data input
+   * @return the value or null
+   * @throws IOException
+   *           if reading fails
+   */
+  private static Float readFloat( DataInput in ) throws IOException
+  {
+    return in.readBoolean() ? Float.valueOf( in.readFloat() ) : null;
+  }
+
+  /**
+   * Method to write an optional string ( length prefixed UTF-8, -1 for null )
+   *
+   * @param out
+   *          the data output
+   * @param value
+   *          the string or null
+   * @throws IOException
+   *           if writing fails
+   */
+  private static void writeString( DataOutput out, String value )
+      throws IOException
+  {
+    if ( value == null )
+    {
+      out.writeInt( -1 );
+      return;
+    }
+    byte[] bytes = value.getBytes( CHARSET );
+    out.writeInt( bytes.length );
+    out.write( bytes );
+  }
+
+  /**
+   * Method to read an optional string
+   *
+   * @param in
+   *          the data input
+   * @return the string or null
+   * @throws IOException
+   *           if reading fails
+   */
+  private static String readString( DataInput in ) throws IOException
+  {
+    int length = in.readInt();
+    if ( length < 0 )
+      return null;
+    byte[] bytes = new byte[ length ];
+    in.readFully( bytes );
+    return new String( bytes, CHARSET );
+  }
+
+  /**
+   * Method to test the format version
+   *
+   * @param version
+   *          the version read
+   * @throws IOException
+   *           if the version is not supported
+   */
+  private static void checkVersion( byte version ) throws IOException
+  {
+    if ( version < 1 || version > FORMAT_VERSION )
+      throw new IOException( "unsupported binary format version " + version );
+  }
+}
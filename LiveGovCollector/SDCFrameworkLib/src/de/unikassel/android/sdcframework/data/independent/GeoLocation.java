@@ -93,6 +93,20 @@ public class GeoLocation implements SerializableData
     return false;
   }
   
+  /*
+   * (non-Javadoc)
+   * 
+   * @see java.lang.Object#hashCode()
+   */
+  @Override
+  public int hashCode()
+  {
+    // adding 0.0 does map -0.0 to 0.0, both are equal for equals
+    long bits = Double.doubleToLongBits( getLat() + 0.0 );
+    bits = 31L * bits + Double.doubleToLongBits( getLon() + 0.0 );
+    return (int) ( bits ^ ( bits >>> 32 ) );
+  }
+  
   /**
    * Method to clone the sample data
    * 
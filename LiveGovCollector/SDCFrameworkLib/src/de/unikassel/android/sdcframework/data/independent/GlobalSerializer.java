@@ -24,6 +24,7 @@ import java.io.File;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.StringWriter;
+import java.io.Writer;
 
 import org.simpleframework.xml.core.Persister;
 
@@ -90,6 +91,22 @@ public final class GlobalSerializer extends Persister
     serializer.write( source, os );
   }
   
+  /**
+   * Method to serialize an object into a writer. The writer is not closed.
+   * 
+   * @param source
+   *          the source object to serialize
+   * @param writer
+   *          the writer to write serialized object into
+   * @throws Exception
+   *           if the schema for the object is not valid
+   */
+  public static void serializeToWriter( Object source, Writer writer )
+      throws Exception
+  {
+    serializer.write( source, writer );
+  }
+  
   /**
    * Deserialization from the XML file to the type
    * 
@@ -87,6 +87,25 @@ public final class GyroscopeSampleData
     return new GyroscopeSampleData( this );
   }
   
+  /*
+   * (non-Javadoc)
+   * 
+   * @see
+   * de.unikassel.android.sdcframework.data.independent.AbstractSampleData#
+   * obtainCopy()
+   */
+  @Override
+  public final SampleData obtainCopy()
+  {
+    GyroscopeSampleData copy = SampleDataPool.obtain( GyroscopeSampleData.class );
+    if ( copy == null )
+      return doClone();
+    copy.setAngularSpeedX( getAngularSpeedX() );
+    copy.setAngularSpeedY( getAngularSpeedY() );
+    copy.setAngularSpeedZ( getAngularSpeedZ() );
+    return copy;
+  }
+  
   /*
    * (non-Javadoc)
    * 
@@ -74,6 +74,23 @@ extends AbstractSampleData
     return new LightSampleData( this );
   }
   
+  /*
+   * (non-Javadoc)
+   * 
+   * @see
+   * de.unikassel.android.sdcframework.data.independent.AbstractSampleData#
+   * obtainCopy()
+   */
+  @Override
+  public final SampleData obtainCopy()
+  {
+    LightSampleData copy = SampleDataPool.obtain( LightSampleData.class );
+    if ( copy == null )
+      return doClone();
+    copy.setLightLevel( getLightLevel() );
+    return copy;
+  }
+  
   /*
    * (non-Javadoc)
    * 
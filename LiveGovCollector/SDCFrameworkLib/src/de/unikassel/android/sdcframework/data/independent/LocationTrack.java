@@ -0,0 +1,179 @@
+/*
+ * Copyright (C) 2012, Katy Hilgenberg.
+ * Special acknowledgments to: Knowledge & Data Engineering Group, University of Kassel (http://www.kde.cs.uni-kassel.de).
+ * Contact: sdcf@cs.uni-kassel.de
+ *
+ * This file is part of the SDCFramework (Sensor Data Collection Framework) project.
+ *
+ * The SDCFramework is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The SDCFramework is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the SDCFramework.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.unikassel.android.sdcframework.data.independent;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Vector;
+
+/**
+ * The track of the distinct locations referenced by the samples of a
+ * transmission archive. <br/>
+ * <br/>
+ * Each location is stored once with an id, the samples do only carry the id
+ * of their location ( see {@linkplain BasicSample#getLocationReference()} ).
+ * The track is serialized into the archive file {@link #LOCATION_TRACK_FILE}
+ * as
+ * 
+ * <pre>
+ * &lt;locationTrack&gt;
+ *    &lt;location id="1"&gt;&lt;lon&gt;..&lt;/lon&gt;&lt;lat&gt;..&lt;/lat&gt;&lt;/location&gt;
+ * &lt;/locationTrack&gt;
+ * </pre>
+ * 
+ * @author Katy Hilgenberg
+ * 
+ */
+public final class LocationTrack
+{
+  /**
+   * The filename for the serialized location track
+   */
+  public final static String LOCATION_TRACK_FILE = "locations.xml";
+  
+  /**
+   * The locations in order of their ids
+   */
+  private final List< GeoLocation > locations;
+  
+  /**
+   * The ids of the locations
+   */
+  private final Map< GeoLocation, Integer > ids;
+  
+  /**
+   * The location last added
+   */
+  private GeoLocation lastLocation;
+  
+  /**
+   * The id of the location last added
+   */
+  private Integer lastId;
+  
+  /**
+   * Constructor
+   */
+  public LocationTrack()
+  {
+    super();
+    this.locations = new Vector< GeoLocation >();
+    this.ids = new HashMap< GeoLocation, Integer >();
+  }
+  
+  /**
+   * Method to add a location to the track. Equal locations do share the same
+   * id.
+   * 
+   * @param location
+   *          the location to add
+   * @return the id of the location in the track
+   */
+  public final Integer add( GeoLocation location )
+  {
+    // consecutive samples do mostly share the location
+    if ( lastLocation != null && lastLocation.equals( location ) )
+    {
+      return lastId;
+    }
+    
+    Integer id = ids.get( location );
+    if ( id == null )
+    {
+      GeoLocation copy = location.doClone();
+      locations.add( copy );
+      id = locations.size();
+      ids.put( copy, id );
+    }
+    lastLocation = location.doClone();
+    lastId = id;
+    return id;
+  }
+  
+  /**
+   * Getter for a location of the track
+   * 
+   * @param id
+   *          the location id
+   * @return the location or null if not contained in the track
+   */
+  public final GeoLocation getLocation( int id )
+  {
+    if ( id < 1 || id > locations.size() )
+      return null;
+    return locations.get( id - 1 );
+  }
+  
+  /**
+   * Getter for the count of distinct locations
+   * 
+   * @return the count of distinct locations
+   */
+  public final int size()
+  {
+    return locations.size();
+  }
+  
+  /**
+   * Test method for an empty track
+   * 
+   * @return true if no location was added, false otherwise
+   */
+  public final boolean isEmpty()
+  {
+    return locations.isEmpty();
+  }
+  
+  /**
+   * Method to write the XML representation of the track. The underlying output
+   * stream is flushed but not closed.
+   * 
+   * @param out
+   *          the output stream to write into
+   * @throws IOException
+   *           if writing fails
+   */
+  public final void write( OutputStream out ) throws IOException
+  {
+    Writer writer =
+        new BufferedWriter( new OutputStreamWriter( out, "UTF-8" ) );
+    writer.write( "<locationTrack>\n" );
+    int id = 0;
+    for ( GeoLocation location : locations )
+    {
+      writer.write( "   <location id=\"" );
+      writer.write( Integer.toString( ++id ) );
+      writer.write( "\"><lon>" );
+      writer.write( Double.toString( location.getLon() ) );
+      writer.write( "</lon><lat>" );
+      writer.write( Double.toString( location.getLat() ) );
+      writer.write( "</lat></location>\n" );
+    }
+    writer.write( "</locationTrack>" );
+    writer.flush();
+  }
+}
@@ -84,6 +84,25 @@ public final class MagneticFieldSampleData
     return new MagneticFieldSampleData( this );
   }
   
+  /*
+   * (non-Javadoc)
+   * 
+   * @see
+   * de.unikassel.android.sdcframework.data.independent.AbstractSampleData#
+   * obtainCopy()
+   */
+  @Override
+  public final SampleData obtainCopy()
+  {
+    MagneticFieldSampleData copy = SampleDataPool.obtain( MagneticFieldSampleData.class );
+    if ( copy == null )
+      return doClone();
+    copy.setMagneticFieldX( getMagneticFieldX() );
+    copy.setMagneticFieldY( getMagneticFieldY() );
+    copy.setMagneticFieldZ( getMagneticFieldZ() );
+    return copy;
+  }
+  
   /*
    * (non-Javadoc)
    * 
@@ -0,0 +1,136 @@
+/*
+ * Copyright (C) 2012, Katy Hilgenberg.
+ * Special acknowledgments to: Knowledge & Data Engineering Group, University of Kassel (http://www.kde.cs.uni-kassel.de).
+ * Contact: sdcf@cs.uni-kassel.de
+ *
+ * This file is part of the SDCFramework (Sensor Data Collection Framework) project.
+ *
+ * The SDCFramework is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The SDCFramework is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the SDCFramework.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.unikassel.android.sdcframework.data.independent;
+
+/**
+ * A bounded pool of recyclable objects. <br/>
+ * <br/>
+ * Objects are taken from the pool with {@link #obtain()} and given back with
+ * {@link #recycle(Object)}. The pool does not create objects itself, if it is
+ * empty the caller has to create a new one. Objects recycled to a full pool are
+ * left to the garbage collector. Neither operation does allocate memory.
+ * 
+ * @param <T>
+ *          the pooled object type
+ * @author Katy Hilgenberg
+ * 
+ */
+public final class ObjectPool< T >
+{
+  /**
+   * The pooled objects
+   */
+  private final Object[] objects;
+  
+  /**
+   * The count of pooled objects
+   */
+  private int count;
+  
+  /**
+   * The count of objects taken from the pool
+   */
+  private long cntReused;
+  
+  /**
+   * The count of requests for an empty pool
+   */
+  private long cntMissed;
+  
+  /**
+   * Constructor
+   * 
+   * @param capacity
+   *          the maximum count of pooled objects
+   */
+  public ObjectPool( int capacity )
+  {
+    super();
+    if ( capacity <= 0 )
+      throw new IllegalArgumentException( "capacity must be positive" );
+    this.objects = new Object[ capacity ];
+  }
+  
+  /**
+   * Method to take an object from the pool
+   * 
+   * @return a recycled object or null if the pool is empty
+   */
+  @SuppressWarnings( "unchecked" )
+  public final synchronized T obtain()
+  {
+    if ( count == 0 )
+    {
+      ++cntMissed;
+      return null;
+    }
+    ++cntReused;
+    T object = (T) objects[ --count ];
+    objects[ count ] = null;
+    return object;
+  }
+  
+  /**
+   * Method to give an object back to the pool. The object must not be used by
+   * the caller afterwards.
+   * 
+   * @param object
+   *          the object to recycle
+   * @return true if the object was pooled, false if the pool is full
+   */
+  public final synchronized boolean recycle( T object )
+  {
+    if ( object == null || count == objects.length )
+      return false;
+    objects[ count++ ] = object;
+    return true;
+  }
+  
+  /**
+   * Getter for the count of pooled objects
+   * 
+   * @return the count of pooled objects
+   */
+  public final synchronized int size()
+  {
+    return count;
+  }
+  
+  /**
+   * Getter for the count of reused objects
+   * 
+   * @return the count of objects taken from the pool
+   */
+  public final synchronized long getReusedCount()
+  {
+    return cntReused;
+  }
+  
+  /**
+   * Getter for the count of missed requests
+   * 
+   * @return the count of requests for an empty pool
+   */
+  public final synchronized long getMissedCount()
+  {
+    return cntMissed;
+  }
+}
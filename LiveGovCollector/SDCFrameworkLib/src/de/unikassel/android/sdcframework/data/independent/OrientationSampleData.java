@@ -88,6 +88,25 @@ public final class OrientationSampleData
     return new OrientationSampleData( this );
   }
   
+  /*
+   * (non-Javadoc)
+   * 
+   * @see
+   * de.unikassel.android.sdcframework.data.independent.AbstractSampleData#
+   * obtainCopy()
+   */
+  @Override
+  public final SampleData obtainCopy()
+  {
+    OrientationSampleData copy = SampleDataPool.obtain( OrientationSampleData.class );
+    if ( copy == null )
+      return doClone();
+    copy.setHeading( getHeading() );
+    copy.setPitch( getPitch() );
+    copy.setRoll( getRoll() );
+    return copy;
+  }
+  
   /*
    * (non-Javadoc)
    * 
@@ -69,6 +69,23 @@ extends AbstractSampleData
     return new PressureSampleData( this );
   }
   
+  /*
+   * (non-Javadoc)
+   * 
+   * @see
+   * de.unikassel.android.sdcframework.data.independent.AbstractSampleData#
+   * obtainCopy()
+   */
+  @Override
+  public final SampleData obtainCopy()
+  {
+    PressureSampleData copy = SampleDataPool.obtain( PressureSampleData.class );
+    if ( copy == null )
+      return doClone();
+    copy.setPressure( getPressure() );
+    return copy;
+  }
+  
   /*
    * (non-Javadoc)
    * 
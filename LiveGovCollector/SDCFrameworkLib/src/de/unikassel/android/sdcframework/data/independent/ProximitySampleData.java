@@ -76,6 +76,23 @@ public final class ProximitySampleData
     return new ProximitySampleData( this );
   }
   
+  /*
+   * (non-Javadoc)
+   * 
+   * @see
+   * de.unikassel.android.sdcframework.data.independent.AbstractSampleData#
+   * obtainCopy()
+   */
+  @Override
+  public final SampleData obtainCopy()
+  {
+    ProximitySampleData copy = SampleDataPool.obtain( ProximitySampleData.class );
+    if ( copy == null )
+      return doClone();
+    copy.setProximityDistance( getProximityDistance() );
+    return copy;
+  }
+  
   /*
    * (non-Javadoc)
    * 
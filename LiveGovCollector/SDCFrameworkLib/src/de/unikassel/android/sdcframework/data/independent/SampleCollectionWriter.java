@@ -0,0 +1,183 @@
+/*
+ * Copyright (C) 2012, Katy Hilgenberg.
+ * Special acknowledgments to: Knowledge & Data Engineering Group, University of Kassel (http://www.kde.cs.uni-kassel.de).
+ * Contact: sdcf@cs.uni-kassel.de
+ *
+ * This file is part of the SDCFramework (Sensor Data Collection Framework) project.
+ *
+ * The SDCFramework is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The SDCFramework is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the SDCFramework.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.unikassel.android.sdcframework.data.independent;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+
+/**
+ * An incremental writer for the XML representation of a sample collection. <br/>
+ * <br/>
+ * The samples are serialized one by one into the underlying output stream, so
+ * the memory usage does not depend on the count of samples written. The
+ * resulting document has the same structure as a serialized
+ * {@linkplain BasicSampleCollection}. If a {@linkplain LocationTrack} is
+ * given, the sample locations are added to the track and the samples do only
+ * carry the location reference.
+ * 
+ * @author Katy Hilgenberg
+ * 
+ */
+public final class SampleCollectionWriter
+{
+  /**
+   * The document start up to the first sample
+   */
+  private static final String COLLECTION_START =
+      "<sampleCollection>\n   <samples class=\"java.util.Vector\">\n";
+  
+  /**
+   * The document end after the last sample
+   */
+  private static final String COLLECTION_END =
+      "   </samples>\n</sampleCollection>";
+  
+  /**
+   * The buffer size of the writer
+   */
+  private static final int BUFFER_SIZE = 8192;
+  
+  /**
+   * The writer for the serialized samples
+   */
+  private final Writer writer;
+  
+  /**
+   * The count of samples written
+   */
+  private long count;
+  
+  /**
+   * Flag if the collection start was written
+   */
+  private boolean started;
+  
+  /**
+   * The location track for the sample locations, null to serialize the
+   * locations with the samples
+   */
+  private final LocationTrack locationTrack;
+  
+  /**
+   * Constructor
+   * 
+   * @param out
+   *          the output stream to write the sample collection into
+   */
+  public SampleCollectionWriter( OutputStream out )
+  {
+    this( out, null );
+  }
+  
+  /**
+   * Constructor
+   * 
+   * @param out
+   *          the output stream to write the sample collection into
+   * @param locationTrack
+   *          the location track to add the sample locations to, or null to
+   *          serialize the locations with the samples
+   */
+  public SampleCollectionWriter( OutputStream out, LocationTrack locationTrack )
+  {
+    this.locationTrack = locationTrack;
+    try
+    {
+      this.writer =
+          new BufferedWriter( new OutputStreamWriter( out, "UTF-8" ),
+              BUFFER_SIZE );
+    }
+    catch ( IOException e )
+    {
+      // UTF-8 is always supported
+      throw new IllegalStateException( e );
+    }
+  }
+  
+  /**
+   * Getter for the count of samples written
+   * 
+   * @return the count of samples written
+   */
+  public final long getCount()
+  {
+    return count;
+  }
+  
+  /**
+   * Method to write a sample into the collection
+   * 
+   * @param sample
+   *          the sample to write
+   * @throws Exception
+   *           if serialization of the sample fails
+   */
+  public final void write( BasicSample sample ) throws Exception
+  {
+    if ( !started )
+    {
+      writer.write( COLLECTION_START );
+      started = true;
+    }
+    GeoLocation location = sample.getLocation();
+    if ( locationTrack != null && location != null )
+    {
+      sample.setLocation( null );
+      sample.setLocationReference( locationTrack.add( location ) );
+      try
+      {
+        GlobalSerializer.serializeToWriter( sample, writer );
+      }
+      finally
+      {
+        sample.setLocation( location );
+        sample.setLocationReference( null );
+      }
+    }
+    else
+    {
+      GlobalSerializer.serializeToWriter( sample, writer );
+    }
+    writer.write( '\n' );
+    ++count;
+  }
+  
+  /**
+   * Method to finish the collection. The underlying output stream is flushed
+   * but not closed.
+   * 
+   * @throws IOException
+   *           if writing fails
+   */
+  public final void finish() throws IOException
+  {
+    if ( !started )
+    {
+      writer.write( COLLECTION_START );
+      started = true;
+    }
+    writer.write( COLLECTION_END );
+    writer.flush();
+  }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright (C) 2012, Katy Hilgenberg.
+ * Special acknowledgments to: Knowledge & Data Engineering Group, University of Kassel (http://www.kde.cs.uni-kassel.de).
+ * Contact: sdcf@cs.uni-kassel.de
+ *
+ * This file is part of the SDCFramework (Sensor Data Collection Framework) project.
+ *
+ * The SDCFramework is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The SDCFramework is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the SDCFramework.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.unikassel.android.sdcframework.data.independent;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The global pools for the sample data types of the high frequency sensors
+ * and for locations. <br/>
+ * <br/>
+ * Only types with a fixed set of primitive values are pooled, as all of them
+ * are overwritten when a pooled object is reused. Objects of any other type
+ * are not taken by {@link #recycle(Object)}.
+ * 
+ * @see AbstractSampleData#obtainCopy()
+ * @author Katy Hilgenberg
+ * 
+ */
+public final class SampleDataPool
+{
+  /**
+   * The maximum count of pooled objects per type
+   */
+  public static final int POOL_SIZE = 256;
+  
+  /**
+   * The pools by type
+   */
+  private static final Map< Class< ? >, ObjectPool< Object > > pools =
+      new HashMap< Class< ? >, ObjectPool< Object > >();
+  
+  static
+  {
+    Class< ? >[] types =
+        { AccelerometerSampleData.class, GyroscopeSampleData.class,
+            MagneticFieldSampleData.class, OrientationSampleData.class,
+            LightSampleData.class, PressureSampleData.class,
+            ProximitySampleData.class, TemperatureSampleData.class,
+            GeoLocation.class };
+    for ( Class< ? > type : types )
+    {
+      pools.put( type, new ObjectPool< Object >( POOL_SIZE ) );
+    }
+  }
+  
+  /**
+   * Constructor
+   */
+  private SampleDataPool()
+  {}
+  
+  /**
+   * Method to take an object of a pooled type from its pool
+   * 
+   * @param type
+   *          the object type
+   * @return a recycled object or null if none is available
+   */
+  public static < T > T obtain( Class< T > type )
+  {
+    ObjectPool< Object > pool = pools.get( type );
+    return pool == null ? null : type.cast( pool.obtain() );
+  }
+  
+  /**
+   * Method to give an object back to the pool of its type. The object must not
+   * be used by the caller afterwards.
+   * 
+   * @param object
+   *          the object to recycle
+   * @return true if the object was pooled, false otherwise
+   */
+  public static boolean recycle( Object object )
+  {
+    if ( object == null )
+      return false;
+    ObjectPool< Object > pool = pools.get( object.getClass() );
+    return pool != null && pool.recycle( object );
+  }
+}
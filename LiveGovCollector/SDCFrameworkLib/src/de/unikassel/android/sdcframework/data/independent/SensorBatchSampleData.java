@@ -0,0 +1,191 @@
+/*
+ * Copyright (C) 2012, Katy Hilgenberg.
+ * Special acknowledgments to: Knowledge & Data Engineering Group, University of Kassel (http://www.kde.cs.uni-kassel.de).
+ * Contact: sdcf@cs.uni-kassel.de
+ *
+ * This file is part of the SDCFramework (Sensor Data Collection Framework) project.
+ *
+ * The SDCFramework is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The SDCFramework is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the SDCFramework.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.unikassel.android.sdcframework.data.independent;
+
+import java.util.Arrays;
+
+import org.simpleframework.xml.Attribute;
+import org.simpleframework.xml.ElementArray;
+import org.simpleframework.xml.Root;
+
+/**
+ * The sample data of a raw sensor event stream are the events captured by an
+ * Android sensor device between two flushes of its event buffer. <br/>
+ * <br/>
+ * For each event the sensor event time stamp ( in nanoseconds, as provided by
+ * the Android API ) and a fixed count of {@link #axes axis values} is stored.
+ * The values are stored event by event, the value of axis a for event i is
+ * found at index i * axes + a. <br/>
+ * <br/>
+ * <b>Important:</b> <br/>
+ * The event time stamps are not wall clock times. The time stamp of the
+ * enclosing sample is taken when the buffer is flushed, which is shortly after
+ * the last event of the batch.
+ * 
+ * @see android.hardware.SensorEvent#timestamp
+ * @see de.unikassel.android.sdcframework.devices.SensorEventBuffer
+ * @author Katy Hilgenberg
+ * 
+ */
+@Root( name = "data" )
+public final class SensorBatchSampleData
+    extends AbstractSampleData
+{
+  /**
+   * The count of values per event
+   */
+  @Attribute( name = "axes" )
+  private int axes;
+  
+  /**
+   * The event time stamps in nanoseconds
+   */
+  @ElementArray( name = "ts", entry = "t" )
+  private long[] timeStamps;
+  
+  /**
+   * The event values, event by event
+   */
+  @ElementArray( name = "values", entry = "v" )
+  private float[] values;
+  
+  /**
+   * Constructor
+   */
+  public SensorBatchSampleData()
+  {
+    this( 0, new long[ 0 ], new float[ 0 ] );
+  }
+  
+  /**
+   * Constructor
+   * 
+   * @param axes
+   *          the count of values per event
+   * @param timeStamps
+   *          the event time stamps
+   * @param values
+   *          the event values, event by event
+   */
+  public SensorBatchSampleData( int axes, long[] timeStamps, float[] values )
+  {
+    super();
+    this.axes = axes;
+    this.timeStamps = timeStamps;
+    this.values = values;
+  }
+  
+  /**
+   * Copy Constructor
+   * 
+   * @param sampleData
+   *          the sample data to copy from
+   */
+  public SensorBatchSampleData( SensorBatchSampleData sampleData )
+  {
+    this( sampleData.getAxes(), sampleData.getTimeStamps().clone(),
+        sampleData.getValues().clone() );
+  }
+  
+  /*
+   * (non-Javadoc)
+   * 
+   * @see de.unikassel.android.sdcframework.data.facade.SampleData#doClone()
+   */
+  @Override
+  public final SampleData doClone()
+  {
+    return new SensorBatchSampleData( this );
+  }
+  
+  /*
+   * (non-Javadoc)
+   * 
+   * @see java.lang.Object#equals(java.lang.Object)
+   */
+  @Override
+  public final boolean equals( Object o )
+  {
+    if ( o instanceof SensorBatchSampleData )
+    {
+      SensorBatchSampleData sampleData = (SensorBatchSampleData) o;
+      
+      return getAxes() == sampleData.getAxes() &&
+          Arrays.equals( getTimeStamps(), sampleData.getTimeStamps() ) &&
+          Arrays.equals( getValues(), sampleData.getValues() );
+    }
+    return false;
+  }
+  
+  /**
+   * Getter for the count of events
+   * 
+   * @return the count of events
+   */
+  public final int getEventCount()
+  {
+    return timeStamps.length;
+  }
+  
+  /**
+   * Getter for a single event value
+   * 
+   * @param event
+   *          the event index
+   * @param axis
+   *          the axis index
+   * @return the value of the axis for the event
+   */
+  public final float getValue( int event, int axis )
+  {
+    return values[ event * axes + axis ];
+  }
+  
+  /**
+   * Getter for the count of values per event
+   * 
+   * @return the count of values per event
+   */
+  public final int getAxes()
+  {
+    return axes;
+  }
+  
+  /**
+   * Getter for the event time stamps
+   * 
+   * @return the event time stamps in nanoseconds
+   */
+  public final long[] getTimeStamps()
+  {
+    return timeStamps;
+  }
+  
+  /**
+   * Getter for the event values
+   * 
+   * @return the event values, event by event
+   */
+  public final float[] getValues()
+  {
+    return values;
+  }
+}
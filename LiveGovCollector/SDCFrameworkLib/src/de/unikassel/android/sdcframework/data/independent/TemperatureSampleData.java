@@ -69,6 +69,23 @@ extends AbstractSampleData
     return new TemperatureSampleData( this );
   }
   
+  /*
+   * (non-Javadoc)
+   * 
+   * @see
+   * de.unikassel.android.sdcframework.data.independent.AbstractSampleData#
+   * obtainCopy()
+   */
+  @Override
+  public final SampleData obtainCopy()
+  {
+    TemperatureSampleData copy = SampleDataPool.obtain( TemperatureSampleData.class );
+    if ( copy == null )
+      return doClone();
+    copy.setTemperature( getTemperature() );
+    return copy;
+  }
+  
   /*
    * (non-Javadoc)
    * 
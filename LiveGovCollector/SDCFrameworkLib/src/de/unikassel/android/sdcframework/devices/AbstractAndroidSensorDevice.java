@@ -23,7 +23,9 @@ package de.unikassel.android.sdcframework.devices;
 import java.security.InvalidParameterException;
 
 import de.unikassel.android.sdcframework.data.Sample;
+import de.unikassel.android.sdcframework.data.independent.AbstractSampleData;
 import de.unikassel.android.sdcframework.data.independent.SampleData;
+import de.unikassel.android.sdcframework.data.independent.SensorBatchSampleData;
 import de.unikassel.android.sdcframework.devices.facade.SampleProvidingSensorDevice;
 import de.unikassel.android.sdcframework.devices.facade.SensorDeviceIdentifier;
 import de.unikassel.android.sdcframework.util.Logger;
@@ -41,7 +43,14 @@ import android.hardware.SensorManager;
  * Does provide the sensor listener and the logic for listener registration
  * depending on the scanner running state. Any extending class has just to
  * implement the abstract handler methods for sensor changes and the methods
- * from the {@link SampleProvidingSensorDevice} interface.
+ * from the {@link SampleProvidingSensorDevice} interface. <br/>
+ * <br/>
+ * If a batch size is configured, the device does capture the raw sensor
+ * events in a {@linkplain SensorEventBuffer preallocated event buffer}
+ * instead of updating the current sample data. The buffer is flushed as one
+ * {@linkplain SensorBatchSampleData batch sample} whenever the scanner does
+ * take a sample. A full buffer does request a sample from the scanner, which
+ * is taken on the sampling scheduler thread.
  * 
  * @see AccelerometerDevice
  * @author Katy Hilgenberg
@@ -66,6 +75,12 @@ public abstract class AbstractAndroidSensorDevice
    */
   private final int sensorDelay;
   
+  /**
+   * The buffer for the raw event capture, null if the raw event capture is
+   * disabled
+   */
+  private SensorEventBuffer eventBuffer;
+  
   /**
    * 
    * Constructor
@@ -129,7 +144,7 @@ public abstract class AbstractAndroidSensorDevice
         {
           try
           {
-            if ( getSensor().equals( event.sensor ) )
+            if ( getSensor().equals( event.sensor ) && !captureEvent( event ) )
             {
               doHandleSensorChanged( event );
             }
@@ -244,9 +259,117 @@ public abstract class AbstractAndroidSensorDevice
   {
     // depending on scanner running state add listener or remove it
     if ( isRunning )
+    {
+      configureEventBuffer();
       registerListener( context );
+    }
     else
+    {
       unregisterListener( context );
+      flushEventBuffer();
+    }
+  }
+  
+  /*
+   * (non-Javadoc)
+   * 
+   * @see
+   * de.unikassel.android.sdcframework.devices.ScannerStateAwareSensorDevice
+   * #onConfigurationChanged()
+   */
+  @Override
+  protected final void onConfigurationChanged()
+  {
+    super.onConfigurationChanged();
+    flushEventBuffer();
+    configureEventBuffer();
+  }
+  
+  /**
+   * Does create or release the event buffer depending on the configured batch
+   * size
+   */
+  private final synchronized void configureEventBuffer()
+  {
+    int batchSize = getConfiguration().getBatchSize();
+    if ( batchSize <= 0 )
+    {
+      eventBuffer = null;
+    }
+    else if ( eventBuffer == null || eventBuffer.getCapacity() != batchSize )
+    {
+      eventBuffer =
+          new SensorEventBuffer( batchSize, SensorEventBuffer.DEFAULT_AXES );
+    }
+  }
+  
+  /**
+   * Does capture a raw sensor event if the raw event capture is enabled
+   * 
+   * @param event
+   *          the sensor event
+   * @return true if the event was captured, false if the raw event capture is
+   *         disabled
+   */
+  private final boolean captureEvent( SensorEvent event )
+  {
+    boolean isFull;
+    synchronized ( this )
+    {
+      if ( eventBuffer == null )
+        return false;
+      isFull = eventBuffer.add( event.timestamp, event.values );
+    }
+    if ( isFull && isCapturingEvents()
+        && getScanner() instanceof SampleTakingDeviceScanner )
+    {
+      // the batch sample is taken by the sampling scheduler, the callback
+      // does only copy the event
+      ( (SampleTakingDeviceScanner) getScanner() ).requestSample();
+    }
+    return true;
+  }
+  
+  /**
+   * Does trigger the scanner to take the buffered events as batch sample
+   */
+  private final void flushEventBuffer()
+  {
+    if ( isCapturingEvents()
+        && getScanner() instanceof SampleTakingDeviceScanner )
+    {
+      ( (SampleTakingDeviceScanner) getScanner() ).takeSample();
+    }
+  }
+  
+  /**
+   * Test method for the raw event capture
+   * 
+   * @return true if raw sensor events are captured, false otherwise
+   */
+  public final synchronized boolean isCapturingEvents()
+  {
+    return eventBuffer != null;
+  }
+  
+  /**
+   * Getter for a batch sample holding the events captured since the last
+   * call
+   * 
+   * @return a batch sample or null if no events have been captured
+   */
+  public final Sample getBatchSample()
+  {
+    SensorBatchSampleData data;
+    synchronized ( this )
+    {
+      if ( eventBuffer == null || eventBuffer.isEmpty() )
+        return null;
+      data = eventBuffer.drain();
+    }
+    TimeInformation ti = TimeProvider.getInstance().getAccurateTimeInformation();
+    return SampleFactory.getInstance().createSample( ti, getDeviceIdentifier(),
+        getConfiguration().getSamplePriority().ordinal(), data );
   }
   
   /**
@@ -281,11 +404,15 @@ public abstract class AbstractAndroidSensorDevice
   @Override
   public final synchronized Sample getSample()
   {
-    TimeInformation ti = TimeProvider.getInstance().getAccurateTimeInformation();
+    // pooled sample and data to keep the hot path free of allocations
+    TimeProvider timeProvider = TimeProvider.getInstance();
+    SampleData data = getCurrentSampleData();
     Sample sample =
-        SampleFactory.getInstance().createSample( ti, getDeviceIdentifier(),
+        SampleFactory.getInstance().obtainSample( timeProvider.getTimeStamp(),
+            timeProvider.isSynced(), getDeviceIdentifier(),
             getConfiguration().getSamplePriority().ordinal(),
-            getCurrentSampleData().doClone() );
+            data instanceof AbstractSampleData ?
+                ( (AbstractSampleData) data ).obtainCopy() : data.doClone() );
     return sample;
   }
   
@@ -0,0 +1,234 @@
+/*
+ * Copyright (C) 2012, Katy Hilgenberg.
+ * Special acknowledgments to: Knowledge & Data Engineering Group, University of Kassel (http://www.kde.cs.uni-kassel.de).
+ * Contact: sdcf@cs.uni-kassel.de
+ *
+ * This file is part of the SDCFramework (Sensor Data Collection Framework) project.
+ *
+ * The SDCFramework is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The SDCFramework is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the SDCFramework.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.unikassel.android.sdcframework.devices;
+
+import de.unikassel.android.sdcframework.data.Sample;
+import de.unikassel.android.sdcframework.data.independent.AccelerometerSampleData;
+import de.unikassel.android.sdcframework.data.independent.GyroscopeSampleData;
+import de.unikassel.android.sdcframework.data.independent.LightSampleData;
+import de.unikassel.android.sdcframework.data.independent.MagneticFieldSampleData;
+import de.unikassel.android.sdcframework.data.independent.OrientationSampleData;
+import de.unikassel.android.sdcframework.data.independent.PressureSampleData;
+import de.unikassel.android.sdcframework.data.independent.ProximitySampleData;
+import de.unikassel.android.sdcframework.data.independent.SampleData;
+import de.unikassel.android.sdcframework.data.independent.TemperatureSampleData;
+import de.unikassel.android.sdcframework.util.AbstractChainWorker;
+
+/**
+ * Base class for the workers of a {@linkplain SampleFilterChain sample filter
+ * chain}. <br/>
+ * <br/>
+ * A filter does absorb a sample by returning true from the
+ * {@link #process(Object)} method, or does pass it on to the successor by
+ * returning false. Samples kept by a filter have to be retained and are
+ * {@linkplain #emit(Sample) emitted} later on, at the latest if the filter is
+ * {@linkplain #flush() flushed}.
+ * 
+ * @author Katy Hilgenberg
+ * 
+ */
+public abstract class AbstractSampleFilter
+    extends AbstractChainWorker< Sample >
+{
+  /**
+   * The maximum count of values of numeric sample data
+   */
+  public static final int MAX_VALUES = 3;
+  
+  /**
+   * The count of samples absorbed by this filter
+   */
+  private long cntAbsorbed;
+  
+  /**
+   * Constructor
+   */
+  public AbstractSampleFilter()
+  {
+    super();
+  }
+  
+  /**
+   * Does forward a sample to the successor
+   * 
+   * @param sample
+   *          the sample to forward
+   */
+  protected final void emit( Sample sample )
+  {
+    if ( getSuccessor() != null )
+    {
+      getSuccessor().doWork( sample );
+    }
+  }
+  
+  /**
+   * Does emit all samples kept by this filter. The default implementation does
+   * nothing.
+   */
+  public void flush()
+  {}
+  
+  /**
+   * Does count absorbed samples
+   * 
+   * @param count
+   *          the count of absorbed samples
+   */
+  protected final void countAbsorbed( int count )
+  {
+    cntAbsorbed += count;
+  }
+  
+  /**
+   * Getter for the count of samples absorbed by this filter
+   * 
+   * @return the count of absorbed samples
+   */
+  public final long getAbsorbedCount()
+  {
+    return cntAbsorbed;
+  }
+  
+  /**
+   * Does read the values of numeric sample data
+   * 
+   * @param data
+   *          the sample data
+   * @param values
+   *          the array to store at least {@link #MAX_VALUES} values in
+   * @return the count of values read, 0 if the data is not numeric
+   */
+  public static int getValues( SampleData data, float[] values )
+  {
+    if ( data instanceof AccelerometerSampleData )
+    {
+      AccelerometerSampleData d = (AccelerometerSampleData) data;
+      values[ 0 ] = d.getAccelerationX();
+      values[ 1 ] = d.getAccelerationY();
+      values[ 2 ] = d.getAccelerationZ();
+      return 3;
+    }
+    if ( data instanceof GyroscopeSampleData )
+    {
+      GyroscopeSampleData d = (GyroscopeSampleData) data;
+      values[ 0 ] = d.getAngularSpeedX();
+      values[ 1 ] = d.getAngularSpeedY();
+      values[ 2 ] = d.getAngularSpeedZ();
+      return 3;
+    }
+    if ( data instanceof MagneticFieldSampleData )
+    {
+      MagneticFieldSampleData d = (MagneticFieldSampleData) data;
+      values[ 0 ] = d.getMagneticFieldX();
+      values[ 1 ] = d.getMagneticFieldY();
+      values[ 2 ] = d.getMagneticFieldZ();
+      return 3;
+    }
+    if ( data instanceof OrientationSampleData )
+    {
+      OrientationSampleData d = (OrientationSampleData) data;
+      values[ 0 ] = d.getHeading();
+      values[ 1 ] = d.getPitch();
+      values[ 2 ] = d.getRoll();
+      return 3;
+    }
+    if ( data instanceof LightSampleData )
+    {
+      values[ 0 ] = ( (LightSampleData) data ).getLightLevel();
+      return 1;
+    }
+    if ( data instanceof ProximitySampleData )
+    {
+      values[ 0 ] = ( (ProximitySampleData) data ).getProximityDistance();
+      return 1;
+    }
+    if ( data instanceof PressureSampleData )
+    {
+      values[ 0 ] = ( (PressureSampleData) data ).getPressure();
+      return 1;
+    }
+    if ( data instanceof TemperatureSampleData )
+    {
+      values[ 0 ] = ( (TemperatureSampleData) data ).getTemperature();
+      return 1;
+    }
+    return 0;
+  }
+  
+  /**
+   * Does write the values of numeric sample data
+   * 
+   * @param data
+   *          the sample data
+   * @param values
+   *          the values to write as returned by
+   *          {@link #getValues(SampleData, float[])}
+   */
+  public static void setValues( SampleData data, float[] values )
+  {
+    if ( data instanceof AccelerometerSampleData )
+    {
+      AccelerometerSampleData d = (AccelerometerSampleData) data;
+      d.setAccelerationX( values[ 0 ] );
+      d.setAccelerationY( values[ 1 ] );
+      d.setAccelerationZ( values[ 2 ] );
+    }
+    else if ( data instanceof GyroscopeSampleData )
+    {
+      GyroscopeSampleData d = (GyroscopeSampleData) data;
+      d.setAngularSpeedX( values[ 0 ] );
+      d.setAngularSpeedY( values[ 1 ] );
+      d.setAngularSpeedZ( values[ 2 ] );
+    }
+    else if ( data instanceof MagneticFieldSampleData )
+    {
+      MagneticFieldSampleData d = (MagneticFieldSampleData) data;
+      d.setMagneticFieldX( values[ 0 ] );
+      d.setMagneticFieldY( values[ 1 ] );
+      d.setMagneticFieldZ( values[ 2 ] );
+    }
+    else if ( data instanceof OrientationSampleData )
+    {
+      OrientationSampleData d = (OrientationSampleData) data;
+      d.setHeading( values[ 0 ] );
+      d.setPitch( values[ 1 ] );
+      d.setRoll( values[ 2 ] );
+    }
+    else if ( data instanceof LightSampleData )
+    {
+      ( (LightSampleData) data ).setLightLevel( values[ 0 ] );
+    }
+    else if ( data instanceof ProximitySampleData )
+    {
+      ( (ProximitySampleData) data ).setProximityDistance( values[ 0 ] );
+    }
+    else if ( data instanceof PressureSampleData )
+    {
+      ( (PressureSampleData) data ).setPressure( values[ 0 ] );
+    }
+    else if ( data instanceof TemperatureSampleData )
+    {
+      ( (TemperatureSampleData) data ).setTemperature( values[ 0 ] );
+    }
+  }
+  
+}
@@ -27,10 +27,24 @@ import android.content.Context;
 import de.unikassel.android.sdcframework.data.Sample;
 import de.unikassel.android.sdcframework.devices.facade.SensorDevice;
 import de.unikassel.android.sdcframework.devices.facade.SensorDeviceScanner;
+import de.unikassel.android.sdcframework.preferences.facade.SampleFilterConfiguration;
+import de.unikassel.android.sdcframework.util.Counter;
+import de.unikassel.android.sdcframework.util.Logger;
+import de.unikassel.android.sdcframework.util.MetricsRegistry;
 import de.unikassel.android.sdcframework.util.ObservableEventSourceImpl;
+import de.unikassel.android.sdcframework.util.RingBuffer;
+import de.unikassel.android.sdcframework.util.facade.EventObserver;
 
 /**
- * Base class for any sensor device scanner type.
+ * Base class for any sensor device scanner type. <br/>
+ * <br/>
+ * Scanners do {@linkplain #publish(Sample) publish} their samples through the
+ * {@linkplain SampleFilterChain sample filter chain} configured for the device.
+ * <br/>
+ * <br/>
+ * Pooled samples are {@linkplain Sample#retain() retained} for each observer
+ * not reading from a {@linkplain RingBuffer ring buffer}, so those observers
+ * may keep the samples without releasing them. Such samples are not recycled.
  * 
  * @author Katy Hilgenberg
  * 
@@ -53,6 +67,22 @@ public abstract class AbstractSensorDeviceScanner
    */
   private final AtomicBoolean isActive;
   
+  /**
+   * The sample filter chain, or null if no filter is configured
+   */
+  private SampleFilterChain filterChain;
+  
+  /**
+   * The lock for the sample filter chain
+   */
+  private final Object filterLock;
+  
+  /**
+   * The counter for the samples published for the device, or null if no
+   * device is set
+   */
+  private volatile Counter sampleCounter;
+  
   /**
    * Constructor
    */
@@ -60,6 +90,7 @@ public abstract class AbstractSensorDeviceScanner
   {
     super();
     isActive = new AtomicBoolean( false );
+    filterLock = new Object();
   }
   
   /*
@@ -85,8 +116,12 @@ public abstract class AbstractSensorDeviceScanner
         oldDevice.setScanner( null, context );
       }
       this.device = device;
+      this.sampleCounter = null;
       if ( this.device != null )
       {
+        this.sampleCounter =
+            MetricsRegistry.getInstance().getCounter(
+                "samples." + device.getDeviceIdentifier() );
         this.device.setScanner( this, context );
       }
     }
@@ -168,11 +203,95 @@ public abstract class AbstractSensorDeviceScanner
     {
       // stop a running scanner if enable is == false
       setActive( !stop( context ) );
+      flushFilterChain();
     }
     
     return enable == isEnabled();
   }
   
+  /**
+   * Does publish a sample to the observers through the sample filter chain
+   * configured for the device
+   * 
+   * @param sample
+   *          the sample to publish
+   */
+  protected final void publish( Sample sample )
+  {
+    Counter counter = sampleCounter;
+    if ( counter != null )
+    {
+      counter.increment();
+    }
+    synchronized ( filterLock )
+    {
+      SampleFilterChain chain = updateFilterChain();
+      if ( chain != null )
+      {
+        chain.process( sample );
+        return;
+      }
+    }
+    notify( sample );
+  }
+  
+  /**
+   * Does rebuild the sample filter chain if the filter configuration of the
+   * device has changed
+   * 
+   * @return the current sample filter chain or null if no filter is configured
+   */
+  private SampleFilterChain updateFilterChain()
+  {
+    SensorDevice device = getDevice();
+    SampleFilterConfiguration config =
+        device == null ? null
+            : device.getConfiguration().getFilterConfiguration();
+    if ( config == null || !config.isEnabled() )
+    {
+      flushFilterChain();
+      filterChain = null;
+    }
+    else if ( filterChain == null || !filterChain.isBuildFrom( config ) )
+    {
+      flushFilterChain();
+      filterChain = new SampleFilterChain( config, this );
+    }
+    return filterChain;
+  }
+  
+  /**
+   * Does emit all samples kept by the sample filter chain and log its
+   * reduction ratio
+   */
+  protected final void flushFilterChain()
+  {
+    synchronized ( filterLock )
+    {
+      if ( filterChain != null )
+      {
+        filterChain.flush();
+        if ( filterChain.getInputCount() > 0 )
+        {
+          Logger.getInstance().info( this, filterChain.toString() );
+        }
+      }
+    }
+  }
+  
+  /**
+   * Getter for the sample filter chain
+   * 
+   * @return the sample filter chain or null if no filter is configured
+   */
+  public final SampleFilterChain getFilterChain()
+  {
+    synchronized ( filterLock )
+    {
+      return filterChain;
+    }
+  }
+  
   /*
    * (non-Javadoc)
    * 
@@ -183,7 +302,27 @@ public abstract class AbstractSensorDeviceScanner
   @Override
   public void onDestroy( Context context )
   {
+    flushFilterChain();
     setDevice( null, context );
     // enable( false, context );
   }
+  
+  /*
+   * (non-Javadoc)
+   * 
+   * @see
+   * de.unikassel.android.sdcframework.util.ObservableEventSourceImpl#onObserverNotification
+   * (de.unikassel.android.sdcframework.util.facade.EventObserver,
+   * de.unikassel.android.sdcframework.util.facade.ObservableEvent)
+   */
+  @Override
+  protected void onObserverNotification( EventObserver< Sample > observer,
+      Sample sample )
+  {
+    // ring buffer subscribers are retained by the ring buffer
+    if ( !( observer instanceof RingBuffer.Subscriber ) )
+    {
+      sample.retain();
+    }
+  }
 }
\ No newline at end of file
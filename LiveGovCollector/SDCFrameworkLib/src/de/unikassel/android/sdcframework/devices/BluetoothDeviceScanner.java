@@ -112,7 +112,7 @@ public class BluetoothDeviceScanner extends SampleReceivingDeviceScanner
                 samplePriority, sampleFactory.createBluetoothSampleData(
                     bluetoothDevice, rssi ) );
       if ( sample != null )
-        notify( sample );
+        publish( sample );
     }
     else
     {
@@ -288,7 +288,7 @@ public abstract class ContentProviderDeviceScanner extends
                   getSampleDataFromCursor( cursor ) );
           if ( sample != null )
           {
-            notify( sample );
+            publish( sample );
           }
         }
         while ( cursor.moveToNext() );
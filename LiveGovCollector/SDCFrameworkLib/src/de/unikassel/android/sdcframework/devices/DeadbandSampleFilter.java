@@ -0,0 +1,112 @@
+/*
+ * Copyright (C) 2012, Katy Hilgenberg.
+ * Special acknowledgments to: Knowledge & Data Engineering Group, University of Kassel (http://www.kde.cs.uni-kassel.de).
+ * Contact: sdcf@cs.uni-kassel.de
+ *
+ * This file is part of the SDCFramework (Sensor Data Collection Framework) project.
+ *
+ * The SDCFramework is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The SDCFramework is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the SDCFramework.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.unikassel.android.sdcframework.devices;
+
+import de.unikassel.android.sdcframework.data.Sample;
+
+/**
+ * Filter dropping numeric samples inside a deadband. <br/>
+ * <br/>
+ * A sample is absorbed if all of its values differ at most by the configured
+ * threshold from the values of the last sample passed on. Samples with non
+ * numeric data are always passed on.
+ * 
+ * @author Katy Hilgenberg
+ * 
+ */
+public final class DeadbandSampleFilter extends AbstractSampleFilter
+{
+  /**
+   * The deadband threshold
+   */
+  private final float deadband;
+  
+  /**
+   * The values of the last sample passed on
+   */
+  private final float[] lastValues;
+  
+  /**
+   * The values of the current sample
+   */
+  private final float[] values;
+  
+  /**
+   * Flag if the last values are valid
+   */
+  private boolean hasLastValues;
+  
+  /**
+   * Constructor
+   * 
+   * @param deadband
+   *          the deadband threshold
+   */
+  public DeadbandSampleFilter( float deadband )
+  {
+    super();
+    this.deadband = deadband;
+    this.lastValues = new float[ MAX_VALUES ];
+    this.values = new float[ MAX_VALUES ];
+  }
+  
+  /*
+   * (non-Javadoc)
+   * 
+   * @see
+   * de.unikassel.android.sdcframework.util.AbstractChainWorker#process(java.
+   * lang.Object)
+   */
+  @Override
+  protected boolean process( Sample sample )
+  {
+    int cntValues = getValues( sample.getData(), values );
+    if ( cntValues == 0 )
+      return false;
+    
+    if ( hasLastValues && isInsideDeadband( cntValues ) )
+    {
+      countAbsorbed( 1 );
+      return true;
+    }
+    System.arraycopy( values, 0, lastValues, 0, cntValues );
+    hasLastValues = true;
+    return false;
+  }
+  
+  /**
+   * Test method for the current values to be inside of the deadband
+   * 
+   * @param cntValues
+   *          the count of current values
+   * @return true if all values are inside of the deadband, false otherwise
+   */
+  private boolean isInsideDeadband( int cntValues )
+  {
+    for ( int i = 0; i < cntValues; ++i )
+    {
+      if ( !( Math.abs( values[ i ] - lastValues[ i ] ) <= deadband ) )
+        return false;
+    }
+    return true;
+  }
+  
+}
@@ -0,0 +1,254 @@
+/*
+ * Copyright (C) 2012, Katy Hilgenberg.
+ * Special acknowledgments to: Knowledge & Data Engineering Group, University of Kassel (http://www.kde.cs.uni-kassel.de).
+ * Contact: sdcf@cs.uni-kassel.de
+ *
+ * This file is part of the SDCFramework (Sensor Data Collection Framework) project.
+ *
+ * The SDCFramework is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The SDCFramework is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the SDCFramework.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.unikassel.android.sdcframework.devices;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+
+import de.unikassel.android.sdcframework.data.Sample;
+import de.unikassel.android.sdcframework.data.independent.BinarySerializer;
+
+/**
+ * Filter suppressing runs of samples with identical data. <br/>
+ * <br/>
+ * The first sample of a run is passed on, the following duplicates are
+ * absorbed. The last duplicate is kept and emitted when the data changes,
+ * which does preserve the time span of a run for the consumers. If a maximum
+ * run length is configured, a duplicate is passed on each time a run reaches
+ * that length. <br/>
+ * <br/>
+ * Samples are compared by their {@linkplain BinarySerializer binary encoded}
+ * data, time stamp, priority and location are ignored.
+ * 
+ * @author Katy Hilgenberg
+ * 
+ */
+public final class DuplicateSampleFilter extends AbstractSampleFilter
+{
+  /**
+   * Byte array output stream with access to the internal buffer
+   * 
+   * @author Katy Hilgenberg
+   * 
+   */
+  private static final class EncodingBuffer extends ByteArrayOutputStream
+  {
+    /**
+     * The data output writing to this buffer
+     */
+    final DataOutputStream out = new DataOutputStream( this );
+    
+    /**
+     * Test method for equal content
+     * 
+     * @param other
+     *          the buffer to compare with
+     * @return true if both buffers do hold the same bytes
+     */
+    boolean contentEquals( EncodingBuffer other )
+    {
+      if ( count != other.count )
+        return false;
+      for ( int i = 0; i < count; ++i )
+      {
+        if ( buf[ i ] != other.buf[ i ] )
+          return false;
+      }
+      return true;
+    }
+  }
+  
+  /**
+   * The maximum count of absorbed duplicates in a run, 0 for unlimited runs
+   */
+  private final int maxRunLength;
+  
+  /**
+   * The encoded data of the current sample
+   */
+  private EncodingBuffer current;
+  
+  /**
+   * The encoded data of the previous sample
+   */
+  private EncodingBuffer previous;
+  
+  /**
+   * Flag if the previous data is valid
+   */
+  private boolean hasPrevious;
+  
+  /**
+   * The last duplicate of the current run, or null if there is none
+   */
+  private Sample pending;
+  
+  /**
+   * The count of duplicates in the current run
+   */
+  private int runLength;
+  
+  /**
+   * The count of finished runs
+   */
+  private long cntRuns;
+  
+  /**
+   * The longest run length seen
+   */
+  private int longestRun;
+  
+  /**
+   * Constructor
+   * 
+   * @param maxRunLength
+   *          the maximum count of absorbed duplicates in a run, 0 for
+   *          unlimited runs
+   */
+  public DuplicateSampleFilter( int maxRunLength )
+  {
+    super();
+    this.maxRunLength = maxRunLength;
+    this.current = new EncodingBuffer();
+    this.previous = new EncodingBuffer();
+  }
+  
+  /*
+   * (non-Javadoc)
+   * 
+   * @see
+   * de.unikassel.android.sdcframework.util.AbstractChainWorker#process(java.
+   * lang.Object)
+   */
+  @Override
+  protected boolean process( Sample sample )
+  {
+    current.reset();
+    try
+    {
+      BinarySerializer.writeData( current.out, sample.getData() );
+    }
+    catch ( Exception e )
+    {
+      // pass on samples which can not be encoded and start a new run
+      endRun();
+      hasPrevious = false;
+      return false;
+    }
+    
+    if ( !hasPrevious || !current.contentEquals( previous ) )
+    {
+      endRun();
+      EncodingBuffer tmp = previous;
+      previous = current;
+      current = tmp;
+      hasPrevious = true;
+      return false;
+    }
+    
+    // a duplicate
+    ++runLength;
+    dropPending();
+    if ( maxRunLength > 0 && runLength >= maxRunLength )
+    {
+      // interrupt the run to keep consumers informed
+      finishRun();
+      return false;
+    }
+    sample.retain();
+    pending = sample;
+    return true;
+  }
+  
+  /*
+   * (non-Javadoc)
+   * 
+   * @see de.unikassel.android.sdcframework.devices.AbstractSampleFilter#flush()
+   */
+  @Override
+  public void flush()
+  {
+    endRun();
+    hasPrevious = false;
+  }
+  
+  /**
+   * Does end the current run and emit its last duplicate
+   */
+  private void endRun()
+  {
+    Sample sample = pending;
+    if ( sample != null )
+    {
+      pending = null;
+      emit( sample );
+      sample.release();
+    }
+    finishRun();
+  }
+  
+  /**
+   * Does drop the kept duplicate if any
+   */
+  private void dropPending()
+  {
+    if ( pending != null )
+    {
+      pending.release();
+      pending = null;
+      countAbsorbed( 1 );
+    }
+  }
+  
+  /**
+   * Does update the run statistics and reset the run length
+   */
+  private void finishRun()
+  {
+    if ( runLength > 0 )
+    {
+      ++cntRuns;
+      longestRun = Math.max( longestRun, runLength );
+      runLength = 0;
+    }
+  }
+  
+  /**
+   * Getter for the count of finished duplicate runs
+   * 
+   * @return the count of finished duplicate runs
+   */
+  public long getRunCount()
+  {
+    return cntRuns;
+  }
+  
+  /**
+   * Getter for the longest duplicate run seen
+   * 
+   * @return the longest count of duplicates in one run
+   */
+  public int getLongestRun()
+  {
+    return longestRun;
+  }
+  
+}
@@ -24,6 +24,7 @@ import de.unikassel.android.sdcframework.data.Sample;
 import de.unikassel.android.sdcframework.data.independent.BluetoothSampleData;
 import de.unikassel.android.sdcframework.data.independent.GeoLocation;
 import de.unikassel.android.sdcframework.data.independent.SampleData;
+import de.unikassel.android.sdcframework.data.independent.SampleDataPool;
 import de.unikassel.android.sdcframework.data.independent.WifiSampleData;
 import de.unikassel.android.sdcframework.devices.facade.SensorDeviceIdentifier;
 import de.unikassel.android.sdcframework.util.TimeInformation;
@@ -137,6 +138,49 @@ public class SampleFactory
     return sample;
   }
   
+  /**
+   * Method to take a sample from the pool and to fill it with the available
+   * information. The caller does hold the only reference of the sample and has
+   * to {@linkplain Sample#release() release} it.
+   * 
+   * @param timeStamp
+   *          the sample time stamp
+   * @param synced
+   *          the time stamp NTP sync state
+   * @param id
+   *          the sensor device identifier
+   * @param priority
+   *          the priority
+   * @param data
+   *          the sensor specific data, recycled with the sample
+   * @return the pooled sample
+   */
+  public Sample obtainSample( long timeStamp, boolean synced,
+      SensorDeviceIdentifier id, int priority, SampleData data )
+  {
+    Sample sample = Sample.obtain();
+    sample.setDeviceIdentifier( id.toString() );
+    sample.setTimeStamp( timeStamp );
+    sample.setPriority( priority );
+    sample.setData( data );
+    sample.setTimeSynced( synced );
+    
+    // store the current most actual location fix
+    Location currentLocation = locationTracker.getCurrentLocation();
+    if ( currentLocation != null )
+    {
+      GeoLocation location = SampleDataPool.obtain( GeoLocation.class );
+      if ( location == null )
+      {
+        location = new GeoLocation();
+      }
+      location.setLat( currentLocation.getLatitude() );
+      location.setLon( currentLocation.getLongitude() );
+      sample.setLocation( location );
+    }
+    return sample;
+  }
+  
   /**
    * Method to create a wifi sample from a {@linkplain ScanResult}
    * 
@@ -0,0 +1,251 @@
+/*
+ * Copyright (C) 2012, Katy Hilgenberg.
+ * Special acknowledgments to: Knowledge & Data Engineering Group, University of Kassel (http://www.kde.cs.uni-kassel.de).
+ * Contact: sdcf@cs.uni-kassel.de
+ *
+ * This file is part of the SDCFramework (Sensor Data Collection Framework) project.
+ *
+ * The SDCFramework is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The SDCFramework is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the SDCFramework.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.unikassel.android.sdcframework.devices;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import de.unikassel.android.sdcframework.data.Sample;
+import de.unikassel.android.sdcframework.preferences.SampleFilterConfigurationImpl;
+import de.unikassel.android.sdcframework.preferences.facade.SampleFilterConfiguration;
+import de.unikassel.android.sdcframework.util.AbstractChainWorker;
+import de.unikassel.android.sdcframework.util.ObservableEventSourceImpl;
+import de.unikassel.android.sdcframework.util.facade.ChainWorker;
+
+/**
+ * The sample filter stage between a device scanner and the sample consumers. <br/>
+ * <br/>
+ * The chain is build from a {@linkplain SampleFilterConfiguration filter
+ * configuration} and does consist of the enabled filters in the order
+ * {@linkplain DeadbandSampleFilter deadband},
+ * {@linkplain DuplicateSampleFilter duplicate suppression} and
+ * {@linkplain WindowAggregationSampleFilter window aggregation}. Samples
+ * passing all filters are notified to the observers of the event source. <br/>
+ * <br/>
+ * The chain does count the samples going in and out to report the reduction
+ * ratio.
+ * 
+ * @author Katy Hilgenberg
+ * 
+ */
+public final class SampleFilterChain
+{
+  /**
+   * The last worker of the chain notifying the observers
+   * 
+   * @author Katy Hilgenberg
+   * 
+   */
+  private final class NotifyingWorker extends AbstractChainWorker< Sample >
+  {
+    /*
+     * (non-Javadoc)
+     * 
+     * @see
+     * de.unikassel.android.sdcframework.util.AbstractChainWorker#process(java
+     * .lang.Object)
+     */
+    @Override
+    protected boolean process( Sample sample )
+    {
+      ++cntOut;
+      source.notify( sample );
+      return true;
+    }
+  }
+  
+  /**
+   * The event source to notify the observers of
+   */
+  private final ObservableEventSourceImpl< Sample > source;
+  
+  /**
+   * The configuration the chain was build from
+   */
+  private final SampleFilterConfiguration configuration;
+  
+  /**
+   * The enabled filters in chain order
+   */
+  private final List< AbstractSampleFilter > filters;
+  
+  /**
+   * The first worker of the chain
+   */
+  private final ChainWorker< Sample > head;
+  
+  /**
+   * The count of samples going into the chain
+   */
+  private long cntIn;
+  
+  /**
+   * The count of samples notified to the observers
+   */
+  private long cntOut;
+  
+  /**
+   * Constructor
+   * 
+   * @param configuration
+   *          the filter configuration
+   * @param source
+   *          the event source to notify the observers of
+   */
+  public SampleFilterChain( SampleFilterConfiguration configuration,
+      ObservableEventSourceImpl< Sample > source )
+  {
+    super();
+    this.source = source;
+    this.configuration = new SampleFilterConfigurationImpl( configuration );
+    this.filters = new ArrayList< AbstractSampleFilter >();
+    
+    if ( this.configuration.getDeadband() > 0 )
+    {
+      filters.add( new DeadbandSampleFilter(
+          this.configuration.getDeadband() ) );
+    }
+    if ( this.configuration.isSuppressingDuplicates() )
+    {
+      filters.add( new DuplicateSampleFilter(
+          this.configuration.getMaxRunLength() ) );
+    }
+    if ( this.configuration.getWindow() > 0 )
+    {
+      filters.add( new WindowAggregationSampleFilter(
+          this.configuration.getWindow(),
+          this.configuration.getAggregation() ) );
+    }
+    
+    ChainWorker< Sample > last = new NotifyingWorker();
+    for ( int i = filters.size() - 1; i >= 0; --i )
+    {
+      filters.get( i ).setSuccessor( last );
+      last = filters.get( i );
+    }
+    head = last;
+  }
+  
+  /**
+   * Does filter a sample and notify the observers if it does pass
+   * 
+   * @param sample
+   *          the sample to filter
+   */
+  public synchronized void process( Sample sample )
+  {
+    if ( sample == null )
+      return;
+    ++cntIn;
+    head.doWork( sample );
+  }
+  
+  /**
+   * Does emit all samples kept by the filters
+   */
+  public synchronized void flush()
+  {
+    // filters are flushed in chain order, so that emitted samples do pass
+    // the following filters before those are flushed
+    for ( AbstractSampleFilter filter : filters )
+    {
+      filter.flush();
+    }
+  }
+  
+  /**
+   * Test method for the configuration the chain was build from
+   * 
+   * @param configuration
+   *          the configuration to test
+   * @return true if the chain was build from an equal configuration
+   */
+  public boolean isBuildFrom( SampleFilterConfiguration configuration )
+  {
+    return this.configuration.equals( configuration );
+  }
+  
+  /**
+   * Getter for the enabled filters
+   * 
+   * @return the enabled filters in chain order
+   */
+  public List< AbstractSampleFilter > getFilters()
+  {
+    return Collections.unmodifiableList( filters );
+  }
+  
+  /**
+   * Getter for the count of samples going into the chain
+   * 
+   * @return the count of samples going into the chain
+   */
+  public synchronized long getInputCount()
+  {
+    return cntIn;
+  }
+  
+  /**
+   * Getter for the count of samples notified to the observers
+   * 
+   * @return the count of samples notified to the observers
+   */
+  public synchronized long getOutputCount()
+  {
+    return cntOut;
+  }
+  
+  /**
+   * Getter for the reduction ratio
+   * 
+   * @return the share of the input samples which have not been notified, 0 if
+   *         there has been no input yet
+   */
+  public synchronized float getReductionRatio()
+  {
+    if ( cntIn == 0 )
+      return 0.f;
+    return Math.max( 0.f, 1.f - (float) cntOut / cntIn );
+  }
+  
+  /*
+   * (non-Javadoc)
+   * 
+   * @see java.lang.Object#toString()
+   */
+  @Override
+  public synchronized String toString()
+  {
+    StringBuffer buffer = new StringBuffer();
+    buffer.append( "filtered " ).append( cntIn ).append( " samples to " );
+    buffer.append( cntOut ).append( " ( reduction " );
+    buffer.append( Math.round( getReductionRatio() * 100 ) ).append( "%" );
+    for ( AbstractSampleFilter filter : filters )
+    {
+      buffer.append( ", " ).append( filter.getClass().getSimpleName() );
+      buffer.append( " absorbed " ).append( filter.getAbsorbedCount() );
+    }
+    buffer.append( " )" );
+    return buffer.toString();
+  }
+  
+}
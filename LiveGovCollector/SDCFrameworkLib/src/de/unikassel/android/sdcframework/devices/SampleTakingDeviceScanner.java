@@ -21,19 +21,29 @@
 package de.unikassel.android.sdcframework.devices;
 
 import android.content.Context;
-import android.os.Handler;
 import de.unikassel.android.sdcframework.data.Sample;
 import de.unikassel.android.sdcframework.devices.facade.SampleProvidingSensorDevice;
 import de.unikassel.android.sdcframework.devices.facade.SensorDevice;
+import de.unikassel.android.sdcframework.transmission.facade.SampleRateChangeResponder;
 import de.unikassel.android.sdcframework.util.Logger;
+import de.unikassel.android.sdcframework.util.SampleEventBus;
 
 /**
  * Base class for sensor device scanner types, which do active take a sample of
  * the associated device in the configured frequency. <br/>
  * <br/>
- * The timing is done by the usage of an OS handler to schedule the timed task. <br/>
+ * The timing is done by the {@linkplain SamplingScheduler sampling scheduler}
+ * shared by all scanners, which does execute the timed task on its own thread.
+ * Samples can be taken on schedule and on {@linkplain #requestSample()
+ * request} of the device ( e.g. if a raw event buffer is full ), both on the
+ * scheduler thread. {@link #takeSample()} does serialize concurrent calls.
+ * <br/>
  * This scanner is designed to work together with devices implementing the
- * {@linkplain SampleProvidingSensorDevice} interface.
+ * {@linkplain SampleProvidingSensorDevice} interface. <br/>
+ * <br/>
+ * While running, the scanner does respond to throttle factor changes of the
+ * {@linkplain SampleEventBus sample event bus} and stretches the sampling
+ * interval by the factor as long as the sample consumers are lagging behind.
  * 
  * @see SampleProvidingSensorDevice
  * @see AccelerometerDeviceScanner
@@ -44,17 +54,23 @@ import de.unikassel.android.sdcframework.util.Logger;
  */
 public abstract class SampleTakingDeviceScanner extends
     AbstractSensorDeviceScanner
+    implements SampleRateChangeResponder
 {
   
   /**
-   * The handler used for timing instead of a timer object
+   * The timer task to be executed on timer event
    */
-  private Handler handler;
+  private volatile SampleTakingTask timerTask;
   
   /**
-   * The timer task to be executed on timer event
+   * The factor to stretch the sampling interval with
    */
-  private SampleTakingTask timerTask;
+  private volatile int throttleFactor;
+  
+  /**
+   * The lock to serialize sample taking
+   */
+  private final Object sampleLock;
   
   /**
    * Constructor
@@ -62,6 +78,31 @@ public abstract class SampleTakingDeviceScanner extends
   public SampleTakingDeviceScanner()
   {
     super();
+    this.throttleFactor = 1;
+    this.sampleLock = new Object();
+  }
+  
+  /**
+   * Getter for the factor to stretch the sampling interval with
+   * 
+   * @return the throttle factor, 1 if not throttled
+   */
+  public final int getThrottleFactor()
+  {
+    return throttleFactor;
+  }
+  
+  /*
+   * (non-Javadoc)
+   * 
+   * @see de.unikassel.android.sdcframework.transmission.facade.
+   * SampleRateChangeResponder#onSampleRateChanged()
+   */
+  @Override
+  public void onSampleRateChanged()
+  {
+    // just keep the factor, the timed task does apply it on reschedule
+    throttleFactor = SampleEventBus.getInstance().getThrottleFactor();
   }
   
   /*
@@ -78,51 +119,58 @@ public abstract class SampleTakingDeviceScanner extends
   }
   
   /**
-   * The cyclic executed method to take a sample from the device
+   * The cyclic executed method to take a sample from the device. Concurrent
+   * calls are serialized.
    */
   public void takeSample()
   {
-    try
+    synchronized ( sampleLock )
     {
-      SampleProvidingSensorDevice sampleProvidingSensorDevice =
-            (SampleProvidingSensorDevice) getDevice();
-      
-      if ( sampleProvidingSensorDevice.hasSample() )
+      try
       {
-        Sample sample =
-              sampleProvidingSensorDevice.getSample();
-        notify( sample );
+        SampleProvidingSensorDevice sampleProvidingSensorDevice =
+              (SampleProvidingSensorDevice) getDevice();
+        
+        if ( sampleProvidingSensorDevice instanceof AbstractAndroidSensorDevice
+            && ( (AbstractAndroidSensorDevice) sampleProvidingSensorDevice ).isCapturingEvents() )
+        {
+          // take the raw events captured since the last sample
+          Sample sample =
+              ( (AbstractAndroidSensorDevice) sampleProvidingSensorDevice ).getBatchSample();
+          if ( sample != null )
+          {
+            publish( sample );
+            sample.release();
+          }
+        }
+        else if ( sampleProvidingSensorDevice.hasSample() )
+        {
+          Sample sample =
+                sampleProvidingSensorDevice.getSample();
+          publish( sample );
+          
+          // observers and filters keeping the sample have retained it
+          sample.release();
+        }
+      }
+      catch ( Exception e )
+      {
+        Logger.getInstance().error( this, "Exception in takeSample" );
       }
-    }
-    catch ( Exception e )
-    {
-      Logger.getInstance().error( this, "Exception in takeSample" );
     }
   }
   
   /**
-   * Getter for the handler
-   * 
-   * @return the handler
+   * Does request the scheduler to take a sample at its next wakeup, out of the
+   * sampling schedule. Can be called from the sensor callback thread.
    */
-  protected final Handler getHandler()
+  public final void requestSample()
   {
-    if ( handler == null )
+    SampleTakingTask task = timerTask;
+    if ( task != null )
     {
-      setHandler( new Handler() );
+      SamplingScheduler.getInstance().execute( task );
     }
-    return handler;
-  }
-  
-  /**
-   * Setter for the handler
-   * 
-   * @param handler
-   *          the handler to set
-   */
-  private final void setHandler( Handler handler )
-  {
-    this.handler = handler;
   }
   
   /**
@@ -134,7 +182,7 @@ public abstract class SampleTakingDeviceScanner extends
   {
     if ( timerTask == null )
     {
-      setTimerTask( new SampleTakingTask( this, getHandler() ) );
+      setTimerTask( new SampleTakingTask( this ) );
     }
     return timerTask;
   }
@@ -161,12 +209,10 @@ public abstract class SampleTakingDeviceScanner extends
   public boolean start( Context context )
   {
     // start repeated timed task
-    Handler handler = getHandler();
-    Logger.getInstance().debug( this,
-        "Starting for handler " + handler.toString() );
-    SampleTakingTask timerTask = getTimerTask();
-    handler.removeCallbacks( timerTask );
-    handler.postDelayed( timerTask, 50 );
+    SampleEventBus.getInstance().registerSampleRateChangeResponder( this );
+    onSampleRateChanged();
+    SamplingScheduler.getInstance().schedule( getTimerTask() );
+    Logger.getInstance().debug( this, "Started" );
     return true;
   }
   
@@ -181,10 +227,10 @@ public abstract class SampleTakingDeviceScanner extends
   public boolean stop( Context context )
   {
     // stop our next timed task
-    Handler handler = getHandler();
-    handler.removeCallbacks( getTimerTask() );
-    Logger.getInstance().debug( this,
-        "Stopped for handler " + handler.toString() );
+    SamplingScheduler.getInstance().cancel( getTimerTask() );
+    SampleEventBus.getInstance().unregisterSampleRateChangeResponder( this );
+    throttleFactor = 1;
+    Logger.getInstance().debug( this, "Stopped" );
     return true;
   }
   
@@ -199,7 +245,10 @@ public abstract class SampleTakingDeviceScanner extends
   public void onDestroy( Context context )
   {
     super.onDestroy( context );
-    setHandler( null );
+    if ( timerTask != null )
+    {
+      SamplingScheduler.getInstance().cancel( timerTask );
+    }
     setTimerTask( null );
   }
 }
\ No newline at end of file
@@ -22,18 +22,24 @@ package de.unikassel.android.sdcframework.devices;
 
 import java.security.InvalidParameterException;
 
-import android.os.Handler;
+import de.unikassel.android.sdcframework.devices.facade.SensorDevice;
 
 /**
- * This class does implement a runnable task to be executed delayed by an OS
- * handler in the service context. <br/>
+ * This class does implement the periodic sample taking task of a
+ * {@linkplain SampleTakingDeviceScanner sample taking device scanner}, which
+ * is scheduled by the {@linkplain SamplingScheduler sampling scheduler}. <br/>
  * <br/>
- * Every time this runnable is executed, it will post itself for another delayed
- * execution using the current configured frequency. Further more, each time it
- * is executed the linked scanner is invoked to take a sample from its
- * associated device.
+ * Each time the task is executed, the linked scanner is invoked to take a
+ * sample from its associated device. The task is rescheduled at fixed rate
+ * with the current configured frequency, stretched by the
+ * {@linkplain SampleTakingDeviceScanner#getThrottleFactor() throttle factor}
+ * of the scanner. <br/>
+ * <br/>
+ * The task does keep statistics about its jitter, which is the delay between
+ * the scheduled deadline and the execution.
  * 
  * @see SampleTakingDeviceScanner
+ * @see SamplingScheduler
  * @author Katy Hilgenberg
  * 
  */
@@ -45,27 +51,103 @@ public final class SampleTakingTask implements Runnable
   private final SampleTakingDeviceScanner scanner;
   
   /**
-   * The handler to repost the task to for delayed runnable execution
+   * The previous task in the same timer wheel slot ( guarded by the scheduler
+   * lock )
+   */
+  SampleTakingTask prev;
+  
+  /**
+   * The next task in the same timer wheel slot ( guarded by the scheduler lock
+   * )
+   */
+  SampleTakingTask next;
+  
+  /**
+   * Flag if the task is scheduled ( guarded by the scheduler lock )
+   */
+  boolean isScheduled;
+  
+  /**
+   * Flag if the task is requested for execution out of its schedule ( guarded
+   * by the scheduler lock )
+   */
+  boolean isRequested;
+  
+  /**
+   * The period in milliseconds the deadline was calculated for ( guarded by
+   * the scheduler lock )
+   */
+  long period;
+  
+  /**
+   * The next deadline in milliseconds of the scheduler time ( guarded by the
+   * scheduler lock )
+   */
+  long deadline;
+  
+  /**
+   * The timer wheel tick of the next deadline ( guarded by the scheduler lock
+   * )
+   */
+  long deadlineTick;
+  
+  /**
+   * The count of executions since the last statistics reset
    */
-  private final Handler handler;
+  private long cntRuns;
+  
+  /**
+   * The sum of the jitter in milliseconds since the last statistics reset
+   */
+  private long sumJitter;
+  
+  /**
+   * The maximum jitter in milliseconds since the last statistics reset
+   */
+  private long maxJitter;
+  
+  /**
+   * The count of deadlines missed since the last statistics reset
+   */
+  private long cntMissed;
   
   /**
    * Constructor
    * 
    * @param scanner
    *          the scanner taking the samples on runnable execution
-   * @param handler
-   *          the handler to repost the task to for delayed runnable execution
    */
-  public SampleTakingTask( SampleTakingDeviceScanner scanner, Handler handler )
+  public SampleTakingTask( SampleTakingDeviceScanner scanner )
   {
     super();
     if ( scanner == null )
       throw new InvalidParameterException( "scanner is null" );
-    if ( handler == null )
-      throw new InvalidParameterException( "handler is null" );
     this.scanner = scanner;
-    this.handler = handler;
+  }
+  
+  /**
+   * Getter for the scanner
+   * 
+   * @return the scanner taking the samples on runnable execution
+   */
+  public final SampleTakingDeviceScanner getScanner()
+  {
+    return scanner;
+  }
+  
+  /**
+   * Getter for the current period
+   * 
+   * @return the current period in milliseconds, or 0 if the scanner has no
+   *         device
+   */
+  public final long getPeriod()
+  {
+    SensorDevice device = scanner.getDevice();
+    if ( device == null )
+      return 0L;
+    return (long) device.getConfiguration().getFrequency()
+        * scanner.getThrottleFactor();
   }
   
   /*
@@ -76,14 +158,92 @@ public final class SampleTakingTask implements Runnable
   @Override
   public final void run()
   {
-    // restart timed task first
     if ( scanner.isEnabled() )
     {
-      int frequency = scanner.getDevice().getConfiguration().getFrequency();
-      handler.postDelayed( this, frequency );
-      
       // take a sample
       scanner.takeSample();
     }
   }
-}
\ No newline at end of file
+  
+  /**
+   * Method to record the jitter of an execution
+   * 
+   * @param jitter
+   *          the delay between deadline and execution in milliseconds
+   * @param cntMissed
+   *          the count of skipped deadlines
+   */
+  final synchronized void recordJitter( long jitter, long cntMissed )
+  {
+    ++cntRuns;
+    sumJitter += jitter;
+    maxJitter = Math.max( maxJitter, jitter );
+    this.cntMissed += cntMissed;
+  }
+  
+  /**
+   * Getter for the count of executions since the last statistics reset
+   * 
+   * @return the count of executions
+   */
+  public final synchronized long getRunCount()
+  {
+    return cntRuns;
+  }
+  
+  /**
+   * Getter for the mean jitter since the last statistics reset
+   * 
+   * @return the mean delay between deadline and execution in milliseconds
+   */
+  public final synchronized long getMeanJitter()
+  {
+    return cntRuns > 0 ? sumJitter / cntRuns : 0L;
+  }
+  
+  /**
+   * Getter for the maximum jitter since the last statistics reset
+   * 
+   * @return the maximum delay between deadline and execution in milliseconds
+   */
+  public final synchronized long getMaximumJitter()
+  {
+    return maxJitter;
+  }
+  
+  /**
+   * Getter for the count of skipped deadlines since the last statistics reset
+   * 
+   * @return the count of deadlines skipped because an execution was late by
+   *         more than a period
+   */
+  public final synchronized long getMissedCount()
+  {
+    return cntMissed;
+  }
+  
+  /**
+   * Does reset the jitter statistics
+   */
+  public final synchronized void resetStatistics()
+  {
+    cntRuns = 0L;
+    sumJitter = 0L;
+    maxJitter = 0L;
+    cntMissed = 0L;
+  }
+  
+  /*
+   * (non-Javadoc)
+   * 
+   * @see java.lang.Object#toString()
+   */
+  @Override
+  public final synchronized String toString()
+  {
+    SensorDevice device = scanner.getDevice();
+    return ( device != null ? device.getDeviceIdentifier() : "-" ) + ": runs "
+        + cntRuns + ", mean jitter " + getMeanJitter() + " ms, max jitter "
+        + maxJitter + " ms, missed " + cntMissed;
+  }
+}
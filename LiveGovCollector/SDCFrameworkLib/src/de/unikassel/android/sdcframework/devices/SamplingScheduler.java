@@ -0,0 +1,504 @@
+/*
+ * Copyright (C) 2012, Katy Hilgenberg.
+ * Special acknowledgments to: Knowledge & Data Engineering Group, University of Kassel (http://www.kde.cs.uni-kassel.de).
+ * Contact: sdcf@cs.uni-kassel.de
+ *
+ * This file is part of the SDCFramework (Sensor Data Collection Framework) project.
+ *
+ * The SDCFramework is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The SDCFramework is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the SDCFramework.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.unikassel.android.sdcframework.devices;
+
+import java.util.ArrayList;
+
+import de.unikassel.android.sdcframework.util.AbstractWorkerThread;
+import de.unikassel.android.sdcframework.util.Logger;
+import de.unikassel.android.sdcframework.util.facade.LogLevel;
+
+/**
+ * The sampling scheduler is a single dedicated thread executing the
+ * {@linkplain SampleTakingTask sample taking tasks} of all running
+ * {@linkplain SampleTakingDeviceScanner sample taking device scanners}
+ * ( implemented as singleton ). <br/>
+ * <br/>
+ * The tasks are kept in a hashed timer wheel of {@link #WHEEL_SIZE} slots
+ * with a resolution of {@link #TICK_MILLIS} milliseconds. Deadlines are
+ * aligned to multiples of the period, so tasks with the same period ( or a
+ * multiple of it ) are executed in the same wakeup, and the tasks are
+ * rescheduled at fixed rate, which does prevent the drift of the intervals.
+ * The thread does sleep until the next tick with an expiring task and does
+ * not wake up at all if no task is scheduled. <br/>
+ * <br/>
+ * Tasks can be {@linkplain #execute(SampleTakingTask) executed} once out of
+ * their schedule, e.g. for devices with a full event buffer, so the sensor
+ * callbacks do not take samples themselves. <br/>
+ * <br/>
+ * The jitter of each task is logged periodically.
+ * 
+ * @see SampleTakingTask
+ * @author Katy Hilgenberg
+ * 
+ */
+public final class SamplingScheduler extends AbstractWorkerThread
+{
+  /**
+   * The timer wheel resolution in milliseconds
+   */
+  public static final long TICK_MILLIS = 10L;
+  
+  /**
+   * The count of timer wheel slots ( a power of two )
+   */
+  public static final int WHEEL_SIZE = 256;
+  
+  /**
+   * The interval to log the jitter statistics in milliseconds
+   */
+  private static final long REPORT_INTERVAL = 600000L;
+  
+  /**
+   * The global singleton instance
+   */
+  private static SamplingScheduler instance;
+  
+  /**
+   * The timer wheel slots, each the head of a linked list of tasks
+   */
+  private final SampleTakingTask[] wheel;
+  
+  /**
+   * The lock guarding the timer wheel
+   */
+  private final Object lock;
+  
+  /**
+   * The start time of the scheduler time in nanoseconds
+   */
+  private final long origin;
+  
+  /**
+   * The last processed tick
+   */
+  private long currentTick;
+  
+  /**
+   * The count of scheduled tasks
+   */
+  private int cntScheduled;
+  
+  /**
+   * The tasks expired in the current tick
+   */
+  private final ArrayList< SampleTakingTask > expired;
+  
+  /**
+   * The tasks requested for execution out of their schedule
+   */
+  private final ArrayList< SampleTakingTask > requested;
+  
+  /**
+   * The count of wakeups with task execution
+   */
+  private long cntWakeups;
+  
+  /**
+   * The time of the next jitter statistics report
+   */
+  private long nextReport;
+  
+  /**
+   * Constructor
+   */
+  private SamplingScheduler()
+  {
+    super();
+    setName( "SamplingScheduler" );
+    wheel = new SampleTakingTask[ WHEEL_SIZE ];
+    lock = new Object();
+    origin = System.nanoTime();
+    currentTick = -1L;
+    expired = new ArrayList< SampleTakingTask >();
+    requested = new ArrayList< SampleTakingTask >();
+    nextReport = REPORT_INTERVAL;
+  }
+  
+  /**
+   * Getter for the global singleton instance, which is started on first
+   * access
+   * 
+   * @return the global singleton instance
+   */
+  public static synchronized SamplingScheduler getInstance()
+  {
+    if ( instance == null )
+    {
+      instance = new SamplingScheduler();
+      instance.startWork();
+    }
+    return instance;
+  }
+  
+  /**
+   * Getter for the scheduler time
+   * 
+   * @return the milliseconds since the scheduler creation
+   */
+  public final long now()
+  {
+    return ( System.nanoTime() - origin ) / 1000000L;
+  }
+  
+  /**
+   * Method to schedule a task at the next multiple of its period. A scheduled
+   * task is rescheduled.
+   * 
+   * @param task
+   *          the task to schedule
+   */
+  public final void schedule( SampleTakingTask task )
+  {
+    synchronized ( lock )
+    {
+      if ( task.isScheduled )
+      {
+        unlink( task );
+      }
+      long period = task.getPeriod();
+      if ( period <= 0 )
+        return;
+      
+      task.period = period;
+      task.deadline = ( now() / period + 1 ) * period;
+      insert( task );
+      lock.notifyAll();
+    }
+  }
+  
+  /**
+   * Method to execute a task once at the next wakeup, independent of its
+   * schedule. A task already requested is executed only once.
+   * 
+   * @param task
+   *          the task to execute
+   */
+  public final void execute( SampleTakingTask task )
+  {
+    synchronized ( lock )
+    {
+      if ( !task.isRequested )
+      {
+        task.isRequested = true;
+        requested.add( task );
+        lock.notifyAll();
+      }
+    }
+  }
+  
+  /**
+   * Method to cancel a scheduled task
+   * 
+   * @param task
+   *          the task to cancel
+   */
+  public final void cancel( SampleTakingTask task )
+  {
+    synchronized ( lock )
+    {
+      if ( task.isScheduled )
+      {
+        unlink( task );
+      }
+    }
+  }
+  
+  /**
+   * Test method for a scheduled task
+   * 
+   * @param task
+   *          the task to test
+   * @return true if the task is scheduled
+   */
+  public final boolean isScheduled( SampleTakingTask task )
+  {
+    synchronized ( lock )
+    {
+      return task.isScheduled;
+    }
+  }
+  
+  /**
+   * Getter for the count of scheduled tasks
+   * 
+   * @return the count of scheduled tasks
+   */
+  public final int getScheduledCount()
+  {
+    synchronized ( lock )
+    {
+      return cntScheduled;
+    }
+  }
+  
+  /**
+   * Getter for the count of wakeups with task execution
+   * 
+   * @return the count of wakeups with task execution
+   */
+  public final long getWakeupCount()
+  {
+    synchronized ( lock )
+    {
+      return cntWakeups;
+    }
+  }
+  
+  /**
+   * Method to insert a task into the timer wheel slot of its deadline
+   * 
+   * @param task
+   *          the task to insert
+   */
+  private void insert( SampleTakingTask task )
+  {
+    task.deadlineTick = ( task.deadline + TICK_MILLIS - 1 ) / TICK_MILLIS;
+    int slot = (int) ( task.deadlineTick & ( WHEEL_SIZE - 1 ) );
+    task.prev = null;
+    task.next = wheel[ slot ];
+    if ( task.next != null )
+    {
+      task.next.prev = task;
+    }
+    wheel[ slot ] = task;
+    task.isScheduled = true;
+    ++cntScheduled;
+  }
+  
+  /**
+   * Method to remove a task from its timer wheel slot
+   * 
+   * @param task
+   *          the task to remove
+   */
+  private void unlink( SampleTakingTask task )
+  {
+    int slot = (int) ( task.deadlineTick & ( WHEEL_SIZE - 1 ) );
+    if ( task.prev == null )
+      wheel[ slot ] = task.next;
+    else
+      task.prev.next = task.next;
+    if ( task.next != null )
+    {
+      task.next.prev = task.prev;
+    }
+    task.prev = null;
+    task.next = null;
+    task.isScheduled = false;
+    --cntScheduled;
+  }
+  
+  /**
+   * Method to remove the tasks expired up to a tick and to reschedule them at
+   * fixed rate
+   * 
+   * @param nowTick
+   *          the current tick
+   * @param now
+   *          the current scheduler time
+   */
+  private void expire( long nowTick, long now )
+  {
+    // each slot has to be visited at most once per call
+    long tick = Math.max( currentTick + 1, nowTick - WHEEL_SIZE + 1 );
+    for ( ; tick <= nowTick; ++tick )
+    {
+      SampleTakingTask task = wheel[ (int) ( tick & ( WHEEL_SIZE - 1 ) ) ];
+      while ( task != null )
+      {
+        SampleTakingTask next = task.next;
+        if ( task.deadlineTick <= nowTick )
+        {
+          unlink( task );
+          expired.add( task );
+        }
+        task = next;
+      }
+    }
+    currentTick = nowTick;
+    
+    for ( int i = 0; i < expired.size(); ++i )
+    {
+      SampleTakingTask task = expired.get( i );
+      long jitter = now - task.deadline;
+      long cntMissed = 0L;
+      long period = task.getPeriod();
+      if ( period <= 0 )
+        continue;
+      
+      if ( period != task.period )
+      {
+        // realign to the changed period
+        task.period = period;
+        task.deadline = ( now / period + 1 ) * period;
+      }
+      else
+      {
+        task.deadline += period;
+        if ( task.deadline <= now )
+        {
+          cntMissed = ( now - task.deadline ) / period + 1;
+          task.deadline += cntMissed * period;
+        }
+      }
+      insert( task );
+      task.recordJitter( jitter, cntMissed );
+    }
+  }
+  
+  /**
+   * Method to determine the next tick with an expiring task
+   * 
+   * @param nowTick
+   *          the current tick
+   * @return the next tick with an expiring task, or -1 if no task is scheduled
+   */
+  private long getNextTick( long nowTick )
+  {
+    if ( cntScheduled == 0 )
+      return -1L;
+    
+    long nextTick = Long.MAX_VALUE;
+    for ( int i = 1; i <= WHEEL_SIZE; ++i )
+    {
+      long tick = nowTick + i;
+      SampleTakingTask task = wheel[ (int) ( tick & ( WHEEL_SIZE - 1 ) ) ];
+      for ( ; task != null; task = task.next )
+      {
+        if ( task.deadlineTick <= tick )
+          return tick;
+        nextTick = Math.min( nextTick, task.deadlineTick );
+      }
+    }
+    return nextTick;
+  }
+  
+  /*
+   * (non-Javadoc)
+   * 
+   * @see de.unikassel.android.sdcframework.util.AbstractWorkerThread#doWork()
+   */
+  @Override
+  protected final void doWork()
+  {
+    long now;
+    synchronized ( lock )
+    {
+      now = now();
+      long nowTick = now / TICK_MILLIS;
+      expire( nowTick, now );
+      for ( int i = 0; i < requested.size(); ++i )
+      {
+        SampleTakingTask task = requested.get( i );
+        task.isRequested = false;
+        if ( !expired.contains( task ) )
+        {
+          expired.add( task );
+        }
+      }
+      requested.clear();
+      if ( expired.isEmpty() )
+      {
+        long nextTick = getNextTick( nowTick );
+        try
+        {
+          if ( nextTick < 0 )
+            lock.wait();
+          else
+            lock.wait( Math.max( 1L, nextTick * TICK_MILLIS - now ) );
+        }
+        catch ( InterruptedException e )
+        {}
+        return;
+      }
+      ++cntWakeups;
+    }
+    
+    // execute the tasks without holding the lock, scanners may cancel them
+    for ( int i = 0; i < expired.size(); ++i )
+    {
+      try
+      {
+        expired.get( i ).run();
+      }
+      catch ( Exception e )
+      {
+        Logger.getInstance().error( this,
+            "Exception in sample taking task: " + e );
+      }
+    }
+    expired.clear();
+    
+    if ( now >= nextReport )
+    {
+      nextReport = now + REPORT_INTERVAL;
+      reportJitter();
+    }
+  }
+  
+  /**
+   * Does log and reset the jitter statistics of the scheduled tasks
+   */
+  private void reportJitter()
+  {
+    boolean isLoggable = Logger.getInstance().isLoggable( LogLevel.DEBUG );
+    synchronized ( lock )
+    {
+      for ( SampleTakingTask head : wheel )
+      {
+        for ( SampleTakingTask task = head; task != null; task = task.next )
+        {
+          // the statistics are reset, so the message is formatted right now
+          if ( isLoggable )
+            Logger.getInstance().debug( this, "Sampling " + task );
+          task.resetStatistics();
+        }
+      }
+    }
+  }
+  
+  /*
+   * (non-Javadoc)
+   * 
+   * @see
+   * de.unikassel.android.sdcframework.util.AbstractWorkerThread#doCleanUp()
+   */
+  @Override
+  protected final void doCleanUp()
+  {
+    synchronized ( lock )
+    {
+      for ( int i = 0; i < WHEEL_SIZE; ++i )
+      {
+        while ( wheel[ i ] != null )
+        {
+          unlink( wheel[ i ] );
+        }
+      }
+      for ( int i = 0; i < requested.size(); ++i )
+      {
+        requested.get( i ).isRequested = false;
+      }
+      requested.clear();
+    }
+  }
+}
@@ -0,0 +1,207 @@
+/*
+ * Copyright (C) 2012, Katy Hilgenberg.
+ * Special acknowledgments to: Knowledge & Data Engineering Group, University of Kassel (http://www.kde.cs.uni-kassel.de).
+ * Contact: sdcf@cs.uni-kassel.de
+ *
+ * This file is part of the SDCFramework (Sensor Data Collection Framework) project.
+ *
+ * The SDCFramework is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The SDCFramework is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the SDCFramework.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.unikassel.android.sdcframework.devices;
+
+import java.security.InvalidParameterException;
+
+import de.unikassel.android.sdcframework.data.independent.SensorBatchSampleData;
+
+/**
+ * Preallocated ring buffer for raw sensor events. <br/>
+ * <br/>
+ * The event time stamps and values are copied into primitive arrays allocated
+ * once for the configured capacity, so capturing an event does not allocate
+ * any objects. The buffer is {@linkplain #drain() drained} into a single
+ * {@link SensorBatchSampleData} object. If the buffer is not drained in time,
+ * the oldest events are overwritten.<br/>
+ * <br/>
+ * The buffer is not thread safe, the owning device has to synchronize access.
+ * 
+ * @see AbstractAndroidSensorDevice
+ * @author Katy Hilgenberg
+ * 
+ */
+public final class SensorEventBuffer
+{
+  /**
+   * The default count of values per event
+   */
+  public static final int DEFAULT_AXES = 3;
+  
+  /**
+   * The count of values per event
+   */
+  private final int axes;
+  
+  /**
+   * The event time stamps
+   */
+  private final long[] timeStamps;
+  
+  /**
+   * The event values, event by event
+   */
+  private final float[] values;
+  
+  /**
+   * The index of the oldest event
+   */
+  private int head;
+  
+  /**
+   * The count of buffered events
+   */
+  private int count;
+  
+  /**
+   * The count of events overwritten since creation
+   */
+  private long cntOverwritten;
+  
+  /**
+   * Constructor
+   * 
+   * @param capacity
+   *          the maximum count of buffered events
+   * @param axes
+   *          the count of values per event
+   */
+  public SensorEventBuffer( int capacity, int axes )
+  {
+    super();
+    if ( capacity <= 0 )
+      throw new InvalidParameterException( "capacity must be positive" );
+    if ( axes <= 0 )
+      throw new InvalidParameterException( "axes must be positive" );
+    this.axes = axes;
+    this.timeStamps = new long[ capacity ];
+    this.values = new float[ capacity * axes ];
+  }
+  
+  /**
+   * Method to add an event. Missing values are stored as 0, additional values
+   * are ignored.
+   * 
+   * @param timeStamp
+   *          the event time stamp
+   * @param eventValues
+   *          the event values
+   * @return true if the buffer is full after adding the event, false otherwise
+   */
+  public final boolean add( long timeStamp, float[] eventValues )
+  {
+    int index;
+    if ( count == timeStamps.length )
+    {
+      // overwrite the oldest event
+      index = head;
+      head = ( head + 1 ) % timeStamps.length;
+      ++cntOverwritten;
+    }
+    else
+    {
+      index = ( head + count ) % timeStamps.length;
+      ++count;
+    }
+    
+    timeStamps[ index ] = timeStamp;
+    int offset = index * axes;
+    int cntValues = eventValues == null ? 0 : Math.min( eventValues.length, axes );
+    for ( int i = 0; i < axes; ++i )
+    {
+      values[ offset + i ] = i < cntValues ? eventValues[ i ] : 0F;
+    }
+    return count == timeStamps.length;
+  }
+  
+  /**
+   * Method to remove all buffered events in arrival order
+   * 
+   * @return the sample data holding the buffered events
+   */
+  public final SensorBatchSampleData drain()
+  {
+    long[] batchTimeStamps = new long[ count ];
+    float[] batchValues = new float[ count * axes ];
+    
+    // copy the two regions of the ring in order
+    int cntFirst = Math.min( count, timeStamps.length - head );
+    System.arraycopy( timeStamps, head, batchTimeStamps, 0, cntFirst );
+    System.arraycopy( timeStamps, 0, batchTimeStamps, cntFirst, count - cntFirst );
+    System.arraycopy( values, head * axes, batchValues, 0, cntFirst * axes );
+    System.arraycopy( values, 0, batchValues, cntFirst * axes,
+        ( count - cntFirst ) * axes );
+    
+    head = 0;
+    count = 0;
+    return new SensorBatchSampleData( axes, batchTimeStamps, batchValues );
+  }
+  
+  /**
+   * Test method for buffered events
+   * 
+   * @return true if no events are buffered, false otherwise
+   */
+  public final boolean isEmpty()
+  {
+    return count == 0;
+  }
+  
+  /**
+   * Getter for the count of buffered events
+   * 
+   * @return the count of buffered events
+   */
+  public final int size()
+  {
+    return count;
+  }
+  
+  /**
+   * Getter for the capacity
+   * 
+   * @return the maximum count of buffered events
+   */
+  public final int getCapacity()
+  {
+    return timeStamps.length;
+  }
+  
+  /**
+   * Getter for the count of values per event
+   * 
+   * @return the count of values per event
+   */
+  public final int getAxes()
+  {
+    return axes;
+  }
+  
+  /**
+   * Getter for the count of overwritten events
+   * 
+   * @return the count of events overwritten since creation
+   */
+  public final long getOverwrittenCount()
+  {
+    return cntOverwritten;
+  }
+}
@@ -29,6 +29,7 @@ import de.unikassel.android.sdcframework.util.Logger;
 import de.unikassel.android.sdcframework.util.TimeInformation;
 import de.unikassel.android.sdcframework.util.TimeProvider;
 import de.unikassel.android.sdcframework.util.facade.EventObserver;
+import de.unikassel.android.sdcframework.util.facade.LogLevel;
 import de.unikassel.android.sdcframework.util.facade.ObservableEventSource;
 import de.unikassel.android.sdcframework.util.facade.TimeProviderEvent;
 
@@ -142,7 +143,8 @@ public class TimeProviderDevice extends VirtualSensorDevice
     if ( getScanner() instanceof PassiveSampleTakingDeviceScanner )
     {
       ( (PassiveSampleTakingDeviceScanner) getScanner() ).takeSample();
-      Logger.getInstance().debug( this, "TP Event: "+ observedEvent.toString() + "\n"+ getSample().toString() );
+      if ( Logger.getInstance().isLoggable( LogLevel.DEBUG ) )
+        Logger.getInstance().debug( this, "TP Event: "+ observedEvent.toString() + "\n"+ getSample().toString() );
       timeInfo = null;
     }
   }
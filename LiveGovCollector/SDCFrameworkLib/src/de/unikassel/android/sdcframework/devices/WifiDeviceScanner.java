@@ -133,7 +133,7 @@ public final class WifiDeviceScanner extends SampleReceivingDeviceScanner
                   samplePriority, sampleFactory.createWifiSampleData(
                       scanResult, isConnected ) );
         if ( sample != null )
-          notify( sample );
+          publish( sample );
       }
     }
   }
@@ -0,0 +1,182 @@
+/*
+ * Copyright (C) 2012, Katy Hilgenberg.
+ * Special acknowledgments to: Knowledge & Data Engineering Group, University of Kassel (http://www.kde.cs.uni-kassel.de).
+ * Contact: sdcf@cs.uni-kassel.de
+ *
+ * This file is part of the SDCFramework (Sensor Data Collection Framework) project.
+ *
+ * The SDCFramework is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The SDCFramework is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the SDCFramework.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.unikassel.android.sdcframework.devices;
+
+import de.unikassel.android.sdcframework.data.Sample;
+import de.unikassel.android.sdcframework.devices.facade.SampleAggregationTypes;
+
+/**
+ * Filter aggregating the numeric samples of a time window. <br/>
+ * <br/>
+ * All numeric samples within a window starting with the time stamp of its
+ * first sample are absorbed. When a sample beyond the window arrives, one
+ * sample holding the aggregated values is emitted. It is a copy of the last
+ * sample of the window, so it does carry the time stamp and location of the
+ * last sample. Samples with non numeric data are always passed on.
+ * 
+ * @author Katy Hilgenberg
+ * 
+ */
+public final class WindowAggregationSampleFilter extends AbstractSampleFilter
+{
+  /**
+   * The window size in milliseconds
+   */
+  private final long window;
+  
+  /**
+   * The aggregation function
+   */
+  private final SampleAggregationTypes aggregation;
+  
+  /**
+   * The aggregated values of the current window
+   */
+  private final float[] aggregate;
+  
+  /**
+   * The values of the current sample
+   */
+  private final float[] values;
+  
+  /**
+   * The time stamp of the first sample in the current window
+   */
+  private long windowStart;
+  
+  /**
+   * The count of samples in the current window
+   */
+  private int cntSamples;
+  
+  /**
+   * The last sample of the current window, or null if the window is empty
+   */
+  private Sample last;
+  
+  /**
+   * Constructor
+   * 
+   * @param window
+   *          the window size in milliseconds
+   * @param aggregation
+   *          the aggregation function
+   */
+  public WindowAggregationSampleFilter( long window,
+      SampleAggregationTypes aggregation )
+  {
+    super();
+    this.window = window;
+    this.aggregation = aggregation;
+    this.aggregate = new float[ MAX_VALUES ];
+    this.values = new float[ MAX_VALUES ];
+  }
+  
+  /*
+   * (non-Javadoc)
+   * 
+   * @see
+   * de.unikassel.android.sdcframework.util.AbstractChainWorker#process(java.
+   * lang.Object)
+   */
+  @Override
+  protected boolean process( Sample sample )
+  {
+    int cntValues = getValues( sample.getData(), values );
+    if ( cntValues == 0 )
+      return false;
+    
+    if ( last != null
+        && ( sample.getTimeStamp() - windowStart >= window
+        || sample.getData().getClass() != last.getData().getClass() ) )
+    {
+      emitWindow();
+    }
+    
+    if ( last == null )
+    {
+      windowStart = sample.getTimeStamp();
+      System.arraycopy( values, 0, aggregate, 0, cntValues );
+    }
+    else
+    {
+      for ( int i = 0; i < cntValues; ++i )
+      {
+        switch ( aggregation )
+        {
+          case Minimum:
+            aggregate[ i ] = Math.min( aggregate[ i ], values[ i ] );
+            break;
+          case Maximum:
+            aggregate[ i ] = Math.max( aggregate[ i ], values[ i ] );
+            break;
+          default:
+            aggregate[ i ] += values[ i ];
+            break;
+        }
+      }
+      last.release();
+    }
+    ++cntSamples;
+    sample.retain();
+    last = sample;
+    return true;
+  }
+  
+  /*
+   * (non-Javadoc)
+   * 
+   * @see de.unikassel.android.sdcframework.devices.AbstractSampleFilter#flush()
+   */
+  @Override
+  public void flush()
+  {
+    if ( last != null )
+    {
+      emitWindow();
+    }
+  }
+  
+  /**
+   * Does emit the aggregated sample of the current window and start a new one
+   */
+  private void emitWindow()
+  {
+    if ( aggregation == SampleAggregationTypes.Mean )
+    {
+      for ( int i = 0; i < MAX_VALUES; ++i )
+      {
+        aggregate[ i ] /= cntSamples;
+      }
+    }
+    
+    Sample sample = new Sample( last );
+    setValues( sample.getData(), aggregate );
+    last.release();
+    last = null;
+    
+    // all samples of the window but the emitted one are absorbed
+    countAbsorbed( cntSamples - 1 );
+    cntSamples = 0;
+    emit( sample );
+  }
+  
+}
@@ -0,0 +1,50 @@
+/*
+ * Copyright (C) 2012, Katy Hilgenberg.
+ * Special acknowledgments to: Knowledge & Data Engineering Group, University of Kassel (http://www.kde.cs.uni-kassel.de).
+ * Contact: sdcf@cs.uni-kassel.de
+ *
+ * This file is part of the SDCFramework (Sensor Data Collection Framework) project.
+ *
+ * The SDCFramework is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The SDCFramework is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the SDCFramework.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.unikassel.android.sdcframework.devices.facade;
+
+/**
+ * Aggregation functions for the windowed sample aggregation of the sample
+ * filter. <br/>
+ * <br/>
+ * The aggregation is applied per value of numeric sensor samples, all samples
+ * of a time window are reduced to one sample holding the aggregated values.
+ * 
+ * @author Katy Hilgenberg
+ * 
+ */
+public enum SampleAggregationTypes
+{
+  
+  /**
+   * the arithmetic mean of the values in the window
+   */
+  Mean,
+  
+  /**
+   * the minimum of the values in the window
+   */
+  Minimum,
+  
+  /**
+   * the maximum of the values in the window
+   */
+  Maximum,
+}
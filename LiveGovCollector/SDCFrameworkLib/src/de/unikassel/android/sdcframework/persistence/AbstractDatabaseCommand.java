@@ -104,6 +104,19 @@ public abstract class AbstractDatabaseCommand< T >
     return result;
   }
   
+  /*
+   * (non-Javadoc)
+   * 
+   * @see
+   * de.unikassel.android.sdcframework.persistence.facade.DatabaseCommand#
+   * getRecordCountChange()
+   */
+  @Override
+  public long getRecordCountChange()
+  {
+    return 0L;
+  }
+  
   /**
    * Getter for the dbOpenRetryCount
    * 
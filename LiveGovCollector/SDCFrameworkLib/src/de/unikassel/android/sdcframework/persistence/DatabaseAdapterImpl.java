@@ -20,12 +20,23 @@
  */
 package de.unikassel.android.sdcframework.persistence;
 
+import java.io.IOException;
+import java.util.Arrays;
 import java.util.Collection;
-import java.util.HashSet;
-import java.util.Set;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Vector;
 
+import de.unikassel.android.sdcframework.data.Sample;
+import de.unikassel.android.sdcframework.data.independent.BinarySerializer;
+import de.unikassel.android.sdcframework.data.independent.GeoLocation;
 import de.unikassel.android.sdcframework.persistence.facade.DatabaseAdapter;
 import de.unikassel.android.sdcframework.persistence.facade.DatabaseSample;
+import de.unikassel.android.sdcframework.persistence.facade.SampleExporter;
 import de.unikassel.android.sdcframework.util.Logger;
 import android.content.ContentValues;
 import android.content.Context;
@@ -35,6 +46,7 @@ import android.database.SQLException;
 import android.database.sqlite.SQLiteDatabase;
 import android.database.sqlite.SQLiteException;
 import android.database.sqlite.SQLiteOpenHelper;
+import android.database.sqlite.SQLiteStatement;
 
 /**
  * The database adapter class does wrap the direct Android database access.
@@ -80,7 +92,7 @@ public final class DatabaseAdapterImpl implements DatabaseAdapter
   private static final String KEY_DATA = "DATA";
   
   /**
-   * The data type class name
+   * The data type class name ( only used by database versions prior to 5 )
    */
   private static final String KEY_DATA_CLASS = "DATACLASS";
   
@@ -89,6 +101,22 @@ public final class DatabaseAdapterImpl implements DatabaseAdapter
    */
   private static final String KEY_LOCATION = "LOC";
   
+  /**
+   * The location reference column name ( refers to the location track table,
+   * the location column is only used by rows of database versions prior to 8 )
+   */
+  private static final String KEY_LOCATION_ID = "LOCID";
+  
+  /**
+   * The latitude column name of the location track table
+   */
+  private static final String KEY_LAT = "LAT";
+  
+  /**
+   * The longitude column name of the location track table
+   */
+  private static final String KEY_LON = "LON";
+  
   /**
    * The order by time stamp statement ( oldest time stamps first )
    */
@@ -108,6 +136,18 @@ public final class DatabaseAdapterImpl implements DatabaseAdapter
   private static final String ORDER_BY_DESC_PRIO_TS = KEY_PRIO + " DESC "
       + ", " + ORDER_BY_TS;
   
+  /**
+   * Order by statement for sample export (ascending priority and time stamp,
+   * unique by row id)
+   */
+  private static final String ORDER_BY_EXPORT = ORDER_BY_ASC_PRIO_TS + ", "
+      + KEY_ROWID + " ASC";
+  
+  /**
+   * The order by row id statement ( insertion order )
+   */
+  private static final String ORDER_BY_ROWID = KEY_ROWID + " ASC";
+  
   /**
    * The table name
    */
@@ -121,11 +161,33 @@ public final class DatabaseAdapterImpl implements DatabaseAdapter
    * The second index name
    */
   public static final String DB_INDEX2 = "samplesidx2";
+  /**
+   * The location reference index name
+   */
+  public static final String DB_INDEX3 = "samplesidx3";
+  
+  /**
+   * The location track table name
+   */
+  public static final String DB_TABLE_LOCATIONS = "locations";
   
   /**
    * The database version
    */
-  private static final int DB_VERSION = 4;
+  private static final int DB_VERSION = 8;
+  
+  /**
+   * The table creation statement of database version 5
+   */
+  private static final String DB_CREATE_TABLE_V5 =
+      "create table if not exists " + DB_TABLE + " ( "
+          + KEY_ROWID + " integer primary key autoincrement, "
+          + KEY_SENSORID + " text not null, "
+          + KEY_TIMESTAMP + " integer not null, "
+          + KEY_PRIO + " integer not null, "
+          + KEY_SYNCED + " integer default null, "
+          + KEY_LOCATION + " blob, " // location can be null!
+          + KEY_DATA + " blob not null );";
   
   /**
    * The table creation statement
@@ -137,9 +199,25 @@ public final class DatabaseAdapterImpl implements DatabaseAdapter
           + KEY_TIMESTAMP + " integer not null, "
           + KEY_PRIO + " integer not null, "
           + KEY_SYNCED + " integer default null, "
-          + KEY_LOCATION + " text, " // location can be null!
-          + KEY_DATA + " text not null, "
-          + KEY_DATA_CLASS + " text not null );";
+          + KEY_LOCATION + " blob, " // location can be null!
+          + KEY_DATA + " blob not null, "
+          + KEY_LOCATION_ID + " integer );"; // location can be null!
+  
+  /**
+   * The location track table creation statement
+   */
+  private static final String DB_CREATE_TABLE_LOCATIONS =
+      "create table if not exists " + DB_TABLE_LOCATIONS + " ( "
+          + KEY_ROWID + " integer primary key autoincrement, "
+          + KEY_LAT + " real not null, "
+          + KEY_LON + " real not null );";
+  
+  /**
+   * The location reference index creation statement
+   */
+  private static final String DB_CREATE_INDEX3 =
+      "create index if not exists " + DB_INDEX3 + " on " + DB_TABLE + " ( "
+          + KEY_LOCATION_ID + " );";
   
   /**
    * The first index creation statements
@@ -154,6 +232,52 @@ public final class DatabaseAdapterImpl implements DatabaseAdapter
       "create index if not exists " + DB_INDEX2 + " on " + DB_TABLE + " ( "
           + ORDER_BY_DESC_PRIO_TS + " );";
   
+  /**
+   * The compiled sample insert statement
+   */
+  private static final String DB_INSERT_SAMPLE =
+      "insert into " + DB_TABLE + " ( "
+          + KEY_SENSORID + ", "
+          + KEY_TIMESTAMP + ", "
+          + KEY_PRIO + ", "
+          + KEY_SYNCED + ", "
+          + KEY_DATA + ", "
+          + KEY_LOCATION_ID + " ) values ( ?, ?, ?, ?, ?, ? );";
+  
+  /**
+   * The compiled location insert statement
+   */
+  private static final String DB_INSERT_LOCATION =
+      "insert into " + DB_TABLE_LOCATIONS + " ( "
+          + KEY_LAT + ", "
+          + KEY_LON + " ) values ( ?, ? );";
+  
+  /**
+   * The statement to delete the locations no longer referenced by any sample.
+   * The location ids are ascending with the sample rows, so all locations
+   * below the smallest referenced one can go, except the last inserted one
+   * which is still used for the comparison with new samples.
+   */
+  private static final String DB_DELETE_UNREFERENCED_LOCATIONS =
+      "delete from " + DB_TABLE_LOCATIONS + " where " + KEY_ROWID
+          + " < ( select min( M ) from ( select min( " + KEY_LOCATION_ID
+          + " ) as M from " + DB_TABLE + " union all select max( "
+          + KEY_ROWID + " ) as M from " + DB_TABLE_LOCATIONS + " ) );";
+  
+  /**
+   * The statement to delete the exported samples
+   */
+  private static final String DB_DELETE_EXPORTED =
+      "delete from " + DB_TABLE + " where " + KEY_ROWID + " in ( select "
+          + KEY_ROWID + " from " + DB_TABLE + " order by " + ORDER_BY_EXPORT
+          + " limit ? );";
+  
+  /**
+   * The statement to activate the write ahead log journal mode ( available
+   * for SQLite 3.7.0 and later, ignored by older versions )
+   */
+  private static final String DB_PRAGMA_WAL = "PRAGMA journal_mode=WAL;";
+  
   /**
    * The first table update statement statement
    */
@@ -168,6 +292,118 @@ public final class DatabaseAdapterImpl implements DatabaseAdapter
       "alter table " + DB_TABLE + " add "
           + KEY_SYNCED + " integer default null;";
   
+  /**
+   * The name of the temporary table used for the conversion of XML samples
+   */
+  private static final String DB_TABLE_XML = DB_TABLE + "_xml";
+  
+  /**
+   * The third table update statements ( replace XML by binary sample data )
+   */
+  private static final String[] DB_UPDATE_3 = new String[] {
+      "drop index if exists " + DB_INDEX1 + ";",
+      "drop index if exists " + DB_INDEX2 + ";",
+      "alter table " + DB_TABLE + " rename to " + DB_TABLE_XML + ";",
+      DB_CREATE_TABLE_V5,
+      DB_CREATE_INDEX1,
+      DB_CREATE_INDEX2
+  };
+  
+  /**
+   * The fourth table update statements ( replace the location per sample by a
+   * reference into the location track )
+   */
+  private static final String[] DB_UPDATE_4 = new String[] {
+      "alter table " + DB_TABLE + " add " + KEY_LOCATION_ID + " integer;",
+      DB_CREATE_TABLE_LOCATIONS,
+      DB_CREATE_INDEX3
+  };
+  
+  /**
+   * The table with the time stamp bases of the typed sample tables
+   */
+  public static final String DB_TABLE_TYPED = "typedtables";
+  
+  /**
+   * The typed table name column
+   */
+  private static final String KEY_TYPED_TABLE = "NAME";
+  
+  /**
+   * The column with the time stamp base of the first row of a typed table
+   */
+  private static final String KEY_BASE_TIMESTAMP = "BASETS";
+  
+  /**
+   * The column with the time stamp of the last row of a typed table
+   */
+  private static final String KEY_LAST_TIMESTAMP = "LASTTS";
+  
+  /**
+   * The creation statement for the table with the typed table time stamps
+   */
+  private static final String DB_CREATE_TABLE_TYPED =
+      "create table if not exists " + DB_TABLE_TYPED + " ( "
+          + KEY_TYPED_TABLE + " text primary key, "
+          + KEY_BASE_TIMESTAMP + " integer not null, "
+          + KEY_LAST_TIMESTAMP + " integer not null );";
+  
+  /**
+   * The table with the transfer checkpoints of the sample tables
+   */
+  public static final String DB_TABLE_CHECKPOINTS = "checkpoints";
+  
+  /**
+   * The checkpoint table name column
+   */
+  private static final String KEY_CHECKPOINT_TABLE = "NAME";
+  
+  /**
+   * The column with the last row id acknowledged by the server
+   */
+  private static final String KEY_ACKED_ROWID = "ACKED";
+  
+  /**
+   * The column with the last row id exported but not acknowledged yet
+   */
+  private static final String KEY_PENDING_ROWID = "PENDING";
+  
+  /**
+   * The column with the time stamp of the last exported row ( null if no
+   * export is pending )
+   */
+  private static final String KEY_PENDING_TIMESTAMP = "PENDINGTS";
+  
+  /**
+   * The creation statement for the checkpoint table
+   */
+  private static final String DB_CREATE_TABLE_CHECKPOINTS =
+      "create table if not exists " + DB_TABLE_CHECKPOINTS + " ( "
+          + KEY_CHECKPOINT_TABLE + " text primary key, "
+          + KEY_ACKED_ROWID + " integer not null, "
+          + KEY_PENDING_ROWID + " integer not null, "
+          + KEY_PENDING_TIMESTAMP + " integer );";
+  
+  /**
+   * The statement to discard all pending export ranges
+   */
+  private static final String DB_RESET_PENDING =
+      "update " + DB_TABLE_CHECKPOINTS + " set " + KEY_PENDING_ROWID + " = "
+          + KEY_ACKED_ROWID + ", " + KEY_PENDING_TIMESTAMP + " = null;";
+  
+  /**
+   * The statement to mark all pending export ranges as acknowledged
+   */
+  private static final String DB_ACKNOWLEDGE_PENDING =
+      "update " + DB_TABLE_CHECKPOINTS + " set " + KEY_ACKED_ROWID + " = "
+          + KEY_PENDING_ROWID + ", " + KEY_PENDING_TIMESTAMP + " = null;";
+  
+  /**
+   * The drop statement for the temporary table with XML samples
+   */
+  private static final String DB_DROP_TABLE_XML =
+      "drop table if exists " + DB_TABLE_XML + ";";
+  
   /**
    * The internal SQLite helper class
    * 
@@ -222,6 +458,25 @@ public final class DatabaseAdapterImpl implements DatabaseAdapter
       db.execSQL( DB_CREATE_TABLE );
       db.execSQL( DB_CREATE_INDEX1 );
       db.execSQL( DB_CREATE_INDEX2 );
+      db.execSQL( DB_CREATE_TABLE_LOCATIONS );
+      db.execSQL( DB_CREATE_INDEX3 );
+      createTypedTables( db );
+      db.execSQL( DB_CREATE_TABLE_CHECKPOINTS );
+    }
+    
+    /**
+     * Method to create the typed sample tables
+     * 
+     * @param db
+     *          the database
+     */
+    private final void createTypedTables( SQLiteDatabase db )
+    {
+      db.execSQL( DB_CREATE_TABLE_TYPED );
+      for ( TypedSampleTable table : TypedSampleTable.TABLES )
+      {
+        db.execSQL( table.getCreateStatement() );
+      }
     }
     
     /*
@@ -271,10 +526,89 @@ public final class DatabaseAdapterImpl implements DatabaseAdapter
           case 3:
           {
             db.execSQL( DB_UPDATE_2 );
+          }
+          case 4:
+          {
+            for ( String statement : DB_UPDATE_3 )
+            {
+              db.execSQL( statement );
+            }
+            convertXMLSamples( db );
+            db.execSQL( DB_DROP_TABLE_XML );
+          }
+          case 5:
+          {
+            createTypedTables( db );
+          }
+          case 6:
+          {
+            db.execSQL( DB_CREATE_TABLE_CHECKPOINTS );
+          }
+          case 7:
+          {
+            for ( String statement : DB_UPDATE_4 )
+            {
+              db.execSQL( statement );
+            }
             break;
-          }   
+          }
+        }
+      }
+    }
+    
+    /**
+     * Method to convert all samples stored in XML format in the temporary table
+     * into the binary format of the current samples table. Samples which can
+     * not be converted are dropped.
+     * 
+     * @param db
+     *          the database
+     */
+    private final void convertXMLSamples( SQLiteDatabase db )
+    {
+      long cntFailed = 0;
+      Cursor cursor = db.query( DB_TABLE_XML, new String[] {
+          KEY_SENSORID,
+          KEY_TIMESTAMP,
+          KEY_PRIO,
+          KEY_SYNCED,
+          KEY_LOCATION,
+          KEY_DATA,
+          KEY_DATA_CLASS
+      }, null, null, null, null, null );
+      try
+      {
+        while ( cursor.moveToNext() )
+        {
+          Sample sample = new Sample(
+              cursor.getString( 0 ), cursor.getLong( 1 ),
+              cursor.getInt( 2 ), cursor.getInt( 3 ) == 1 );
+          if ( sample.setLocationFromXML( cursor.getString( 4 ) )
+              && sample.setDataFromXML( cursor.getString( 6 ),
+                  cursor.getString( 5 ) ) )
+          {
+            try
+            {
+              db.insertOrThrow( DB_TABLE, null,
+                  toContentValues( new DatabaseSample( sample ) ) );
+              continue;
+            }
+            catch ( Exception e )
+            {}
+          }
+          ++cntFailed;
         }
       }
+      finally
+      {
+        cursor.close();
+      }
+      
+      if ( cntFailed > 0 )
+      {
+        Logger.getInstance().warning( this,
+            "Dropped " + cntFailed + " samples during database upgrade" );
+      }
     }
   }
   
@@ -288,6 +622,48 @@ public final class DatabaseAdapterImpl implements DatabaseAdapter
    */
   private SQLiteDatabase db;
   
+  /**
+   * The compiled insert statement for the current database connection
+   */
+  private SQLiteStatement insertStatement;
+  
+  /**
+   * The compiled insert statements for the typed tables of the current
+   * database connection
+   */
+  private final Map< TypedSampleTable, SQLiteStatement > typedInsertStatements;
+  
+  /**
+   * The compiled location insert statement for the current database connection
+   */
+  private SQLiteStatement locationInsertStatement;
+  
+  /**
+   * The encoded location last written to the location track, null if not
+   * known for the current connection
+   */
+  private byte[] lastLocation;
+  
+  /**
+   * The location track id of the location last written
+   */
+  private long lastLocationId;
+  
+  /**
+   * The location track id of the location last read
+   */
+  private long readLocationId;
+  
+  /**
+   * The encoded location last read, null if none
+   */
+  private byte[] readLocation;
+  
+  /**
+   * Flag if the database connection is kept open between commands
+   */
+  private boolean keepOpen;
+  
   /**
    * Constructor
    * 
@@ -324,6 +700,7 @@ public final class DatabaseAdapterImpl implements DatabaseAdapter
       throw new IllegalArgumentException( "dbName is Null or empty" );
     }
     dbHelper = new DatabaseHelper( dbName, maxDBSize, applicationContext );
+    typedInsertStatements = new HashMap< TypedSampleTable, SQLiteStatement >();
   }
   
   /*
@@ -335,7 +712,15 @@ public final class DatabaseAdapterImpl implements DatabaseAdapter
   @Override
   public final DatabaseAdapter open() throws SQLiteException
   {
+    if ( keepOpen && isOpen() && !db.isReadOnly() )
+      return this;
+    
+    releaseStatements();
     this.db = dbHelper.getWritableDatabase();
+    if ( keepOpen )
+    {
+      enableWriteAheadLogging();
+    }
     return this;
   }
   
@@ -348,6 +733,10 @@ public final class DatabaseAdapterImpl implements DatabaseAdapter
   @Override
   public final DatabaseAdapter openForRead() throws SQLiteException
   {
+    if ( keepOpen && isOpen() )
+      return this;
+    
+    releaseStatements();
     this.db = dbHelper.getReadableDatabase();
     return this;
   }
@@ -362,129 +751,1350 @@ public final class DatabaseAdapterImpl implements DatabaseAdapter
   @Override
   public final void close()
   {
+    if ( !keepOpen )
+    {
+      closeConnection();
+    }
+  }
+  
+  /**
+   * Method to close the database connection, even if the adapter is configured
+   * to keep it open
+   */
+  public final void closeConnection()
+  {
+    releaseStatements();
     dbHelper.close();
+    db = null;
   }
   
   /**
-   * Method to insert a sample into the database
+   * Getter for the keep open flag
    * 
-   * @param sample
-   *          the sample to insert
-   * @return the row id of the sample
+   * @return true if the database connection is kept open between commands,
+   *         false if it is closed after each command
    */
-  private final long insertSample( DatabaseSample sample ) throws SQLException
+  public final boolean isKeepOpen()
   {
-    ContentValues initialValues = new ContentValues();
-    initialValues.put( KEY_SENSORID, sample.deviceIdentifier );
-    initialValues.put( KEY_TIMESTAMP, sample.timeStamp );
-    initialValues.put( KEY_PRIO, sample.priority );
-    initialValues.put( KEY_SYNCED, sample.synced ? 1 : 0 );
-    initialValues.put( KEY_DATA_CLASS, sample.dataTypeClassName );
-    initialValues.put( KEY_DATA, sample.data );
-    initialValues.put( KEY_LOCATION, sample.location );
-    return db.insertOrThrow( DB_TABLE, null, initialValues );
+    return keepOpen;
   }
   
-  /*
-   * (non-Javadoc)
+  /**
+   * Setter for the keep open flag. If set, the database connection is kept
+   * open after the first access until {@link #closeConnection()} is called,
+   * and the write ahead log journal mode is activated if supported.
    * 
-   * @see
-   * de.unikassel.android.sdcframework.persistence.DatabaseAdapter#insertSamples
-   * (java.util.Collection)
+   * @param keepOpen
+   *          the keep open flag to set
    */
-  @Override
-  public final void insertSamples( Collection< DatabaseSample > samples )
-      throws Exception
+  public final void setKeepOpen( boolean keepOpen )
   {
-    db.beginTransaction();
-    try
-    {
-      for ( DatabaseSample sample : samples )
-      {
-        insertSample( sample );
-      }
-      db.setTransactionSuccessful();
-    }
-    finally
+    this.keepOpen = keepOpen;
+    if ( !keepOpen )
     {
-      db.endTransaction();
+      closeConnection();
     }
   }
   
   /**
-   * Method to delete a set of samples from the database
+   * Test method for an open database connection
    * 
-   * @param rowIds
-   *          a set with unique row identifiers from database to delete
-   * @return the affected record count
+   * @return true if the database connection is open, false otherwise
    */
-  private final long deleteSamples( Set< Long > rowIds )
+  private final boolean isOpen()
   {
-    if ( rowIds.size() < 1 )
-      return 0;
-    
-    String[] sWhereArgs = new String[ rowIds.size() ];
-    StringBuffer sWhere = new StringBuffer( KEY_ROWID );
-    sWhere.append( " IN ( " );
-    int i = 0;
-    for ( Long rowId : rowIds )
+    return db != null && db.isOpen();
+  }
+  
+  /**
+   * Method to activate the write ahead log journal mode for the current
+   * connection
+   */
+  private final void enableWriteAheadLogging()
+  {
+    // the journal mode pragma does return the resulting mode
+    try
     {
-      if ( i > 0 )
+      Cursor cursor = db.rawQuery( DB_PRAGMA_WAL, null );
+      if ( cursor.moveToFirst() )
       {
-        sWhere.append( ", " );
+        Logger.getInstance().debug( this,
+            "Database journal mode: " + cursor.getString( 0 ) );
       }
-      sWhereArgs[ i ] = rowId.toString();
-      sWhere.append( '?' );
-      ++i;
+      cursor.close();
+    }
+    catch ( SQLException e )
+    {
+      Logger.getInstance().warning( this,
+          "Failed to enable write ahead logging: " + e.getMessage() );
     }
-    sWhere.append( " )" );
-    
-    return db.delete( DB_TABLE, sWhere.toString(), sWhereArgs );
   }
   
   /**
-   * Method to delete all stored records at once
-   * 
-   * @return true if successful, false otherwise
+   * Method to release the compiled statements of the current connection
    */
-  public final boolean deleteAll()
+  private final void releaseStatements()
   {
-    db.beginTransaction();
-    try
+    if ( insertStatement != null )
     {
-      db.delete( DB_TABLE, null, null );
-      db.setTransactionSuccessful();
+      insertStatement.close();
+      insertStatement = null;
     }
-    finally
+    if ( locationInsertStatement != null )
     {
-      db.endTransaction();
+      locationInsertStatement.close();
+      locationInsertStatement = null;
     }
-    return getRecordCount() == 0;
+    resetLocationCache();
+    for ( SQLiteStatement statement : typedInsertStatements.values() )
+    {
+      statement.close();
+    }
+    typedInsertStatements.clear();
   }
   
-  /*
-   * (non-Javadoc)
+  /**
+   * Method to create the content values for a sample
    * 
-   * @see
-   * de.unikassel.android.sdcframework.persistence.DatabaseAdapter#getRecordCount
-   * ()
+   * @param sample
+   *          the sample
+   * @return the content values for the sample
    */
-  @Override
-  public final long getRecordCount()
+  private static final ContentValues toContentValues( DatabaseSample sample )
   {
-    return DatabaseUtils.queryNumEntries( db, DB_TABLE );
+    ContentValues initialValues = new ContentValues();
+    initialValues.put( KEY_SENSORID, sample.deviceIdentifier );
+    initialValues.put( KEY_TIMESTAMP, sample.timeStamp );
+    initialValues.put( KEY_PRIO, sample.priority );
+    initialValues.put( KEY_SYNCED, sample.synced ? 1 : 0 );
+    initialValues.put( KEY_DATA, sample.data );
+    initialValues.put( KEY_LOCATION, sample.location );
+    return initialValues;
   }
   
   /**
-   * Getter for samples ordered by the given statement
+   * Method to insert a sample into the database
    * 
-   * @param limit
-   *          the count of rows to retrieve
-   * @param orderByStatement
-   *          the order by statement
-   * @return the cursor for all samples sorted by priority descending
+   * @param sample
+   *          the sample to insert
+   * @return the row id of the sample
    */
-  private final Cursor getSamplesOrdered( long limit, String orderByStatement )
+  private final long insertSample( DatabaseSample sample ) throws SQLException
+  {
+    if ( insertStatement == null )
+    {
+      insertStatement = db.compileStatement( DB_INSERT_SAMPLE );
+    }
+    
+    // null values are bound explicitly to get the constraint violations
+    if ( sample.deviceIdentifier != null )
+      insertStatement.bindString( 1, sample.deviceIdentifier );
+    else
+      insertStatement.bindNull( 1 );
+    insertStatement.bindLong( 2, sample.timeStamp );
+    insertStatement.bindLong( 3, sample.priority );
+    insertStatement.bindLong( 4, sample.synced ? 1 : 0 );
+    if ( sample.data != null )
+      insertStatement.bindBlob( 5, sample.data );
+    else
+      insertStatement.bindNull( 5 );
+    if ( sample.location != null )
+      insertStatement.bindLong( 6, getLocationId( sample.location ) );
+    else
+      insertStatement.bindNull( 6 );
+    
+    long rowId = insertStatement.executeInsert();
+    insertStatement.clearBindings();
+    if ( rowId == -1 )
+    {
+      throw new SQLException( "Failed to insert sample" );
+    }
+    return rowId;
+  }
+  
+  /**
+   * Method to get the location track id for an encoded sample location. A
+   * location equal to the last one written is referenced again, any other one
+   * is appended to the location track.
+   * 
+   * @param location
+   *          the encoded location
+   * @return the location track id
+   */
+  private final long getLocationId( byte[] location ) throws SQLException
+  {
+    if ( lastLocation == null )
+    {
+      loadLastLocation();
+    }
+    if ( lastLocation != null && Arrays.equals( lastLocation, location ) )
+    {
+      return lastLocationId;
+    }
+    
+    GeoLocation geoLocation;
+    try
+    {
+      geoLocation = BinarySerializer.locationFromBytes( location );
+    }
+    catch ( IOException e )
+    {
+      throw new SQLException( "Invalid sample location: " + e.getMessage() );
+    }
+    
+    if ( locationInsertStatement == null )
+    {
+      locationInsertStatement = db.compileStatement( DB_INSERT_LOCATION );
+    }
+    locationInsertStatement.bindDouble( 1, geoLocation.getLat() );
+    locationInsertStatement.bindDouble( 2, geoLocation.getLon() );
+    long rowId = locationInsertStatement.executeInsert();
+    locationInsertStatement.clearBindings();
+    if ( rowId == -1 )
+    {
+      throw new SQLException( "Failed to insert location" );
+    }
+    lastLocation = location;
+    lastLocationId = rowId;
+    return rowId;
+  }
+  
+  /**
+   * Method to load the last location of the location track for the comparison
+   * with new sample locations
+   */
+  private final void loadLastLocation()
+  {
+    Cursor cursor = db.query( DB_TABLE_LOCATIONS, new String[] {
+        KEY_ROWID,
+        KEY_LAT,
+        KEY_LON
+    }, null, null, null, null, KEY_ROWID + " DESC", "1" );
+    try
+    {
+      if ( cursor.moveToFirst() )
+      {
+        lastLocation =
+            encodeLocation( cursor.getDouble( 1 ), cursor.getDouble( 2 ) );
+        lastLocationId = cursor.getLong( 0 );
+      }
+    }
+    finally
+    {
+      cursor.close();
+    }
+  }
+  
+  /**
+   * Getter for an encoded location of the location track. Consecutive samples
+   * do mostly share the location, so the last one read is kept.
+   * 
+   * @param locationId
+   *          the location track id
+   * @return the encoded location or null if not available
+   */
+  private final byte[] getLocation( long locationId )
+  {
+    if ( readLocation != null && readLocationId == locationId )
+    {
+      return readLocation;
+    }
+    
+    Cursor cursor = db.query( DB_TABLE_LOCATIONS, new String[] {
+        KEY_LAT,
+        KEY_LON
+    }, KEY_ROWID + " = ?", new String[] {
+        Long.toString( locationId )
+    }, null, null, null );
+    try
+    {
+      if ( !cursor.moveToFirst() )
+      {
+        Logger.getInstance().warning( this,
+            "Missing location " + locationId + " in location track" );
+        return null;
+      }
+      readLocation =
+          encodeLocation( cursor.getDouble( 0 ), cursor.getDouble( 1 ) );
+      readLocationId = locationId;
+      return readLocation;
+    }
+    finally
+    {
+      cursor.close();
+    }
+  }
+  
+  /**
+   * Method to encode a location of the location track
+   * 
+   * @param lat
+   *          the latitude
+   * @param lon
+   *          the longitude
+   * @return the encoded location or null if encoding fails
+   */
+  private final byte[] encodeLocation( double lat, double lon )
+  {
+    GeoLocation location = new GeoLocation();
+    location.setLat( lat );
+    location.setLon( lon );
+    try
+    {
+      return BinarySerializer.locationToBytes( location );
+    }
+    catch ( IOException e )
+    {
+      Logger.getInstance().error( this,
+          "Failed to encode location: " + e.getMessage() );
+      return null;
+    }
+  }
+  
+  /**
+   * Method to reset the cached locations, e.g. after the location track rows
+   * were removed or rolled back
+   */
+  private final void resetLocationCache()
+  {
+    lastLocation = null;
+    readLocation = null;
+  }
+  
+  /**
+   * Method to remove the locations no longer referenced by any sample from the
+   * location track
+   */
+  private final void deleteUnreferencedLocations()
+  {
+    db.execSQL( DB_DELETE_UNREFERENCED_LOCATIONS );
+  }
+  
+  /*
+   * (non-Javadoc)
+   * 
+   * @see
+   * de.unikassel.android.sdcframework.persistence.DatabaseAdapter#insertSamples
+   * (java.util.Collection)
+   */
+  @Override
+  public final void insertSamples( Collection< DatabaseSample > samples )
+      throws Exception
+  {
+    boolean success = false;
+    db.beginTransaction();
+    try
+    {
+      for ( DatabaseSample sample : samples )
+      {
+        insertSample( sample );
+      }
+      db.setTransactionSuccessful();
+      success = true;
+    }
+    finally
+    {
+      db.endTransaction();
+      if ( !success )
+        resetLocationCache();
+    }
+  }
+  
+  /*
+   * (non-Javadoc)
+   * 
+   * @see
+   * de.unikassel.android.sdcframework.persistence.facade.DatabaseAdapter#
+   * insertSamples(java.util.Collection, java.util.Collection)
+   */
+  @Override
+  public final void insertSamples( Collection< DatabaseSample > samples,
+      Collection< Sample > typedSamples ) throws Exception
+  {
+    boolean success = false;
+    db.beginTransaction();
+    try
+    {
+      for ( DatabaseSample sample : samples )
+      {
+        insertSample( sample );
+      }
+      insertTypedSamples( typedSamples );
+      db.setTransactionSuccessful();
+      success = true;
+    }
+    finally
+    {
+      db.endTransaction();
+      if ( !success )
+        resetLocationCache();
+    }
+  }
+  
+  /**
+   * Method to insert samples into the typed tables. Samples without a typed
+   * table are inserted into the samples table.
+   * 
+   * @param samples
+   *          the samples to insert
+   * @throws Exception
+   *           if insertion fails
+   */
+  private final void insertTypedSamples( Collection< Sample > samples )
+      throws Exception
+  {
+    // group the samples by table in order of appearance
+    Map< TypedSampleTable, List< Sample > > tableSamples =
+        new LinkedHashMap< TypedSampleTable, List< Sample > >();
+    for ( Sample sample : samples )
+    {
+      TypedSampleTable table = TypedSampleTable.getTable( sample );
+      if ( table == null )
+      {
+        insertSample( new DatabaseSample( sample ) );
+        continue;
+      }
+      
+      List< Sample > list = tableSamples.get( table );
+      if ( list == null )
+      {
+        list = new Vector< Sample >();
+        tableSamples.put( table, list );
+      }
+      list.add( sample );
+    }
+    
+    for ( Map.Entry< TypedSampleTable, List< Sample > > entry : tableSamples.entrySet() )
+    {
+      insertTypedSamples( entry.getKey(), entry.getValue() );
+    }
+  }
+  
+  /**
+   * Method to insert samples into a typed table
+   * 
+   * @param table
+   *          the typed table
+   * @param samples
+   *          the samples to insert
+   * @throws SQLException
+   *           if insertion fails
+   */
+  private final void insertTypedSamples( TypedSampleTable table,
+      List< Sample > samples ) throws SQLException
+  {
+    SQLiteStatement statement = typedInsertStatements.get( table );
+    if ( statement == null )
+    {
+      statement = db.compileStatement( table.getInsertStatement() );
+      typedInsertStatements.put( table, statement );
+    }
+    
+    long[] timeStamps = getTypedTableTimeStamps( table );
+    long baseTimeStamp;
+    long lastTimeStamp;
+    if ( timeStamps != null )
+    {
+      baseTimeStamp = timeStamps[ 0 ];
+      lastTimeStamp = timeStamps[ 1 ];
+    }
+    else
+    {
+      // empty table, the first row does start with a delta of 0
+      baseTimeStamp = samples.get( 0 ).getTimeStamp();
+      lastTimeStamp = baseTimeStamp;
+    }
+    
+    for ( Sample sample : samples )
+    {
+      table.bindSample( statement, sample,
+          sample.getTimeStamp() - lastTimeStamp );
+      long rowId = statement.executeInsert();
+      statement.clearBindings();
+      if ( rowId == -1 )
+      {
+        throw new SQLException( "Failed to insert sample into "
+            + table.getName() );
+      }
+      lastTimeStamp = sample.getTimeStamp();
+    }
+    setTypedTableTimeStamps( table, baseTimeStamp, lastTimeStamp );
+  }
+  
+  /**
+   * Getter for the time stamps of a typed table
+   * 
+   * @param table
+   *          the typed table
+   * @return an array with the base time stamp and the last time stamp, or null
+   *         if the table is empty
+   */
+  private final long[] getTypedTableTimeStamps( TypedSampleTable table )
+  {
+    long[] timeStamps = null;
+    Cursor cursor = db.query( DB_TABLE_TYPED, new String[] {
+        KEY_BASE_TIMESTAMP,
+        KEY_LAST_TIMESTAMP
+    }, KEY_TYPED_TABLE + " = ?", new String[] {
+        table.getName()
+    }, null, null, null );
+    if ( cursor.moveToFirst() )
+    {
+      timeStamps = new long[] {
+          cursor.getLong( 0 ), cursor.getLong( 1 )
+      };
+    }
+    cursor.close();
+    return timeStamps;
+  }
+  
+  /**
+   * Setter for the time stamps of a typed table
+   * 
+   * @param table
+   *          the typed table
+   * @param baseTimeStamp
+   *          the time stamp the delta of the first row does refer to
+   * @param lastTimeStamp
+   *          the time stamp of the last row
+   */
+  private final void setTypedTableTimeStamps( TypedSampleTable table,
+      long baseTimeStamp, long lastTimeStamp )
+  {
+    ContentValues values = new ContentValues();
+    values.put( KEY_TYPED_TABLE, table.getName() );
+    values.put( KEY_BASE_TIMESTAMP, baseTimeStamp );
+    values.put( KEY_LAST_TIMESTAMP, lastTimeStamp );
+    db.replaceOrThrow( DB_TABLE_TYPED, null, values );
+  }
+  
+  /**
+   * Method to remove the time stamps and the checkpoint of an empty typed
+   * table. The row ids of an empty table can be reused, so a pending export
+   * range must not survive.
+   * 
+   * @param table
+   *          the typed table
+   */
+  private final void removeTypedTableState( TypedSampleTable table )
+  {
+    String[] whereArgs = new String[] { table.getName() };
+    db.delete( DB_TABLE_TYPED, KEY_TYPED_TABLE + " = ?", whereArgs );
+    db.delete( DB_TABLE_CHECKPOINTS, KEY_CHECKPOINT_TABLE + " = ?", whereArgs );
+  }
+  
+  /**
+   * Getter for the typed tables with remaining samples
+   * 
+   * @return the typed tables ordered by the base time stamp, oldest first
+   */
+  private final List< TypedSampleTable > getTypedTablesOldestFirst()
+  {
+    List< TypedSampleTable > tables = new Vector< TypedSampleTable >();
+    Cursor cursor = db.query( DB_TABLE_TYPED, new String[] {
+        KEY_TYPED_TABLE
+    }, null, null, null, null, KEY_BASE_TIMESTAMP + " ASC" );
+    while ( cursor.moveToNext() )
+    {
+      TypedSampleTable table = TypedSampleTable.getTable( cursor.getString( 0 ) );
+      if ( table != null )
+      {
+        tables.add( table );
+      }
+    }
+    cursor.close();
+    return tables;
+  }
+  
+  /**
+   * Getter for the last acknowledged row id of a sample table
+   * 
+   * @param name
+   *          the table name
+   * @return the last row id acknowledged, or 0 if there is no checkpoint
+   */
+  private final long getAcknowledgedRowId( String name )
+  {
+    long rowId = 0;
+    Cursor cursor = db.query( DB_TABLE_CHECKPOINTS, new String[] {
+        KEY_ACKED_ROWID
+    }, KEY_CHECKPOINT_TABLE + " = ?", new String[] {
+        name
+    }, null, null, null );
+    if ( cursor.moveToFirst() )
+    {
+      rowId = cursor.getLong( 0 );
+    }
+    cursor.close();
+    return rowId;
+  }
+  
+  /**
+   * Setter for the pending export range of a sample table
+   * 
+   * @param name
+   *          the table name
+   * @param rowId
+   *          the last exported row id
+   * @param timeStamp
+   *          the time stamp of the last exported row
+   */
+  private final void setPendingCheckpoint( String name, long rowId,
+      long timeStamp )
+  {
+    ContentValues values = new ContentValues();
+    values.put( KEY_CHECKPOINT_TABLE, name );
+    values.put( KEY_ACKED_ROWID, getAcknowledgedRowId( name ) );
+    values.put( KEY_PENDING_ROWID, rowId );
+    values.put( KEY_PENDING_TIMESTAMP, timeStamp );
+    db.replaceOrThrow( DB_TABLE_CHECKPOINTS, null, values );
+  }
+  
+  /**
+   * Getter for the typed table with the oldest remaining samples
+   * 
+   * @return the typed table with the oldest base time stamp or null if all
+   *         typed tables are empty
+   */
+  private final TypedSampleTable getOldestTypedTable()
+  {
+    TypedSampleTable table = null;
+    Cursor cursor = db.query( DB_TABLE_TYPED, new String[] {
+        KEY_TYPED_TABLE
+    }, null, null, null, null, KEY_BASE_TIMESTAMP + " ASC", "1" );
+    if ( cursor.moveToFirst() )
+    {
+      String name = cursor.getString( 0 );
+      table = TypedSampleTable.getTable( name );
+      if ( table == null )
+      {
+        // unknown table, ignore it
+        db.delete( DB_TABLE_TYPED, KEY_TYPED_TABLE + " = ?",
+            new String[] { name } );
+      }
+    }
+    cursor.close();
+    return table;
+  }
+  
+  /**
+   * Method to remove the oldest samples from the typed tables. The samples are
+   * taken in chunks from the table with the oldest remaining samples.
+   * 
+   * @param count
+   *          the count of samples to remove
+   * @param sampleCollection
+   *          the collection to store the removed samples in, or null if the
+   *          samples shall be deleted only
+   * @return the count of removed samples
+   */
+  private final long removeTypedSamples( long count,
+      Collection< Sample > sampleCollection )
+  {
+    long cntRemoved = 0;
+    while ( cntRemoved < count )
+    {
+      TypedSampleTable table = getOldestTypedTable();
+      if ( table == null )
+        break;
+      
+      long cnt = removeTypedSamples( table,
+          Math.min( MAX_NUM_PLACEHOLDERS, count - cntRemoved ),
+          sampleCollection );
+      if ( cnt <= 0 )
+      {
+        // the table is empty, remove stale time stamps
+        removeTypedTableState( table );
+      }
+      cntRemoved += cnt;
+    }
+    return cntRemoved;
+  }
+  
+  /**
+   * Method to remove the oldest samples from a typed table
+   * 
+   * @param table
+   *          the typed table
+   * @param count
+   *          the count of samples to remove
+   * @param sampleCollection
+   *          the collection to store the removed samples in, or null if the
+   *          samples shall be deleted only
+   * @return the count of removed samples
+   */
+  private final long removeTypedSamples( TypedSampleTable table, long count,
+      Collection< Sample > sampleCollection )
+  {
+    long[] timeStamps = getTypedTableTimeStamps( table );
+    if ( timeStamps == null )
+      return 0;
+    
+    long timeStamp = timeStamps[ 0 ];
+    long lastRowId = -1;
+    long cnt = 0;
+    Cursor cursor =
+        db.query( table.getName(), table.getColumns(), null, null, null,
+            null, TypedSampleTable.KEY_ROWID + " ASC", Long.toString( count ) );
+    while ( cursor.moveToNext() )
+    {
+      lastRowId = cursor.getLong( 0 );
+      timeStamp += cursor.getLong( 1 );
+      if ( sampleCollection != null )
+      {
+        sampleCollection.add( table.readSample( cursor, timeStamp ) );
+      }
+      ++cnt;
+    }
+    cursor.close();
+    
+    if ( cnt > 0 )
+    {
+      db.delete( table.getName(), TypedSampleTable.KEY_ROWID + " <= ?",
+          new String[] { Long.toString( lastRowId ) } );
+      
+      if ( DatabaseUtils.queryNumEntries( db, table.getName() ) > 0 )
+      {
+        // the next row delta does refer to the last removed time stamp
+        setTypedTableTimeStamps( table, timeStamp, timeStamps[ 1 ] );
+      }
+      else
+      {
+        removeTypedTableState( table );
+      }
+    }
+    return cnt;
+  }
+  
+  /*
+   * (non-Javadoc)
+   * 
+   * @see
+   * de.unikassel.android.sdcframework.persistence.facade.DatabaseAdapter#
+   * removeTypedSamplesOldestFirst(long, java.util.Collection)
+   */
+  @Override
+  public final boolean removeTypedSamplesOldestFirst( long count,
+      Collection< Sample > sampleCollection )
+  {
+    db.beginTransaction();
+    try
+    {
+      removeTypedSamples( count, sampleCollection );
+      db.setTransactionSuccessful();
+    }
+    finally
+    {
+      db.endTransaction();
+    }
+    return true;
+  }
+  
+  /*
+   * (non-Javadoc)
+   * 
+   * @see
+   * de.unikassel.android.sdcframework.persistence.facade.DatabaseAdapter#
+   * exportSamples(long,
+   * de.unikassel.android.sdcframework.persistence.facade.SampleExporter)
+   */
+  @Override
+  public final long exportSamples( long count, SampleExporter exporter )
+      throws Exception
+  {
+    long cntExported = 0;
+    db.beginTransaction();
+    try
+    {
+      ExportIterator iterator = new ExportIterator( count, false );
+      try
+      {
+        if ( !exporter.exportSamples( iterator ) )
+          return 0;
+      }
+      finally
+      {
+        iterator.close();
+      }
+      
+      // the samples table rows are deleted in one statement, the rows of the
+      // typed tables are already removed while iterating
+      long cntRows = iterator.getRowCount();
+      if ( cntRows > 0 )
+      {
+        db.execSQL( DB_DELETE_EXPORTED, new Object[] {
+            cntRows
+        } );
+        deleteUnreferencedLocations();
+      }
+      
+      // a former export without acknowledgement is replaced by this one
+      db.execSQL( DB_RESET_PENDING );
+      cntExported = iterator.getRowCount() + iterator.getTypedCount();
+      db.setTransactionSuccessful();
+    }
+    finally
+    {
+      db.endTransaction();
+    }
+    return cntExported;
+  }
+  
+  /*
+   * (non-Javadoc)
+   * 
+   * @see
+   * de.unikassel.android.sdcframework.persistence.facade.DatabaseAdapter#
+   * exportSamplesInRowIdOrder(long,
+   * de.unikassel.android.sdcframework.persistence.facade.SampleExporter)
+   */
+  @Override
+  public final long exportSamplesInRowIdOrder( long count,
+      SampleExporter exporter ) throws Exception
+  {
+    long cntExported = 0;
+    db.beginTransaction();
+    try
+    {
+      // a former export without acknowledgement is replaced by this one
+      db.execSQL( DB_RESET_PENDING );
+      
+      ExportIterator iterator = new ExportIterator( count, true );
+      try
+      {
+        if ( !exporter.exportSamples( iterator ) )
+          return 0;
+      }
+      finally
+      {
+        iterator.close();
+      }
+      
+      // the typed table checkpoints are stored while iterating
+      if ( iterator.getRowCount() > 0 )
+      {
+        setPendingCheckpoint( DB_TABLE, iterator.getLastRowId(), 0L );
+      }
+      cntExported = iterator.getRowCount() + iterator.getTypedCount();
+      db.setTransactionSuccessful();
+    }
+    finally
+    {
+      db.endTransaction();
+    }
+    return cntExported;
+  }
+  
+  /*
+   * (non-Javadoc)
+   * 
+   * @see
+   * de.unikassel.android.sdcframework.persistence.facade.DatabaseAdapter#
+   * acknowledgeExportedSamples()
+   */
+  @Override
+  public final long acknowledgeExportedSamples()
+  {
+    long cntDeleted = 0;
+    db.beginTransaction();
+    try
+    {
+      Cursor cursor = db.query( DB_TABLE_CHECKPOINTS, new String[] {
+          KEY_CHECKPOINT_TABLE,
+          KEY_PENDING_ROWID,
+          KEY_PENDING_TIMESTAMP
+      }, KEY_PENDING_TIMESTAMP + " is not null", null, null, null, null );
+      try
+      {
+        while ( cursor.moveToNext() )
+        {
+          cntDeleted += deleteAcknowledgedSamples( cursor.getString( 0 ),
+              cursor.getLong( 1 ), cursor.getLong( 2 ) );
+        }
+      }
+      finally
+      {
+        cursor.close();
+      }
+      db.execSQL( DB_ACKNOWLEDGE_PENDING );
+      db.setTransactionSuccessful();
+    }
+    finally
+    {
+      db.endTransaction();
+    }
+    return cntDeleted;
+  }
+  
+  /**
+   * Method to delete the acknowledged rows of a sample table with a single
+   * range predicate
+   * 
+   * @param name
+   *          the table name
+   * @param rowId
+   *          the last acknowledged row id
+   * @param timeStamp
+   *          the time stamp of the last acknowledged row
+   * @return the count of deleted rows
+   */
+  private final long deleteAcknowledgedSamples( String name, long rowId,
+      long timeStamp )
+  {
+    String[] whereArgs = new String[] { Long.toString( rowId ) };
+    if ( DB_TABLE.equals( name ) )
+    {
+      long cnt = db.delete( DB_TABLE, KEY_ROWID + " <= ?", whereArgs );
+      deleteUnreferencedLocations();
+      return cnt;
+    }
+    
+    TypedSampleTable table = TypedSampleTable.getTable( name );
+    if ( table == null )
+      return 0;
+    
+    long cnt =
+        db.delete( name, TypedSampleTable.KEY_ROWID + " <= ?", whereArgs );
+    if ( cnt > 0 )
+    {
+      long[] timeStamps = getTypedTableTimeStamps( table );
+      if ( timeStamps != null
+          && DatabaseUtils.queryNumEntries( db, name ) > 0 )
+      {
+        // the next row delta does refer to the last acknowledged time stamp
+        setTypedTableTimeStamps( table, timeStamp, timeStamps[ 1 ] );
+      }
+      else
+      {
+        db.delete( DB_TABLE_TYPED, KEY_TYPED_TABLE + " = ?",
+            new String[] { name } );
+      }
+    }
+    return cnt;
+  }
+  
+  /**
+   * An iterator for the samples to export. The samples table rows are read
+   * from a cursor, the typed table samples are taken in chunks as soon as the
+   * cursor is exhausted. <br/>
+   * Without keeping the samples, the typed table samples are removed while
+   * iterating, otherwise all samples are read in row id order behind the last
+   * acknowledged row and the pending checkpoints of the typed tables are
+   * stored.
+   * 
+   * @author Katy Hilgenberg
+   * 
+   */
+  private final class ExportIterator
+      implements Iterator< Sample >
+  {
+    /**
+     * The count of samples to export
+     */
+    private final long count;
+    
+    /**
+     * Flag if the samples are kept in the database until the export is
+     * acknowledged
+     */
+    private final boolean keepSamples;
+    
+    /**
+     * The cursor for the samples table
+     */
+    private Cursor cursor;
+    
+    /**
+     * The last samples table row id passed
+     */
+    private long lastRowId;
+    
+    /**
+     * The typed tables to read from, oldest first ( if samples are kept )
+     */
+    private List< TypedSampleTable > typedTables;
+    
+    /**
+     * The index of the typed table currently read
+     */
+    private int typedTableIndex;
+    
+    /**
+     * The last row id read from the current typed table, -1 if not started
+     */
+    private long typedRowId;
+    
+    /**
+     * The time stamp of the last row read from the current typed table
+     */
+    private long typedTimeStamp;
+    
+    /**
+     * The buffer for the samples taken from the typed tables
+     */
+    private final List< Sample > typedSamples;
+    
+    /**
+     * The current position in the typed samples buffer
+     */
+    private int typedIndex;
+    
+    /**
+     * The count of samples table rows passed
+     */
+    private long cntRows;
+    
+    /**
+     * The count of samples taken from the typed tables
+     */
+    private long cntTyped;
+    
+    /**
+     * Flag if the typed tables are exhausted
+     */
+    private boolean typedExhausted;
+    
+    /**
+     * The next sample to return
+     */
+    private Sample next;
+    
+    /**
+     * Constructor
+     * 
+     * @param count
+     *          the count of samples to export
+     * @param keepSamples
+     *          flag if the samples are kept in the database until the export
+     *          is acknowledged
+     */
+    public ExportIterator( long count, boolean keepSamples )
+    {
+      this.count = count;
+      this.keepSamples = keepSamples;
+      this.cursor = keepSamples
+          ? getSamplesAfterRowId( getAcknowledgedRowId( DB_TABLE ), count )
+          : getSamplesOrdered( count, ORDER_BY_EXPORT );
+      this.typedSamples = new Vector< Sample >();
+      this.typedRowId = -1;
+    }
+    
+    /**
+     * Getter for the last samples table row id passed
+     * 
+     * @return the last samples table row id passed
+     */
+    public final long getLastRowId()
+    {
+      return lastRowId;
+    }
+    
+    /**
+     * Getter for the count of samples table rows passed
+     * 
+     * @return the count of samples table rows passed
+     */
+    public final long getRowCount()
+    {
+      return cntRows;
+    }
+    
+    /**
+     * Getter for the count of samples taken from the typed tables
+     * 
+     * @return the count of typed samples
+     */
+    public final long getTypedCount()
+    {
+      return cntTyped;
+    }
+    
+    /**
+     * Method to release the cursor
+     */
+    public final void close()
+    {
+      if ( cursor != null )
+      {
+        cursor.close();
+        cursor = null;
+      }
+    }
+    
+    /*
+     * (non-Javadoc)
+     * 
+     * @see java.util.Iterator#hasNext()
+     */
+    @Override
+    public boolean hasNext()
+    {
+      if ( next == null )
+      {
+        next = fetchNext();
+      }
+      return next != null;
+    }
+    
+    /*
+     * (non-Javadoc)
+     * 
+     * @see java.util.Iterator#next()
+     */
+    @Override
+    public Sample next()
+    {
+      if ( !hasNext() )
+        throw new NoSuchElementException();
+      Sample sample = next;
+      next = null;
+      return sample;
+    }
+    
+    /*
+     * (non-Javadoc)
+     * 
+     * @see java.util.Iterator#remove()
+     */
+    @Override
+    public void remove()
+    {
+      throw new UnsupportedOperationException();
+    }
+    
+    /**
+     * Method to fetch the next sample
+     * 
+     * @return the next sample or null if no more samples are available
+     */
+    private Sample fetchNext()
+    {
+      while ( cursor != null && cursor.moveToNext() )
+      {
+        ++cntRows;
+        lastRowId = cursor.getLong( 0 );
+        Sample sample = sampleFromCursor( cursor ).toSample();
+        if ( sample != null )
+          return sample;
+        
+        Logger.getInstance().error( DatabaseAdapterImpl.this,
+            "failed to create sample from database representation" );
+      }
+      close();
+      
+      if ( typedIndex >= typedSamples.size() )
+      {
+        long remaining = count - cntRows - cntTyped;
+        if ( typedExhausted || remaining <= 0 )
+          return null;
+        
+        typedSamples.clear();
+        typedIndex = 0;
+        long limit = Math.min( MAX_NUM_PLACEHOLDERS, remaining );
+        if ( keepSamples )
+        {
+          readTypedSamples( limit );
+        }
+        else
+        {
+          removeTypedSamples( limit, typedSamples );
+        }
+        if ( typedSamples.isEmpty() )
+        {
+          typedExhausted = true;
+          return null;
+        }
+      }
+      
+      ++cntTyped;
+      return typedSamples.get( typedIndex++ );
+    }
+    
+    /**
+     * Method to read the next chunk of typed samples without removing them.
+     * The pending checkpoint of the table is updated for each chunk.
+     * 
+     * @param limit
+     *          the maximum count of samples to read
+     */
+    private void readTypedSamples( long limit )
+    {
+      if ( typedTables == null )
+      {
+        typedTables = getTypedTablesOldestFirst();
+      }
+      
+      while ( typedSamples.isEmpty() && typedTableIndex < typedTables.size() )
+      {
+        TypedSampleTable table = typedTables.get( typedTableIndex );
+        if ( typedRowId < 0 )
+        {
+          // acknowledged rows are deleted, so each table is read from the start
+          long[] timeStamps = getTypedTableTimeStamps( table );
+          if ( timeStamps == null )
+          {
+            ++typedTableIndex;
+            continue;
+          }
+          typedRowId = 0;
+          typedTimeStamp = timeStamps[ 0 ];
+        }
+        
+        Cursor typedCursor =
+            db.query( table.getName(), table.getColumns(),
+                TypedSampleTable.KEY_ROWID + " > ?", new String[] {
+                  Long.toString( typedRowId )
+                }, null, null, TypedSampleTable.KEY_ROWID + " ASC",
+                Long.toString( limit ) );
+        try
+        {
+          while ( typedCursor.moveToNext() )
+          {
+            typedRowId = typedCursor.getLong( 0 );
+            typedTimeStamp += typedCursor.getLong( 1 );
+            typedSamples.add( table.readSample( typedCursor, typedTimeStamp ) );
+          }
+        }
+        finally
+        {
+          typedCursor.close();
+        }
+        
+        if ( typedSamples.isEmpty() )
+        {
+          // table exhausted, continue with the next one
+          ++typedTableIndex;
+          typedRowId = -1;
+        }
+        else
+        {
+          setPendingCheckpoint( table.getName(), typedRowId, typedTimeStamp );
+        }
+      }
+    }
+  }
+  
+  /**
+   * Getter for the record count of the typed tables
+   * 
+   * @return the count of records stored in the typed tables
+   */
+  public final long getTypedRecordCount()
+  {
+    long cnt = 0;
+    for ( TypedSampleTable table : TypedSampleTable.TABLES )
+    {
+      cnt += DatabaseUtils.queryNumEntries( db, table.getName() );
+    }
+    return cnt;
+  }
+  
+  /**
+   * Method to delete the first samples selected by the given order with a
+   * single statement
+   * 
+   * @param count
+   *          the count of samples to delete
+   * @param orderByStatement
+   *          the order by statement
+   * @return the affected record count
+   */
+  private final long deleteSamples( long count, String orderByStatement )
+  {
+    long cnt = db.delete( DB_TABLE, KEY_ROWID + " in ( select " + KEY_ROWID
+        + " from " + DB_TABLE + " order by " + orderByStatement
+        + " limit ? )", new String[] { Long.toString( count ) } );
+    deleteUnreferencedLocations();
+    return cnt;
+  }
+  
+  /**
+   * Method to delete all stored records at once
+   * 
+   * @return true if successful, false otherwise
+   */
+  public final boolean deleteAll()
+  {
+    db.beginTransaction();
+    try
+    {
+      db.delete( DB_TABLE, null, null );
+      db.delete( DB_TABLE_LOCATIONS, null, null );
+      resetLocationCache();
+      for ( TypedSampleTable table : TypedSampleTable.TABLES )
+      {
+        db.delete( table.getName(), null, null );
+      }
+      db.delete( DB_TABLE_TYPED, null, null );
+      db.delete( DB_TABLE_CHECKPOINTS, null, null );
+      db.setTransactionSuccessful();
+    }
+    finally
+    {
+      db.endTransaction();
+    }
+    return getRecordCount() == 0;
+  }
+  
+  /*
+   * (non-Javadoc)
+   * 
+   * @see
+   * de.unikassel.android.sdcframework.persistence.DatabaseAdapter#getRecordCount
+   * ()
+   */
+  @Override
+  public final long getRecordCount()
+  {
+    return DatabaseUtils.queryNumEntries( db, DB_TABLE )
+        + getTypedRecordCount();
+  }
+  
+  /**
+   * Getter for samples ordered by the given statement
+   * 
+   * @param limit
+   *          the count of rows to retrieve
+   * @param orderByStatement
+   *          the order by statement
+   * @return the cursor for all samples sorted by priority descending
+   */
+  private final Cursor getSamplesOrdered( long limit, String orderByStatement )
+  {
+    return getSamples( null, null, limit, orderByStatement );
+  }
+  
+  /**
+   * Getter for the samples behind a given row id in row id order
+   * 
+   * @param rowId
+   *          the row id to start behind
+   * @param limit
+   *          the count of rows to retrieve
+   * @return the cursor for the samples
+   */
+  private final Cursor getSamplesAfterRowId( long rowId, long limit )
+  {
+    return getSamples( KEY_ROWID + " > ?", new String[] {
+        Long.toString( rowId )
+    }, limit, ORDER_BY_ROWID );
+  }
+  
+  /**
+   * Getter for the samples matching a selection
+   * 
+   * @param selection
+   *          the selection or null for all samples
+   * @param selectionArgs
+   *          the selection arguments
+   * @param limit
+   *          the count of rows to retrieve
+   * @param orderByStatement
+   *          the order by statement
+   * @return the cursor for the samples
+   */
+  private final Cursor getSamples( String selection, String[] selectionArgs,
+      long limit, String orderByStatement )
   {
     return db.query(
         DB_TABLE,
@@ -495,11 +2105,11 @@ public final class DatabaseAdapterImpl implements DatabaseAdapter
             KEY_SYNCED,
             KEY_TIMESTAMP,
             KEY_LOCATION,
-            KEY_DATA,
-            KEY_DATA_CLASS
+            KEY_LOCATION_ID,
+            KEY_DATA
         },
-        null,
-        null,
+        selection,
+        selectionArgs,
         null,
         null,
         orderByStatement,
@@ -523,11 +2133,13 @@ public final class DatabaseAdapterImpl implements DatabaseAdapter
     sample.priority = cursor.getInt( cursor.getColumnIndexOrThrow( KEY_PRIO ) );
     sample.synced = cursor.getInt( cursor.getColumnIndex( KEY_SYNCED ) ) == 1;
     sample.data =
-        cursor.getString( cursor.getColumnIndexOrThrow( KEY_DATA ) );
-    sample.dataTypeClassName =
-        cursor.getString( cursor.getColumnIndexOrThrow( KEY_DATA_CLASS ) );
-    sample.location =
-        cursor.getString( cursor.getColumnIndexOrThrow( KEY_LOCATION ) );
+        cursor.getBlob( cursor.getColumnIndexOrThrow( KEY_DATA ) );
+    int locationIdIndex = cursor.getColumnIndexOrThrow( KEY_LOCATION_ID );
+    if ( !cursor.isNull( locationIdIndex ) )
+      sample.location = getLocation( cursor.getLong( locationIdIndex ) );
+    else
+      sample.location =
+          cursor.getBlob( cursor.getColumnIndexOrThrow( KEY_LOCATION ) );
     return sample;
   }
   
@@ -551,33 +2163,23 @@ public final class DatabaseAdapterImpl implements DatabaseAdapter
     
     try
     {
-      Set< Long > rowIds = new HashSet< Long >();
+      // the row id makes the order unique, so the delete statement does
+      // select exactly the queried rows
+      String orderByUnique = orderByStatement + ", " + ORDER_BY_ROWID;
+      long cntRows = 0;
+      Cursor cursor = getSamplesOrdered( count, orderByUnique );
+      while ( cursor.moveToNext() )
+      {
+        sampleCollection.add( sampleFromCursor( cursor ) );
+        ++cntRows;
+      }
+      cursor.close();
       
-      // fetch request in a loop to not exceed compile limits for SQL statements
-      while ( success && count > 0 )
+      if ( deleteSamples( cntRows, orderByUnique ) <= 0 )
       {
-        long currentCount = Math.min( MAX_NUM_PLACEHOLDERS, count );
-        
-        Cursor cursor = getSamplesOrdered( currentCount, orderByStatement );
-        if ( cursor.moveToFirst() )
-        {
-          do
-          {
-            rowIds.add( cursor.getLong( cursor.getColumnIndexOrThrow( KEY_ROWID ) ) );
-            sampleCollection.add( sampleFromCursor( cursor ) );
-          }
-          while ( cursor.moveToNext() );
-        }
-        cursor.close();
-        
-        if ( deleteSamples( rowIds ) <= 0 )
-        {
-          Logger.getInstance().error( this,
-              "Failed to delete queried samples in database" );
-          success = false;
-        }
-        rowIds.clear();
-        count -= MAX_NUM_PLACEHOLDERS;
+        Logger.getInstance().error( this,
+            "Failed to delete queried samples in database" );
+        success = false;
       }
       
       if ( success )
@@ -602,56 +2204,12 @@ public final class DatabaseAdapterImpl implements DatabaseAdapter
    */
   private final long deleteSamplesOrdered( long count, String orderByStatement )
   {
-    boolean success = true;
-    long cntDeleted = 0;
-    db.beginTransaction();
-    
-    try
-    {
-      Set< Long > rowIds = new HashSet< Long >();
-      
-      // fetch request in a loop to not exceed compile limits for SQL statements
-      while ( success && count > 0 )
-      {
-        long currentCount = Math.min( MAX_NUM_PLACEHOLDERS, count );
-        
-        Cursor cursor = getSamplesOrdered( currentCount, orderByStatement );
-        if ( cursor.moveToFirst() )
-        {
-          do
-          {
-            rowIds.add( cursor.getLong( cursor.getColumnIndexOrThrow( KEY_ROWID ) ) );
-          }
-          while ( cursor.moveToNext() );
-        }
-        cursor.close();
-        
-        long cnt = deleteSamples( rowIds );
-        if ( cnt <= 0 )
-        {
-          Logger.getInstance().error( this,
-              "Failed to delete samples in database" );
-          success = false;
-        }
-        else
-        {
-          cntDeleted += cnt;
-        }
-        
-        rowIds.clear();
-        count -= MAX_NUM_PLACEHOLDERS;
-      }
-      
-      if ( success )
-      {
-        db.setTransactionSuccessful();
-      }
-      else
-        cntDeleted = 0;
-    }
-    finally
+    long cntDeleted = deleteSamples( count, orderByStatement );
+    if ( cntDeleted <= 0 )
     {
-      db.endTransaction();
+      Logger.getInstance().error( this,
+          "Failed to delete samples in database" );
+      cntDeleted = 0;
     }
     return cntDeleted;
   }
@@ -666,6 +2224,35 @@ public final class DatabaseAdapterImpl implements DatabaseAdapter
   public final long deleteSamplesOrdered( long count,
       boolean deleteLowestPriorityFirst )
   {
+    long cntDeleted = 0;
+    long cntTyped = getTypedRecordCount();
+    if ( cntTyped > 0 )
+    {
+      // delete from the samples table first, the rest from the typed tables
+      long cntSamples =
+          Math.min( count, DatabaseUtils.queryNumEntries( db, DB_TABLE ) );
+      if ( cntSamples > 0 )
+      {
+        cntDeleted = deleteSamplesOrdered( cntSamples,
+            deleteLowestPriorityFirst ? ORDER_BY_DESC_PRIO_TS : ORDER_BY_TS );
+      }
+      
+      if ( cntDeleted < count )
+      {
+        db.beginTransaction();
+        try
+        {
+          cntDeleted += removeTypedSamples( count - cntDeleted, null );
+          db.setTransactionSuccessful();
+        }
+        finally
+        {
+          db.endTransaction();
+        }
+      }
+      return cntDeleted;
+    }
+    
     if ( deleteLowestPriorityFirst )
     {
       return deleteSamplesOrdered( count, ORDER_BY_DESC_PRIO_TS );
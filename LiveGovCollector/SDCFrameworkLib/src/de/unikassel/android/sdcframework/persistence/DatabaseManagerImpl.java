@@ -22,12 +22,18 @@ package de.unikassel.android.sdcframework.persistence;
 
 import android.content.Context;
 import android.database.sqlite.SQLiteFullException;
+import android.os.SystemClock;
 import de.unikassel.android.sdcframework.persistence.facade.DatabaseCommand;
 import de.unikassel.android.sdcframework.persistence.facade.DatabaseManager;
 import de.unikassel.android.sdcframework.util.Logger;
 
 /**
- * Implementation of a central database manager.
+ * Implementation of a central database manager. <br/>
+ * <br/>
+ * The manager does maintain the count of stored records incrementally from the
+ * changes reported by the executed commands. The counter is seeded by a
+ * database query on first access and reconciled with the database periodically
+ * or whenever a command execution has failed.
  * 
  * @author Katy Hilgenberg
  * 
@@ -35,11 +41,32 @@ import de.unikassel.android.sdcframework.util.Logger;
 public final class DatabaseManagerImpl
     implements DatabaseManager
 {
+  /**
+   * The interval in milliseconds to reconcile the record counter with the
+   * database
+   */
+  public static final long RECONCILE_INTERVAL = 600000L;
+  
+  /**
+   * Marker value for an unknown record count
+   */
+  private static final long UNKNOWN_COUNT = -1L;
+  
   /**
    * The internal database adapter
    */
   private final DatabaseAdapterImpl dbAdapter;
   
+  /**
+   * The incrementally maintained count of records in the database
+   */
+  private long recordCount;
+  
+  /**
+   * The time stamp of the last reconciliation of the record counter
+   */
+  private long lastReconciliation;
+  
   /**
    * Constructor
    * 
@@ -50,8 +77,7 @@ public final class DatabaseManagerImpl
    */
   public DatabaseManagerImpl( Context applicationContext, String dbName )
   {
-    this.dbAdapter =
-        new DatabaseAdapterImpl( dbName, 0L, applicationContext );
+    this( applicationContext, 0L, dbName );
   }
   
   /**
@@ -69,6 +95,7 @@ public final class DatabaseManagerImpl
   {
     this.dbAdapter =
         new DatabaseAdapterImpl( dbName, maxDBSize, applicationContext );
+    this.recordCount = UNKNOWN_COUNT;
   }
   
   /**
@@ -81,6 +108,39 @@ public final class DatabaseManagerImpl
     return dbAdapter;
   }
   
+  /**
+   * Method to enable or disable the long-lived database connection mode. If
+   * enabled, the database is opened once and kept open for all following
+   * commands until {@link #close()} is called, otherwise it is opened and
+   * closed for each single command.
+   * 
+   * @param keepOpen
+   *          flag if the database connection shall be kept open
+   */
+  public final synchronized void setKeepDatabaseOpen( boolean keepOpen )
+  {
+    dbAdapter.setKeepOpen( keepOpen );
+  }
+  
+  /**
+   * Getter for the long-lived database connection mode
+   * 
+   * @return true if the database connection is kept open, false otherwise
+   */
+  public final synchronized boolean isKeepDatabaseOpen()
+  {
+    return dbAdapter.isKeepOpen();
+  }
+  
+  /**
+   * Method to close the database connection ( required if the long-lived
+   * connection mode is enabled )
+   */
+  public final synchronized void close()
+  {
+    dbAdapter.closeConnection();
+  }
+  
   /*
    * (non-Javadoc)
    * 
@@ -88,12 +148,17 @@ public final class DatabaseManagerImpl
    * getSampleCountInDatabase()
    */
   @Override
-  public long getRecordCountInDatabase()
+  public synchronized long getRecordCountInDatabase()
   {
-    GetRecordCountCommand command =
-        new GetRecordCountCommand();
-    Long cntRecords = doExecuteCommand( command );
-    return cntRecords == null ? 0L : cntRecords;
+    if ( recordCount == UNKNOWN_COUNT
+      || SystemClock.elapsedRealtime() - lastReconciliation >= RECONCILE_INTERVAL )
+    {
+      GetRecordCountCommand command =
+          new GetRecordCountCommand();
+      Long cntRecords = doExecuteCommand( command );
+      return cntRecords == null ? 0L : cntRecords;
+    }
+    return recordCount;
   }
   
   /*
@@ -164,15 +229,22 @@ public final class DatabaseManagerImpl
         if ( command.execute( dbAdapter ) )
         {
           result = command.getResult();
+          updateRecordCount( command, result );
+        }
+        else
+        {
+          recordCount = UNKNOWN_COUNT;
         }
       }
       catch ( SQLiteFullException e )
       {
+        recordCount = UNKNOWN_COUNT;
         // throw this special SQL exception to the caller
         throw e;
       }
       catch ( Exception e )
       {
+        recordCount = UNKNOWN_COUNT;
         Logger.getInstance().warning( this,
             "DB command execution failed: " + e.getMessage() );
         e.printStackTrace();
@@ -180,4 +252,36 @@ public final class DatabaseManagerImpl
     }
     return result;
   }
+  
+  /**
+   * Method to update the record counter after a successful command execution
+   * 
+   * @param command
+   *          the executed command
+   * @param result
+   *          the command result
+   */
+  private void updateRecordCount( DatabaseCommand< ? > command, Object result )
+  {
+    if ( command instanceof GetRecordCountCommand )
+    {
+      if ( result == null )
+      {
+        recordCount = UNKNOWN_COUNT;
+        return;
+      }
+      long cntRecords = (Long) result;
+      if ( recordCount != UNKNOWN_COUNT && recordCount != cntRecords )
+      {
+        Logger.getInstance().debug( this,
+            "Record counter reconciled ( drift: {} )", cntRecords - recordCount );
+      }
+      recordCount = cntRecords;
+      lastReconciliation = SystemClock.elapsedRealtime();
+    }
+    else if ( recordCount != UNKNOWN_COUNT )
+    {
+      recordCount = Math.max( 0L, recordCount + command.getRecordCountChange() );
+    }
+  }
 }
@@ -76,6 +76,19 @@ public class DeleteSamplesCommand
     return lowestPriorityFirst;
   }
   
+  /*
+   * (non-Javadoc)
+   * 
+   * @see de.unikassel.android.sdcframework.persistence.AbstractDatabaseCommand#
+   * getRecordCountChange()
+   */
+  @Override
+  public long getRecordCountChange()
+  {
+    Long cntDeleted = getResult();
+    return cntDeleted == null ? 0L : -cntDeleted;
+  }
+  
   /*
    * (non-Javadoc)
    * 
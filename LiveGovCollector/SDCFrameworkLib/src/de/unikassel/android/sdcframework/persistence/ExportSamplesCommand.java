@@ -0,0 +1,145 @@
+/*
+ * Copyright (C) 2012, Katy Hilgenberg.
+ * Special acknowledgments to: Knowledge & Data Engineering Group, University of Kassel (http://www.kde.cs.uni-kassel.de).
+ * Contact: sdcf@cs.uni-kassel.de
+ *
+ * This file is part of the SDCFramework (Sensor Data Collection Framework) project.
+ *
+ * The SDCFramework is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The SDCFramework is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the SDCFramework.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.unikassel.android.sdcframework.persistence;
+
+import android.database.sqlite.SQLiteFullException;
+import de.unikassel.android.sdcframework.persistence.facade.DatabaseAdapter;
+import de.unikassel.android.sdcframework.persistence.facade.SampleExporter;
+import de.unikassel.android.sdcframework.util.Logger;
+
+/**
+ * Implementation of the export samples database command. <br/>
+ * <br/>
+ * The command does stream the next samples selected for transmission into a
+ * sample exporter and removes them from the database if the export was
+ * successful. Alternatively the samples are exported in insertion order and
+ * kept until the export is acknowledged ( see {@link AcknowledgeExportCommand}
+ * ).
+ * 
+ * @author Katy Hilgenberg
+ * 
+ */
+public class ExportSamplesCommand
+    extends AbstractDatabaseCommand< Long >
+{
+  /**
+   * The exporter for the samples
+   */
+  private final SampleExporter exporter;
+  
+  /**
+   * The sample count to export
+   */
+  private final long count;
+  
+  /**
+   * Flag if the samples are kept until the export is acknowledged
+   */
+  private final boolean keepSamples;
+  
+  /**
+   * Constructor
+   * 
+   * @param exporter
+   *          the exporter for the samples
+   * @param count
+   *          the count of samples to export
+   */
+  public ExportSamplesCommand( SampleExporter exporter, long count )
+  {
+    this( exporter, count, false );
+  }
+  
+  /**
+   * Constructor
+   * 
+   * @param exporter
+   *          the exporter for the samples
+   * @param count
+   *          the count of samples to export
+   * @param keepSamples
+   *          flag if the samples are kept until the export is acknowledged
+   */
+  public ExportSamplesCommand( SampleExporter exporter, long count,
+      boolean keepSamples )
+  {
+    super( false );
+    this.exporter = exporter;
+    this.count = count;
+    this.keepSamples = keepSamples;
+  }
+  
+  /**
+   * Getter for the keep samples flag
+   * 
+   * @return true if the samples are kept until the export is acknowledged
+   */
+  public final boolean isKeepingSamples()
+  {
+    return keepSamples;
+  }
+  
+  /*
+   * (non-Javadoc)
+   * 
+   * @see de.unikassel.android.sdcframework.persistence.AbstractDatabaseCommand#
+   * getRecordCountChange()
+   */
+  @Override
+  public long getRecordCountChange()
+  {
+    // kept samples are removed later on acknowledgment of the export
+    Long cntExported = getResult();
+    return keepSamples || cntExported == null ? 0L : -cntExported;
+  }
+  
+  /*
+   * (non-Javadoc)
+   * 
+   * @see de.unikassel.android.sdcframework.persistence.AbstractDatabaseCommand#
+   * applyCommand(de.unikassel.android.sdcframework.persistence.DatabaseAdapter)
+   */
+  @Override
+  protected Long applyCommand( DatabaseAdapter dbAdapter )
+  {
+    try
+    {
+      if ( keepSamples )
+        return dbAdapter.exportSamplesInRowIdOrder( count, exporter );
+      return dbAdapter.exportSamples( count, exporter );
+    }
+    catch ( SQLiteFullException e )
+    {
+      // throw this special SQL exception to the caller
+      throw e;
+    }
+    catch ( Exception e )
+    {
+      Logger.getInstance().error(
+          this,
+            " Unexpected exception during command execution: " + e + ": "
+                + e.getMessage() );
+      e.printStackTrace();
+    }
+    return null;
+  }
+  
+}
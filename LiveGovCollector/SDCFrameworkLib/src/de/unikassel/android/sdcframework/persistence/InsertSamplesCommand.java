@@ -21,7 +21,9 @@
 package de.unikassel.android.sdcframework.persistence;
 
 import java.util.Collection;
+import java.util.Collections;
 
+import de.unikassel.android.sdcframework.data.Sample;
 import de.unikassel.android.sdcframework.persistence.facade.DatabaseAdapter;
 import de.unikassel.android.sdcframework.persistence.facade.DatabaseSample;
 
@@ -41,6 +43,11 @@ public class InsertSamplesCommand
    */
   private final Collection< DatabaseSample > samples;
   
+  /**
+   * The collection with the samples to insert into the typed sensor tables
+   */
+  private final Collection< Sample > typedSamples;
+  
   /**
    * Constructor
    * 
@@ -48,9 +55,24 @@ public class InsertSamplesCommand
    *          the samples to insert
    */
   public InsertSamplesCommand( Collection< DatabaseSample > samples )
+  {
+    this( samples, Collections.< Sample > emptyList() );
+  }
+  
+  /**
+   * Constructor
+   * 
+   * @param samples
+   *          the samples to insert
+   * @param typedSamples
+   *          the samples to insert into the typed sensor tables
+   */
+  public InsertSamplesCommand( Collection< DatabaseSample > samples,
+      Collection< Sample > typedSamples )
   {
     super( false );
     this.samples = samples;
+    this.typedSamples = typedSamples;
   }
   
   /**
@@ -63,6 +85,38 @@ public class InsertSamplesCommand
     return samples;
   }
   
+  /**
+   * Getter for the samples to insert into the typed sensor tables
+   * 
+   * @return the typed samples
+   */
+  public final Collection< Sample > getTypedSamples()
+  {
+    return typedSamples;
+  }
+  
+  /**
+   * Getter for the overall count of samples to insert
+   * 
+   * @return the sample count
+   */
+  public final int getSampleCount()
+  {
+    return samples.size() + typedSamples.size();
+  }
+  
+  /*
+   * (non-Javadoc)
+   * 
+   * @see de.unikassel.android.sdcframework.persistence.AbstractDatabaseCommand#
+   * getRecordCountChange()
+   */
+  @Override
+  public long getRecordCountChange()
+  {
+    return Boolean.TRUE.equals( getResult() ) ? getSampleCount() : 0L;
+  }
+  
   /*
    * (non-Javadoc)
    * 
@@ -74,7 +128,14 @@ public class InsertSamplesCommand
   {
     try
     {
-      dbAdapter.insertSamples( samples );
+      if ( typedSamples.isEmpty() )
+      {
+        dbAdapter.insertSamples( samples );
+      }
+      else
+      {
+        dbAdapter.insertSamples( samples, typedSamples );
+      }
       return true;
     }
     catch ( SQLiteFullException e )
@@ -37,7 +37,9 @@ import de.unikassel.android.sdcframework.persistence.facade.DatabaseSample;
 import de.unikassel.android.sdcframework.persistence.facade.PersistentStorageManager;
 import de.unikassel.android.sdcframework.preferences.facade.ServiceConfiguration;
 import de.unikassel.android.sdcframework.util.AbstractAsynchrounousSampleObserver;
+import de.unikassel.android.sdcframework.util.LatencyHistogram;
 import de.unikassel.android.sdcframework.util.Logger;
+import de.unikassel.android.sdcframework.util.MetricsRegistry;
 
 /**
  * The persistent storage manager does provide the persistent storage feature
@@ -74,11 +76,26 @@ public final class PersistentStorageManagerImpl
    */
   private InsertSamplesCommand currentCommand;
   
+  /**
+   * Flag if samples of known sensor types are stored in the typed sensor tables
+   */
+  private volatile boolean isUsingTypedTables;
+  
   /**
    * The service class
    */
   private final Class< ? extends SDCService > serviceClass;
   
+  /**
+   * The histogram for the latency of database inserts in microseconds
+   */
+  private final LatencyHistogram insertLatency;
+  
+  /**
+   * The histogram for the sample count of database inserts
+   */
+  private final LatencyHistogram insertBatchSize;
+  
   /**
    * Constructor
    * 
@@ -110,10 +127,28 @@ public final class PersistentStorageManagerImpl
     this.serviceClass = serviceClass;
     this.dbManager = dbManager;
     this.savedRecordCount = new AtomicLong( 0L );
+    this.isUsingTypedTables = config.isUsingTypedTables();
+    
+    MetricsRegistry metrics = MetricsRegistry.getInstance();
+    this.insertLatency = metrics.getHistogram( "db.insert.latency", "us" );
+    this.insertBatchSize = metrics.getHistogram( "db.insert.batch", "samples" );
     
     updateDatabaseFullStrategy( applicationContext, config, controlActivityClass );
   }
   
+  /*
+   * (non-Javadoc)
+   * 
+   * @see
+   * de.unikassel.android.sdcframework.persistence.facade.PersistentStorageManager
+   * #setUsingTypedTables(boolean)
+   */
+  @Override
+  public final void setUsingTypedTables( boolean isUsingTypedTables )
+  {
+    this.isUsingTypedTables = isUsingTypedTables;
+  }
+  
   /*
    * (non-Javadoc)
    * 
@@ -147,8 +182,7 @@ public final class PersistentStorageManagerImpl
         SampleCollection samples = new SampleCollection();
         if ( collector.dequeue( samples, Integer.MAX_VALUE ) > 0 )
         {
-          currentCommand =
-              new InsertSamplesCommand( convertSamplesToDBSamples( samples ) );
+          currentCommand = createInsertCommand( samples );
         }
         else
           sleep( 1000 );
@@ -171,6 +205,40 @@ public final class PersistentStorageManagerImpl
     }
   }
   
+  /**
+   * Method to create the insert command for a sample collection. If typed
+   * sensor tables are used, samples with a related typed table are inserted
+   * unconverted.
+   * 
+   * @param samples
+   *          the sample collection to insert
+   * @return the insert command
+   */
+  private final InsertSamplesCommand createInsertCommand(
+      SampleCollection samples )
+  {
+    if ( !isUsingTypedTables )
+    {
+      return new InsertSamplesCommand( convertSamplesToDBSamples( samples ) );
+    }
+    
+    SampleCollection otherSamples = new SampleCollection();
+    Collection< Sample > typedSamples = new Vector< Sample >();
+    for ( Sample sample : samples )
+    {
+      if ( TypedSampleTable.getTable( sample ) != null )
+      {
+        typedSamples.add( sample );
+      }
+      else
+      {
+        otherSamples.add( sample );
+      }
+    }
+    return new InsertSamplesCommand( convertSamplesToDBSamples( otherSamples ),
+        typedSamples );
+  }
+  
   /**
    * Conversion of samples to database samples
    * 
@@ -187,7 +255,7 @@ public final class PersistentStorageManagerImpl
     {
       try
       {
-        dbSamples.add( new DatabaseSample( sample ) );
+        dbSamples.add( DatabaseSample.obtain( sample ) );
       }
       catch ( Exception e )
       {
@@ -195,6 +263,7 @@ public final class PersistentStorageManagerImpl
             "failed to convert sample to database format: " + e.getMessage() );
         e.printStackTrace();
       }
+      sample.release();
     }
     return dbSamples;
   }
@@ -212,13 +281,16 @@ public final class PersistentStorageManagerImpl
     if ( currentCommand == null )
       return true;
     
+    long start = System.nanoTime();
     Boolean success = doExecuteCommand( currentCommand );
     if ( success != null )
     {
       if ( success )
       {
         // update current instance count of saved records
-        long cnt = currentCommand.getSamples().size();
+        long cnt = currentCommand.getSampleCount();
+        insertLatency.record( ( System.nanoTime() - start ) / 1000L );
+        insertBatchSize.record( cnt );
         long recordCount;
         do
         {
@@ -226,6 +298,7 @@ public final class PersistentStorageManagerImpl
         }
         while ( !savedRecordCount.compareAndSet( recordCount, recordCount + cnt ) );
         
+        recycleSamples( currentCommand );
         currentCommand = null;
       }
       return success;
@@ -233,6 +306,24 @@ public final class PersistentStorageManagerImpl
     return false;
   }
   
+  /**
+   * Method to recycle the samples of an executed insert command
+   * 
+   * @param command
+   *          the executed insert command
+   */
+  private final void recycleSamples( InsertSamplesCommand command )
+  {
+    for ( DatabaseSample dbSample : command.getSamples() )
+    {
+      dbSample.recycle();
+    }
+    for ( Sample sample : command.getTypedSamples() )
+    {
+      sample.release();
+    }
+  }
+  
   /*
    * (non-Javadoc)
    * 
@@ -307,11 +398,11 @@ public final class PersistentStorageManagerImpl
     long savedRecordCount = getSavedRecordCount();
     if ( savedRecordCount > 0L )
     {
-      Logger.getInstance().debug( this,
-          "" + savedRecordCount + " sample(s) stored persistent!" );
+      Logger.getInstance().debug( this, "{} sample(s) stored persistent!",
+          savedRecordCount );
     }
-    Logger.getInstance().debug( this,
-        "Total record count in database: " + getRecordCountInDatabase() );
+    Logger.getInstance().debug( this, "Total record count in database: {}",
+        getRecordCountInDatabase() );
   }
   
   /*
@@ -46,6 +46,11 @@ public class RemoveSamplesCommand
    */
   private final long count;
   
+  /**
+   * The count of samples removed by the last execution
+   */
+  private long cntRemoved;
+  
   /**
    * Constructor
    * 
@@ -71,6 +76,18 @@ public class RemoveSamplesCommand
     return samples;
   }
   
+  /*
+   * (non-Javadoc)
+   * 
+   * @see de.unikassel.android.sdcframework.persistence.AbstractDatabaseCommand#
+   * getRecordCountChange()
+   */
+  @Override
+  public long getRecordCountChange()
+  {
+    return -cntRemoved;
+  }
+  
   /*
    * (non-Javadoc)
    * 
@@ -82,7 +99,9 @@ public class RemoveSamplesCommand
   {
     try
     {
+      int cntBefore = samples.size();
       dbAdapter.removeSamplesHighestPrioFirst( count, samples );
+      cntRemoved = samples.size() - cntBefore;
       return true;
     }
     catch ( SQLiteFullException e )
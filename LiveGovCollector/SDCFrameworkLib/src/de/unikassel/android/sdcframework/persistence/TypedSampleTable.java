@@ -0,0 +1,687 @@
+/*
+ * Copyright (C) 2012, Katy Hilgenberg.
+ * Special acknowledgments to: Knowledge & Data Engineering Group, University of Kassel (http://www.kde.cs.uni-kassel.de).
+ * Contact: sdcf@cs.uni-kassel.de
+ *
+ * This file is part of the SDCFramework (Sensor Data Collection Framework) project.
+ *
+ * The SDCFramework is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The SDCFramework is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the SDCFramework.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.unikassel.android.sdcframework.persistence;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteStatement;
+import de.unikassel.android.sdcframework.data.Sample;
+import de.unikassel.android.sdcframework.data.independent.AccelerometerSampleData;
+import de.unikassel.android.sdcframework.data.independent.GPSSampleData;
+import de.unikassel.android.sdcframework.data.independent.GeoLocation;
+import de.unikassel.android.sdcframework.data.independent.GyroscopeSampleData;
+import de.unikassel.android.sdcframework.data.independent.LightSampleData;
+import de.unikassel.android.sdcframework.data.independent.LocationSampleData;
+import de.unikassel.android.sdcframework.data.independent.MagneticFieldSampleData;
+import de.unikassel.android.sdcframework.data.independent.NetworkLocationSampleData;
+import de.unikassel.android.sdcframework.data.independent.OrientationSampleData;
+import de.unikassel.android.sdcframework.data.independent.PressureSampleData;
+import de.unikassel.android.sdcframework.data.independent.ProximitySampleData;
+import de.unikassel.android.sdcframework.data.independent.SampleData;
+import de.unikassel.android.sdcframework.devices.facade.SensorDeviceIdentifier;
+
+/**
+ * Description of a typed sample table. <br/>
+ * <br/>
+ * Typed tables are an alternative storage layout for the samples of high
+ * frequency sensors. Instead of a binary data column, the sample data values
+ * are stored in dedicated REAL columns of a table per sensor device. The device
+ * identifier is implied by the table, and the time stamp is stored as delta to
+ * the time stamp of the previous row, which is much smaller than an absolute
+ * time stamp in the SQLite integer encoding. <br/>
+ * <br/>
+ * The absolute time stamps are reconstructed from the base time stamp of the
+ * table, which is maintained by the {@linkplain DatabaseAdapterImpl} together
+ * with the rows. Rows are therefore always read and removed in row id order,
+ * starting with the oldest one.
+ * 
+ * @see DatabaseAdapterImpl
+ * @author Katy Hilgenberg
+ * 
+ */
+public abstract class TypedSampleTable
+{
+  /**
+   * The row identifier column name
+   */
+  public static final String KEY_ROWID = "ID";
+  
+  /**
+   * The time stamp delta column name
+   */
+  public static final String KEY_DELTA_TIMESTAMP = "DTS";
+  
+  /**
+   * The priority column name
+   */
+  public static final String KEY_PRIO = "PRIO";
+  
+  /**
+   * The time stamp sync state column
+   */
+  public static final String KEY_SYNCED = "SYNCED";
+  
+  /**
+   * The location latitude column name
+   */
+  public static final String KEY_LAT = "LAT";
+  
+  /**
+   * The location longitude column name
+   */
+  public static final String KEY_LON = "LON";
+  
+  /**
+   * The count of the common columns ( data columns are following )
+   */
+  private static final int COMMON_COLUMN_COUNT = 6;
+  
+  /**
+   * The table for accelerometer samples
+   */
+  public static final TypedSampleTable ACCELEROMETER =
+      new TypedSampleTable( "accelerometer",
+          SensorDeviceIdentifier.Accelerometer,
+          AccelerometerSampleData.class, "X", "Y", "Z" )
+      {
+        @Override
+        protected void bindData( SQLiteStatement statement, int index,
+            SampleData sampleData )
+        {
+          AccelerometerSampleData data = (AccelerometerSampleData) sampleData;
+          statement.bindDouble( index, data.getAccelerationX() );
+          statement.bindDouble( index + 1, data.getAccelerationY() );
+          statement.bindDouble( index + 2, data.getAccelerationZ() );
+        }
+        
+        @Override
+        protected SampleData readData( Cursor cursor, int index )
+        {
+          AccelerometerSampleData data = new AccelerometerSampleData();
+          data.setAccelerationX( cursor.getFloat( index ) );
+          data.setAccelerationY( cursor.getFloat( index + 1 ) );
+          data.setAccelerationZ( cursor.getFloat( index + 2 ) );
+          return data;
+        }
+      };
+  
+  /**
+   * The table for gyroscope samples
+   */
+  public static final TypedSampleTable GYROSCOPE =
+      new TypedSampleTable( "gyroscope", SensorDeviceIdentifier.Gyroscope,
+          GyroscopeSampleData.class, "X", "Y", "Z" )
+      {
+        @Override
+        protected void bindData( SQLiteStatement statement, int index,
+            SampleData sampleData )
+        {
+          GyroscopeSampleData data = (GyroscopeSampleData) sampleData;
+          statement.bindDouble( index, data.getAngularSpeedX() );
+          statement.bindDouble( index + 1, data.getAngularSpeedY() );
+          statement.bindDouble( index + 2, data.getAngularSpeedZ() );
+        }
+        
+        @Override
+        protected SampleData readData( Cursor cursor, int index )
+        {
+          GyroscopeSampleData data = new GyroscopeSampleData();
+          data.setAngularSpeedX( cursor.getFloat( index ) );
+          data.setAngularSpeedY( cursor.getFloat( index + 1 ) );
+          data.setAngularSpeedZ( cursor.getFloat( index + 2 ) );
+          return data;
+        }
+      };
+  
+  /**
+   * The table for magnetic field samples
+   */
+  public static final TypedSampleTable MAGNETIC_FIELD =
+      new TypedSampleTable( "magneticfield",
+          SensorDeviceIdentifier.MagneticField,
+          MagneticFieldSampleData.class, "X", "Y", "Z" )
+      {
+        @Override
+        protected void bindData( SQLiteStatement statement, int index,
+            SampleData sampleData )
+        {
+          MagneticFieldSampleData data = (MagneticFieldSampleData) sampleData;
+          statement.bindDouble( index, data.getMagneticFieldX() );
+          statement.bindDouble( index + 1, data.getMagneticFieldY() );
+          statement.bindDouble( index + 2, data.getMagneticFieldZ() );
+        }
+        
+        @Override
+        protected SampleData readData( Cursor cursor, int index )
+        {
+          MagneticFieldSampleData data = new MagneticFieldSampleData();
+          data.setMagneticFieldX( cursor.getFloat( index ) );
+          data.setMagneticFieldY( cursor.getFloat( index + 1 ) );
+          data.setMagneticFieldZ( cursor.getFloat( index + 2 ) );
+          return data;
+        }
+      };
+  
+  /**
+   * The table for orientation samples
+   */
+  public static final TypedSampleTable ORIENTATION =
+      new TypedSampleTable( "orientation", SensorDeviceIdentifier.Orientation,
+          OrientationSampleData.class, "HEADING", "PITCH", "ROLL" )
+      {
+        @Override
+        protected void bindData( SQLiteStatement statement, int index,
+            SampleData sampleData )
+        {
+          OrientationSampleData data = (OrientationSampleData) sampleData;
+          statement.bindDouble( index, data.getHeading() );
+          statement.bindDouble( index + 1, data.getPitch() );
+          statement.bindDouble( index + 2, data.getRoll() );
+        }
+        
+        @Override
+        protected SampleData readData( Cursor cursor, int index )
+        {
+          OrientationSampleData data = new OrientationSampleData();
+          data.setHeading( cursor.getFloat( index ) );
+          data.setPitch( cursor.getFloat( index + 1 ) );
+          data.setRoll( cursor.getFloat( index + 2 ) );
+          return data;
+        }
+      };
+  
+  /**
+   * The table for light samples
+   */
+  public static final TypedSampleTable LIGHT =
+      new TypedSampleTable( "light", SensorDeviceIdentifier.Light,
+          LightSampleData.class, "VALUE" )
+      {
+        @Override
+        protected void bindData( SQLiteStatement statement, int index,
+            SampleData sampleData )
+        {
+          statement.bindDouble( index,
+              ( (LightSampleData) sampleData ).getLightLevel() );
+        }
+        
+        @Override
+        protected SampleData readData( Cursor cursor, int index )
+        {
+          LightSampleData data = new LightSampleData();
+          data.setLightLevel( cursor.getFloat( index ) );
+          return data;
+        }
+      };
+  
+  /**
+   * The table for pressure samples
+   */
+  public static final TypedSampleTable PRESSURE =
+      new TypedSampleTable( "pressure", SensorDeviceIdentifier.Pressure,
+          PressureSampleData.class, "VALUE" )
+      {
+        @Override
+        protected void bindData( SQLiteStatement statement, int index,
+            SampleData sampleData )
+        {
+          statement.bindDouble( index,
+              ( (PressureSampleData) sampleData ).getPressure() );
+        }
+        
+        @Override
+        protected SampleData readData( Cursor cursor, int index )
+        {
+          PressureSampleData data = new PressureSampleData();
+          data.setPressure( cursor.getFloat( index ) );
+          return data;
+        }
+      };
+  
+  /**
+   * The table for proximity samples
+   */
+  public static final TypedSampleTable PROXIMITY =
+      new TypedSampleTable( "proximity", SensorDeviceIdentifier.Proximity,
+          ProximitySampleData.class, "VALUE" )
+      {
+        @Override
+        protected void bindData( SQLiteStatement statement, int index,
+            SampleData sampleData )
+        {
+          statement.bindDouble( index,
+              ( (ProximitySampleData) sampleData ).getProximityDistance() );
+        }
+        
+        @Override
+        protected SampleData readData( Cursor cursor, int index )
+        {
+          ProximitySampleData data = new ProximitySampleData();
+          data.setProximityDistance( cursor.getFloat( index ) );
+          return data;
+        }
+      };
+  
+  /**
+   * The table for GPS samples
+   */
+  public static final TypedSampleTable GPS =
+      new TypedSampleTable( "gps", SensorDeviceIdentifier.GPS,
+          GPSSampleData.class, LocationColumns.NAMES )
+      {
+        @Override
+        protected void bindData( SQLiteStatement statement, int index,
+            SampleData sampleData )
+        {
+          LocationColumns.bind( statement, index,
+              (LocationSampleData) sampleData );
+        }
+        
+        @Override
+        protected SampleData readData( Cursor cursor, int index )
+        {
+          return LocationColumns.read( cursor, index, new GPSSampleData() );
+        }
+      };
+  
+  /**
+   * The table for network location samples
+   */
+  public static final TypedSampleTable NETWORK_LOCATION =
+      new TypedSampleTable( "networklocation",
+          SensorDeviceIdentifier.NetworkLocation,
+          NetworkLocationSampleData.class, LocationColumns.NAMES )
+      {
+        @Override
+        protected void bindData( SQLiteStatement statement, int index,
+            SampleData sampleData )
+        {
+          LocationColumns.bind( statement, index,
+              (LocationSampleData) sampleData );
+        }
+        
+        @Override
+        protected SampleData readData( Cursor cursor, int index )
+        {
+          return LocationColumns.read( cursor, index,
+              new NetworkLocationSampleData() );
+        }
+      };
+  
+  /**
+   * All known typed tables
+   */
+  public static final List< TypedSampleTable > TABLES =
+      Collections.unmodifiableList( Arrays.asList( ACCELEROMETER, GYROSCOPE,
+          MAGNETIC_FIELD, ORIENTATION, LIGHT, PRESSURE, PROXIMITY, GPS,
+          NETWORK_LOCATION ) );
+  
+  /**
+   * The table name
+   */
+  private final String name;
+  
+  /**
+   * The sensor device identifier of the stored samples
+   */
+  private final SensorDeviceIdentifier deviceIdentifier;
+  
+  /**
+   * The sample data type
+   */
+  private final Class< ? extends SampleData > dataClass;
+  
+  /**
+   * All column names in query order
+   */
+  private final String[] columns;
+  
+  /**
+   * Constructor
+   * 
+   * @param name
+   *          the table name
+   * @param deviceIdentifier
+   *          the sensor device identifier of the stored samples
+   * @param dataClass
+   *          the sample data type
+   * @param dataColumns
+   *          the names of the data value columns
+   */
+  protected TypedSampleTable( String name,
+      SensorDeviceIdentifier deviceIdentifier,
+      Class< ? extends SampleData > dataClass, String... dataColumns )
+  {
+    super();
+    this.name = name;
+    this.deviceIdentifier = deviceIdentifier;
+    this.dataClass = dataClass;
+    this.columns = new String[ COMMON_COLUMN_COUNT + dataColumns.length ];
+    columns[ 0 ] = KEY_ROWID;
+    columns[ 1 ] = KEY_DELTA_TIMESTAMP;
+    columns[ 2 ] = KEY_PRIO;
+    columns[ 3 ] = KEY_SYNCED;
+    columns[ 4 ] = KEY_LAT;
+    columns[ 5 ] = KEY_LON;
+    System.arraycopy( dataColumns, 0, columns, COMMON_COLUMN_COUNT,
+        dataColumns.length );
+  }
+  
+  /**
+   * Getter for the table name
+   * 
+   * @return the table name
+   */
+  public final String getName()
+  {
+    return name;
+  }
+  
+  /**
+   * Getter for the sensor device identifier
+   * 
+   * @return the sensor device identifier
+   */
+  public final SensorDeviceIdentifier getDeviceIdentifier()
+  {
+    return deviceIdentifier;
+  }
+  
+  /**
+   * Getter for the sample data type
+   * 
+   * @return the sample data type
+   */
+  public final Class< ? extends SampleData > getDataClass()
+  {
+    return dataClass;
+  }
+  
+  /**
+   * Getter for all column names in query order
+   * 
+   * @return the column names
+   */
+  public final String[] getColumns()
+  {
+    return columns.clone();
+  }
+  
+  /**
+   * Getter for the table creation statement
+   * 
+   * @return the table creation statement
+   */
+  public final String getCreateStatement()
+  {
+    StringBuffer sql = new StringBuffer( "create table if not exists " );
+    sql.append( name ).append( " ( " );
+    sql.append( KEY_ROWID ).append( " integer primary key, " );
+    sql.append( KEY_DELTA_TIMESTAMP ).append( " integer not null, " );
+    sql.append( KEY_PRIO ).append( " integer not null, " );
+    sql.append( KEY_SYNCED ).append( " integer not null, " );
+    sql.append( KEY_LAT ).append( " real, " ); // location can be null!
+    sql.append( KEY_LON ).append( " real" );
+    for ( int i = COMMON_COLUMN_COUNT; i < columns.length; ++i )
+    {
+      sql.append( ", " ).append( columns[ i ] ).append( " real" );
+    }
+    sql.append( " );" );
+    return sql.toString();
+  }
+  
+  /**
+   * Getter for the insert statement
+   * 
+   * @return the insert statement with placeholders for all columns except the
+   *         row id
+   */
+  public final String getInsertStatement()
+  {
+    StringBuffer sql = new StringBuffer( "insert into " );
+    StringBuffer values = new StringBuffer( " ) values ( " );
+    sql.append( name ).append( " ( " );
+    for ( int i = 1; i < columns.length; ++i )
+    {
+      if ( i > 1 )
+      {
+        sql.append( ", " );
+        values.append( ", " );
+      }
+      sql.append( columns[ i ] );
+      values.append( '?' );
+    }
+    sql.append( values ).append( " );" );
+    return sql.toString();
+  }
+  
+  /**
+   * Test method if a sample can be stored in this table
+   * 
+   * @param sample
+   *          the sample to test
+   * @return true if the sample can be stored in this table, false otherwise
+   */
+  public final boolean accepts( Sample sample )
+  {
+    SampleData data = sample.getData();
+    return data != null && data.getClass() == dataClass
+        && deviceIdentifier.toString().equals( sample.getDeviceIdentifier() );
+  }
+  
+  /**
+   * Method to bind the values of a sample to the insert statement
+   * 
+   * @param statement
+   *          the compiled {@link #getInsertStatement() insert statement}
+   * @param sample
+   *          the sample
+   * @param deltaTimeStamp
+   *          the time stamp delta to the previous row
+   */
+  public final void bindSample( SQLiteStatement statement, Sample sample,
+      long deltaTimeStamp )
+  {
+    statement.bindLong( 1, deltaTimeStamp );
+    statement.bindLong( 2, sample.getPriority() );
+    statement.bindLong( 3, sample.isTimeSynced() ? 1 : 0 );
+    GeoLocation location = sample.getLocation();
+    if ( location != null )
+    {
+      statement.bindDouble( 4, location.getLat() );
+      statement.bindDouble( 5, location.getLon() );
+    }
+    else
+    {
+      statement.bindNull( 4 );
+      statement.bindNull( 5 );
+    }
+    bindData( statement, COMMON_COLUMN_COUNT, sample.getData() );
+  }
+  
+  /**
+   * Does create a sample from cursor position ( the cursor has to be created
+   * with the {@link #getColumns() columns} of this table )
+   * 
+   * @param cursor
+   *          the database cursor
+   * @param timeStamp
+   *          the reconstructed absolute time stamp
+   * @return the sample created from cursor position
+   */
+  public final Sample readSample( Cursor cursor, long timeStamp )
+  {
+    Sample sample =
+        new Sample( deviceIdentifier, timeStamp, cursor.getInt( 2 ),
+            cursor.getInt( 3 ) == 1 );
+    if ( !cursor.isNull( 4 ) && !cursor.isNull( 5 ) )
+    {
+      GeoLocation location = new GeoLocation();
+      location.setLat( cursor.getDouble( 4 ) );
+      location.setLon( cursor.getDouble( 5 ) );
+      sample.setLocation( location );
+    }
+    sample.setData( readData( cursor, COMMON_COLUMN_COUNT ) );
+    return sample;
+  }
+  
+  /**
+   * Getter for the typed table of a sample
+   * 
+   * @param sample
+   *          the sample
+   * @return the typed table for the sample or null if not existing
+   */
+  public static TypedSampleTable getTable( Sample sample )
+  {
+    for ( TypedSampleTable table : TABLES )
+    {
+      if ( table.accepts( sample ) )
+        return table;
+    }
+    return null;
+  }
+  
+  /**
+   * Getter for a typed table by name
+   * 
+   * @param name
+   *          the table name
+   * @return the typed table with the given name or null if not existing
+   */
+  public static TypedSampleTable getTable( String name )
+  {
+    for ( TypedSampleTable table : TABLES )
+    {
+      if ( table.getName().equals( name ) )
+        return table;
+    }
+    return null;
+  }
+  
+  /**
+   * Method to bind the sample data values
+   * 
+   * @param statement
+   *          the compiled insert statement
+   * @param index
+   *          the bind index of the first data column
+   * @param sampleData
+   *          the sample data
+   */
+  protected abstract void bindData( SQLiteStatement statement, int index,
+      SampleData sampleData );
+  
+  /**
+   * Method to create the sample data from cursor position
+   * 
+   * @param cursor
+   *          the database cursor
+   * @param index
+   *          the column index of the first data column
+   * @return the sample data
+   */
+  protected abstract SampleData readData( Cursor cursor, int index );
+  
+  /**
+   * Helper for the columns of location sample data tables
+   * 
+   * @author Katy Hilgenberg
+   * 
+   */
+  private static final class LocationColumns
+  {
+    /**
+     * The location data column names
+     */
+    static final String[] NAMES = new String[] {
+        "LONGITUDE", "LATITUDE", "ALTITUDE", "SPEED", "ACCURACY" };
+    
+    /**
+     * Method to bind the location data values
+     * 
+     * @param statement
+     *          the compiled insert statement
+     * @param index
+     *          the bind index of the first data column
+     * @param data
+     *          the location sample data
+     */
+    static void bind( SQLiteStatement statement, int index,
+        LocationSampleData data )
+    {
+      bindValue( statement, index, data.getLongitude() );
+      bindValue( statement, index + 1, data.getLatitude() );
+      bindValue( statement, index + 2, data.getAltitude() );
+      bindValue( statement, index + 3, data.getSpeed() );
+      bindValue( statement, index + 4, data.getAccuracy() );
+    }
+    
+    /**
+     * Method to read the location data values from cursor position
+     * 
+     * @param cursor
+     *          the database cursor
+     * @param index
+     *          the column index of the first data column
+     * @param data
+     *          the location sample data to initialize
+     * @return the initialized location sample data
+     */
+    static LocationSampleData read( Cursor cursor, int index,
+        LocationSampleData data )
+    {
+      data.setLongitude( cursor.isNull( index ) ? null
+          : cursor.getDouble( index ) );
+      data.setLatitude( cursor.isNull( index + 1 ) ? null
+          : cursor.getDouble( index + 1 ) );
+      data.setAltitude( cursor.isNull( index + 2 ) ? null
+          : cursor.getDouble( index + 2 ) );
+      data.setSpeed( cursor.isNull( index + 3 ) ? null
+          : cursor.getFloat( index + 3 ) );
+      data.setAccuracy( cursor.isNull( index + 4 ) ? null
+          : cursor.getFloat( index + 4 ) );
+      return data;
+    }
+    
+    /**
+     * Method to bind an optional value
+     * 
+     * @param statement
+     *          the compiled insert statement
+     * @param index
+     *          the bind index
+     * @param value
+     *          the value or null
+     */
+    private static void bindValue( SQLiteStatement statement, int index,
+        Number value )
+    {
+      if ( value != null )
+        statement.bindDouble( index, value.doubleValue() );
+      else
+        statement.bindNull( index );
+    }
+  }
+}
@@ -22,6 +22,8 @@ package de.unikassel.android.sdcframework.persistence.facade;
 
 import java.util.Collection;
 
+import de.unikassel.android.sdcframework.data.Sample;
+
 import android.database.sqlite.SQLiteException;
 
 /**
@@ -63,6 +65,21 @@ public interface DatabaseAdapter
   public abstract void insertSamples( Collection< DatabaseSample > samples )
       throws Exception;
   
+  /**
+   * Method to insert a sample collection and a collection of samples for the
+   * typed sensor tables into the database within one transaction. <br/>
+   * Typed samples without a related typed table are stored as database
+   * samples.
+   * 
+   * @param samples
+   *          the sample collection to insert
+   * @param typedSamples
+   *          the samples to insert into the typed sensor tables
+   * @throws Exception
+   */
+  public abstract void insertSamples( Collection< DatabaseSample > samples,
+      Collection< Sample > typedSamples ) throws Exception;
+  
   /**
    * Method to get the current record count
    * 
@@ -134,6 +151,68 @@ public interface DatabaseAdapter
   public abstract boolean removeSamplesOldestTimeStampFirst( long count,
       Collection< DatabaseSample > sampleCollection );
   
+  /**
+   * Method to remove the next "count" samples from the typed sensor tables and
+   * store them in a given sample collection. <br/>
+   * The samples are selected table wise, starting with the table containing
+   * the oldest sample.
+   * 
+   * @param count
+   *          the sample count to remove
+   * @param sampleCollection
+   *          the sample collection to store removed samples in
+   * @return true if successful, false otherwise
+   */
+  public abstract boolean removeTypedSamplesOldestFirst( long count,
+      Collection< Sample > sampleCollection );
+  
+  /**
+   * Method to export the next "count" samples selected for transmission.<br/>
+   * The samples are selected like for
+   * {@linkplain #removeSamplesHighestPrioFirst(long, Collection)}, followed by
+   * samples of the typed sensor tables. They are read on demand while the
+   * exporter does iterate them, and removed from the database only if the
+   * export was successful.
+   * 
+   * @param count
+   *          the sample count to export
+   * @param exporter
+   *          the exporter for the samples
+   * @return the count of exported samples
+   * @throws Exception
+   *           if the export fails
+   */
+  public abstract long exportSamples( long count, SampleExporter exporter )
+      throws Exception;
+  
+  /**
+   * Method to export the next "count" samples in insertion order without
+   * removing them.<br/>
+   * The samples are read behind the last acknowledged row id, followed by
+   * samples of the typed sensor tables. If the export was successful, the
+   * exported row id ranges are stored as pending checkpoint, replacing any
+   * former pending export. The samples are removed by a call of
+   * {@linkplain #acknowledgeExportedSamples()}.
+   * 
+   * @param count
+   *          the sample count to export
+   * @param exporter
+   *          the exporter for the samples
+   * @return the count of exported samples
+   * @throws Exception
+   *           if the export fails
+   */
+  public abstract long exportSamplesInRowIdOrder( long count,
+      SampleExporter exporter ) throws Exception;
+  
+  /**
+   * Method to acknowledge the pending export. All samples up to the pending
+   * checkpoint are deleted with a single row id range per table.
+   * 
+   * @return the count of deleted samples
+   */
+  public abstract long acknowledgeExportedSamples();
+  
   /**
    * Setter for the maximum database size
    * 
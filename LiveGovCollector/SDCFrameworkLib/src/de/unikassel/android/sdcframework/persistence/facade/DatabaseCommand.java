@@ -50,4 +50,12 @@ public interface DatabaseCommand< T >
    * @return the result
    */
   public abstract T getResult();
+  
+  /**
+   * Getter for the change of the stored record count caused by the last
+   * execution of the command
+   * 
+   * @return the count of records added ( positive ) or removed ( negative )
+   */
+  public abstract long getRecordCountChange();
 }
\ No newline at end of file
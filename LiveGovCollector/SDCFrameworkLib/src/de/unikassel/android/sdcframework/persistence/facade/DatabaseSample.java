@@ -21,7 +21,10 @@
 package de.unikassel.android.sdcframework.persistence.facade;
 
 import de.unikassel.android.sdcframework.data.Sample;
+import de.unikassel.android.sdcframework.data.independent.BinarySerializer;
 import de.unikassel.android.sdcframework.data.independent.GeoLocation;
+import de.unikassel.android.sdcframework.data.independent.ObjectPool;
+import de.unikassel.android.sdcframework.util.Logger;
 
 /**
  * A sample adaption for database access.
@@ -31,6 +34,17 @@ import de.unikassel.android.sdcframework.data.independent.GeoLocation;
  */
 public class DatabaseSample
 {
+  /**
+   * The maximum count of pooled database samples
+   */
+  public static final int POOL_SIZE = 256;
+  
+  /**
+   * The database sample pool
+   */
+  private static final ObjectPool< DatabaseSample > pool =
+      new ObjectPool< DatabaseSample >( POOL_SIZE );
+  
   /**
    * the sample device identifier
    */
@@ -52,19 +66,15 @@ public class DatabaseSample
   public boolean synced;
   
   /**
-   * The device specific sensor data
+   * The device specific sensor data in binary representation ( including the
+   * data type )
    */
-  public String data;
+  public byte[] data;
   
   /**
-   * The serialized location information
+   * The serialized location information in binary representation
    */
-  public String location;
-  
-  /**
-   * The class name of the data type
-   */
-  public String dataTypeClassName;
+  public byte[] location;
   
   /**
    * Constructor
@@ -81,18 +91,68 @@ public class DatabaseSample
    *           in case of serialization error
    */
   public DatabaseSample( Sample sample ) throws Exception
+  {
+    setFrom( sample );
+  }
+  
+  /**
+   * Method to take a database sample from the pool and to fill it from a
+   * sample
+   * 
+   * @param sample
+   *          the sample to construct from
+   * @return a recycled or new database sample
+   * @throws Exception
+   *           in case of serialization error
+   */
+  public static DatabaseSample obtain( Sample sample ) throws Exception
+  {
+    DatabaseSample dbSample = pool.obtain();
+    if ( dbSample == null )
+    {
+      return new DatabaseSample( sample );
+    }
+    try
+    {
+      dbSample.setFrom( sample );
+      return dbSample;
+    }
+    catch ( Exception e )
+    {
+      dbSample.recycle();
+      throw e;
+    }
+  }
+  
+  /**
+   * Method to give this database sample back to the pool. It must not be used
+   * by the caller afterwards.
+   */
+  public final void recycle()
+  {
+    deviceIdentifier = null;
+    data = null;
+    location = null;
+    pool.recycle( this );
+  }
+  
+  /**
+   * Method to set all fields from a sample
+   * 
+   * @param sample
+   *          the sample to set from
+   * @throws Exception
+   *           in case of serialization error
+   */
+  private void setFrom( Sample sample ) throws Exception
   {
     deviceIdentifier = sample.getDeviceIdentifier();
     timeStamp = sample.getTimeStamp();
     priority = sample.getPriority();
     synced = sample.isTimeSynced();
-    dataTypeClassName = sample.getData().getClass().getName();
     GeoLocation loc = sample.getLocation();
-    if ( loc != null )
-    {
-      location = loc.toXML();
-    }
-    data = sample.getData().toXML();
+    location = loc != null ? BinarySerializer.locationToBytes( loc ) : null;
+    data = BinarySerializer.toBytes( sample.getData() );
   }
   
   /**
@@ -103,10 +163,22 @@ public class DatabaseSample
    */
   public Sample toSample()
   {
+    if ( data == null )
+      return null;
+    
     Sample sample = new Sample( deviceIdentifier, timeStamp, priority, synced );
-    sample.setLocationFromXML( location );
-    if ( sample.setDataFromXML( dataTypeClassName, data ) )
+    try
+    {
+      if ( location != null )
+        sample.setLocation( BinarySerializer.locationFromBytes( location ) );
+      sample.setData( BinarySerializer.fromBytes( data ) );
       return sample;
+    }
+    catch ( Exception e )
+    {
+      Logger.getInstance().error( this,
+          "Failed to decode sample data: " + e.getMessage() );
+    }
     return null;
   }
   
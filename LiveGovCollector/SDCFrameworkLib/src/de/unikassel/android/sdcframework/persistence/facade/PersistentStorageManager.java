@@ -51,6 +51,15 @@ public interface PersistentStorageManager
   public abstract void updateDatabaseFullStrategy( Context context,
       ServiceConfiguration config, Class< ? extends Activity > controlActivityClass );
   
+  /**
+   * Setter for the typed sensor tables flag
+   * 
+   * @param isUsingTypedTables
+   *          true if samples of known sensor types shall be stored in the typed
+   *          sensor tables, false otherwise
+   */
+  public abstract void setUsingTypedTables( boolean isUsingTypedTables );
+  
   /**
    * Getter for the savedRecordCount
    * 
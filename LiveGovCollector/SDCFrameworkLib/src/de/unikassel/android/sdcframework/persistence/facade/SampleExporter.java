@@ -0,0 +1,53 @@
+/*
+ * Copyright (C) 2012, Katy Hilgenberg.
+ * Special acknowledgments to: Knowledge & Data Engineering Group, University of Kassel (http://www.kde.cs.uni-kassel.de).
+ * Contact: sdcf@cs.uni-kassel.de
+ *
+ * This file is part of the SDCFramework (Sensor Data Collection Framework) project.
+ *
+ * The SDCFramework is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The SDCFramework is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the SDCFramework.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.unikassel.android.sdcframework.persistence.facade;
+
+import java.util.Iterator;
+
+import de.unikassel.android.sdcframework.data.Sample;
+
+/**
+ * Interface for a consumer of samples exported from the database. <br/>
+ * <br/>
+ * The samples are provided by an iterator which does read the database rows
+ * on demand, so an exporter can process any amount of samples without holding
+ * them in memory.
+ * 
+ * @see DatabaseAdapter#exportSamples(long, SampleExporter)
+ * @author Katy Hilgenberg
+ * 
+ */
+public interface SampleExporter
+{
+  /**
+   * Method to export the samples provided by the iterator. Only samples taken
+   * from the iterator are removed from the database, and only if the export
+   * was successful.
+   * 
+   * @param samples
+   *          the iterator for the samples to export
+   * @return true if successful, false otherwise
+   * @throws Exception
+   *           if the export fails
+   */
+  public abstract boolean exportSamples( Iterator< Sample > samples )
+      throws Exception;
+}
@@ -34,6 +34,7 @@ import android.content.Context;
 import android.content.res.AssetManager;
 
 import de.unikassel.android.sdcframework.data.SDCConfiguration;
+import de.unikassel.android.sdcframework.data.SampleFilterConfigurationEntry;
 import de.unikassel.android.sdcframework.data.SensorConfigurationEntry;
 import de.unikassel.android.sdcframework.data.independent.GlobalSerializer;
 import de.unikassel.android.sdcframework.devices.facade.SensorDeviceIdentifier;
@@ -230,9 +231,31 @@ public final class SDCConfigurationManager
         {}
       }
       
+      // ignore batch sizes below 0 ( raw event capture disabled )
+      int batchSize = Math.max( 0, entry.getBatchSize() );
+      
+      // the sample filter is disabled if not configured or corrupted
+      SampleFilterConfigurationImpl filterConfig =
+          new SampleFilterConfigurationImpl();
+      SampleFilterConfigurationEntry filterEntry = entry.getFilter();
+      if ( filterEntry != null )
+      {
+        try
+        {
+          filterConfig.update( filterEntry );
+        }
+        catch ( Exception e )
+        {
+          Logger.getInstance().warning( this,
+              "Ignoring invalid filter entry for sensor "
+                  + entry.getSensorID() );
+          filterConfig = new SampleFilterConfigurationImpl();
+        }
+      }
+      
       // add sensor configuration defaults to the device map
       mapDeviceDefaults.put( id, new SensorDeviceConfigurationImpl(
-            frequency, priorityLevel, enabled ) );
+            frequency, priorityLevel, enabled, batchSize, filterConfig ) );
     }
     Logger.getInstance().debug(
         this, "Default configuration successfully loaded" );
@@ -0,0 +1,288 @@
+/*
+ * Copyright (C) 2012, Katy Hilgenberg.
+ * Special acknowledgments to: Knowledge & Data Engineering Group, University of Kassel (http://www.kde.cs.uni-kassel.de).
+ * Contact: sdcf@cs.uni-kassel.de
+ *
+ * This file is part of the SDCFramework (Sensor Data Collection Framework) project.
+ *
+ * The SDCFramework is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The SDCFramework is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the SDCFramework.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.unikassel.android.sdcframework.preferences;
+
+import de.unikassel.android.sdcframework.data.SampleFilterConfigurationEntry;
+import de.unikassel.android.sdcframework.devices.facade.SampleAggregationTypes;
+import de.unikassel.android.sdcframework.preferences.facade.SampleFilterConfiguration;
+
+/**
+ * Implementation of the configuration for the sample filter stage. The default
+ * configuration does disable all filters.
+ * 
+ * @author Katy Hilgenberg
+ * 
+ */
+public final class SampleFilterConfigurationImpl
+    implements SampleFilterConfiguration
+{
+  /**
+   * The deadband threshold for numeric sample values
+   */
+  private float deadband;
+  
+  /**
+   * The duplicate suppression flag
+   */
+  private boolean suppressDuplicates;
+  
+  /**
+   * The maximum count of suppressed duplicates in a run
+   */
+  private int maxRunLength;
+  
+  /**
+   * The aggregation window in milliseconds
+   */
+  private int window;
+  
+  /**
+   * The aggregation function
+   */
+  private SampleAggregationTypes aggregation;
+  
+  /**
+   * Constructor
+   */
+  public SampleFilterConfigurationImpl()
+  {
+    super();
+    aggregation = SampleAggregationTypes.Mean;
+  }
+  
+  /**
+   * Copy constructor
+   * 
+   * @param configuration
+   *          the filter configuration to copy from
+   */
+  public SampleFilterConfigurationImpl(
+      SampleFilterConfiguration configuration )
+  {
+    this();
+    update( configuration );
+  }
+  
+  /*
+   * (non-Javadoc)
+   * 
+   * @see
+   * de.unikassel.android.sdcframework.preferences.facade.UpdatableConfiguration
+   * #update(java.lang.Object)
+   */
+  @Override
+  public synchronized void update( SampleFilterConfiguration configuration )
+  {
+    setDeadband( configuration.getDeadband() );
+    setSuppressDuplicates( configuration.isSuppressingDuplicates() );
+    setMaxRunLength( configuration.getMaxRunLength() );
+    setWindow( configuration.getWindow() );
+    setAggregation( configuration.getAggregation() );
+  }
+  
+  /*
+   * (non-Javadoc)
+   * 
+   * @see
+   * de.unikassel.android.sdcframework.preferences.facade.SampleFilterConfiguration
+   * #update(de.unikassel.android.sdcframework.data.SampleFilterConfigurationEntry
+   * )
+   */
+  @Override
+  public synchronized void update( SampleFilterConfigurationEntry config )
+  {
+    setDeadband( config.getDeadband() );
+    setSuppressDuplicates( config.getSuppressDuplicates() );
+    setMaxRunLength( config.getMaxRunLength() );
+    setWindow( config.getWindow() );
+    String tmp = config.getAggregation();
+    if ( tmp != null )
+    {
+      setAggregation( SampleAggregationTypes.valueOf( tmp ) );
+    }
+  }
+  
+  /*
+   * (non-Javadoc)
+   * 
+   * @see java.lang.Object#equals(java.lang.Object)
+   */
+  @Override
+  public boolean equals( Object o )
+  {
+    if ( o instanceof SampleFilterConfiguration )
+    {
+      SampleFilterConfiguration conf = (SampleFilterConfiguration) o;
+      return conf.getDeadband() == getDeadband() &&
+          conf.isSuppressingDuplicates() == isSuppressingDuplicates() &&
+          conf.getMaxRunLength() == getMaxRunLength() &&
+          conf.getWindow() == getWindow() &&
+          conf.getAggregation() == getAggregation();
+    }
+    return false;
+  }
+  
+  /*
+   * (non-Javadoc)
+   * 
+   * @see
+   * de.unikassel.android.sdcframework.preferences.facade.SampleFilterConfiguration
+   * #isEnabled()
+   */
+  @Override
+  public synchronized boolean isEnabled()
+  {
+    return deadband > 0 || suppressDuplicates || window > 0;
+  }
+  
+  /*
+   * (non-Javadoc)
+   * 
+   * @see
+   * de.unikassel.android.sdcframework.preferences.facade.SampleFilterConfiguration
+   * #getDeadband()
+   */
+  @Override
+  public synchronized float getDeadband()
+  {
+    return deadband;
+  }
+  
+  /*
+   * (non-Javadoc)
+   * 
+   * @see
+   * de.unikassel.android.sdcframework.preferences.facade.SampleFilterConfiguration
+   * #setDeadband(float)
+   */
+  @Override
+  public synchronized void setDeadband( float deadband )
+  {
+    this.deadband = Math.max( 0.f, deadband );
+  }
+  
+  /*
+   * (non-Javadoc)
+   * 
+   * @see
+   * de.unikassel.android.sdcframework.preferences.facade.SampleFilterConfiguration
+   * #isSuppressingDuplicates()
+   */
+  @Override
+  public synchronized boolean isSuppressingDuplicates()
+  {
+    return suppressDuplicates;
+  }
+  
+  /*
+   * (non-Javadoc)
+   * 
+   * @see
+   * de.unikassel.android.sdcframework.preferences.facade.SampleFilterConfiguration
+   * #setSuppressDuplicates(boolean)
+   */
+  @Override
+  public synchronized void setSuppressDuplicates( boolean suppressDuplicates )
+  {
+    this.suppressDuplicates = suppressDuplicates;
+  }
+  
+  /*
+   * (non-Javadoc)
+   * 
+   * @see
+   * de.unikassel.android.sdcframework.preferences.facade.SampleFilterConfiguration
+   * #getMaxRunLength()
+   */
+  @Override
+  public synchronized int getMaxRunLength()
+  {
+    return maxRunLength;
+  }
+  
+  /*
+   * (non-Javadoc)
+   * 
+   * @see
+   * de.unikassel.android.sdcframework.preferences.facade.SampleFilterConfiguration
+   * #setMaxRunLength(int)
+   */
+  @Override
+  public synchronized void setMaxRunLength( int maxRunLength )
+  {
+    this.maxRunLength = Math.max( 0, maxRunLength );
+  }
+  
+  /*
+   * (non-Javadoc)
+   * 
+   * @see
+   * de.unikassel.android.sdcframework.preferences.facade.SampleFilterConfiguration
+   * #getWindow()
+   */
+  @Override
+  public synchronized int getWindow()
+  {
+    return window;
+  }
+  
+  /*
+   * (non-Javadoc)
+   * 
+   * @see
+   * de.unikassel.android.sdcframework.preferences.facade.SampleFilterConfiguration
+   * #setWindow(int)
+   */
+  @Override
+  public synchronized void setWindow( int window )
+  {
+    this.window = Math.max( 0, window );
+  }
+  
+  /*
+   * (non-Javadoc)
+   * 
+   * @see
+   * de.unikassel.android.sdcframework.preferences.facade.SampleFilterConfiguration
+   * #getAggregation()
+   */
+  @Override
+  public synchronized SampleAggregationTypes getAggregation()
+  {
+    return aggregation;
+  }
+  
+  /*
+   * (non-Javadoc)
+   * 
+   * @see
+   * de.unikassel.android.sdcframework.preferences.facade.SampleFilterConfiguration
+   * #setAggregation
+   * (de.unikassel.android.sdcframework.devices.facade.SampleAggregationTypes)
+   */
+  @Override
+  public synchronized void setAggregation( SampleAggregationTypes aggregation )
+  {
+    if ( aggregation != null )
+      this.aggregation = aggregation;
+  }
+  
+}
@@ -21,6 +21,7 @@
 package de.unikassel.android.sdcframework.preferences;
 
 import de.unikassel.android.sdcframework.devices.facade.SensorDevicePriorities;
+import de.unikassel.android.sdcframework.preferences.facade.SampleFilterConfiguration;
 import de.unikassel.android.sdcframework.preferences.facade.SensorDeviceConfiguration;
 
 /**
@@ -49,6 +50,17 @@ public final class SensorDeviceConfigurationImpl implements
    */
   private boolean enabled;
   
+  /**
+   * The count of raw sensor events per batch sample, 0 if the raw event
+   * capture is disabled
+   */
+  private int batchSize;
+  
+  /**
+   * The sample filter configuration
+   */
+  private final SampleFilterConfiguration filterConfiguration;
+  
   /**
    * Constructor
    * 
@@ -62,11 +74,55 @@ public final class SensorDeviceConfigurationImpl implements
   public SensorDeviceConfigurationImpl( int frequency,
       SensorDevicePriorities priority,
       boolean enabled )
+  {
+    this( frequency, priority, enabled, 0 );
+  }
+  
+  /**
+   * Constructor
+   * 
+   * @param frequency
+   *          the device sample frequency
+   * @param priority
+   *          the device sample priority
+   * @param enabled
+   *          the device enabled state
+   * @param batchSize
+   *          the count of raw sensor events per batch sample
+   */
+  public SensorDeviceConfigurationImpl( int frequency,
+      SensorDevicePriorities priority,
+      boolean enabled, int batchSize )
   {
     super();
     this.frequency = frequency;
     this.priority = priority;
     this.enabled = enabled;
+    this.batchSize = batchSize;
+    this.filterConfiguration = new SampleFilterConfigurationImpl();
+  }
+  
+  /**
+   * Constructor
+   * 
+   * @param frequency
+   *          the device sample frequency
+   * @param priority
+   *          the device sample priority
+   * @param enabled
+   *          the device enabled state
+   * @param batchSize
+   *          the count of raw sensor events per batch sample
+   * @param filterConfiguration
+   *          the sample filter configuration
+   */
+  public SensorDeviceConfigurationImpl( int frequency,
+      SensorDevicePriorities priority,
+      boolean enabled, int batchSize,
+      SampleFilterConfiguration filterConfiguration )
+  {
+    this( frequency, priority, enabled, batchSize );
+    this.filterConfiguration.update( filterConfiguration );
   }
   
   /**
@@ -87,7 +143,8 @@ public final class SensorDeviceConfigurationImpl implements
   public SensorDeviceConfigurationImpl( SensorDeviceConfiguration deviceConfig )
   {
     this( deviceConfig.getFrequency(), deviceConfig.getSamplePriority(),
-        deviceConfig.isEnabled() );
+        deviceConfig.isEnabled(), deviceConfig.getBatchSize(),
+        deviceConfig.getFilterConfiguration() );
   }
   
   /*
@@ -143,6 +200,60 @@ public final class SensorDeviceConfigurationImpl implements
     return priority;
   }
   
+  /*
+   * (non-Javadoc)
+   * 
+   * @see
+   * de.unikassel.android.sdcframework.preferences.facade.ScannerConfiguration
+   * #setBatchSize(int)
+   */
+  @Override
+  public synchronized void setBatchSize( int batchSize )
+  {
+    this.batchSize = batchSize;
+  }
+  
+  /*
+   * (non-Javadoc)
+   * 
+   * @see
+   * de.unikassel.android.sdcframework.preferences.facade.ScannerConfiguration
+   * #getBatchSize()
+   */
+  @Override
+  public synchronized int getBatchSize()
+  {
+    return batchSize;
+  }
+  
+  /*
+   * (non-Javadoc)
+   * 
+   * @see
+   * de.unikassel.android.sdcframework.preferences.facade.ScannerConfiguration
+   * #setFilterConfiguration(de.unikassel.android.sdcframework.preferences.
+   * facade.SampleFilterConfiguration)
+   */
+  @Override
+  public void setFilterConfiguration(
+      SampleFilterConfiguration filterConfiguration )
+  {
+    this.filterConfiguration.update( filterConfiguration );
+  }
+  
+  /*
+   * (non-Javadoc)
+   * 
+   * @see
+   * de.unikassel.android.sdcframework.preferences.facade.ScannerConfiguration
+   * #getFilterConfiguration()
+   */
+  @Override
+  public SampleFilterConfiguration getFilterConfiguration()
+  {
+    return filterConfiguration;
+  }
+  
   /*
    * (non-Javadoc)
    * 
@@ -182,7 +293,9 @@ public final class SensorDeviceConfigurationImpl implements
       SensorDeviceConfiguration conf = (SensorDeviceConfiguration) o;
       return conf.getSamplePriority().equals( getSamplePriority() ) &&
           conf.getFrequency() == getFrequency() &&
-          conf.isEnabled() == isEnabled();
+          conf.isEnabled() == isEnabled() &&
+          conf.getBatchSize() == getBatchSize() &&
+          conf.getFilterConfiguration().equals( getFilterConfiguration() );
     }
     return false;
   }
@@ -200,6 +313,8 @@ public final class SensorDeviceConfigurationImpl implements
     setFrequency( configuration.getFrequency() );
     setSamplePriority( configuration.getSamplePriority() );
     setEnabled( configuration.isEnabled() );
+    setBatchSize( configuration.getBatchSize() );
+    setFilterConfiguration( configuration.getFilterConfiguration() );
   }
   
 }
@@ -23,6 +23,7 @@ package de.unikassel.android.sdcframework.preferences;
 import android.content.SharedPreferences;
 import de.unikassel.android.sdcframework.devices.facade.SensorDeviceIdentifier;
 import de.unikassel.android.sdcframework.devices.facade.SensorDevicePriorities;
+import de.unikassel.android.sdcframework.preferences.facade.SampleFilterConfiguration;
 import de.unikassel.android.sdcframework.preferences.facade.SensorDeviceConfiguration;
 import de.unikassel.android.sdcframework.preferences.facade.SensorDevicePreferences;
 import de.unikassel.android.sdcframework.preferences.facade.SinglePreference;
@@ -69,6 +70,19 @@ public final class SensorDevicePreferencesImpl implements
    */
   private final SinglePreference< Boolean > enabledPreference;
   
+  /**
+   * The configured batch size for the raw event capture, which is no user
+   * preference but taken from the default configuration only
+   */
+  private int batchSize;
+  
+  /**
+   * The configured sample filter, which is no user preference but taken from
+   * the default configuration only
+   */
+  private final SampleFilterConfiguration filterConfiguration =
+      new SampleFilterConfigurationImpl();
+  
   /**
    * Constructor
    * 
@@ -143,7 +157,8 @@ public final class SensorDevicePreferencesImpl implements
         getPriorityPreference().getConfiguration( sharedPreferences );
     boolean enabled =
         getEnabledPreference().getConfiguration( sharedPreferences );
-    return new SensorDeviceConfigurationImpl( frequency, priority, enabled );
+    return new SensorDeviceConfigurationImpl( frequency, priority, enabled,
+        batchSize, filterConfiguration );
   }
   
   /*
@@ -195,7 +210,7 @@ public final class SensorDevicePreferencesImpl implements
     return new SensorDeviceConfigurationImpl(
         getFrequencyPreference().getDefault(),
         getPriorityPreference().getDefault(),
-        getEnabledPreference().getDefault() );
+        getEnabledPreference().getDefault(), batchSize, filterConfiguration );
   }
   
   /*
@@ -210,6 +225,8 @@ public final class SensorDevicePreferencesImpl implements
     getFrequencyPreference().setDefault( defaultValue.getFrequency() );
     getPriorityPreference().setDefault( defaultValue.getSamplePriority() );
     getEnabledPreference().setDefault( defaultValue.isEnabled() );
+    batchSize = defaultValue.getBatchSize();
+    filterConfiguration.update( defaultValue.getFilterConfiguration() );
   }
   
   /*
@@ -23,6 +23,7 @@ package de.unikassel.android.sdcframework.preferences;
 import android.annotation.SuppressLint;
 import de.unikassel.android.sdcframework.data.DatabaseConfigurationEntry;
 import de.unikassel.android.sdcframework.data.SDCConfiguration;
+import de.unikassel.android.sdcframework.data.SampleChunker;
 import de.unikassel.android.sdcframework.data.TransmissionConfigurationEntry;
 import de.unikassel.android.sdcframework.data.TransmissionProtocolConfigurationEntry;
 import de.unikassel.android.sdcframework.persistence.DeleteSamplesStrategy;
@@ -32,6 +33,7 @@ import de.unikassel.android.sdcframework.preferences.facade.ServiceConfiguration
 import de.unikassel.android.sdcframework.preferences.facade.TransmissionConfiguration;
 import de.unikassel.android.sdcframework.preferences.facade.TransmissionProtocolConfiguration;
 import de.unikassel.android.sdcframework.util.ObjectUtils;
+import de.unikassel.android.sdcframework.util.RingBuffer;
 
 /**
  * Implementation of the service configuration.
@@ -52,6 +54,16 @@ public class ServiceConfigurationImpl
    */
   private long broadcastFrequency;
   
+  /**
+   * The sample queue capacity
+   */
+  private int sampleQueueCapacity;
+  
+  /**
+   * The maximum size of a broadcast sample collection in bytes
+   */
+  private int broadcastChunkSize;
+  
   /**
    * The sampling enabled state.
    */
@@ -85,6 +97,11 @@ public class ServiceConfigurationImpl
    */
   private boolean dbFullDeletionIsPriorityBased;
   
+  /**
+   * The flag for the storage of known sensor samples in typed sensor tables
+   */
+  private boolean isUsingTypedTables;
+  
   /**
    * The record count which is deleted every time the {link
    * {@link DeleteSamplesStrategy database full strategy} is executed.
@@ -120,6 +137,8 @@ public class ServiceConfigurationImpl
   {
     transmissionConfiguration = new TransmissionConfigurationImpl();
     logTransferConfiguration = new TransmissionProtocolConfigurationImpl();
+    sampleQueueCapacity = RingBuffer.DEFAULT_CAPACITY;
+    broadcastChunkSize = SampleChunker.DEFAULT_CHUNK_SIZE;
   }
   
   /*
@@ -134,6 +153,8 @@ public class ServiceConfigurationImpl
   {
     setBroadcastingSamples( configuration.isBroadcastingSamples() );
     setBroadcastFrequency( configuration.getBroadcastFrequency() );
+    setSampleQueueCapacity( configuration.getSampleQueueCapacity() );
+    setBroadcastChunkSize( configuration.getBroadcastChunkSize() );
     setSamplingEnabled( configuration.isSamplingEnabled() );
     setIsAddingSampleLocation( configuration.isAddingSampleLocation() );
     setStoringSamples( configuration.isStoringSamples() );
@@ -143,6 +164,7 @@ public class ServiceConfigurationImpl
     setDBFullDeletionRecordCount( configuration.getDBFullDeletionRecordCount() );
     setDBFullWaitTime( configuration.getDBFullWaitTime() );
     setDBFullStrategy( configuration.getDBFullStrategy() );
+    setUsingTypedTables( configuration.isUsingTypedTables() );
     getTransmissionConfiguration().update(
         configuration.getTransmissionConfiguration() );
     setLogTransferConfiguration( configuration.getLogTransferConfiguration() );
@@ -163,6 +185,8 @@ public class ServiceConfigurationImpl
   {
     setBroadcastingSamples( config.isBroadcastingSamples() );
     setBroadcastFrequency( config.getBroadcastFrequency() );
+    setSampleQueueCapacity( config.getSampleQueueCapacity() );
+    setBroadcastChunkSize( config.getBroadcastChunkSize() );
     setSamplingEnabled( config.isSamplingEnabled() );
     setIsAddingSampleLocation( config.isAddingSampleLocation() );
     setStoringSamples( config.isStoringSamples() );
@@ -176,6 +200,7 @@ public class ServiceConfigurationImpl
       setDBFullDeletionPriorityBased( databaseConfiguration.isDBFullDeletionPriorityBased() );
       setDBFullDeletionRecordCount( databaseConfiguration.getDBFullDeletionRecordCount() );
       setDBFullWaitTime( databaseConfiguration.getDBFullWaitTime() );
+      setUsingTypedTables( databaseConfiguration.isUsingTypedTables() );
       String sDBFullStrategy = databaseConfiguration.getDBFullStrategy();
       if ( sDBFullStrategy != null )
       {
@@ -215,6 +240,10 @@ public class ServiceConfigurationImpl
           &&
           conf.getBroadcastFrequency() == getBroadcastFrequency()
           &&
+          conf.getSampleQueueCapacity() == getSampleQueueCapacity()
+          &&
+          conf.getBroadcastChunkSize() == getBroadcastChunkSize()
+          &&
           conf.isSamplingEnabled() == isSamplingEnabled()
           &&
           conf.isAddingSampleLocation() == isAddingSampleLocation()
@@ -231,6 +260,8 @@ public class ServiceConfigurationImpl
           &&
           conf.getDBFullStrategy() == getDBFullStrategy()
           &&
+          conf.isUsingTypedTables() == isUsingTypedTables()
+          &&
           getTransmissionConfiguration().equals(
               conf.getTransmissionConfiguration() )
           &&
@@ -457,6 +488,33 @@ public class ServiceConfigurationImpl
     return dbFullDeletionIsPriorityBased;
   }
   
+  /*
+   * (non-Javadoc)
+   * 
+   * @see
+   * de.unikassel.android.sdcframework.preferences.facade.ServiceConfiguration
+   * #setUsingTypedTables(java.lang.Boolean)
+   */
+  @Override
+  public void setUsingTypedTables( Boolean isUsingTypedTables )
+  {
+    if ( isUsingTypedTables != null )
+      this.isUsingTypedTables = isUsingTypedTables;
+  }
+  
+  /*
+   * (non-Javadoc)
+   * 
+   * @see
+   * de.unikassel.android.sdcframework.preferences.facade.ServiceConfiguration
+   * #isUsingTypedTables()
+   */
+  @Override
+  public boolean isUsingTypedTables()
+  {
+    return isUsingTypedTables;
+  }
+  
   /*
    * (non-Javadoc)
    * 
@@ -595,4 +653,58 @@ public class ServiceConfigurationImpl
     if ( frequency != null )
       this.broadcastFrequency = frequency;
   }
+  
+  /*
+   * (non-Javadoc)
+   * 
+   * @see
+   * de.unikassel.android.sdcframework.preferences.facade.ServiceConfiguration
+   * #getSampleQueueCapacity()
+   */
+  @Override
+  public int getSampleQueueCapacity()
+  {
+    return sampleQueueCapacity;
+  }
+  
+  /*
+   * (non-Javadoc)
+   * 
+   * @see
+   * de.unikassel.android.sdcframework.preferences.facade.ServiceConfiguration
+   * #setSampleQueueCapacity(java.lang.Integer)
+   */
+  @Override
+  public void setSampleQueueCapacity( Integer capacity )
+  {
+    if ( capacity != null && capacity > 0 )
+      this.sampleQueueCapacity = capacity;
+  }
+  
+  /*
+   * (non-Javadoc)
+   * 
+   * @see
+   * de.unikassel.android.sdcframework.preferences.facade.ServiceConfiguration
+   * #getBroadcastChunkSize()
+   */
+  @Override
+  public int getBroadcastChunkSize()
+  {
+    return broadcastChunkSize;
+  }
+  
+  /*
+   * (non-Javadoc)
+   * 
+   * @see
+   * de.unikassel.android.sdcframework.preferences.facade.ServiceConfiguration
+   * #setBroadcastChunkSize(java.lang.Integer)
+   */
+  @Override
+  public void setBroadcastChunkSize( Integer chunkSize )
+  {
+    if ( chunkSize != null && chunkSize >= SampleChunker.MIN_CHUNK_SIZE )
+      this.broadcastChunkSize = chunkSize;
+  }
 }
@@ -21,12 +21,14 @@
 package de.unikassel.android.sdcframework.preferences;
 
 import android.content.SharedPreferences;
+import de.unikassel.android.sdcframework.data.SampleChunker;
 import de.unikassel.android.sdcframework.persistence.facade.DBFullStrategyDescription;
 import de.unikassel.android.sdcframework.preferences.facade.ServiceConfiguration;
 import de.unikassel.android.sdcframework.preferences.facade.ServicePreferences;
 import de.unikassel.android.sdcframework.preferences.facade.SinglePreference;
 import de.unikassel.android.sdcframework.preferences.facade.TransmissionPreference;
 import de.unikassel.android.sdcframework.preferences.facade.TransmissionProtocolPreference;
+import de.unikassel.android.sdcframework.util.RingBuffer;
 
 /**
  * Implementation of the service preferences.
@@ -57,6 +59,16 @@ public class ServicePreferencesImpl implements
    */
   private final LongPreference broadcastFrequencyPreference;
   
+  /**
+   * The preference for the sample queue capacity
+   */
+  private final IntegerPreference sampleQueueCapacityPreference;
+  
+  /**
+   * The preference for the maximum broadcast chunk size
+   */
+  private final IntegerPreference broadcastChunkSizePreference;
+  
   /**
    * The sampling enabled preference
    */
@@ -87,6 +99,11 @@ public class ServicePreferencesImpl implements
    */
   private final BooleanPreference dbFullDeletionIsPriorityBasedPreference;
   
+  /**
+   * The typed sensor tables flag preference
+   */
+  private final BooleanPreference typedTablesPreference;
+  
   /**
    * The database full deletion record count preference
    */
@@ -125,6 +142,14 @@ public class ServicePreferencesImpl implements
     this.broadcastFrequencyPreference =
         new LongPreference( "sdc_broadcast_frequency", 0L );
     
+    this.sampleQueueCapacityPreference =
+        new IntegerPreference( "sdc_sample_queue_capacity",
+            RingBuffer.DEFAULT_CAPACITY );
+    
+    this.broadcastChunkSizePreference =
+        new IntegerPreference( "sdc_broadcast_chunk_size",
+            SampleChunker.DEFAULT_CHUNK_SIZE );
+    
     this.samplingEnabledPreference =
         new BooleanPreference( "sdc_sampling_enabled", true );
     
@@ -143,6 +168,9 @@ public class ServicePreferencesImpl implements
     this.dbFullDeletionIsPriorityBasedPreference =
         new BooleanPreference( "sdc_dbfull_del_priobased", false );
     
+    this.typedTablesPreference =
+        new BooleanPreference( "sdc_typed_tables", false );
+    
     this.dbFullDeletionRecordCountPreference =
         new IntegerPreference( "sdc_dbfull_del_cntrecords", 1000 );
     
@@ -209,6 +237,32 @@ public class ServicePreferencesImpl implements
     return broadcastFrequencyPreference;
   }
   
+  /*
+   * (non-Javadoc)
+   * 
+   * @see
+   * de.unikassel.android.sdcframework.preferences.facade.ServicePreferences
+   * #getSampleQueueCapacityPreference()
+   */
+  @Override
+  public final SinglePreference< Integer > getSampleQueueCapacityPreference()
+  {
+    return sampleQueueCapacityPreference;
+  }
+  
+  /*
+   * (non-Javadoc)
+   * 
+   * @see
+   * de.unikassel.android.sdcframework.preferences.facade.ServicePreferences
+   * #getBroadcastChunkSizePreference()
+   */
+  @Override
+  public final SinglePreference< Integer > getBroadcastChunkSizePreference()
+  {
+    return broadcastChunkSizePreference;
+  }
+  
   /*
    * (non-Javadoc)
    * 
@@ -285,6 +339,19 @@ public class ServicePreferencesImpl implements
     return dbFullDeletionIsPriorityBasedPreference;
   }
   
+  /*
+   * (non-Javadoc)
+   * 
+   * @see
+   * de.unikassel.android.sdcframework.preferences.facade.ServicePreferences
+   * #getTypedTablesPreference()
+   */
+  @Override
+  public final SinglePreference< Boolean > getTypedTablesPreference()
+  {
+    return typedTablesPreference;
+  }
+  
   /*
    * (non-Javadoc)
    * 
@@ -383,6 +450,10 @@ public class ServicePreferencesImpl implements
         sharedPreferences ) );
     config.setBroadcastFrequency( getBroadcastFrequencyPreference().getConfiguration(
         sharedPreferences ) );
+    config.setSampleQueueCapacity( getSampleQueueCapacityPreference().getConfiguration(
+        sharedPreferences ) );
+    config.setBroadcastChunkSize( getBroadcastChunkSizePreference().getConfiguration(
+        sharedPreferences ) );
     config.setSamplingEnabled( getSamplingEnabledPreference().getConfiguration(
         sharedPreferences ) );
     config.setIsAddingSampleLocation( getSampleLocationFixEnabledPreference().getConfiguration(
@@ -399,6 +470,8 @@ public class ServicePreferencesImpl implements
         sharedPreferences ) );
     config.setDBFullStrategy( getDbFullStrategyPreference().getConfiguration(
         sharedPreferences ) );
+    config.setUsingTypedTables( getTypedTablesPreference().getConfiguration(
+        sharedPreferences ) );
     config.setTransmissionConfiguration( getTransmissionPreference().getConfiguration(
         sharedPreferences ) );
     config.setLogTransferConfiguration( getLogTransferPreference().getConfiguration(
@@ -418,6 +491,8 @@ public class ServicePreferencesImpl implements
     ServiceConfiguration config = new ServiceConfigurationImpl();
     config.setBroadcastingSamples( getSampleBroadcastsEnabledPreference().getDefault() );
     config.setBroadcastFrequency( getBroadcastFrequencyPreference().getDefault() );
+    config.setSampleQueueCapacity( getSampleQueueCapacityPreference().getDefault() );
+    config.setBroadcastChunkSize( getBroadcastChunkSizePreference().getDefault() );
     config.setSamplingEnabled( getSamplingEnabledPreference().getDefault() );
     config.setIsAddingSampleLocation( getSampleLocationFixEnabledPreference().getDefault() );
     config.setStoringSamples( getPersistentStorageEnabledPreference().getDefault() );
@@ -427,6 +502,7 @@ public class ServicePreferencesImpl implements
     config.setDBFullDeletionRecordCount( getDbFullDeletionRecordCountPreference().getDefault() );
     config.setDBFullWaitTime( getDbFullWaitTimePreference().getDefault() );
     config.setDBFullStrategy( getDbFullStrategyPreference().getDefault() );
+    config.setUsingTypedTables( getTypedTablesPreference().getDefault() );
     config.setTransmissionConfiguration( getTransmissionPreference().getDefault() );
     config.setLogTransferConfiguration( getLogTransferPreference().getDefault() );
     return config;
@@ -445,6 +521,10 @@ public class ServicePreferencesImpl implements
         defaultValue.isBroadcastingSamples() );
     getBroadcastFrequencyPreference().setDefault(
         defaultValue.getBroadcastFrequency() );
+    getSampleQueueCapacityPreference().setDefault(
+        defaultValue.getSampleQueueCapacity() );
+    getBroadcastChunkSizePreference().setDefault(
+        defaultValue.getBroadcastChunkSize() );
     getSamplingEnabledPreference().setDefault( defaultValue.isSamplingEnabled() );
     getSampleLocationFixEnabledPreference().setDefault(
         defaultValue.isAddingSampleLocation() );
@@ -459,6 +539,7 @@ public class ServicePreferencesImpl implements
         defaultValue.getDBFullDeletionRecordCount() );
     getDbFullWaitTimePreference().setDefault( defaultValue.getDBFullWaitTime() );
     getDbFullStrategyPreference().setDefault( defaultValue.getDBFullStrategy() );
+    getTypedTablesPreference().setDefault( defaultValue.isUsingTypedTables() );
     getTransmissionPreference().setDefault(
         defaultValue.getTransmissionConfiguration() );
     getLogTransferPreference().setDefault(
@@ -476,6 +557,8 @@ public class ServicePreferencesImpl implements
   {
     return getSampleBroadcastsEnabledPreference().testForKey( key )
         || getBroadcastFrequencyPreference().testForKey( key )
+        || getSampleQueueCapacityPreference().testForKey( key )
+        || getBroadcastChunkSizePreference().testForKey( key )
         || getSamplingEnabledPreference().testForKey( key )
         || getSampleLocationFixEnabledPreference().testForKey( key )
         || getPersistentStorageEnabledPreference().testForKey( key )
@@ -485,6 +568,7 @@ public class ServicePreferencesImpl implements
         || getDbFullDeletionRecordCountPreference().testForKey( key )
         || getDbFullWaitTimePreference().testForKey( key )
         || getDbFullStrategyPreference().testForKey( key )
+        || getTypedTablesPreference().testForKey( key )
         || getTransmissionPreference().testForKey( key )
         || getLogTransferPreference().testForKey( key );
   }
@@ -60,6 +60,11 @@ public class TransmissionConfigurationImpl implements TransmissionConfiguration
    */
   private boolean isEncryptionEnabled;
   
+  /**
+   * The delete after upload flag
+   */
+  private boolean isDeleteAfterUpload;
+  
   /**
    * The protocol configuration
    */
@@ -89,6 +94,7 @@ public class TransmissionConfigurationImpl implements TransmissionConfiguration
     setMinSampleTransferCount( configuration.getMinSampleTransferCount() );
     setMinTransferFrequency( configuration.getMinTransferFrequency() );
     setEncryptionEnabled( configuration.isEncryptionEnabled() );
+    setDeleteAfterUpload( configuration.isDeleteAfterUpload() );
     getProtocolConfiguration().update( configuration.getProtocolConfiguration() );
   }
   
@@ -115,6 +121,7 @@ public class TransmissionConfigurationImpl implements TransmissionConfiguration
     getProtocolConfiguration().update( config.getProtocolConfig() );
     setMinTransferFrequency( config.getMinTransferFrequency() );
     setEncryptionEnabled( config.getIsEncryptionEnabled() );
+    setDeleteAfterUpload( config.getIsDeleteAfterUpload() );
   }
   
   /*
@@ -133,7 +140,8 @@ public class TransmissionConfigurationImpl implements TransmissionConfiguration
           conf.getMinTransferFrequency() == getMinTransferFrequency() &&
           conf.getProtocolConfiguration().equals( getProtocolConfiguration() ) &&
           equals( conf.getArchiveType(), getArchiveType() ) &&
-          equals( conf.isEncryptionEnabled(), isEncryptionEnabled() );
+          equals( conf.isEncryptionEnabled(), isEncryptionEnabled() ) &&
+          equals( conf.isDeleteAfterUpload(), isDeleteAfterUpload() );
     }
     return false;
   }
@@ -320,4 +328,31 @@ public class TransmissionConfigurationImpl implements TransmissionConfiguration
     if ( isEncryptionEnabled != null )
       this.isEncryptionEnabled = isEncryptionEnabled;
   }
+  
+  /*
+   * (non-Javadoc)
+   * 
+   * @see
+   * de.unikassel.android.sdcframework.preferences.facade.TransmissionConfiguration
+   * #isDeleteAfterUpload()
+   */
+  @Override
+  public Boolean isDeleteAfterUpload()
+  {
+    return isDeleteAfterUpload;
+  }
+  
+  /*
+   * (non-Javadoc)
+   * 
+   * @see
+   * de.unikassel.android.sdcframework.preferences.facade.TransmissionConfiguration
+   * #setDeleteAfterUpload(java.lang.Boolean)
+   */
+  @Override
+  public void setDeleteAfterUpload( Boolean isDeleteAfterUpload )
+  {
+    if ( isDeleteAfterUpload != null )
+      this.isDeleteAfterUpload = isDeleteAfterUpload;
+  }
 }
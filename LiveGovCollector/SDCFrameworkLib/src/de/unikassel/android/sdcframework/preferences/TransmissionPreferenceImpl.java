@@ -70,6 +70,11 @@ public class TransmissionPreferenceImpl implements TransmissionPreference
    */
   private final SinglePreference< Boolean > encryptionEnabledPreference;
   
+  /**
+   * The preference for the delete after upload flag
+   */
+  private final SinglePreference< Boolean > deleteAfterUploadPreference;
+  
   /**
    * Constructor
    */
@@ -119,6 +124,9 @@ public class TransmissionPreferenceImpl implements TransmissionPreference
     
     this.encryptionEnabledPreference =
         new BooleanPreference( PREFIX, "encrypt", false );
+    
+    this.deleteAfterUploadPreference =
+        new BooleanPreference( PREFIX, "delete_after_upload", false );
   }
   
   /*
@@ -156,6 +164,8 @@ public class TransmissionPreferenceImpl implements TransmissionPreference
     config.setProtocolConfiguration( getProtocolPreference().getConfiguration( sharedPreferences ) );
     config.setEncryptionEnabled( getEncryptionEnabledPreference().getConfiguration(
         sharedPreferences ) );
+    config.setDeleteAfterUpload( getDeleteAfterUploadPreference().getConfiguration(
+        sharedPreferences ) );
     return config;
   }
   
@@ -175,6 +185,7 @@ public class TransmissionPreferenceImpl implements TransmissionPreference
     config.setProtocolConfiguration( getProtocolPreference().getDefault() );
     config.setMinTransferFrequency( getMinTransferFrequencyPreference().getDefault() );
     config.setEncryptionEnabled( getEncryptionEnabledPreference().getDefault() );
+    config.setDeleteAfterUpload( getDeleteAfterUploadPreference().getDefault() );
     return config;
   }
   
@@ -196,6 +207,7 @@ public class TransmissionPreferenceImpl implements TransmissionPreference
     getMinTransferFrequencyPreference().setDefault(
         defaultValue.getMinTransferFrequency() );
     getEncryptionEnabledPreference().setDefault( defaultValue.isEncryptionEnabled() );
+    getDeleteAfterUploadPreference().setDefault( defaultValue.isDeleteAfterUpload() );
   }
   
   /*
@@ -212,7 +224,8 @@ public class TransmissionPreferenceImpl implements TransmissionPreference
         getMinSampleTransferCountPreference().testForKey( key ) ||
         getProtocolPreference().testForKey( key ) ||
         getMinTransferFrequencyPreference().testForKey( key ) ||
-        getEncryptionEnabledPreference().testForKey( key ) ;
+        getEncryptionEnabledPreference().testForKey( key ) ||
+        getDeleteAfterUploadPreference().testForKey( key ) ;
   }
   
   /*
@@ -289,4 +302,17 @@ public class TransmissionPreferenceImpl implements TransmissionPreference
     return encryptionEnabledPreference;
   }
   
+  /*
+   * (non-Javadoc)
+   * 
+   * @see
+   * de.unikassel.android.sdcframework.preferences.facade.TransmissionPreference
+   * #getDeleteAfterUploadPreference()
+   */
+  @Override
+  public SinglePreference< Boolean > getDeleteAfterUploadPreference()
+  {
+    return deleteAfterUploadPreference;
+  }
+  
 }
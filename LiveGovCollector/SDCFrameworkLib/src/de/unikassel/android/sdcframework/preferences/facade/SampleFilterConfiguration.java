@@ -0,0 +1,128 @@
+/*
+ * Copyright (C) 2012, Katy Hilgenberg.
+ * Special acknowledgments to: Knowledge & Data Engineering Group, University of Kassel (http://www.kde.cs.uni-kassel.de).
+ * Contact: sdcf@cs.uni-kassel.de
+ *
+ * This file is part of the SDCFramework (Sensor Data Collection Framework) project.
+ *
+ * The SDCFramework is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The SDCFramework is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the SDCFramework.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.unikassel.android.sdcframework.preferences.facade;
+
+import de.unikassel.android.sdcframework.data.SampleFilterConfigurationEntry;
+import de.unikassel.android.sdcframework.devices.facade.SampleAggregationTypes;
+
+/**
+ * The configuration for the sample filter stage of a device scanner.
+ * 
+ * @author Katy Hilgenberg
+ * 
+ */
+public interface SampleFilterConfiguration
+    extends UpdatableConfiguration< SampleFilterConfiguration >
+{
+  
+  /**
+   * Does update this configuration by a serializable configuration
+   * 
+   * @param config
+   *          the serializable configuration to update from
+   */
+  public abstract void update( SampleFilterConfigurationEntry config );
+  
+  /**
+   * Test method for an enabled filter stage
+   * 
+   * @return true if at least one of the filters is enabled, false otherwise
+   */
+  public abstract boolean isEnabled();
+  
+  /**
+   * Getter for the deadband threshold for numeric sample values
+   * 
+   * @return the deadband threshold, 0 if the deadband is disabled
+   */
+  public abstract float getDeadband();
+  
+  /**
+   * Setter for the deadband threshold for numeric sample values
+   * 
+   * @param deadband
+   *          the deadband threshold to set, 0 to disable the deadband
+   */
+  public abstract void setDeadband( float deadband );
+  
+  /**
+   * Getter for the duplicate suppression flag
+   * 
+   * @return true if duplicate samples are suppressed, false otherwise
+   */
+  public abstract boolean isSuppressingDuplicates();
+  
+  /**
+   * Setter for the duplicate suppression flag
+   * 
+   * @param suppressDuplicates
+   *          the duplicate suppression flag to set
+   */
+  public abstract void setSuppressDuplicates( boolean suppressDuplicates );
+  
+  /**
+   * Getter for the maximum count of suppressed duplicates in a run
+   * 
+   * @return the maximum run length, 0 for unlimited runs
+   */
+  public abstract int getMaxRunLength();
+  
+  /**
+   * Setter for the maximum count of suppressed duplicates in a run
+   * 
+   * @param maxRunLength
+   *          the maximum run length to set, 0 for unlimited runs
+   */
+  public abstract void setMaxRunLength( int maxRunLength );
+  
+  /**
+   * Getter for the aggregation window
+   * 
+   * @return the aggregation window in milliseconds, 0 if the aggregation is
+   *         disabled
+   */
+  public abstract int getWindow();
+  
+  /**
+   * Setter for the aggregation window
+   * 
+   * @param window
+   *          the aggregation window in milliseconds to set, 0 to disable the
+   *          aggregation
+   */
+  public abstract void setWindow( int window );
+  
+  /**
+   * Getter for the aggregation function
+   * 
+   * @return the aggregation function
+   */
+  public abstract SampleAggregationTypes getAggregation();
+  
+  /**
+   * Setter for the aggregation function
+   * 
+   * @param aggregation
+   *          the aggregation function to set
+   */
+  public abstract void setAggregation( SampleAggregationTypes aggregation );
+  
+}
@@ -61,4 +61,35 @@ public interface ScannerConfiguration
    */
   public abstract SensorDevicePriorities getSamplePriority();
   
+  /**
+   * Setter for the count of raw sensor events per batch sample
+   * 
+   * @param batchSize
+   *          the batch size to set, 0 to disable the raw event capture
+   */
+  public abstract void setBatchSize( int batchSize );
+  
+  /**
+   * Getter for the count of raw sensor events per batch sample
+   * 
+   * @return the batch size, 0 if the raw event capture is disabled
+   */
+  public abstract int getBatchSize();
+  
+  /**
+   * Setter for the sample filter configuration
+   * 
+   * @param filterConfiguration
+   *          the sample filter configuration to update from
+   */
+  public abstract void setFilterConfiguration(
+      SampleFilterConfiguration filterConfiguration );
+  
+  /**
+   * Getter for the sample filter configuration
+   * 
+   * @return the sample filter configuration
+   */
+  public abstract SampleFilterConfiguration getFilterConfiguration();
+  
 }
\ No newline at end of file
@@ -70,6 +70,37 @@ public interface ServiceConfiguration
    */
   public void setBroadcastFrequency( Long frequency );
   
+  /**
+   * Getter for the sample queue capacity
+   * 
+   * @return the capacity of the queue passing samples to the storage and
+   *         broadcast consumers
+   */
+  public abstract int getSampleQueueCapacity();
+  
+  /**
+   * Setter for the sample queue capacity
+   * 
+   * @param capacity
+   *          the sample queue capacity to set
+   */
+  public abstract void setSampleQueueCapacity( Integer capacity );
+  
+  /**
+   * Getter for the maximum size of a broadcast sample collection
+   * 
+   * @return the maximum broadcast chunk size in bytes
+   */
+  public abstract int getBroadcastChunkSize();
+  
+  /**
+   * Setter for the maximum size of a broadcast sample collection
+   * 
+   * @param chunkSize
+   *          the maximum broadcast chunk size in bytes to set
+   */
+  public abstract void setBroadcastChunkSize( Integer chunkSize );
+  
   /**
    * Getter for the sampling enabled state
    * 
@@ -199,6 +230,23 @@ public interface ServiceConfiguration
    */
   public abstract boolean isDBFullDeletionPriorityBased();
   
+  /**
+   * Setter for the typed sensor tables flag
+   * 
+   * @param isUsingTypedTables
+   *          true if samples of known sensor types shall be stored in typed
+   *          sensor tables, false otherwise
+   */
+  public abstract void setUsingTypedTables( Boolean isUsingTypedTables );
+  
+  /**
+   * Getter for the typed sensor tables flag
+   * 
+   * @return true if samples of known sensor types shall be stored in typed
+   *         sensor tables, false otherwise
+   */
+  public abstract boolean isUsingTypedTables();
+  
   /**
    * Setter for the configured database full strategy chain
    * 
@@ -78,6 +78,20 @@ public interface ServicePreferences
    */
   public abstract LongPreference getBroadcastFrequencyPreference();
   
+  /**
+   * Getter for the sample queue capacity preference
+   * 
+   * @return the sample queue capacity preference
+   */
+  public abstract SinglePreference< Integer > getSampleQueueCapacityPreference();
+  
+  /**
+   * Getter for the broadcast chunk size preference
+   * 
+   * @return the broadcast chunk size preference
+   */
+  public abstract SinglePreference< Integer > getBroadcastChunkSizePreference();
+  
   /**
    * Getter for the sample location fix enabled preference
    * 
@@ -125,6 +139,13 @@ public interface ServicePreferences
   public abstract SinglePreference< Boolean >
       getDbFullDeletionIsPriorityBasedPreference();
   
+  /**
+   * Getter for the preference for the typed sensor tables
+   * 
+   * @return the preference for the typed sensor tables
+   */
+  public abstract SinglePreference< Boolean > getTypedTablesPreference();
+  
   /**
    * Getter the record count preference of the deletion strategy
    * 
@@ -131,4 +131,20 @@ extends UpdatableConfiguration< TransmissionConfiguration >
    */
   public abstract void setEncryptionEnabled( Boolean isEncryptionEnabled );
   
+  /**
+   * Getter for the delete after upload flag. If set, samples are exported in
+   * insertion order and kept in the database until the upload is acknowledged.
+   * 
+   * @return true if samples are deleted after the upload only
+   */
+  public abstract Boolean isDeleteAfterUpload();
+  
+  /**
+   * Setter for the delete after upload flag
+   * 
+   * @param isDeleteAfterUpload
+   *          the delete after upload flag to set
+   */
+  public abstract void setDeleteAfterUpload( Boolean isDeleteAfterUpload );
+  
 }
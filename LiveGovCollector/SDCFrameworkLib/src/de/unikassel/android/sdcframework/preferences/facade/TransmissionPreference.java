@@ -102,4 +102,12 @@ public interface TransmissionPreference extends
    */
   public abstract SinglePreference< Boolean >
       getEncryptionEnabledPreference();
+  
+  /**
+   * Getter for the delete after upload preference
+   * 
+   * @return the delete after upload preference
+   */
+  public abstract SinglePreference< Boolean >
+      getDeleteAfterUploadPreference();
 }
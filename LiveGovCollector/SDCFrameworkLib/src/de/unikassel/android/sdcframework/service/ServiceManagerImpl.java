@@ -40,7 +40,6 @@ import de.unikassel.android.sdcframework.devices.facade.SensorDeviceManager;
 import de.unikassel.android.sdcframework.devices.facade.SensorDeviceVisitor;
 import de.unikassel.android.sdcframework.persistence.DatabaseManagerImpl;
 import de.unikassel.android.sdcframework.persistence.PersistentStorageManagerImpl;
-import de.unikassel.android.sdcframework.persistence.facade.DatabaseManager;
 import de.unikassel.android.sdcframework.persistence.facade.PersistentStorageManager;
 import de.unikassel.android.sdcframework.preferences.ApplicationPreferenceManagerImpl;
 import de.unikassel.android.sdcframework.preferences.SDCConfigurationManager;
@@ -62,6 +61,7 @@ import de.unikassel.android.sdcframework.util.LifeCycleObjectImpl;
 import de.unikassel.android.sdcframework.util.LogfileManager;
 import de.unikassel.android.sdcframework.util.Logger;
 import de.unikassel.android.sdcframework.util.NotificationUtils;
+import de.unikassel.android.sdcframework.util.SampleEventBus;
 import de.unikassel.android.sdcframework.util.TimeErrorEvent;
 import de.unikassel.android.sdcframework.util.TimeProvider;
 import de.unikassel.android.sdcframework.util.facade.EventObserver;
@@ -173,7 +173,7 @@ public final class ServiceManagerImpl
   /**
    * The database manager.
    */
-  private DatabaseManager dbManager;
+  private DatabaseManagerImpl dbManager;
   
   /**
    * The persistent storage manager.
@@ -574,7 +574,7 @@ public final class ServiceManagerImpl
    * @param dbManager
    *          the dbManager to set
    */
-  private final void setDbManager( DatabaseManager dbManager )
+  private final void setDbManager( DatabaseManagerImpl dbManager )
   {
     this.dbManager = dbManager;
   }
@@ -584,7 +584,7 @@ public final class ServiceManagerImpl
    * 
    * @return the dbManager
    */
-  private final DatabaseManager getDbManager()
+  private final DatabaseManagerImpl getDbManager()
   {
     return dbManager;
   }
@@ -746,6 +746,9 @@ public final class ServiceManagerImpl
         applicationContext.getText( R.string.sdc_database_name ).toString();
     createDatabaseManager( applicationContext, dbName );
     
+    // size the sample queue before its consumers are created
+    SampleEventBus.setConfiguredCapacity( serviceConfig.getSampleQueueCapacity() );
+    
     // create storage manager instance for configured database name
     createStorageManager( applicationContext );
     
@@ -754,7 +757,8 @@ public final class ServiceManagerImpl
     
     // create sample broadcast service
     setSampleBroadcastService( new SampleBroadcastServiceImpl(
-        applicationContext, serviceConfig.getBroadcastFrequency() ) );
+        applicationContext, serviceConfig.getBroadcastFrequency(),
+        serviceConfig.getBroadcastChunkSize() ) );
     
     // create maintained framework components
     getSensorDeviceManager().onCreate( applicationContext );
@@ -826,6 +830,8 @@ public final class ServiceManagerImpl
       String dbName )
   {
     setDbManager( new DatabaseManagerImpl( applicationContext, dbName ) );
+    // keep the database open while the service is running
+    getDbManager().setKeepDatabaseOpen( true );
     getDbManager().setMaximumDatabaseSize(
         serviceConfig.getMaximumDatabaseSize() );
   }
@@ -1048,6 +1054,7 @@ public final class ServiceManagerImpl
     getStorageManager().onDestroy( applicationContext );
     getPreferenceManager().onDestroy();
     getBatteryLowObserver().onDestroy( applicationContext );
+    getDbManager().close();
     
     super.onDestroy( applicationContext );
     
@@ -1172,6 +1179,9 @@ public final class ServiceManagerImpl
     // update sample broadcast service
     updateSampleBroadcastService( updateConfig, false );
     
+    // update sample queue capacity
+    updateSampleQueueCapacity( updateConfig );
+    
     // update storage manager
     updateStorageManager( updateConfig, false );
     
@@ -1182,6 +1192,23 @@ public final class ServiceManagerImpl
     updateLogTransferConfig( updateConfig.getLogTransferConfiguration() );
   }
   
+  /**
+   * Method to update the sample queue capacity, which does apply after the
+   * next service restart if the queue is in use
+   * 
+   * @param updateConfig
+   *          the configuration to update from
+   */
+  private final void updateSampleQueueCapacity( ServiceConfiguration updateConfig )
+  {
+    int capacity = updateConfig.getSampleQueueCapacity();
+    if ( capacity != serviceConfig.getSampleQueueCapacity() )
+    {
+      serviceConfig.setSampleQueueCapacity( capacity );
+      SampleEventBus.setConfiguredCapacity( capacity );
+    }
+  }
+  
   /**
    * Method to update the log transfer configuration
    * 
@@ -1275,6 +1302,13 @@ public final class ServiceManagerImpl
       serviceConfig.setBroadcastFrequency( frequency );
       sampleBroadcastService.updateFrequency( frequency );
     }
+    
+    int chunkSize = updateConfig.getBroadcastChunkSize();
+    if ( chunkSize != serviceConfig.getBroadcastChunkSize() )
+    {
+      serviceConfig.setBroadcastChunkSize( chunkSize );
+      sampleBroadcastService.updateChunkSize( chunkSize );
+    }
   }
   
   /**
@@ -1329,9 +1363,11 @@ public final class ServiceManagerImpl
     serviceConfig.setDBFullDeletionPriorityBased( updateConfig.isDBFullDeletionPriorityBased() );
     serviceConfig.setDBFullDeletionRecordCount( updateConfig.getDBFullDeletionRecordCount() );
     serviceConfig.setDBFullWaitTime( updateConfig.getDBFullWaitTime() );
+    serviceConfig.setUsingTypedTables( updateConfig.isUsingTypedTables() );
     
     getStorageManager().updateDatabaseFullStrategy(
         getContext(), serviceConfig, getSDCService().getControlActivityClass() );
+    getStorageManager().setUsingTypedTables( serviceConfig.isUsingTypedTables() );
   }
   
   /**
@@ -20,16 +20,20 @@
  */
 package de.unikassel.android.sdcframework.transmission;
 
+import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.security.PublicKey;
+import java.util.Iterator;
 import java.util.List;
 import java.util.UUID;
 import java.util.Vector;
 import java.util.regex.Pattern;
+import java.util.zip.ZipOutputStream;
 
 import de.unikassel.android.sdcframework.data.ConcreteDeviceInformation;
 import de.unikassel.android.sdcframework.data.Sample;
@@ -37,18 +41,23 @@ import de.unikassel.android.sdcframework.data.SampleCollection;
 import de.unikassel.android.sdcframework.data.independent.BasicSampleCollection;
 import de.unikassel.android.sdcframework.data.independent.DeviceInformation;
 import de.unikassel.android.sdcframework.data.independent.GlobalSerializer;
+import de.unikassel.android.sdcframework.data.independent.LocationTrack;
+import de.unikassel.android.sdcframework.data.independent.SampleCollectionWriter;
 import de.unikassel.android.sdcframework.preferences.facade.TransmissionConfiguration;
 import de.unikassel.android.sdcframework.transmission.facade.UpdatableTransmissionComponent;
+import de.unikassel.android.sdcframework.util.CountingOutputStream;
 import de.unikassel.android.sdcframework.util.FileCompressor;
 import de.unikassel.android.sdcframework.util.FileUtils;
 import de.unikassel.android.sdcframework.util.JarCompressionStrategy;
+import de.unikassel.android.sdcframework.util.LatencyHistogram;
 import de.unikassel.android.sdcframework.util.Logger;
-import de.unikassel.android.sdcframework.util.RSAFileEncryptionStrategy;
+import de.unikassel.android.sdcframework.util.MetricsRegistry;
+import de.unikassel.android.sdcframework.util.HybridFileEncryptionStrategy;
 import de.unikassel.android.sdcframework.util.ZipCompressionStrategy;
 import de.unikassel.android.sdcframework.util.facade.ArchiveTypes;
+import de.unikassel.android.sdcframework.util.facade.CompressionStrategy;
 import de.unikassel.android.sdcframework.util.facade.Encryption;
 import de.unikassel.android.sdcframework.util.facade.FileEncryptionStrategy;
-import de.unikassel.android.sdcframework.util.facade.LogLevel;
 import android.content.Context;
 import android.content.res.AssetManager;
 
@@ -76,6 +85,16 @@ public class FileManager
    */
   public final static String ARCHIVE_FILE = "sdcarchive";
   
+  /**
+   * The filename for a pending archive without extension
+   */
+  public final static String PENDING_ARCHIVE_FILE = "pendingarchive";
+  
+  /**
+   * The buffer size for the archive output stream
+   */
+  private final static int BUFFER_SIZE = 16384;
+  
   /**
    * The temporary file to store serialized samples in
    */
@@ -96,6 +115,16 @@ public class FileManager
    */
   private String currentArchive;
   
+  /**
+   * The file path and base name without extension for pending archive files
+   */
+  private final String pendingArchiveFileName;
+  
+  /**
+   * The pending archive which is not published for transmission yet
+   */
+  private String pendingArchive;
+  
   /**
    * The file compressor used to create archives
    */
@@ -106,6 +135,12 @@ public class FileManager
    */
   private FileEncryptionStrategy encryptionStrategy;
   
+  /**
+   * The histogram for the compressed archive size in percent of the
+   * serialized sample data
+   */
+  private final LatencyHistogram compressionRatio;
+  
   /**
    * Constructor
    * 
@@ -125,8 +160,11 @@ public class FileManager
     this.sampleFile = tmpPath + BasicSampleCollection.SAMPLE_COLLECTION_FILE;
     this.deviceFile = filesPath + DeviceInformation.DEVICE_INFO_FILE;
     this.archiveFileName = tmpPath + ARCHIVE_FILE + ".";
+    this.pendingArchiveFileName = tmpPath + PENDING_ARCHIVE_FILE + ".";
     this.fileCompressor = new FileCompressor( new ZipCompressionStrategy() );
     this.encryptionStrategy = null;
+    this.compressionRatio =
+        MetricsRegistry.getInstance().getHistogram( "archive.compression", "%" );
     
     createTmpDirectory( tmpPath );
     createDeviceInformation( uuid );
@@ -256,146 +294,247 @@ public class FileManager
    */
   public synchronized boolean createArchive( SampleCollection samples )
   {
-    currentArchive = null;
+    return createArchive( samples.iterator() );
+  }
+  
+  /**
+   * Does create a new archive containing the device description file, the XML
+   * file with the serialized samples, the location track of the samples and
+   * the files related to samples. <br/>
+   * The samples are serialized one by one directly into the archive stream, so
+   * the memory usage does not depend on the count of samples.
+   * 
+   * @param samples
+   *          the iterator for the samples to archive
+   * @return true if successful, false otherwise
+   */
+  public synchronized boolean createArchive( Iterator< Sample > samples )
+  {
+    currentArchive = buildArchive( samples, archiveFileName );
+    return currentArchive != null;
+  }
+  
+  /**
+   * Does create a pending archive like {@linkplain #createArchive(Iterator)}.
+   * The pending archive is not available for transmission until it is
+   * published. A pending archive left over from a former run is discarded on
+   * start.
+   * 
+   * @param samples
+   *          the iterator for the samples to archive
+   * @return true if successful, false otherwise
+   */
+  public synchronized boolean createPendingArchive( Iterator< Sample > samples )
+  {
+    deleteFile( pendingArchive );
+    pendingArchive = buildArchive( samples, pendingArchiveFileName );
+    return pendingArchive != null;
+  }
+  
+  /**
+   * Does publish the pending archive as current archive for transmission
+   * 
+   * @return true if successful, false otherwise
+   */
+  public synchronized boolean publishPendingArchive()
+  {
+    if ( pendingArchive == null )
+      return false;
+    
+    String sArchive =
+        archiveFileName
+            + pendingArchive.substring( pendingArchiveFileName.length() );
+    if ( !FileUtils.fileFromPath( pendingArchive ).renameTo(
+        FileUtils.fileFromPath( sArchive ) ) )
+    {
+      Logger.getInstance().error( this, "Failed to publish the pending archive!" );
+      deleteFile( pendingArchive );
+      pendingArchive = null;
+      return false;
+    }
+    
+    pendingArchive = null;
+    currentArchive = sArchive;
+    return true;
+  }
+  
+  /**
+   * Does write the archive for the samples
+   * 
+   * @param samples
+   *          the iterator for the samples to archive
+   * @param baseName
+   *          the file path and base name without extension for the archive
+   * @return the archive file name, or null in case of errors
+   */
+  private String buildArchive( Iterator< Sample > samples, String baseName )
+  {
+    // the archive is compressed and encrypted in a single pass
+    FileEncryptionStrategy encryption = encryptionStrategy;
+    String sArchive =
+        baseName
+            + ( encryption == null ? fileCompressor.getArchiveExtension()
+                : encryption.getAlgorithmLetterCode() );
+    CompressionStrategy strategy = fileCompressor.getStrategy();
     
     try
     {
       List< String > files = new Vector< String >();
-      // test for file referencing samples
-      SampleCollection samplesWithFiles = new SampleCollection();
-      for ( Sample sample : samples )
+      long cntSamples = 0;
+      long start = System.nanoTime();
+      
+      // pipeline: serializer -> deflater -> cipher ( optional ) -> file
+      CountingOutputStream storageOut =
+          new CountingOutputStream( new FileOutputStream(
+              FileUtils.fileFromPath( sArchive ) ) );
+      CountingOutputStream compressedOut = storageOut;
+      if ( encryption != null )
       {
-        if ( sample.getRelatedData() != null )
+        try
+        {
+          compressedOut =
+              new CountingOutputStream(
+                  encryption.openEncryptedStream( storageOut ) );
+        }
+        catch ( IOException e )
         {
-          samplesWithFiles.add( sample );
+          storageOut.close();
+          throw e;
         }
       }
-      
-      for ( Sample sample : samplesWithFiles )
+      ZipOutputStream out =
+          strategy.openArchive( new BufferedOutputStream( compressedOut,
+              BUFFER_SIZE ) );
+      CountingOutputStream serializedOut = new CountingOutputStream( out );
+      long serializationNanos = 0L;
+      try
       {
-        // test for file availability
-        File relatedFile = FileUtils.fileFromPath( sample.getRelatedData() );
-        if ( !relatedFile.exists() || !relatedFile.isFile() )
+        strategy.addFile( out, deviceFile );
+        
+        strategy.putNextEntry( out,
+            BasicSampleCollection.SAMPLE_COLLECTION_FILE );
+        long serializationStart = System.nanoTime();
+        LocationTrack locationTrack = new LocationTrack();
+        SampleCollectionWriter writer =
+            new SampleCollectionWriter( serializedOut, locationTrack );
+        while ( samples.hasNext() )
+        {
+          Sample sample = samples.next();
+          
+          // test for file referencing samples
+          String relatedData = sample.getRelatedData();
+          if ( relatedData != null )
+          {
+            // test for file availability
+            File relatedFile = FileUtils.fileFromPath( relatedData );
+            if ( !relatedFile.exists() || !relatedFile.isFile() )
+            {
+              // skip the sample for transmission
+              Logger.getInstance().error( this,
+                  "Related file not found: " + relatedFile.getAbsolutePath() +
+                      ". Skipping sample!" );
+              continue;
+            }
+            
+            // add file path to the file transfer list
+            files.add( relatedFile.getAbsolutePath() );
+            // change file reference entry for the sample to the file name
+            // without path
+            sample.updateRelatedData( FileUtils.fileNameFromPath( relatedData ) );
+          }
+          writer.write( sample );
+        }
+        writer.finish();
+        serializationNanos =
+            System.nanoTime() - serializationStart
+                - serializedOut.getElapsedNanos();
+        out.closeEntry();
+        cntSamples = writer.getCount();
+        
+        // the distinct sample locations are stored once in the location track
+        if ( !locationTrack.isEmpty() )
         {
-          // remove sample from the collection for transmission
-          samples.remove( sample );
-          Logger.getInstance().error( this,
-              "Related file not found: " + relatedFile.getAbsolutePath() +
-                  ". Skipping sample!" );
+          strategy.putNextEntry( out, LocationTrack.LOCATION_TRACK_FILE );
+          long trackStart = System.nanoTime();
+          long trackElapsed = serializedOut.getElapsedNanos();
+          locationTrack.write( serializedOut );
+          serializationNanos +=
+              System.nanoTime() - trackStart
+                  - ( serializedOut.getElapsedNanos() - trackElapsed );
+          out.closeEntry();
         }
-        else
+        
+        for ( String fileName : files )
         {
-          // add file path to the file transfer list
-          files.add( relatedFile.getAbsolutePath() );
-          // change file reference entry for the sample to the file name without
-          // path
-          String fileName =
-              FileUtils.fileNameFromPath( sample.getRelatedData() );
-          sample.updateRelatedData( fileName );
+          strategy.addFile( out, fileName );
         }
+        out.finish();
+      }
+      finally
+      {
+        out.close();
       }
       
-      // create the new archive
-      GlobalSerializer.serializeToFile( samples,
-          FileUtils.fileFromPath( sampleFile ) );
-      files.add( deviceFile );
-      files.add( sampleFile );
-      
-      currentArchive = createArchiveWithFiles( files );
-      
-      // optionally apply encryption
-      currentArchive = encryptArchive( currentArchive );
+      long totalNanos = System.nanoTime() - start;
+      long compressionNanos =
+          totalNanos - serializationNanos - compressedOut.getElapsedNanos();
+      long encryptionNanos =
+          compressedOut.getElapsedNanos() - storageOut.getElapsedNanos();
+      StringBuffer statistics = new StringBuffer();
+      statistics.append( "archive size: " ).append( storageOut.getByteCount() );
+      statistics.append( " bytes, " ).append( cntSamples );
+      statistics.append( " samples, " ).append( totalNanos / 1000000L );
+      statistics.append( " ms" );
+      appendStageStatistics( statistics, "serialization",
+          serializedOut.getByteCount(), serializationNanos );
+      appendStageStatistics( statistics, "compression",
+          compressedOut.getByteCount(), compressionNanos );
+      if ( encryption != null )
+      {
+        appendStageStatistics( statistics, "encryption",
+            storageOut.getByteCount(), encryptionNanos );
+      }
+      appendStageStatistics( statistics, "storage",
+          storageOut.getByteCount(), storageOut.getElapsedNanos() );
+      Logger.getInstance().debug( this, statistics.toString() );
+      if ( serializedOut.getByteCount() > 0L )
+      {
+        compressionRatio.record( compressedOut.getByteCount() * 100L
+            / serializedOut.getByteCount() );
+      }
       
+      return sArchive;
     }
     catch ( Exception e )
     {
-      Logger.getInstance().error( this,
-          "Failed to create temporary sample file!" );
+      Logger.getInstance().error( this, "Failed to create archive file!" );
       e.printStackTrace();
       // if we fail, -> clean up any temporary archive
-      deleteFile( currentArchive );
-      currentArchive = null;
-    }
-    finally
-    {
-      // do always clean up sample file
-      deleteFile( sampleFile );
-    }
-    
-    return currentArchive != null;
-  }
-  
-  /**
-   * Method to encrypt the archive if configured
-   * 
-   * @param sArchive
-   *          the archive to encrypt
-   * @return the encrypted archive name, or null in case of errors
-   */
-  private String encryptArchive( String sArchive )
-  {
-    String tmpArchive = null;
-    
-    // if configured, encrypt archive for transmission
-    if ( encryptionStrategy != null )
-    {
-      tmpArchive =
-          archiveFileName + encryptionStrategy.getAlgorithmLetterCode();
-      
-      if ( !encryptionStrategy.encryptFile( FileUtils.fileFromPath( sArchive ),
-          FileUtils.fileFromPath( tmpArchive ) ) )
-      {
-        Logger.getInstance().error( this, "Failed to encrypt the archive file!" );
-        deleteFile( tmpArchive );
-        tmpArchive = null;
-      }
-      
-      // do always delete the unencrypted archive
       deleteFile( sArchive );
-      return tmpArchive;
     }
     
-    return sArchive;
+    return null;
   }
   
   /**
-   * Method to create an archive from files
+   * Method to append the statistics of an archive pipeline stage
    * 
-   * @param files
-   *          the files to add
-   * @return the created archive file path
+   * @param statistics
+   *          the statistics buffer
+   * @param stage
+   *          the stage name
+   * @param bytes
+   *          the count of bytes written by the stage
+   * @param nanos
+   *          the time spent in the stage in nanoseconds
    */
-  private String createArchiveWithFiles( List< String > files )
+  private static void appendStageStatistics( StringBuffer statistics,
+      String stage, long bytes, long nanos )
   {
-    String sArchive = archiveFileName + fileCompressor.getArchiveExtension();
-    
-    if ( fileCompressor.compressFiles( files, sArchive ) )
-    {
-      if ( Logger.getInstance().getLogLevel().equals( LogLevel.DEBUG ) )
-      {
-        Long sumOriginalSizes = 0L;
-        for ( String fileName : files )
-        {
-          sumOriginalSizes += FileUtils.fileFromPath( fileName ).length();
-        }
-        long size = FileUtils.fileFromPath( sArchive ).length();
-        // calculate compression ratio
-        float ratio = 100.F;
-        ratio -=
-              ( sumOriginalSizes > 0 ? ( size * 100.F / sumOriginalSizes )
-                  : 100.F );
-        Logger.getInstance().debug(
-            this,
-              String.format( "archive size: %d bytes, ratio %.2f%%", size,
-                  ratio ) );
-      }
-      return sArchive;
-    }
-    
-    // if we fail -> clean up
-    Logger.getInstance().error( this, "Failed to create archive file!" );
-    deleteFile( sArchive );
-    return null;
+    statistics.append( "\n" ).append( stage ).append( ": " ).append( bytes );
+    statistics.append( " bytes, " ).append( nanos / 1000000L ).append( " ms, " );
+    statistics.append( CountingOutputStream.getThroughput( bytes, nanos ) >> 10 );
+    statistics.append( " KB/s" );
   }
   
   /**
@@ -423,13 +562,20 @@ public class FileManager
     {
       // create a matcher for file name tests
       Pattern fileMatcher = Pattern.compile( ".*" + ARCHIVE_FILE + ".*" );
+      Pattern pendingMatcher =
+          Pattern.compile( ".*" + PENDING_ARCHIVE_FILE + ".*" );
       
       for ( File file : tmpDir.listFiles() )
       {
-        if ( fileMatcher.matcher( file.getName() ).matches() )
+        if ( pendingMatcher.matcher( file.getName() ).matches() )
+        {
+          // the samples of a pending archive are still in the database
+          deleteFile( file.getAbsolutePath() );
+        }
+        else if ( currentArchive == null
+            && fileMatcher.matcher( file.getName() ).matches() )
         {
           currentArchive = file.getAbsolutePath();
-          break;
         }
       }
       
@@ -450,6 +596,8 @@ public class FileManager
     {
       deleteFile( currentArchive );
       currentArchive = null;
+      deleteFile( pendingArchive );
+      pendingArchive = null;
     }
   }
   
@@ -510,13 +658,13 @@ public class FileManager
           {
             pubKey = getPubKeyFromAssetFolder( context );
           }
-          encryptionStrategy = new RSAFileEncryptionStrategy( pubKey );
+          encryptionStrategy = new HybridFileEncryptionStrategy( pubKey );
         }
         catch ( Exception e )
         {
           Logger.getInstance().error(
               this,
-              "Failed to create RSA encryption strategy. Reason: "
+              "Failed to create hybrid encryption strategy. Reason: "
                   + e.getMessage() );
           e.printStackTrace();
         }
@@ -0,0 +1,378 @@
+/*
+ * Copyright (C) 2012, Katy Hilgenberg.
+ * Special acknowledgments to: Knowledge & Data Engineering Group, University of Kassel (http://www.kde.cs.uni-kassel.de).
+ * Contact: sdcf@cs.uni-kassel.de
+ *
+ * This file is part of the SDCFramework (Sensor Data Collection Framework) project.
+ *
+ * The SDCFramework is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The SDCFramework is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the SDCFramework.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.unikassel.android.sdcframework.transmission;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.net.URI;
+
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpStatus;
+import org.apache.http.client.HttpClient;
+import org.apache.http.client.HttpResponseException;
+import org.apache.http.client.methods.HttpHead;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.client.methods.HttpRequestBase;
+import org.apache.http.entity.ByteArrayEntity;
+
+import de.unikassel.android.sdcframework.util.Logger;
+import de.unikassel.android.sdcframework.util.facade.Encryption;
+
+/**
+ * The resumable upload of a file in fixed size parts. <br/>
+ * <br/>
+ * The upload is identified by the device identifier and the MD5 hash of the
+ * file content. Each part is posted with its offset and its MD5 hash, the
+ * server does store verified parts only and does report the committed offset
+ * with each response. A HEAD request does query the committed offset, so an
+ * interrupted upload does continue with the first part missing on the server
+ * instead of sending the whole file again. <br/>
+ * <br/>
+ * Protocol headers: {@linkplain #HEADER_UPLOAD_ID},
+ * {@linkplain #HEADER_UPLOAD_LENGTH}, {@linkplain #HEADER_UPLOAD_OFFSET} and
+ * {@linkplain #HEADER_PART_MD5} in addition to the "filename" and "uuid"
+ * headers of the simple HTTP upload. A server which does not report the
+ * committed offset for the HEAD request does not support the protocol.
+ * 
+ * @author Katy Hilgenberg
+ * 
+ */
+public final class ResumableUpload
+{
+  /**
+   * The header for the upload identifier ( the MD5 hash of the file )
+   */
+  public static final String HEADER_UPLOAD_ID = "upload-id";
+  
+  /**
+   * The header for the total file length
+   */
+  public static final String HEADER_UPLOAD_LENGTH = "upload-length";
+  
+  /**
+   * The header for the part offset, resp. the committed offset in responses
+   */
+  public static final String HEADER_UPLOAD_OFFSET = "upload-offset";
+  
+  /**
+   * The header for the MD5 hash of a part
+   */
+  public static final String HEADER_PART_MD5 = "part-md5";
+  
+  /**
+   * The default part size in bytes
+   */
+  public static final int DEFAULT_PART_SIZE = 64 << 10;
+  
+  /**
+   * The count of attempts without progress before the upload is aborted
+   */
+  private static final int MAX_ATTEMPTS = 3;
+  
+  /**
+   * The http client, which is reused for all parts
+   */
+  private final HttpClient client;
+  
+  /**
+   * The upload URI
+   */
+  private final URI uri;
+  
+  /**
+   * The file to upload
+   */
+  private final File file;
+  
+  /**
+   * The file name sent to the server
+   */
+  private final String fileName;
+  
+  /**
+   * The unique SDC installation identifier for this device
+   */
+  private final String uuid;
+  
+  /**
+   * The upload identifier
+   */
+  private final String uploadId;
+  
+  /**
+   * The part size in bytes
+   */
+  private final int partSize;
+  
+  /**
+   * The count of bytes sent
+   */
+  private long sentBytes;
+  
+  /**
+   * Constructor
+   * 
+   * @param client
+   *          the http client to use
+   * @param uri
+   *          the upload URI
+   * @param file
+   *          the file to upload
+   * @param fileName
+   *          the file name sent to the server
+   * @param uuid
+   *          the unique SDC installation identifier for this device
+   * @param partSize
+   *          the part size in bytes
+   * @throws IOException
+   *           if the file can not be read
+   */
+  public ResumableUpload( HttpClient client, URI uri, File file,
+      String fileName, String uuid, int partSize ) throws IOException
+  {
+    if ( partSize <= 0 )
+      throw new IllegalArgumentException( "invalid part size" );
+    this.client = client;
+    this.uri = uri;
+    this.file = file;
+    this.fileName = fileName;
+    this.uuid = uuid;
+    this.partSize = partSize;
+    this.uploadId = Encryption.md5( file );
+    if ( uploadId == null )
+      throw new IOException( "MD5 not available" );
+  }
+  
+  /**
+   * Getter for the upload identifier
+   * 
+   * @return the upload identifier
+   */
+  public final String getUploadId()
+  {
+    return uploadId;
+  }
+  
+  /**
+   * Getter for the count of bytes sent, including parts which have to be
+   * resent
+   * 
+   * @return the count of bytes sent
+   */
+  public final long getSentBytes()
+  {
+    return sentBytes;
+  }
+  
+  /**
+   * Method to query the offset committed by the server
+   * 
+   * @return the committed offset, or -1 if the server does not support
+   *         resumable uploads
+   * @throws IOException
+   *           in case of connection errors
+   */
+  public final long queryOffset() throws IOException
+  {
+    HttpHead head = new HttpHead( uri );
+    addHeaders( head );
+    HttpResponse response = client.execute( head );
+    consume( response );
+    int statusCode = response.getStatusLine().getStatusCode();
+    Header header = response.getFirstHeader( HEADER_UPLOAD_OFFSET );
+    if ( statusCode != HttpStatus.SC_OK || header == null )
+    {
+      return -1L;
+    }
+    return parseOffset( header );
+  }
+  
+  /**
+   * Method to upload the parts of the file starting at an offset. After
+   * connection errors the committed offset is queried again and the upload
+   * does continue from there, it is aborted after
+   * {@linkplain #MAX_ATTEMPTS} attempts without progress.
+   * 
+   * @param offset
+   *          the offset committed by the server
+   * @throws HttpResponseException
+   *           if the server did reject a part
+   * @throws IOException
+   *           in case of connection errors
+   */
+  public final void upload( long offset ) throws IOException
+  {
+    long length = file.length();
+    byte[] buffer = new byte[ (int) Math.min( partSize, Math.max( length, 1L ) ) ];
+    RandomAccessFile raf = new RandomAccessFile( file, "r" );
+    try
+    {
+      int cntAttempts = 0;
+      while ( offset < length )
+      {
+        int cnt = (int) Math.min( buffer.length, length - offset );
+        byte[] part = cnt == buffer.length ? buffer : new byte[ cnt ];
+        raf.seek( offset );
+        raf.readFully( part, 0, cnt );
+        
+        long committed;
+        IOException error = null;
+        try
+        {
+          committed = sendPart( part, offset, length );
+        }
+        catch ( HttpResponseException e )
+        {
+          // the server did reject the part, e.g. if it is busy
+          throw e;
+        }
+        catch ( IOException e )
+        {
+          // the part may have been committed before the connection was lost
+          Logger.getInstance().debug( this,
+              "part at {} failed ({}), querying committed offset", offset,
+              e.getMessage() );
+          error = e;
+          committed = queryOffset();
+          if ( committed < 0L )
+            throw e;
+        }
+        
+        if ( committed > offset )
+        {
+          cntAttempts = 0;
+        }
+        else if ( ++cntAttempts >= MAX_ATTEMPTS )
+        {
+          throw error != null ? error : new IOException(
+              "No upload progress at offset " + offset );
+        }
+        offset = committed;
+      }
+    }
+    finally
+    {
+      raf.close();
+    }
+  }
+  
+  /**
+   * Method to post a part of the file
+   * 
+   * @param part
+   *          the part content
+   * @param offset
+   *          the offset of the part
+   * @param length
+   *          the total file length
+   * @return the offset committed by the server
+   * @throws HttpResponseException
+   *           for unexpected server responses
+   * @throws IOException
+   *           in case of connection errors
+   */
+  private final long sendPart( byte[] part, long offset, long length )
+      throws IOException
+  {
+    HttpPost post = new HttpPost( uri );
+    addHeaders( post );
+    post.addHeader( HEADER_UPLOAD_LENGTH, String.valueOf( length ) );
+    post.addHeader( HEADER_UPLOAD_OFFSET, String.valueOf( offset ) );
+    post.addHeader( HEADER_PART_MD5, Encryption.md5( part, 0, part.length ) );
+    ByteArrayEntity entity = new ByteArrayEntity( part );
+    entity.setContentType( "application/octet-stream" );
+    post.setEntity( entity );
+    
+    sentBytes += part.length;
+    HttpResponse response = client.execute( post );
+    consume( response );
+    
+    // the last part is accepted for the asynchronous ingest, a conflict does
+    // report the committed offset to continue with
+    int statusCode = response.getStatusLine().getStatusCode();
+    Header header = response.getFirstHeader( HEADER_UPLOAD_OFFSET );
+    if ( ( statusCode == HttpStatus.SC_OK
+        || statusCode == HttpStatus.SC_ACCEPTED
+        || statusCode == HttpStatus.SC_NO_CONTENT
+        || statusCode == HttpStatus.SC_CONFLICT || statusCode == HttpStatus.SC_BAD_REQUEST )
+        && header != null )
+    {
+      return parseOffset( header );
+    }
+    throw new HttpResponseException( statusCode,
+        "Unexpected server response: " + response.getStatusLine() );
+  }
+  
+  /**
+   * Method to add the headers identifying the upload
+   * 
+   * @param request
+   *          the request
+   */
+  private final void addHeaders( HttpRequestBase request )
+  {
+    request.addHeader( "filename", fileName );
+    request.addHeader( "uuid", uuid );
+    request.addHeader( HEADER_UPLOAD_ID, uploadId );
+  }
+  
+  /**
+   * Method to consume the response content, which does release the
+   * connection for the next request
+   * 
+   * @param response
+   *          the response
+   * @throws IOException
+   *           in case of connection errors
+   */
+  private static void consume( HttpResponse response ) throws IOException
+  {
+    HttpEntity entity = response.getEntity();
+    if ( entity != null )
+    {
+      entity.consumeContent();
+    }
+  }
+  
+  /**
+   * Method to parse an offset header
+   * 
+   * @param header
+   *          the header
+   * @return the offset
+   * @throws IOException
+   *           if the header value is invalid
+   */
+  private static long parseOffset( Header header ) throws IOException
+  {
+    try
+    {
+      return Long.parseLong( header.getValue().trim() );
+    }
+    catch ( NumberFormatException e )
+    {
+      throw new IOException( "Invalid offset: " + header.getValue() );
+    }
+  }
+}
@@ -22,17 +22,22 @@ package de.unikassel.android.sdcframework.transmission;
 
 import java.io.File;
 import java.io.IOException;
+import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.URL;
 import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.http.HttpEntity;
 import org.apache.http.HttpResponse;
 import org.apache.http.HttpStatus;
 import org.apache.http.client.ClientProtocolException;
 import org.apache.http.client.methods.HttpPost;
+import org.apache.http.conn.ClientConnectionManager;
 import org.apache.http.entity.FileEntity;
 import org.apache.http.impl.client.DefaultHttpClient;
+import org.apache.http.params.HttpConnectionParams;
+import org.apache.http.params.HttpParams;
 
 import android.content.Context;
 import de.unikassel.android.sdcframework.preferences.facade.TransmissionProtocolConfiguration;
@@ -58,6 +63,22 @@ public class SimpleHttpProtocol extends AbstractProtocol
    */
   private static final String PROTOCOL_EXCEPTION = "Protocol exception";
   
+  /**
+   * The connection and socket timeout in milliseconds
+   */
+  private static final int TIMEOUT = 30000;
+  
+  /**
+   * The idle time in seconds after which kept alive connections are closed
+   */
+  private static final long MAX_IDLE_TIME = 30;
+  
+  /**
+   * The http client, which is kept to reuse its connection for all parts and
+   * archives
+   */
+  private DefaultHttpClient client;
+  
   /**
    * Constructor
    * 
@@ -75,7 +96,45 @@ public class SimpleHttpProtocol extends AbstractProtocol
   }
   
   /**
-   * Method for an HTTP upload of file stream
+   * Method to get the http client, which is created on first use
+   * 
+   * @return the http client
+   */
+  private final DefaultHttpClient getClient()
+  {
+    if ( client == null )
+    {
+      client = new DefaultHttpClient();
+      HttpParams params = client.getParams();
+      HttpConnectionParams.setConnectionTimeout( params, TIMEOUT );
+      HttpConnectionParams.setSoTimeout( params, TIMEOUT );
+    }
+    else
+    {
+      ClientConnectionManager manager = client.getConnectionManager();
+      manager.closeExpiredConnections();
+      manager.closeIdleConnections( MAX_IDLE_TIME, TimeUnit.SECONDS );
+    }
+    return client;
+  }
+  
+  /**
+   * Method to shut down the http client after connection errors
+   */
+  private final void releaseClient()
+  {
+    if ( client != null )
+    {
+      client.getConnectionManager().shutdown();
+      client = null;
+    }
+  }
+  
+  /**
+   * Method for an HTTP upload of a file. The file is sent in parts using the
+   * {@linkplain ResumableUpload resumable upload}, which does continue an
+   * interrupted upload at the offset committed by the server. The whole file
+   * is posted if the server does not support resumable uploads.
    * 
    * @param file
    *          the input file
@@ -84,58 +143,38 @@ public class SimpleHttpProtocol extends AbstractProtocol
    */
   private final boolean httpUpload( File file )
   {
-    DefaultHttpClient client = new DefaultHttpClient();
-    
     try
     {
       String fileName = FileUtils.fileNameFromPath( file.getName() );
-      String contentType = getContentType( fileName );
       
       URL url = getURL();
+      DefaultHttpClient client = getClient();
       configureForAuthentication( client, url );
+      URI uri = url.toURI();
       
-      HttpPost httpPost = new HttpPost( url.toURI() );
-      
-      FileEntity fileEntity = new FileEntity( file, contentType );
-      fileEntity.setContentType( contentType );
-      fileEntity.setChunked( true );
-      
-      httpPost.setEntity( fileEntity );
-      httpPost.addHeader( "filename", fileName );
-      httpPost.addHeader( "uuid", getUuid().toString() );
-      
-      HttpResponse response = client.execute( httpPost );
-      
-      int statusCode = response.getStatusLine().getStatusCode();
-      boolean success =
-          statusCode == HttpStatus.SC_OK ||
-              statusCode == HttpStatus.SC_NO_CONTENT;
-      Logger.getInstance().debug( this, "Server returned: " + statusCode );
-      
-      // clean up if necessary
-      HttpEntity resEntity = response.getEntity();
-      if ( resEntity != null )
-      {
-        resEntity.consumeContent();
-      }
-      
-      if ( !success )
+      ResumableUpload upload =
+          new ResumableUpload( client, uri, file, fileName,
+              getUuid().toString(), ResumableUpload.DEFAULT_PART_SIZE );
+      long offset = upload.queryOffset();
+      if ( offset >= 0L )
       {
-        doHandleError( "Unexpected server response: "
-            + response.getStatusLine() );
-        success = false;
+        Logger.getInstance().debug( this, "Resuming upload of {} at {}",
+            fileName, offset );
+        upload.upload( offset );
+        return true;
       }
-      
-      return success;
+      return postFile( client, uri, file, fileName );
     }
     catch ( ClientProtocolException e )
     {
       e.printStackTrace();
+      releaseClient();
       doHandleError( PROTOCOL_EXCEPTION + ": " + e.getMessage() );
     }
     catch ( IOException e )
     {
       e.printStackTrace();
+      releaseClient();
       doHandleError( IO_EXCEPTION + ": " + e.getMessage() );
     }
     catch ( URISyntaxException e )
@@ -143,11 +182,62 @@ public class SimpleHttpProtocol extends AbstractProtocol
       setURL( null );
       doHandleError( INVALID_URL );
     }
-    finally
+    return false;
+  }
+  
+  /**
+   * Method to post the whole file for servers without support for resumable
+   * uploads
+   * 
+   * @param client
+   *          the http client
+   * @param uri
+   *          the upload URI
+   * @param file
+   *          the input file
+   * @param fileName
+   *          the file name
+   * @return true if successful, false otherwise
+   * @throws IOException
+   *           in case of connection errors
+   */
+  private final boolean postFile( DefaultHttpClient client, URI uri,
+      File file, String fileName ) throws IOException
+  {
+    String contentType = getContentType( fileName );
+    HttpPost httpPost = new HttpPost( uri );
+    
+    FileEntity fileEntity = new FileEntity( file, contentType );
+    fileEntity.setContentType( contentType );
+    fileEntity.setChunked( true );
+    
+    httpPost.setEntity( fileEntity );
+    httpPost.addHeader( "filename", fileName );
+    httpPost.addHeader( "uuid", getUuid().toString() );
+    
+    HttpResponse response = client.execute( httpPost );
+    
+    int statusCode = response.getStatusLine().getStatusCode();
+    boolean success =
+        statusCode == HttpStatus.SC_OK ||
+            statusCode == HttpStatus.SC_ACCEPTED ||
+            statusCode == HttpStatus.SC_NO_CONTENT;
+    Logger.getInstance().debug( this, "Server returned: " + statusCode );
+    
+    // clean up if necessary
+    HttpEntity resEntity = response.getEntity();
+    if ( resEntity != null )
+    {
+      resEntity.consumeContent();
+    }
+    
+    if ( !success )
     {
-      client.getConnectionManager().shutdown();
+      doHandleError( "Unexpected server response: "
+          + response.getStatusLine() );
     }
-    return false;
+    
+    return success;
   }
   
   /**
@@ -21,28 +21,31 @@
 package de.unikassel.android.sdcframework.transmission;
 
 import java.security.InvalidParameterException;
-import java.util.Collection;
+import java.util.Iterator;
 import java.util.UUID;
-import java.util.Vector;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 
 import android.content.Context;
 import android.os.SystemClock;
 import de.unikassel.android.sdcframework.data.Sample;
-import de.unikassel.android.sdcframework.data.SampleCollection;
+import de.unikassel.android.sdcframework.persistence.AcknowledgeExportCommand;
 import de.unikassel.android.sdcframework.persistence.DatabaseManagerImpl;
-import de.unikassel.android.sdcframework.persistence.RemoveSamplesCommand;
+import de.unikassel.android.sdcframework.persistence.ExportSamplesCommand;
 import de.unikassel.android.sdcframework.persistence.facade.DatabaseManager;
-import de.unikassel.android.sdcframework.persistence.facade.DatabaseSample;
+import de.unikassel.android.sdcframework.persistence.facade.SampleExporter;
 import de.unikassel.android.sdcframework.preferences.facade.TransmissionConfiguration;
 import de.unikassel.android.sdcframework.transmission.facade.ProtocolStrategy;
 import de.unikassel.android.sdcframework.transmission.facade.TransferManager;
 import de.unikassel.android.sdcframework.util.AbstractWorkerThread;
 import de.unikassel.android.sdcframework.util.AlarmBuilder;
 import de.unikassel.android.sdcframework.util.AlarmEvent;
+import de.unikassel.android.sdcframework.util.Counter;
 import de.unikassel.android.sdcframework.util.FileUtils;
+import de.unikassel.android.sdcframework.util.LatencyHistogram;
 import de.unikassel.android.sdcframework.util.Logger;
+import de.unikassel.android.sdcframework.util.MetricsRegistry;
 import de.unikassel.android.sdcframework.util.NetworkConnectionObserver;
 import de.unikassel.android.sdcframework.util.NotificationUtils;
 import de.unikassel.android.sdcframework.util.ObservableAlarm;
@@ -158,14 +161,14 @@ public class TransferManagerImpl
   private final AtomicLong minFrequency;
   
   /**
-   * The time stamp of last execution cycle
+   * Flag if samples are kept in the database until the upload is acknowledged
    */
-  private final AtomicLong lastExecutionTimeStamp;
+  private final AtomicBoolean deleteAfterUpload;
   
   /**
-   * The current sample collection to transfer
+   * The time stamp of last execution cycle
    */
-  private final SampleCollection currentSamples;
+  private final AtomicLong lastExecutionTimeStamp;
   
   /**
    * The controller for the sample gather task
@@ -192,6 +195,26 @@ public class TransferManagerImpl
    */
   private final WakeLockHolder wakeLockHolder;
   
+  /**
+   * The histogram for the archive build time in milliseconds
+   */
+  private final LatencyHistogram archiveBuildTime;
+  
+  /**
+   * The histogram for the upload throughput in bytes per second
+   */
+  private final LatencyHistogram uploadThroughput;
+  
+  /**
+   * The counter for the uploaded bytes
+   */
+  private final Counter uploadedBytes;
+  
+  /**
+   * The counter for upload retries after failed transmissions
+   */
+  private final Counter uploadRetries;
+  
   /**
    * Constructor
    * 
@@ -224,9 +247,9 @@ public class TransferManagerImpl
     this.uploadManager =
         new UploadManager( applicationContext, config, uuid,
             controlActivityClass );
-    this.currentSamples = new SampleCollection();
     this.currentState = new AtomicInteger();
     this.minFrequency = new AtomicLong();
+    this.deleteAfterUpload = new AtomicBoolean();
     this.connectionObserver =
         NetworkConnectionObserver.getInstance( applicationContext );
     this.connectionWaitLock = new Object();
@@ -238,6 +261,13 @@ public class TransferManagerImpl
     this.alarm = AlarmBuilder.createAlarm( this, applicationContext );
     this.forcedActivationAlarm = AlarmBuilder.createAlarm( this, applicationContext );
     this.wakeLockHolder = new WakeLockHolder( applicationContext );
+    
+    MetricsRegistry metrics = MetricsRegistry.getInstance();
+    this.archiveBuildTime = metrics.getHistogram( "archive.build", "ms" );
+    this.uploadThroughput = metrics.getHistogram( "upload.throughput", "B/s" );
+    this.uploadedBytes = metrics.getCounter( "upload.bytes" );
+    this.uploadRetries = metrics.getCounter( "upload.retries" );
+    
     Logger.getInstance().debug( this,
         wakeLockHolder.hashCode() + ": wake lock holder created" );
     
@@ -359,18 +389,7 @@ public class TransferManagerImpl
   @Override
   protected final void doCleanUp()
   {
-    if ( currentSamples.size() > 0 )
-    {
-      Logger.getInstance().info( this, "Files in queue, creating archive!" );
-      if ( !doPrepareArchive() )
-      {
-        Logger.getInstance().error(
-            this,
-            "Failed to store collected samples in archive! "
-                + currentSamples.size() + " samples lost!" );
-      }
-      currentSamples.clear();
-    }
+    // samples are kept in the database until an archive is created
     fileManager.doCleanUp( false );
   }
   
@@ -406,6 +425,7 @@ public class TransferManagerImpl
     }
     
     fileManager.updateConfiguration( context, config );
+    deleteAfterUpload.set( config.isDeleteAfterUpload() );
     
     uploadManager.updateConfiguration( context, config );
     synchronized ( protocolWaitLock )
@@ -475,9 +495,8 @@ public class TransferManagerImpl
             // collect available samples
             Logger.getInstance().info(this, "Preparation started.\n"+
                 "Preparing samples: " + gatheringController.getAvailableSampleCount() + "\n" +
-                "Remaining samples: " + (dbManager.getRecordCountInDatabase() - gatheringController.getAvailableSampleCount()) 
+                "Remaining samples: " + (currentRecordCount - gatheringController.getAvailableSampleCount()) 
             );
-            doPickSamplesFromDatabase();
             currentState.set( PREPARATION );
           }
           else
@@ -493,6 +512,11 @@ public class TransferManagerImpl
           {
             currentState.set( TRANSMISSION );
           }
+          else if ( gatheringController.getAvailableSampleCount() <= 0L )
+          {
+            // nothing left to export, start collecting again
+            currentState.set( COLLECTING );
+          }
           break;
         }
         case TRANSMISSION:
@@ -547,6 +571,7 @@ public class TransferManagerImpl
    */
   public void doReactOnUploadError() throws InterruptedException
   {
+    uploadRetries.increment();
     ProtocolStrategy protocolStrategy = uploadManager.getProtocolStrategy();
     Context context = protocolStrategy.getContext();
     
@@ -616,9 +641,20 @@ public class TransferManagerImpl
         Thread.sleep( 2000 );
       }
       String currentArchiveName = fileManager.getCurrentArchive();
+      long time = SystemClock.uptimeMillis();
       if ( uploadManager.uploadFile( currentArchiveName ) )
       {
-        Long fileSize = FileUtils.fileFromPath( currentArchiveName ).length() / 1024;
+        time = Math.max( SystemClock.uptimeMillis() - time, 1L );
+        long byteCount = FileUtils.fileFromPath( currentArchiveName ).length();
+        uploadedBytes.add( byteCount );
+        uploadThroughput.record( byteCount * 1000L / time );
+        Long fileSize = byteCount / 1024;
+        // samples of an acknowledged export are deleted after the upload only
+        if ( dbManager.doExecuteCommand( new AcknowledgeExportCommand() ) == null )
+        {
+          Logger.getInstance().error( this,
+              "Failed to delete the acknowledged samples" );
+        }
         fileManager.doCleanUp( true );
 //        Logger.getInstance().info(
 //            this,
@@ -641,75 +677,54 @@ public class TransferManagerImpl
   }
   
   /**
-   * Does create the archive for transmission
+   * Does create the archive for transmission. The available samples are
+   * streamed from the database directly into the archive and removed from the
+   * database if the archive was created successfully. <br/>
+   * If samples shall be deleted after the upload, they are kept in the
+   * database and the archive is published after the export checkpoint was
+   * stored. Otherwise a crash could leave an archive with samples which are
+   * exported once more.
    * 
    * @return true if successful, false otherwise
    */
   private final boolean doPrepareArchive()
   {
+    long countToExport = gatheringController.getAvailableSampleCount();
+    if ( countToExport <= 0L )
+      return false;
+    
+    final boolean keepSamples = deleteAfterUpload.get();
     long time = SystemClock.uptimeMillis();
-    if ( fileManager.createArchive( currentSamples ) )
-    {
-      currentSamples.clear();
-      time = ( SystemClock.uptimeMillis() - time ) / 1000;
-      Logger.getInstance().debug( this,
-          "archive created in " + time + " s" );
-      return true;
-    }
-    return false;
-  }
-  
-  /**
-   * Does remove available samples from the database.
-   */
-  private final void doPickSamplesFromDatabase()
-  {
-    long countToRemove = gatheringController.getAvailableSampleCount();
+    Long cntExported =
+        dbManager.doExecuteCommand( new ExportSamplesCommand(
+            new SampleExporter()
+            {
+              @Override
+              public boolean exportSamples( Iterator< Sample > samples )
+              {
+                if ( keepSamples )
+                  return fileManager.createPendingArchive( samples );
+                return fileManager.createArchive( samples );
+              }
+            }, countToExport, keepSamples ) );
     
-    if ( countToRemove > 0L )
+    if ( cntExported != null )
     {
-      long time = SystemClock.uptimeMillis();
-      Collection< DatabaseSample > sc = new Vector< DatabaseSample >();
-      RemoveSamplesCommand command =
-          new RemoveSamplesCommand( sc, countToRemove );
-      if ( dbManager.doExecuteCommand( command ) != null )
+      gatheringController.consumAvailableSamples();
+      if ( cntExported > 0L
+          && ( !keepSamples || fileManager.publishPendingArchive() ) )
       {
-        time = ( SystemClock.uptimeMillis() - time ) / 1000;
+        time = SystemClock.uptimeMillis() - time;
+        archiveBuildTime.record( time );
         Logger.getInstance().debug( this,
-            sc.size() + " samples removed from DB in " + time + " s" );
-        
-        addSamples( sc );
-        gatheringController.consumAvailableSamples();
-      }
-    }
-  }
-  
-  /**
-   * Does add a collection of database samples to the current sample collection
-   * for transmission
-   * 
-   * @param samples
-   *          the database sample collection to add to current sample collection
-   */
-  private final void addSamples( Collection< DatabaseSample > samples )
-  {
-    long time = SystemClock.uptimeMillis();
-    for ( DatabaseSample dbSample : samples )
-    {
-      Sample sample = dbSample.toSample();
-      if ( sample != null )
-      {
-        currentSamples.add( sample );
-      }
-      else
-      {
-        Logger.getInstance().error( this,
-            "failed to create sample from database representation" );
+            "archive with {} samples created in {} s", cntExported, time / 1000 );
+        return true;
       }
     }
-    time = ( SystemClock.uptimeMillis() - time ) / 1000;
-    Logger.getInstance().debug( this,
-        samples.size() + " samples converted in " + time + " s" );
+    
+    // do not keep an archive without removed samples
+    fileManager.doCleanUp( true );
+    return false;
   }
   
   /**
@@ -25,6 +25,7 @@ import de.unikassel.android.sdcframework.data.Sample;
 import de.unikassel.android.sdcframework.util.facade.AsynchrounousSampleObserver;
 import de.unikassel.android.sdcframework.util.facade.EventCollector;
 import de.unikassel.android.sdcframework.util.facade.EventObserver;
+import de.unikassel.android.sdcframework.util.facade.Gauge;
 
 /**
  * Abstract base class for asynchronous working sample observer components,
@@ -33,13 +34,17 @@ import de.unikassel.android.sdcframework.util.facade.EventObserver;
  * Main features: <br/>
  * <ul>
  * <li>can be attached as observer for {@linkplain Sample samples},</li>
- * <li>does maintain an {@linkplain EventCollector event collector} to store
- * observed {@linkplain Sample samples} in a thread safe queue for further
- * processing,</li>
+ * <li>does maintain an {@linkplain EventCollector event collector} reading
+ * observed {@linkplain Sample samples} from the shared {@linkplain SampleEventBus
+ * sample event bus} for further processing,</li>
  * <li>does run asynchronously as daemon worker thread,</li>
  * <li>does implement the life cycle object behavior.</li>
  * </ul>
  * 
+ * Observed {@linkplain Sample samples} are retained by the bus, extending types
+ * have to {@linkplain Sample#release() release} them when processed.
+ * <br/>
+ * <br/>
  * Can be extended to implement a specific kind of sample data processing in the
  * {@linkplain #doWork()} method of the thread.
  * 
@@ -54,7 +59,17 @@ public abstract class AbstractAsynchrounousSampleObserver
   /**
    * The internal sample collector to store the observed events
    */
-  protected final EventCollector< Sample > collector;
+  protected final RingBufferEventCollector< Sample > collector;
+  
+  /**
+   * The metric name for the count of queued samples
+   */
+  private final String queueMetricName;
+  
+  /**
+   * The gauge for the count of queued samples
+   */
+  private final Gauge queueGauge;
   
   /**
    * Constructor
@@ -62,7 +77,21 @@ public abstract class AbstractAsynchrounousSampleObserver
   public AbstractAsynchrounousSampleObserver()
   {
     super();
-    this.collector = new EventCollectorImpl< Sample >();
+    this.collector = SampleEventBus.createCollector();
+    this.queueMetricName = "queue." + getClass().getSimpleName();
+    this.queueGauge = new Gauge()
+    {
+      /*
+       * (non-Javadoc)
+       * 
+       * @see de.unikassel.android.sdcframework.util.facade.Gauge#getValue()
+       */
+      @Override
+      public long getValue()
+      {
+        return collector.getEventCount();
+      }
+    };
   }
   
   /*
@@ -111,6 +140,7 @@ public abstract class AbstractAsynchrounousSampleObserver
   @Override
   public void onResume( Context applicationContext )
   {
+    MetricsRegistry.getInstance().registerGauge( queueMetricName, queueGauge );
     startWork();
   }
   
@@ -138,6 +168,9 @@ public abstract class AbstractAsynchrounousSampleObserver
   public void onDestroy( Context applicationContext )
   {
     doTerminate();
+    MetricsRegistry.getInstance().unregisterGauge( queueMetricName,
+        queueGauge );
+    collector.close();
   }
   
 }
@@ -0,0 +1,95 @@
+/*
+ * Copyright (C) 2012, Katy Hilgenberg.
+ * Special acknowledgments to: Knowledge & Data Engineering Group, University of Kassel (http://www.kde.cs.uni-kassel.de).
+ * Contact: sdcf@cs.uni-kassel.de
+ *
+ * This file is part of the SDCFramework (Sensor Data Collection Framework) project.
+ *
+ * The SDCFramework is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The SDCFramework is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the SDCFramework.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.unikassel.android.sdcframework.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A thread safe monotonic counter for the {@linkplain MetricsRegistry metrics
+ * registry}. Counting is lock free and does not allocate.
+ * 
+ * @author Katy Hilgenberg
+ * 
+ */
+public final class Counter
+{
+  /**
+   * The current count
+   */
+  private final AtomicLong count;
+  
+  /**
+   * Constructor
+   */
+  public Counter()
+  {
+    super();
+    this.count = new AtomicLong();
+  }
+  
+  /**
+   * Does increment the counter by one
+   */
+  public final void increment()
+  {
+    count.incrementAndGet();
+  }
+  
+  /**
+   * Does increment the counter
+   * 
+   * @param delta
+   *          the value to add
+   */
+  public final void add( long delta )
+  {
+    count.addAndGet( delta );
+  }
+  
+  /**
+   * Getter for the current count
+   * 
+   * @return the current count
+   */
+  public final long getValue()
+  {
+    return count.get();
+  }
+  
+  /**
+   * Does reset the counter to zero
+   */
+  public final void reset()
+  {
+    count.set( 0L );
+  }
+  
+  /*
+   * (non-Javadoc)
+   * 
+   * @see java.lang.Object#toString()
+   */
+  @Override
+  public String toString()
+  {
+    return String.valueOf( getValue() );
+  }
+}
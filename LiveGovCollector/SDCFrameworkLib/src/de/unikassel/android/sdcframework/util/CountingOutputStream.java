@@ -0,0 +1,172 @@
+/*
+ * Copyright (C) 2012, Katy Hilgenberg.
+ * Special acknowledgments to: Knowledge & Data Engineering Group, University of Kassel (http://www.kde.cs.uni-kassel.de).
+ * Contact: sdcf@cs.uni-kassel.de
+ *
+ * This file is part of the SDCFramework (Sensor Data Collection Framework) project.
+ *
+ * The SDCFramework is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The SDCFramework is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the SDCFramework.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.unikassel.android.sdcframework.util;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Output stream filter to measure a stage of a stream pipeline. It does count
+ * the bytes written through it and the time spent in the wrapped stream (
+ * including all following stages ).
+ * 
+ * @author Katy Hilgenberg
+ * 
+ */
+public class CountingOutputStream
+    extends FilterOutputStream
+{
+  /**
+   * The count of bytes written
+   */
+  private long byteCount;
+  
+  /**
+   * The time spent in the wrapped stream in nanoseconds
+   */
+  private long elapsedNanos;
+  
+  /**
+   * Constructor
+   * 
+   * @param out
+   *          the stream to wrap
+   */
+  public CountingOutputStream( OutputStream out )
+  {
+    super( out );
+    this.byteCount = 0L;
+    this.elapsedNanos = 0L;
+  }
+  
+  /**
+   * Getter for the count of bytes written
+   * 
+   * @return the count of bytes written
+   */
+  public final long getByteCount()
+  {
+    return byteCount;
+  }
+  
+  /**
+   * Getter for the time spent in the wrapped stream
+   * 
+   * @return the time spent in the wrapped stream in nanoseconds
+   */
+  public final long getElapsedNanos()
+  {
+    return elapsedNanos;
+  }
+  
+  /*
+   * (non-Javadoc)
+   * 
+   * @see java.io.FilterOutputStream#write(int)
+   */
+  @Override
+  public void write( int b ) throws IOException
+  {
+    long start = System.nanoTime();
+    try
+    {
+      out.write( b );
+      byteCount++;
+    }
+    finally
+    {
+      elapsedNanos += System.nanoTime() - start;
+    }
+  }
+  
+  /*
+   * (non-Javadoc)
+   * 
+   * @see java.io.FilterOutputStream#write(byte[], int, int)
+   */
+  @Override
+  public void write( byte[] b, int off, int len ) throws IOException
+  {
+    long start = System.nanoTime();
+    try
+    {
+      out.write( b, off, len );
+      byteCount += len;
+    }
+    finally
+    {
+      elapsedNanos += System.nanoTime() - start;
+    }
+  }
+  
+  /*
+   * (non-Javadoc)
+   * 
+   * @see java.io.FilterOutputStream#flush()
+   */
+  @Override
+  public void flush() throws IOException
+  {
+    long start = System.nanoTime();
+    try
+    {
+      out.flush();
+    }
+    finally
+    {
+      elapsedNanos += System.nanoTime() - start;
+    }
+  }
+  
+  /*
+   * (non-Javadoc)
+   * 
+   * @see java.io.FilterOutputStream#close()
+   */
+  @Override
+  public void close() throws IOException
+  {
+    long start = System.nanoTime();
+    try
+    {
+      out.close();
+    }
+    finally
+    {
+      elapsedNanos += System.nanoTime() - start;
+    }
+  }
+  
+  /**
+   * Method to calculate a throughput
+   * 
+   * @param bytes
+   *          the count of bytes processed
+   * @param nanos
+   *          the processing time in nanoseconds
+   * @return the throughput in bytes per second
+   */
+  public static long getThroughput( long bytes, long nanos )
+  {
+    return nanos > 0L ? (long) ( bytes * 1e9 / nanos ) : 0L;
+  }
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright (C) 2012, Katy Hilgenberg.
+ * Special acknowledgments to: Knowledge & Data Engineering Group, University of Kassel (http://www.kde.cs.uni-kassel.de).
+ * Contact: sdcf@cs.uni-kassel.de
+ *
+ * This file is part of the SDCFramework (Sensor Data Collection Framework) project.
+ *
+ * The SDCFramework is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The SDCFramework is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the SDCFramework.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.unikassel.android.sdcframework.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.security.GeneralSecurityException;
+import java.security.InvalidParameterException;
+import java.security.PublicKey;
+
+import de.unikassel.android.sdcframework.util.facade.Encryption;
+import de.unikassel.android.sdcframework.util.facade.FileEncryptionStrategy;
+
+/**
+ * Implementation of the hybrid file encryption strategy. <br/>
+ * <br/>
+ * The file is encrypted with a random AES session key, which is wrapped with
+ * the public RSA key ( compare
+ * {@link Encryption#encryptHybrid(PublicKey, File, File)} ). This is much
+ * cheaper than the {@linkplain RSAFileEncryptionStrategy pure RSA encryption}
+ * for larger archives.
+ * 
+ * @author Katy Hilgenberg
+ * 
+ */
+public class HybridFileEncryptionStrategy
+    implements FileEncryptionStrategy
+{
+  /**
+   * The public key for encryption
+   */
+  private final PublicKey key;
+  
+  /**
+   * Constructor
+   * 
+   * @param key
+   *          the public key for encryption
+   */
+  public HybridFileEncryptionStrategy( PublicKey key )
+  {
+    if ( key == null )
+      throw new InvalidParameterException( "public key can not be null" );
+    this.key = key;
+  }
+  
+  /*
+   * (non-Javadoc)
+   * 
+   * @see de.unikassel.android.sdcframework.util.facade.FileEncryptionStrategy#
+   * encryptFile(java.io.File, java.io.File)
+   */
+  @Override
+  public boolean encryptFile( File srcFile, File destFile )
+  {
+    return Encryption.encryptHybrid( key, srcFile, destFile );
+  }
+  
+  /*
+   * (non-Javadoc)
+   * 
+   * @see de.unikassel.android.sdcframework.util.facade.FileEncryptionStrategy#
+   * openEncryptedStream(java.io.OutputStream)
+   */
+  @Override
+  public OutputStream openEncryptedStream( OutputStream out )
+      throws IOException
+  {
+    try
+    {
+      return Encryption.createHybridOutputStream( key, out );
+    }
+    catch ( GeneralSecurityException e )
+    {
+      throw new IOException( e.getMessage() );
+    }
+  }
+  
+  /*
+   * (non-Javadoc)
+   * 
+   * @see de.unikassel.android.sdcframework.util.facade.FileEncryptionStrategy#
+   * getAlgorithmLetterCode()
+   */
+  @Override
+  public String getAlgorithmLetterCode()
+  {
+    return "aes";
+  }
+  
+}
@@ -0,0 +1,284 @@
+/*
+ * Copyright (C) 2012, Katy Hilgenberg.
+ * Special acknowledgments to: Knowledge & Data Engineering Group, University of Kassel (http://www.kde.cs.uni-kassel.de).
+ * Contact: sdcf@cs.uni-kassel.de
+ *
+ * This file is part of the SDCFramework (Sensor Data Collection Framework) project.
+ *
+ * The SDCFramework is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The SDCFramework is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the SDCFramework.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.unikassel.android.sdcframework.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A thread safe histogram for latencies and sizes with a fixed memory
+ * footprint ( similar to a HDR histogram with one significant digit ). <br/>
+ * <br/>
+ * Values below 32 are counted exactly, larger values are counted in 16 linear
+ * sub buckets per power of two, which limits the relative error of reported
+ * percentiles to 1/16. Values larger than {@linkplain #MAX_VALUE} are counted
+ * as maximum value. Recording is lock free and does not allocate, so it is
+ * cheap enough to stay enabled in production.
+ * 
+ * @author Katy Hilgenberg
+ * 
+ */
+public final class LatencyHistogram
+{
+  /**
+   * The count of bits for the sub buckets per power of two
+   */
+  private static final int SUB_BUCKET_BITS = 4;
+  
+  /**
+   * The count of sub buckets per power of two
+   */
+  private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+  
+  /**
+   * The count of bits for the largest value which can be recorded
+   */
+  private static final int VALUE_BITS = 40;
+  
+  /**
+   * The largest value which can be recorded
+   */
+  public static final long MAX_VALUE = ( 1L << VALUE_BITS ) - 1;
+  
+  /**
+   * The count of buckets
+   */
+  private static final int BUCKET_COUNT =
+      ( VALUE_BITS - SUB_BUCKET_BITS + 1 ) * SUB_BUCKET_COUNT;
+  
+  /**
+   * The unit of the recorded values
+   */
+  private final String unit;
+  
+  /**
+   * The bucket counts
+   */
+  private final AtomicLongArray buckets;
+  
+  /**
+   * The count of recorded values
+   */
+  private final AtomicLong count;
+  
+  /**
+   * The sum of recorded values
+   */
+  private final AtomicLong sum;
+  
+  /**
+   * The largest recorded value
+   */
+  private final AtomicLong max;
+  
+  /**
+   * Constructor
+   * 
+   * @param unit
+   *          the unit of the recorded values
+   */
+  public LatencyHistogram( String unit )
+  {
+    super();
+    this.unit = unit;
+    this.buckets = new AtomicLongArray( BUCKET_COUNT );
+    this.count = new AtomicLong();
+    this.sum = new AtomicLong();
+    this.max = new AtomicLong();
+  }
+  
+  /**
+   * Getter for the unit of the recorded values
+   * 
+   * @return the unit of the recorded values
+   */
+  public final String getUnit()
+  {
+    return unit;
+  }
+  
+  /**
+   * Does record a value. Negative values are recorded as zero.
+   * 
+   * @param value
+   *          the value to record
+   */
+  public final void record( long value )
+  {
+    if ( value < 0L )
+    {
+      value = 0L;
+    }
+    else if ( value > MAX_VALUE )
+    {
+      value = MAX_VALUE;
+    }
+    buckets.incrementAndGet( indexOf( value ) );
+    count.incrementAndGet();
+    sum.addAndGet( value );
+    
+    long current = max.get();
+    while ( value > current && !max.compareAndSet( current, value ) )
+    {
+      current = max.get();
+    }
+  }
+  
+  /**
+   * Getter for the count of recorded values
+   * 
+   * @return the count of recorded values
+   */
+  public final long getCount()
+  {
+    return count.get();
+  }
+  
+  /**
+   * Getter for the sum of recorded values
+   * 
+   * @return the sum of recorded values
+   */
+  public final long getSum()
+  {
+    return sum.get();
+  }
+  
+  /**
+   * Getter for the largest recorded value
+   * 
+   * @return the largest recorded value, or zero if none has been recorded
+   */
+  public final long getMax()
+  {
+    return max.get();
+  }
+  
+  /**
+   * Getter for the mean of recorded values
+   * 
+   * @return the mean of recorded values, or zero if none has been recorded
+   */
+  public final long getMean()
+  {
+    long cnt = count.get();
+    return cnt == 0L ? 0L : sum.get() / cnt;
+  }
+  
+  /**
+   * Getter for a percentile of the recorded values
+   * 
+   * @param percent
+   *          the percentile in the range ( 0, 100 ]
+   * @return the upper bound of the bucket containing the percentile, or zero
+   *         if none has been recorded
+   */
+  public final long getValueAtPercentile( double percent )
+  {
+    long cnt = count.get();
+    if ( cnt == 0L )
+    {
+      return 0L;
+    }
+    long target = (long) Math.ceil( cnt * Math.min( percent, 100. ) / 100. );
+    target = Math.max( target, 1L );
+    
+    long cumulated = 0L;
+    for ( int i = 0; i < BUCKET_COUNT; ++i )
+    {
+      cumulated += buckets.get( i );
+      if ( cumulated >= target )
+      {
+        return Math.min( upperBoundOf( i ), getMax() );
+      }
+    }
+    return getMax();
+  }
+  
+  /**
+   * Does reset the histogram
+   */
+  public final void reset()
+  {
+    for ( int i = 0; i < BUCKET_COUNT; ++i )
+    {
+      buckets.set( i, 0L );
+    }
+    count.set( 0L );
+    sum.set( 0L );
+    max.set( 0L );
+  }
+  
+  /**
+   * Method to determine the bucket index for a value
+   * 
+   * @param value
+   *          the value in the range [ 0, {@linkplain #MAX_VALUE} ]
+   * @return the bucket index
+   */
+  static int indexOf( long value )
+  {
+    if ( value < SUB_BUCKET_COUNT )
+    {
+      return (int) value;
+    }
+    int shift = 63 - Long.numberOfLeadingZeros( value ) - SUB_BUCKET_BITS;
+    return ( shift + 1 ) * SUB_BUCKET_COUNT
+        + (int) ( ( value >>> shift ) - SUB_BUCKET_COUNT );
+  }
+  
+  /**
+   * Method to determine the largest value counted in a bucket
+   * 
+   * @param index
+   *          the bucket index
+   * @return the largest value counted in the bucket
+   */
+  static long upperBoundOf( int index )
+  {
+    if ( index < 2 * SUB_BUCKET_COUNT )
+    {
+      return index;
+    }
+    int shift = index / SUB_BUCKET_COUNT - 1;
+    long top = index % SUB_BUCKET_COUNT + SUB_BUCKET_COUNT;
+    return ( ( top + 1 ) << shift ) - 1;
+  }
+  
+  /*
+   * (non-Javadoc)
+   * 
+   * @see java.lang.Object#toString()
+   */
+  @Override
+  public String toString()
+  {
+    StringBuffer buffer = new StringBuffer();
+    buffer.append( "count=" ).append( getCount() );
+    buffer.append( " mean=" ).append( getMean() );
+    buffer.append( " p50=" ).append( getValueAtPercentile( 50. ) );
+    buffer.append( " p90=" ).append( getValueAtPercentile( 90. ) );
+    buffer.append( " p99=" ).append( getValueAtPercentile( 99. ) );
+    buffer.append( " max=" ).append( getMax() );
+    buffer.append( " " ).append( unit );
+    return buffer.toString();
+  }
+}
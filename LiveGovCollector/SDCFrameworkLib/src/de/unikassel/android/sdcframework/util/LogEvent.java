@@ -26,7 +26,12 @@ import de.unikassel.android.sdcframework.util.facade.LogLevel;
 import de.unikassel.android.sdcframework.util.facade.ObservableEvent;
 
 /**
- * The observable Log event.
+ * The observable Log event. <br/>
+ * <br/>
+ * Events created by the {@linkplain Logger} do keep the message pattern, the
+ * source class and the arguments, the message is formatted on first access by
+ * the log dispatcher thread. The "{}" placeholders of the pattern are replaced
+ * by the arguments in order.
  * 
  * @see Logger
  * @author Katy Hilgenberg
@@ -61,9 +66,24 @@ public final class LogEvent implements ObservableEvent, BroadcastableEvent
   private final long timeStamp;
   
   /**
-   * The log message
+   * The log message, formatted on first access if created from a pattern
    */
-  private final String message;
+  private String message;
+  
+  /**
+   * The class of the source object, or null
+   */
+  private final Class< ? > sourceClass;
+  
+  /**
+   * The message pattern, or null if the message is given
+   */
+  private final String pattern;
+  
+  /**
+   * The pattern arguments, or null
+   */
+  private final Object[] args;
   
   /**
    * The log level
@@ -95,6 +115,35 @@ public final class LogEvent implements ObservableEvent, BroadcastableEvent
     this.message = message;
     this.logLevel = logLevel;
     this.timeStamp = timeStamp;
+    this.sourceClass = null;
+    this.pattern = null;
+    this.args = null;
+  }
+  
+  /**
+   * Constructor for a message formatted on first access
+   * 
+   * @param source
+   *          the source object, the message is prefixed with its class name
+   *          if not null
+   * @param logLevel
+   *          the log level
+   * @param timeStamp
+   *          the time stamp
+   * @param pattern
+   *          the message pattern with "{}" placeholders for the arguments
+   * @param args
+   *          the arguments, which must not be changed afterwards, or null
+   */
+  public LogEvent( Object source, LogLevel logLevel, long timeStamp,
+      String pattern, Object[] args )
+  {
+    super();
+    this.logLevel = logLevel;
+    this.timeStamp = timeStamp;
+    this.sourceClass = source != null ? source.getClass() : null;
+    this.pattern = pattern;
+    this.args = args;
   }
   
   /**
@@ -118,6 +167,9 @@ public final class LogEvent implements ObservableEvent, BroadcastableEvent
       this.logLevel = null;
       this.timeStamp = 0L;
     }
+    this.sourceClass = null;
+    this.pattern = null;
+    this.args = null;
   }
   
   /**
@@ -127,9 +179,48 @@ public final class LogEvent implements ObservableEvent, BroadcastableEvent
    */
   public String getMessage()
   {
+    // formatting twice by concurrent readers is harmless
+    if ( message == null && pattern != null )
+    {
+      message = format( sourceClass, pattern, args );
+    }
     return message;
   }
   
+  /**
+   * Method to format a message
+   * 
+   * @param sourceClass
+   *          the class of the source object, or null
+   * @param pattern
+   *          the message pattern with "{}" placeholders for the arguments
+   * @param args
+   *          the arguments, or null
+   * @return the formatted message
+   */
+  public static final String format( Class< ? > sourceClass, String pattern,
+      Object[] args )
+  {
+    StringBuffer buffer = new StringBuffer( pattern.length() + 32 );
+    if ( sourceClass != null )
+    {
+      buffer.append( sourceClass.getSimpleName() ).append( ": " );
+    }
+    int start = 0;
+    if ( args != null )
+    {
+      for ( Object arg : args )
+      {
+        int index = pattern.indexOf( "{}", start );
+        if ( index < 0 )
+          break;
+        buffer.append( pattern, start, index ).append( arg );
+        start = index + 2;
+      }
+    }
+    return buffer.append( pattern, start, pattern.length() ).toString();
+  }
+  
   /**
    * Getter for the log level
    * 
@@ -20,13 +20,17 @@
  */
 package de.unikassel.android.sdcframework.util;
 
+import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import android.content.Context;
 import android.os.Environment;
@@ -42,7 +46,11 @@ import de.unikassel.android.sdcframework.util.facade.EventObserver;
 import de.unikassel.android.sdcframework.util.facade.ObservableEventSource;
 
 /**
- * A worker thread to realize a the global log file handling.
+ * A worker thread to realize a the global log file handling. <br/>
+ * <br/>
+ * The queued log events are appended in batches to the log file of their day,
+ * which is kept open until the day changes. The date is formatted once per
+ * file, the time of each event without any date formatter.
  * 
  * @author Katy Hilgenberg
  * 
@@ -59,6 +67,16 @@ public final class LogfileManager
    */
   private static final long TERMINATION_DELAY = 30000L;
   
+  /**
+   * The maximum count of log events written in one batch
+   */
+  private static final int BATCH_SIZE = 512;
+  
+  /**
+   * The buffer size of the log file writer
+   */
+  private static final int BUFFER_SIZE = 8192;
+  
   /**
    * The log file name
    */
@@ -87,6 +105,32 @@ public final class LogfileManager
    */
   private final ConcurrentLinkedQueue< String > transferFiles;
   
+  /**
+   * The writer for the current log file, used by the worker thread only
+   */
+  private Writer logWriter;
+  
+  /**
+   * The start of the day of the current log file
+   */
+  private long logFileDay;
+  
+  /**
+   * The date of the current log file
+   */
+  private String logFileDate;
+  
+  /**
+   * The buffer for the formatted log lines
+   */
+  private final StringBuffer line;
+  
+  /**
+   * Flag to reopen the current log file before the next write ( e.g. after it
+   * was deleted )
+   */
+  private final AtomicBoolean reopen;
+  
   /**
    * The strategy implementing the protocol
    */
@@ -179,6 +223,8 @@ public final class LogfileManager
     this.uuid = uuid;
     this.logEvents = new ConcurrentLinkedQueue< LogEvent >();
     transferFiles = new ConcurrentLinkedQueue< String >();
+    this.line = new StringBuffer( 256 );
+    this.reopen = new AtomicBoolean();
     this.protocolStrategy = null;
     this.connectionStrategy = null;
     this.alarm = AlarmBuilder.createAlarm( this, context );
@@ -228,6 +274,14 @@ public final class LogfileManager
   @Override
   protected final void doCleanUp()
   {
+    // write the remaining log events
+    LogEvent event = logEvents.poll();
+    if ( event != null && isExternalStorageAvailable() )
+    {
+      saveLogEvents( event );
+    }
+    closeLogFile();
+    
     alarm.cancelAlarm();
     alarm.unregisterEventObserver( this );
     alarm.onPause( context );
@@ -242,21 +296,20 @@ public final class LogfileManager
   @Override
   protected final void doWork()
   {
-    // process log event if available
+    // process log events if available
     LogEvent event = logEvents.poll();
     
     if ( event != null )
     {
       // just empty queue as long as external storage is not available
-      while ( !isExternalStorageAvailable() && !logEvents.isEmpty() )
+      if ( isExternalStorageAvailable() )
       {
-        event = logEvents.remove();
+        saveLogEvents( event );
       }
-      
-      if ( !saveLogEvent( event ) )
+      else
       {
-        Logger.getInstance().error( this,
-            "Failed to save log event: " + event.getLongMessage() );
+        logEvents.clear();
+        closeLogFile();
       }
       
       if ( !transferFiles.isEmpty() && isConfigured() )
@@ -282,44 +335,94 @@ public final class LogfileManager
   }
   
   /**
-   * Me6thod to save a log event
+   * Method to save the queued log events in one batch
    * 
-   * @param event
-   *          the log event to save to file
-   * @return true if successful, false otherwise
+   * @param first
+   *          the first log event, already taken from the queue
    */
-  private boolean saveLogEvent( LogEvent event )
+  private void saveLogEvents( LogEvent first )
   {
-    String msg = event.getLongMessage() + '\n';
-    
-    FileOutputStream fos = null;
+    LogEvent event = first;
+    int cnt = 0;
     try
     {
-      File logFile =
-          getLogFile( TimeProvider.getUTCDayTimeMillis( event.getTimeStamp() ) );
-      fos = new FileOutputStream( logFile, true );
-      fos.write( msg.getBytes() );
-      fos.flush();
-      return true;
+      do
+      {
+        saveLogEvent( event );
+      }
+      while ( ++cnt < BATCH_SIZE && ( event = logEvents.poll() ) != null );
+      logWriter.flush();
     }
     catch ( Exception e )
     {
+      closeLogFile();
       Logger.getInstance().error( this,
-          "Exception in saveLogEvent: " + e.getMessage() );
+          "Failed to save log events: " + e.getMessage() );
     }
-    finally
+  }
+  
+  /**
+   * Method to append a log event to the log file of its day
+   * 
+   * @param event
+   *          the log event to save to file
+   * @throws IOException
+   *           if writing fails
+   */
+  private void saveLogEvent( LogEvent event ) throws IOException
+  {
+    long ts = event.getTimeStamp();
+    if ( logWriter == null || ts < logFileDay
+        || ts >= logFileDay + TimeProvider.DAY_MILLIS || reopen.get() )
     {
-      if ( fos != null )
+      openLogFile( TimeProvider.getUTCDayTimeMillis( ts ) );
+    }
+    
+    // same format as LogEvent.getLongMessage
+    line.setLength( 0 );
+    line.append( logFileDate ).append( ' ' );
+    TimeProvider.appendUTCTimeOfDay( line, ts );
+    line.append( "\t<" ).append( event.getLogLevel().toString().charAt( 0 ) );
+    line.append( ">: " ).append( event.getMessage() ).append( '\n' );
+    logWriter.append( line );
+  }
+  
+  /**
+   * Method to open the log file of a day for appending
+   * 
+   * @param day
+   *          the start of the day
+   * @throws IOException
+   *           if the file can not be opened
+   */
+  private void openLogFile( long day ) throws IOException
+  {
+    closeLogFile();
+    reopen.set( false );
+    String date = TimeProvider.toUTCDate( day );
+    File logFile = getLogFile( date );
+    logWriter =
+        new BufferedWriter( new OutputStreamWriter( new FileOutputStream(
+            logFile, true ) ), BUFFER_SIZE );
+    logFileDay = day;
+    logFileDate = date;
+  }
+  
+  /**
+   * Method to close the current log file
+   */
+  private void closeLogFile()
+  {
+    if ( logWriter != null )
+    {
+      try
       {
-        try
-        {
-          fos.close();
-        }
-        catch ( IOException e )
-        {}
+        logWriter.close();
       }
+      catch ( IOException e )
+      {}
+      logWriter = null;
     }
-    return false;
   }
   
   /**
@@ -331,6 +434,19 @@ public final class LogfileManager
    * @throws IOException
    */
   protected final File getLogFile( long ts ) throws IOException
+  {
+    return getLogFile( TimeProvider.toUTCDate( ts ) );
+  }
+  
+  /**
+   * Getter for the log file of a date
+   * 
+   * @param date
+   *          the date
+   * @return the log file if accessible
+   * @throws IOException
+   */
+  private final File getLogFile( String date ) throws IOException
   {
     if ( !isExternalStorageAvailable() )
     {
@@ -343,8 +459,7 @@ public final class LogfileManager
       // try to access the expected log file
       File file =
           FileUtils.fileFromPath( new StringBuffer( STORAGE_DIR ).append(
-              FILE_NAME ).append(
-              TimeProvider.toUTCDate( ts ) ).toString() );
+              FILE_NAME ).append( date ).toString() );
       if ( !file.exists() )
       {
         // new log file will be created -> mark older files for transfer
@@ -485,6 +600,11 @@ public final class LogfileManager
           file.delete();
         }
       }
+      if ( instance != null )
+      {
+        // a deleted current log file has to be created again
+        instance.reopen.set( true );
+      }
     }
   }
   
@@ -20,6 +20,8 @@
  */
 package de.unikassel.android.sdcframework.util;
 
+import java.util.List;
+import java.util.Vector;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import de.unikassel.android.sdcframework.util.facade.LogLevel;
@@ -33,8 +35,17 @@ import android.util.Log;
  * and the corresponding {@linkplain LogLevel log level}.
  * 
  * <br/>
- * Any message above the current log level will be sent to registered observers
- * as {@link LogEvent}. <br/>
+ * Messages above the current log level are discarded by the calling thread,
+ * before any formatting, any other message will be sent to registered
+ * observers as {@link LogEvent}. <br/>
+ * <br/>
+ * The log methods do not lock the logger: the events are published to a
+ * {@linkplain RingBuffer ring buffer} and dispatched in batches by the logger
+ * thread, which does format the messages as well. Messages can be given as
+ * pattern with "{}" placeholders for the arguments, e.g.
+ * <code>debug( this, "{} samples stored", count )</code>, to avoid the string
+ * concatenation in the calling thread. If the dispatcher falls behind by more
+ * than the ring buffer capacity, the oldest events are lost and counted. <br/>
  * <br/>
  * 
  * @author Katy Hilgenberg
@@ -47,10 +58,35 @@ public final class Logger extends EventDispatcherImpl< LogEvent >
    */
   private final static String TAG = "SDCService";
   
+  /**
+   * The capacity of the log event ring buffer
+   */
+  private final static int CAPACITY = 4096;
+  
+  /**
+   * The maximum count of log events dispatched in one batch
+   */
+  private final static int BATCH_SIZE = 256;
+  
   /**
    * out current log level
    */
-  private LogLevel logLevel;
+  private volatile LogLevel logLevel;
+  
+  /**
+   * The log event collector
+   */
+  private final RingBufferEventCollector< LogEvent > logCollector;
+  
+  /**
+   * The batch of log events dispatched, used by the logger thread only
+   */
+  private final List< LogEvent > batch;
+  
+  /**
+   * The count of lost log events already reported
+   */
+  private long cntReportedLost;
   
   /**
    * Flag for redirection to Android log
@@ -96,7 +132,21 @@ public final class Logger extends EventDispatcherImpl< LogEvent >
    */
   private Logger()
   {
-    super( new EventCollectorImpl< LogEvent >() );
+    this( new RingBufferEventCollector< LogEvent >( new RingBuffer< LogEvent >(
+        CAPACITY ) ) );
+  }
+  
+  /**
+   * Constructor
+   * 
+   * @param collector
+   *          the log event collector
+   */
+  private Logger( RingBufferEventCollector< LogEvent > collector )
+  {
+    super( collector );
+    this.logCollector = collector;
+    this.batch = new Vector< LogEvent >( BATCH_SIZE );
     isRedirectingToAndroidLog = new AtomicBoolean( true );
     setLogLevel( LogLevel.DEBUG );
     // avoid recursion by disabling the logging feature of the dispatch worker
@@ -110,7 +160,7 @@ public final class Logger extends EventDispatcherImpl< LogEvent >
    * @param logLevel
    *          the logLevel to set
    */
-  public final synchronized void setLogLevel( LogLevel logLevel )
+  public final void setLogLevel( LogLevel logLevel )
   {
     this.logLevel = logLevel;
   }
@@ -120,11 +170,24 @@ public final class Logger extends EventDispatcherImpl< LogEvent >
    * 
    * @return the logLevel
    */
-  public final synchronized LogLevel getLogLevel()
+  public final LogLevel getLogLevel()
   {
     return logLevel;
   }
   
+  /**
+   * Test method for messages of a log level to be logged
+   * 
+   * @param logLevel
+   *          the log level
+   * @return true if messages of the log level are logged with the current log
+   *         level, false if they are discarded
+   */
+  public final boolean isLoggable( LogLevel logLevel )
+  {
+    return logLevel.ordinal() <= this.logLevel.ordinal();
+  }
+  
   /**
    * Setter for the isRedirectingToAndroidLog flag
    * 
@@ -160,13 +223,28 @@ public final class Logger extends EventDispatcherImpl< LogEvent >
   public final static LogEvent toLogEvent( Object src, LogLevel logLevel,
       String msg )
   {
-    String message = msg;
-    if ( src != null )
-    {
-      message = src.getClass().getSimpleName() + ": " + msg;
-    }
-    return new LogEvent( message, logLevel,
-        TimeProvider.getInstance().getTimeStamp() );
+    return toLogEvent( src, logLevel, msg, null );
+  }
+  
+  /**
+   * Does create a log event with a message formatted on first access
+   * 
+   * @param src
+   *          the source object
+   * @param logLevel
+   *          the log level
+   * @param pattern
+   *          the message pattern with "{}" placeholders for the arguments
+   * @param args
+   *          the arguments or null
+   * @return a log event
+   */
+  public final static LogEvent toLogEvent( Object src, LogLevel logLevel,
+      String pattern, Object[] args )
+  {
+    return new LogEvent( src, logLevel,
+        TimeProvider.getInstance().getTimeStamp(), String.valueOf( pattern ),
+        args );
   }
   
   /**
@@ -248,10 +326,13 @@ public final class Logger extends EventDispatcherImpl< LogEvent >
    * @param msg
    *          the message
    */
-  private final void enqueue( Object src, LogLevel logLevel, String msg )
+  private final void enqueue( Object src, LogLevel logLevel, String msg,
+      Object[] args )
   {
-    LogEvent logEvent = toLogEvent( src, logLevel, msg );
-    getCollector().enqueue( logEvent );
+    if ( isLoggable( logLevel ) )
+    {
+      logCollector.enqueue( toLogEvent( src, logLevel, msg, args ) );
+    }
   }
   
   /*
@@ -264,32 +345,42 @@ public final class Logger extends EventDispatcherImpl< LogEvent >
   {
     try
     {
-      // take event from queue, redirect it to Log and notify observers
-      LogEvent event = getCollector().dequeue();
+      // take the available events, write them to the log file, redirect them
+      // to Log and notify observers
+      batch.add( logCollector.dequeue() );
+      logCollector.dequeue( batch, BATCH_SIZE - 1 );
       
-      writeToLogfile(event);
-      redirectToAndroidLog( event );
-      if ( event.getLogLevel().ordinal() <= getLogLevel().ordinal() )
+      LogfileManager logManager = LogfileManager.getInstance();
+      for ( LogEvent event : batch )
       {
-        notify( event );
+        if ( logManager != null )
+        {
+          logManager.addLogEvent( event );
+        }
+        redirectToAndroidLog( event );
+        if ( isLoggable( event.getLogLevel() ) )
+        {
+          notify( event );
+        }
       }
     }
     catch ( InterruptedException e )
     {}
-  }
-  
-  /**
-   * @param event
-   */
-  private void writeToLogfile( LogEvent event )
-  {
-    LogfileManager logManager = LogfileManager.getInstance();
-    if ( logManager != null )
+    finally
     {
-      logManager.addLogEvent( event );
+      batch.clear();
+    }
+    
+    long cntLost = logCollector.getLostCount();
+    if ( cntLost > cntReportedLost )
+    {
+      enqueue( this, LogLevel.WARNING, "{} log events lost", new Object[] {
+          cntLost - cntReportedLost
+      } );
+      cntReportedLost = cntLost;
     }
   }
-
+  
   /**
    * Does log a debug message
    * 
@@ -298,9 +389,24 @@ public final class Logger extends EventDispatcherImpl< LogEvent >
    * @param msg
    *          the message
    */
-  public final synchronized void debug( Object src, String msg )
+  public final void debug( Object src, String msg )
   {
-    enqueue( src, LogLevel.DEBUG, msg );
+    enqueue( src, LogLevel.DEBUG, msg, null );
+  }
+  
+  /**
+   * Does log a debug message formatted by the logger thread
+   * 
+   * @param src
+   *          the message source object
+   * @param pattern
+   *          the message pattern with "{}" placeholders for the arguments
+   * @param args
+   *          the arguments, which must not be changed afterwards
+   */
+  public final void debug( Object src, String pattern, Object... args )
+  {
+    enqueue( src, LogLevel.DEBUG, pattern, args );
   }
   
   /**
@@ -311,9 +417,24 @@ public final class Logger extends EventDispatcherImpl< LogEvent >
    * @param msg
    *          the message
    */
-  public final synchronized void info( Object src, String msg )
+  public final void info( Object src, String msg )
+  {
+    enqueue( src, LogLevel.INFO, msg, null );
+  }
+  
+  /**
+   * Does log an info message formatted by the logger thread
+   * 
+   * @param src
+   *          the message source object
+   * @param pattern
+   *          the message pattern with "{}" placeholders for the arguments
+   * @param args
+   *          the arguments, which must not be changed afterwards
+   */
+  public final void info( Object src, String pattern, Object... args )
   {
-    enqueue( src, LogLevel.INFO, msg );
+    enqueue( src, LogLevel.INFO, pattern, args );
   }
   
   /**
@@ -324,9 +445,24 @@ public final class Logger extends EventDispatcherImpl< LogEvent >
    * @param msg
    *          the message
    */
-  public final synchronized void warning( Object src, String msg )
+  public final void warning( Object src, String msg )
+  {
+    enqueue( src, LogLevel.WARNING, msg, null );
+  }
+  
+  /**
+   * Does log a warning message formatted by the logger thread
+   * 
+   * @param src
+   *          the message source object
+   * @param pattern
+   *          the message pattern with "{}" placeholders for the arguments
+   * @param args
+   *          the arguments, which must not be changed afterwards
+   */
+  public final void warning( Object src, String pattern, Object... args )
   {
-    enqueue( src, LogLevel.WARNING, msg );
+    enqueue( src, LogLevel.WARNING, pattern, args );
   }
   
   /**
@@ -337,8 +473,23 @@ public final class Logger extends EventDispatcherImpl< LogEvent >
    * @param msg
    *          the message
    */
-  public final synchronized void error( Object src, String msg )
+  public final void error( Object src, String msg )
+  {
+    enqueue( src, LogLevel.ERROR, msg, null );
+  }
+  
+  /**
+   * Does log an error message formatted by the logger thread
+   * 
+   * @param src
+   *          the message source object
+   * @param pattern
+   *          the message pattern with "{}" placeholders for the arguments
+   * @param args
+   *          the arguments, which must not be changed afterwards
+   */
+  public final void error( Object src, String pattern, Object... args )
   {
-    enqueue( src, LogLevel.ERROR, msg );
+    enqueue( src, LogLevel.ERROR, pattern, args );
   }
 }
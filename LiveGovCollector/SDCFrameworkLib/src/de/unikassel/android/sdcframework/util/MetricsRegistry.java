@@ -0,0 +1,211 @@
+/*
+ * Copyright (C) 2012, Katy Hilgenberg.
+ * Special acknowledgments to: Knowledge & Data Engineering Group, University of Kassel (http://www.kde.cs.uni-kassel.de).
+ * Contact: sdcf@cs.uni-kassel.de
+ *
+ * This file is part of the SDCFramework (Sensor Data Collection Framework) project.
+ *
+ * The SDCFramework is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The SDCFramework is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the SDCFramework.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.unikassel.android.sdcframework.util;
+
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import de.unikassel.android.sdcframework.util.facade.Gauge;
+
+/**
+ * The global registry for the pipeline metrics of the framework. <br/>
+ * <br/>
+ * It does maintain named
+ * <ul>
+ * <li>{@linkplain Counter counters} for event counts and byte totals,</li>
+ * <li>{@linkplain LatencyHistogram histograms} for latencies and sizes,</li>
+ * <li>{@linkplain Gauge gauges} for current values like queue depths.</li>
+ * </ul>
+ * Components should look up their metrics once and keep the references, as
+ * recording does not touch the registry. The {@linkplain #dump() dump} is
+ * provided to clients by the service interface.
+ * 
+ * @author Katy Hilgenberg
+ * 
+ */
+public final class MetricsRegistry
+{
+  /**
+   * The global registry instance
+   */
+  private static final MetricsRegistry instance = new MetricsRegistry();
+  
+  /**
+   * The counters
+   */
+  private final ConcurrentMap< String, Counter > counters;
+  
+  /**
+   * The histograms
+   */
+  private final ConcurrentMap< String, LatencyHistogram > histograms;
+  
+  /**
+   * The gauges
+   */
+  private final ConcurrentMap< String, Gauge > gauges;
+  
+  /**
+   * Getter for the global registry instance
+   * 
+   * @return the global registry instance
+   */
+  public static MetricsRegistry getInstance()
+  {
+    return instance;
+  }
+  
+  /**
+   * Constructor
+   */
+  private MetricsRegistry()
+  {
+    super();
+    this.counters = new ConcurrentHashMap< String, Counter >();
+    this.histograms = new ConcurrentHashMap< String, LatencyHistogram >();
+    this.gauges = new ConcurrentHashMap< String, Gauge >();
+  }
+  
+  /**
+   * Getter for a counter, which is created on first request
+   * 
+   * @param name
+   *          the metric name
+   * @return the counter for the name
+   */
+  public final Counter getCounter( String name )
+  {
+    Counter counter = counters.get( name );
+    if ( counter == null )
+    {
+      Counter newCounter = new Counter();
+      counter = counters.putIfAbsent( name, newCounter );
+      if ( counter == null )
+      {
+        counter = newCounter;
+      }
+    }
+    return counter;
+  }
+  
+  /**
+   * Getter for a histogram, which is created on first request
+   * 
+   * @param name
+   *          the metric name
+   * @param unit
+   *          the unit of the recorded values, used if the histogram is
+   *          created
+   * @return the histogram for the name
+   */
+  public final LatencyHistogram getHistogram( String name, String unit )
+  {
+    LatencyHistogram histogram = histograms.get( name );
+    if ( histogram == null )
+    {
+      LatencyHistogram newHistogram = new LatencyHistogram( unit );
+      histogram = histograms.putIfAbsent( name, newHistogram );
+      if ( histogram == null )
+      {
+        histogram = newHistogram;
+      }
+    }
+    return histogram;
+  }
+  
+  /**
+   * Does register a gauge, an existing gauge with the same name is replaced
+   * 
+   * @param name
+   *          the metric name
+   * @param gauge
+   *          the gauge to register
+   */
+  public final void registerGauge( String name, Gauge gauge )
+  {
+    gauges.put( name, gauge );
+  }
+  
+  /**
+   * Does unregister a gauge
+   * 
+   * @param name
+   *          the metric name
+   * @param gauge
+   *          the gauge to unregister, it is kept if the name has been
+   *          registered for another gauge meanwhile
+   */
+  public final void unregisterGauge( String name, Gauge gauge )
+  {
+    gauges.remove( name, gauge );
+  }
+  
+  /**
+   * Does reset all counters and histograms. Gauges are kept, as they do
+   * report current values.
+   */
+  public final void reset()
+  {
+    for ( Counter counter : counters.values() )
+    {
+      counter.reset();
+    }
+    for ( LatencyHistogram histogram : histograms.values() )
+    {
+      histogram.reset();
+    }
+  }
+  
+  /**
+   * Does create a text report of all metrics, one line per metric sorted by
+   * name
+   * 
+   * @return the metrics report
+   */
+  public final String dump()
+  {
+    Map< String, String > lines = new TreeMap< String, String >();
+    for ( Entry< String, Counter > entry : counters.entrySet() )
+    {
+      lines.put( entry.getKey(), entry.getValue().toString() );
+    }
+    for ( Entry< String, LatencyHistogram > entry : histograms.entrySet() )
+    {
+      lines.put( entry.getKey(), entry.getValue().toString() );
+    }
+    for ( Entry< String, Gauge > entry : gauges.entrySet() )
+    {
+      lines.put( entry.getKey(),
+          String.valueOf( entry.getValue().getValue() ) );
+    }
+    
+    StringBuffer buffer = new StringBuffer();
+    for ( Entry< String, String > line : lines.entrySet() )
+    {
+      buffer.append( line.getKey() ).append( ": " ).append( line.getValue() ).append(
+          '\n' );
+    }
+    return buffer.toString();
+  }
+}
@@ -37,7 +37,10 @@ import de.unikassel.android.sdcframework.util.facade.ObservableEventSource;
  * <br/>
  * A class extending this type can notify it's registered observers about the
  * observed events by invoking the
- * {@link ObservableEventSourceImpl#notify(ObservableEvent) notify} method.
+ * {@link ObservableEventSourceImpl#notify(ObservableEvent) notify} method. <br/>
+ * <br/>
+ * Events for observers reading from a {@linkplain RingBuffer ring buffer} are
+ * published only once for all of them.
  * 
  * @author Katy Hilgenberg
  * @param <T>
@@ -53,6 +56,65 @@ public class ObservableEventSourceImpl< T extends ObservableEvent >
    */
   private final ConcurrentLinkedQueue< EventObserver< T > > observers;
   
+  /**
+   * The ring buffer subscribers among the observers
+   * 
+   * @param <T>
+   *          the event type
+   * @author Katy Hilgenberg
+   */
+  private static final class Subscribers< T >
+  {
+    /**
+     * The ring buffer
+     */
+    final RingBuffer< T > ring;
+    
+    /**
+     * The consumer bit mask of the subscribers
+     */
+    final long consumerMask;
+    
+    /**
+     * Constructor
+     * 
+     * @param ring
+     *          the ring buffer
+     * @param consumerMask
+     *          the consumer bit mask of the subscribers
+     */
+    Subscribers( RingBuffer< T > ring, long consumerMask )
+    {
+      this.ring = ring;
+      this.consumerMask = consumerMask;
+    }
+    
+    /**
+     * Test method for contained subscribers
+     * 
+     * @param observer
+     *          the observer to test
+     * @return true if the observer is one of the subscribers
+     */
+    boolean contains( EventObserver< ? > observer )
+    {
+      if ( observer instanceof RingBuffer.Subscriber )
+      {
+        RingBuffer.Cursor< ? > cursor =
+            ( (RingBuffer.Subscriber< ? >) observer ).getCursor();
+        return cursor.getRingBuffer() == ring
+            && ( cursor.getConsumerMask() & consumerMask ) != 0;
+      }
+      return false;
+    }
+  }
+  
+  /**
+   * The ring buffer subscribers of the first ring buffer among the observers,
+   * or null if there is none
+   */
+  private volatile Subscribers< T > subscribers;
+  
   /**
    * Constructor
    */
@@ -88,6 +150,7 @@ public class ObservableEventSourceImpl< T extends ObservableEvent >
     {
       if ( observers.add( (EventObserver< T >) observer ) )
       {
+        updateSubscribers();
         onObserverRegistration( observer );
       }
     }
@@ -118,6 +181,7 @@ public class ObservableEventSourceImpl< T extends ObservableEvent >
   {
     if ( observers.remove( observer ) )
     {
+      updateSubscribers();
       onObserverUnregistration( observer );
     }
   }
@@ -135,6 +199,21 @@ public class ObservableEventSourceImpl< T extends ObservableEvent >
     // default do nothing
   }
   
+  /**
+   * Handler for events passed to an observer by
+   * {@linkplain EventObserver#onEvent(ObservableEventSource, ObservableEvent)
+   * onEvent} ( to be overloaded by extending classes if necessary )
+   * 
+   * @param observer
+   *          the observer to notify
+   * @param data
+   *          the event passed to the observer
+   */
+  protected void onObserverNotification( EventObserver< T > observer, T data )
+  {
+    // default do nothing
+  }
+  
   /*
    * (non-Javadoc)
    * 
@@ -147,12 +226,22 @@ public class ObservableEventSourceImpl< T extends ObservableEvent >
     if ( data == null )
       return;
     
+    // publish once for all ring buffer subscribers
+    Subscribers< T > subscribers = this.subscribers;
+    if ( subscribers != null )
+    {
+      subscribers.ring.publish( data, subscribers.consumerMask );
+    }
+    
     Iterator< EventObserver< T >> it = observers.iterator();
     while ( it.hasNext() )
     {
       EventObserver< T > observer = it.next();
+      if ( subscribers != null && subscribers.contains( observer ) )
+        continue;
       try
       {
+        onObserverNotification( observer, data );
         observer.onEvent( this, data );
       }
       catch ( Exception e )
@@ -163,6 +252,34 @@ public class ObservableEventSourceImpl< T extends ObservableEvent >
     }
   }
   
+  /**
+   * Method to update the ring buffer subscribers from the registered observers
+   */
+  @SuppressWarnings( "unchecked" )
+  private synchronized void updateSubscribers()
+  {
+    RingBuffer< T > ring = null;
+    long consumerMask = 0L;
+    for ( EventObserver< T > observer : observers )
+    {
+      if ( observer instanceof RingBuffer.Subscriber )
+      {
+        RingBuffer.Cursor< T > cursor =
+            ( (RingBuffer.Subscriber< T >) observer ).getCursor();
+        if ( ring == null )
+        {
+          ring = cursor.getRingBuffer();
+        }
+        if ( cursor.getRingBuffer() == ring )
+        {
+          consumerMask |= cursor.getConsumerMask();
+        }
+      }
+    }
+    subscribers =
+        ring != null ? new Subscribers< T >( ring, consumerMask ) : null;
+  }
+  
   /*
    * (non-Javadoc)
    * 
@@ -173,6 +290,7 @@ public class ObservableEventSourceImpl< T extends ObservableEvent >
   public final void removeAllObservers()
   {
     observers.clear();
+    updateSubscribers();
   }
   
   /*
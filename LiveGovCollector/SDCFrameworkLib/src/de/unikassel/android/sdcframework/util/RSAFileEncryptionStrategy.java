@@ -21,6 +21,9 @@
 package de.unikassel.android.sdcframework.util;
 
 import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.security.GeneralSecurityException;
 import java.security.InvalidParameterException;
 import java.security.PublicKey;
 
@@ -66,6 +69,26 @@ public class RSAFileEncryptionStrategy
     return Encryption.encryptRSA( key, srcFile, destFile );
   }
   
+  /*
+   * (non-Javadoc)
+   * 
+   * @see de.unikassel.android.sdcframework.util.facade.FileEncryptionStrategy#
+   * openEncryptedStream(java.io.OutputStream)
+   */
+  @Override
+  public OutputStream openEncryptedStream( OutputStream out )
+      throws IOException
+  {
+    try
+    {
+      return Encryption.createRSAOutputStream( key, out );
+    }
+    catch ( GeneralSecurityException e )
+    {
+      throw new IOException( e.getMessage() );
+    }
+  }
+  
   /*
    * (non-Javadoc)
    * 
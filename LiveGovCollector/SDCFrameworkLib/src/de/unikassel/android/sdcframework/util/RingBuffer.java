@@ -0,0 +1,699 @@
+/*
+ * Copyright (C) 2012, Katy Hilgenberg.
+ * Special acknowledgments to: Knowledge & Data Engineering Group, University of Kassel (http://www.kde.cs.uni-kassel.de).
+ * Contact: sdcf@cs.uni-kassel.de
+ *
+ * This file is part of the SDCFramework (Sensor Data Collection Framework) project.
+ *
+ * The SDCFramework is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The SDCFramework is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the SDCFramework.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.unikassel.android.sdcframework.util;
+
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A preallocated ring buffer to pass events from producers to up to
+ * {@link #MAX_CONSUMERS} consumers. <br/>
+ * <br/>
+ * Each published event is stored once, together with the bit mask of the
+ * consumers it is addressed to. Every consumer does read the events with its
+ * own {@linkplain Cursor cursor}, which does skip the events not addressed to
+ * it. Publishing is serialized by the ring buffer lock, reading does not take
+ * the lock and the producer does only wake up consumers if one is waiting.
+ * Neither side does allocate memory per event. <br/>
+ * <br/>
+ * The producer is never blocked. A consumer lagging more than the capacity
+ * behind does skip the overwritten events, which are counted as
+ * {@linkplain Cursor#getLostCount() lost}. Extending types can
+ * {@linkplain #filter(Object, long) filter} events depending on the
+ * {@linkplain #getBacklog(int) backlog} of the consumers before this happens.
+ * 
+ * @param <T>
+ *          the event type
+ * @see RingBufferEventCollector
+ * @author Katy Hilgenberg
+ * 
+ */
+public class RingBuffer< T >
+{
+  /**
+   * Interface for event observers reading with a cursor of a ring buffer. An
+   * {@linkplain ObservableEventSourceImpl observable event source} does publish
+   * an event only once for all of its subscribers of the same ring buffer.
+   * 
+   * @param <T>
+   *          the event type
+   * @author Katy Hilgenberg
+   */
+  public interface Subscriber< T >
+  {
+    /**
+     * Getter for the cursor of the subscriber
+     * 
+     * @return the cursor
+     */
+    public abstract Cursor< T > getCursor();
+  }
+  
+  /**
+   * A read position of a consumer in the ring buffer.
+   * 
+   * @param <T>
+   *          the event type
+   * @author Katy Hilgenberg
+   */
+  public static final class Cursor< T >
+  {
+    /**
+     * The ring buffer
+     */
+    private final RingBuffer< T > ring;
+    
+    /**
+     * The consumer bit mask
+     */
+    private final long consumerMask;
+    
+    /**
+     * The consumer index
+     */
+    private final int consumer;
+    
+    /**
+     * The sequence of the next event to read, written by the consumer only and
+     * read by the producer to determine the backlog
+     */
+    private volatile long next;
+    
+    /**
+     * The count of skipped events which were overwritten before read
+     */
+    private long cntLost;
+    
+    /**
+     * The sequence of the last event found overwritten while it was read,
+     * written before the read position is advanced
+     */
+    private long missed = -1L;
+    
+    /**
+     * Flag if the cursor is closed
+     */
+    private volatile boolean closed;
+    
+    /**
+     * Constructor
+     * 
+     * @param ring
+     *          the ring buffer
+     * @param consumer
+     *          the consumer index
+     * @param next
+     *          the sequence of the next event to read
+     */
+    private Cursor( RingBuffer< T > ring, int consumer, long next )
+    {
+      this.ring = ring;
+      this.consumer = consumer;
+      this.consumerMask = 1L << consumer;
+      this.next = next;
+    }
+    
+    /**
+     * Getter for the ring buffer
+     * 
+     * @return the ring buffer
+     */
+    public final RingBuffer< T > getRingBuffer()
+    {
+      return ring;
+    }
+    
+    /**
+     * Getter for the consumer bit mask
+     * 
+     * @return the consumer bit mask
+     */
+    public final long getConsumerMask()
+    {
+      return consumerMask;
+    }
+    
+    /**
+     * Method to read the next event addressed to the consumer
+     * 
+     * @return the next event or null if none is available
+     */
+    public final synchronized T poll()
+    {
+      return read( ring.published.get() );
+    }
+    
+    /**
+     * Method to read the next event addressed to the consumer up to a sequence
+     * 
+     * @param published
+     *          the count of published events to read up to
+     * @return the next event or null if none is available
+     */
+    private T read( long published )
+    {
+      while ( !closed )
+      {
+        if ( next >= published )
+          return null;
+        
+        if ( published - next > ring.capacity )
+        {
+          cntLost += published - ring.capacity - next;
+          next = published - ring.capacity;
+        }
+        
+        // read the slot and check it was not overwritten meanwhile, the read
+        // position is advanced afterwards for the publisher to see if the
+        // consumer did read the event
+        int index = (int) next & ring.indexMask;
+        long sequence = next;
+        T event = null;
+        long consumers = 0;
+        boolean isValid = ring.sequences.get( index ) == sequence;
+        if ( isValid )
+        {
+          event = ring.events.get( index );
+          consumers = ring.consumers.get( index );
+          isValid = ring.sequences.get( index ) == sequence;
+        }
+        if ( !isValid )
+        {
+          ++cntLost;
+          missed = sequence;
+          next = sequence + 1;
+          continue;
+        }
+        next = sequence + 1;
+        
+        if ( ( consumers & consumerMask ) != 0 )
+          return event;
+      }
+      return null;
+    }
+    
+    /**
+     * Method to read the next event addressed to the consumer. Will block the
+     * caller until an event is available.
+     * 
+     * @return the next event
+     * @throws InterruptedException
+     *           if the calling thread is interrupted while waiting
+     */
+    public final T take() throws InterruptedException
+    {
+      T event = poll();
+      while ( event == null )
+      {
+        synchronized ( ring.signal )
+        {
+          ++ring.cntWaiting;
+          try
+          {
+            while ( !closed && !hasPublished() )
+            {
+              ring.signal.wait();
+            }
+          }
+          finally
+          {
+            --ring.cntWaiting;
+          }
+        }
+        event = poll();
+      }
+      return event;
+    }
+    
+    /**
+     * Test method for events published after the read position
+     * 
+     * @return true if there are unread events
+     */
+    private synchronized boolean hasPublished()
+    {
+      return next < ring.published.get();
+    }
+    
+    /**
+     * Method to read the available events addressed to the consumer in one
+     * batch
+     * 
+     * @param collection
+     *          the collection to add the events to
+     * @param maxElements
+     *          the maximum count of events to read
+     * @return the count of events read
+     */
+    public final synchronized int drainTo( Collection< ? super T > collection,
+        int maxElements )
+    {
+      long published = ring.published.get();
+      int cnt = 0;
+      while ( cnt < maxElements )
+      {
+        T event = read( published );
+        if ( event == null )
+          break;
+        collection.add( event );
+        ++cnt;
+      }
+      return cnt;
+    }
+    
+    /**
+     * Getter for the count of unread events addressed to the consumer
+     * 
+     * @return the count of unread events
+     */
+    public final synchronized int size()
+    {
+      long published = ring.published.get();
+      long sequence = Math.max( next, published - ring.capacity );
+      int cnt = 0;
+      for ( ; sequence < published; ++sequence )
+      {
+        if ( ( ring.consumers.get( (int) sequence & ring.indexMask ) & consumerMask ) != 0 )
+          ++cnt;
+      }
+      return cnt;
+    }
+    
+    /**
+     * Does skip all unread events, which are passed to the
+     * {@linkplain RingBuffer#onLost(Object) lost hook}
+     */
+    public final void clear()
+    {
+      // no event is published meanwhile
+      synchronized ( ring )
+      {
+        synchronized ( this )
+        {
+          skipUnread();
+        }
+      }
+    }
+    
+    /**
+     * Does pass the unread events addressed to the consumer to the
+     * {@linkplain RingBuffer#onLost(Object) lost hook} and moves the read
+     * position behind them. Requires the ring buffer lock and the cursor lock,
+     * all slots passed are valid then.
+     */
+    private void skipUnread()
+    {
+      long published = ring.published.get();
+      long sequence = Math.max( next, published - ring.capacity );
+      for ( ; sequence < published; ++sequence )
+      {
+        int index = (int) sequence & ring.indexMask;
+        if ( ( ring.consumers.get( index ) & consumerMask ) != 0 )
+        {
+          ring.onLost( ring.events.get( index ) );
+        }
+      }
+      next = published;
+    }
+    
+    /**
+     * Test method, called by the publisher before the slot of an event
+     * addressed to the consumer is overwritten
+     * 
+     * @param sequence
+     *          the sequence of the event
+     * @return true if the consumer did not read the event
+     */
+    private boolean isMissed( long sequence )
+    {
+      // a cursor beyond the event has finished reading it, otherwise a
+      // running read has to finish first
+      if ( next > sequence )
+        return missed == sequence;
+      synchronized ( this )
+      {
+        return next <= sequence || missed == sequence;
+      }
+    }
+    
+    /**
+     * Getter for the count of lost events
+     * 
+     * @return the count of events overwritten before they were read
+     */
+    public final synchronized long getLostCount()
+    {
+      return cntLost;
+    }
+    
+    /**
+     * Does detach the consumer from the ring buffer, the unread events are
+     * passed to the {@linkplain RingBuffer#onLost(Object) lost hook}.
+     * Subscribers must be unregistered from their event sources before.
+     */
+    public final void close()
+    {
+      synchronized ( ring )
+      {
+        synchronized ( this )
+        {
+          if ( closed )
+            return;
+          closed = true;
+          skipUnread();
+        }
+        ring.detach( consumer );
+      }
+    }
+  }
+  
+  /**
+   * The default capacity
+   */
+  public static final int DEFAULT_CAPACITY = 8192;
+  
+  /**
+   * The maximum count of consumers
+   */
+  public static final int MAX_CONSUMERS = 64;
+  
+  /**
+   * The capacity, which is a power of two
+   */
+  private final int capacity;
+  
+  /**
+   * The bit mask to map a sequence to a slot index
+   */
+  private final int indexMask;
+  
+  /**
+   * The events by slot
+   */
+  private final AtomicReferenceArray< T > events;
+  
+  /**
+   * The consumer bit masks by slot
+   */
+  private final AtomicLongArray consumers;
+  
+  /**
+   * The event sequences by slot, -1 while a slot is written
+   */
+  private final AtomicLongArray sequences;
+  
+  /**
+   * The count of published events which is the sequence of the next event
+   */
+  private final AtomicLong published;
+  
+  /**
+   * The bit mask of the attached consumers
+   */
+  private long attached;
+  
+  /**
+   * The cursors of the attached consumers by consumer index
+   */
+  private final Cursor< ? >[] cursors;
+  
+  /**
+   * The lock to wait for events
+   */
+  private final Object signal;
+  
+  /**
+   * The count of consumers waiting for events
+   */
+  private volatile int cntWaiting;
+  
+  /**
+   * Constructor
+   * 
+   * @param capacity
+   *          the minimum capacity, rounded up to a power of two
+   */
+  public RingBuffer( int capacity )
+  {
+    super();
+    this.capacity = roundCapacity( capacity );
+    this.indexMask = this.capacity - 1;
+    this.events = new AtomicReferenceArray< T >( this.capacity );
+    this.consumers = new AtomicLongArray( this.capacity );
+    this.sequences = new AtomicLongArray( this.capacity );
+    for ( int i = 0; i < this.capacity; ++i )
+    {
+      sequences.set( i, -1L );
+    }
+    this.published = new AtomicLong();
+    this.cursors = new Cursor< ? >[ MAX_CONSUMERS ];
+    this.signal = new Object();
+  }
+  
+  /**
+   * Method to round a capacity up to the next power of two
+   * 
+   * @param capacity
+   *          the minimum capacity
+   * @return the capacity of a ring buffer created for the minimum capacity
+   */
+  public static int roundCapacity( int capacity )
+  {
+    if ( capacity <= 0 || capacity > ( 1 << 30 ) )
+      throw new IllegalArgumentException( "invalid capacity" );
+    int size = 1;
+    while ( size < capacity )
+    {
+      size <<= 1;
+    }
+    return size;
+  }
+  
+  /**
+   * Getter for the capacity
+   * 
+   * @return the capacity
+   */
+  public final int getCapacity()
+  {
+    return capacity;
+  }
+  
+  /**
+   * Getter for the count of published events
+   * 
+   * @return the count of published events
+   */
+  public final long getPublishedCount()
+  {
+    return published.get();
+  }
+  
+  /**
+   * Getter for the count of attached consumers
+   * 
+   * @return the count of attached consumers
+   */
+  public final synchronized int getConsumerCount()
+  {
+    return Long.bitCount( attached );
+  }
+  
+  /**
+   * Getter for the backlog of a consumer, which is the count of slots
+   * published but not yet passed by its cursor
+   * 
+   * @param consumer
+   *          the consumer index
+   * @return the backlog of the consumer ( between 0 and the capacity ), or 0
+   *         if the consumer is not attached
+   */
+  public final synchronized int getBacklog( int consumer )
+  {
+    Cursor< ? > cursor = cursors[ consumer ];
+    if ( cursor == null )
+      return 0;
+    return (int) Math.min( published.get() - cursor.next, capacity );
+  }
+  
+  /**
+   * Getter for the maximum backlog of the attached consumers
+   * 
+   * @return the maximum backlog of the attached consumers
+   * @see #getBacklog(int)
+   */
+  public final synchronized int getMaximumBacklog()
+  {
+    int max = 0;
+    for ( long mask = attached; mask != 0; mask &= mask - 1 )
+    {
+      max = Math.max( max, getBacklog( Long.numberOfTrailingZeros( mask ) ) );
+    }
+    return max;
+  }
+  
+  /**
+   * Method to attach a new consumer, which does read the events published
+   * afterwards
+   * 
+   * @return the cursor of the consumer or null if the maximum count of
+   *         consumers is reached
+   */
+  public final synchronized Cursor< T > newCursor()
+  {
+    if ( attached == -1L )
+      return null;
+    int consumer = Long.numberOfTrailingZeros( ~attached );
+    attached |= 1L << consumer;
+    Cursor< T > cursor = new Cursor< T >( this, consumer, published.get() );
+    cursors[ consumer ] = cursor;
+    return cursor;
+  }
+  
+  /**
+   * Method to detach a consumer
+   * 
+   * @param consumer
+   *          the consumer index
+   */
+  private final synchronized void detach( int consumer )
+  {
+    attached &= ~( 1L << consumer );
+    cursors[ consumer ] = null;
+    synchronized ( signal )
+    {
+      signal.notifyAll();
+    }
+  }
+  
+  /**
+   * Method to publish an event
+   * 
+   * @param event
+   *          the event to publish
+   * @param consumerMask
+   *          the bit mask of the consumers the event is addressed to
+   * @return true if the event was published, false if none of the consumers is
+   *         attached or the event was filtered for all of them
+   */
+  public final synchronized boolean publish( T event, long consumerMask )
+  {
+    consumerMask &= attached;
+    if ( event == null || consumerMask == 0 )
+      return false;
+    
+    consumerMask = filter( event, consumerMask );
+    if ( consumerMask == 0 )
+      return false;
+    
+    onPublish( event, Long.bitCount( consumerMask ) );
+    
+    // readers do check the sequence before and after reading a slot ( no
+    // lazySet, which is not available before API level 9 )
+    long sequence = published.get();
+    int index = (int) sequence & indexMask;
+    sequences.set( index, -1L );
+    if ( sequence >= capacity )
+    {
+      overwrite( index, sequence - capacity );
+    }
+    events.set( index, event );
+    consumers.set( index, consumerMask );
+    sequences.set( index, sequence );
+    published.set( sequence + 1 );
+    
+    if ( cntWaiting > 0 )
+    {
+      synchronized ( signal )
+      {
+        signal.notifyAll();
+      }
+    }
+    return true;
+  }
+  
+  /**
+   * Method to pass an event to the {@linkplain #onLost(Object) lost hook} for
+   * each consumer it is addressed to and which did not read it, before its
+   * slot is overwritten. The slot sequence has to be invalidated before, so
+   * consumers not yet passed the event do skip it.
+   * 
+   * @param index
+   *          the slot index
+   * @param sequence
+   *          the sequence of the event in the slot
+   */
+  private void overwrite( int index, long sequence )
+  {
+    T event = events.get( index );
+    for ( long mask = consumers.get( index ); mask != 0; mask &= mask - 1 )
+    {
+      Cursor< ? > cursor = cursors[ Long.numberOfTrailingZeros( mask ) ];
+      if ( cursor != null && cursor.isMissed( sequence ) )
+      {
+        onLost( event );
+      }
+    }
+  }
+  
+  /**
+   * Hook called with the ring buffer lock held before an event is stored. Can
+   * be overridden to withhold the event from consumers, e.g. depending on
+   * their {@linkplain #getBacklog(int) backlog}.
+   * 
+   * @param event
+   *          the event to publish
+   * @param consumerMask
+   *          the bit mask of the attached consumers the event is addressed to
+   * @return the bit mask of the consumers the event shall be stored for
+   */
+  protected long filter( T event, long consumerMask )
+  {
+    return consumerMask;
+  }
+  
+  /**
+   * Hook called before an event is stored. Can be overridden to take a
+   * reference for each consumer.
+   * 
+   * @param event
+   *          the event to publish
+   * @param cntConsumers
+   *          the count of consumers the event is addressed to
+   */
+  protected void onPublish( T event, int cntConsumers )
+  {}
+  
+  /**
+   * Hook called with the ring buffer lock held when an event is overwritten
+   * before a consumer it is addressed to did read it, or is skipped unread by
+   * a consumer {@linkplain Cursor#clear() clearing} or
+   * {@linkplain Cursor#close() closing} its cursor, once for each of those
+   * consumers. Can be overridden to drop the reference taken for the consumer.
+   * 
+   * @param event
+   *          the lost event
+   */
+  protected void onLost( T event )
+  {}
+}
@@ -0,0 +1,302 @@
+/*
+ * Copyright (C) 2012, Katy Hilgenberg.
+ * Special acknowledgments to: Knowledge & Data Engineering Group, University of Kassel (http://www.kde.cs.uni-kassel.de).
+ * Contact: sdcf@cs.uni-kassel.de
+ *
+ * This file is part of the SDCFramework (Sensor Data Collection Framework) project.
+ *
+ * The SDCFramework is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The SDCFramework is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the SDCFramework.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.unikassel.android.sdcframework.util;
+
+import java.util.Collection;
+
+import de.unikassel.android.sdcframework.util.facade.EventCollector;
+import de.unikassel.android.sdcframework.util.facade.EventError;
+import de.unikassel.android.sdcframework.util.facade.EventErrorTypes;
+import de.unikassel.android.sdcframework.util.facade.EventObserver;
+import de.unikassel.android.sdcframework.util.facade.ObservableEvent;
+import de.unikassel.android.sdcframework.util.facade.ObservableEventSource;
+
+/**
+ * Event collector reading the collected events with its own cursor from a
+ * {@linkplain RingBuffer ring buffer}, which can be shared with other
+ * collectors. <br/>
+ * <br/>
+ * The event observer of the collector does publish observed events to the ring
+ * buffer addressed to this collector. If more collectors of the same ring
+ * buffer observe one {@linkplain ObservableEventSourceImpl event source}, the
+ * source does publish each event only once for all of them. <br/>
+ * In contrast to the {@linkplain EventCollectorImpl} the capacity is bounded:
+ * events overwritten before they are dequeued are lost and counted.
+ * 
+ * @author Katy Hilgenberg
+ * 
+ * @param <T>
+ *          the collected event type extending {@linkplain ObservableEvent}
+ * @see EventCollector
+ * @see RingBuffer
+ * 
+ */
+public final class RingBufferEventCollector< T extends ObservableEvent >
+    implements EventCollector< T >
+{
+  /**
+   * Inner class implementing the event observer for the event type
+   * 
+   * @author Katy Hilgenberg
+   */
+  private final class EventObserverImpl
+      implements EventObserver< T >, RingBuffer.Subscriber< T >
+  {
+    /*
+     * (non-Javadoc)
+     * 
+     * @see
+     * de.unikassel.android.sdcframework.util.facade.EventObserver#onEvent(de
+     * .unikassel.android.sdcframework.util.facade.ObservableEventSource,
+     * de.unikassel.android.sdcframework.util.facade.ObservableEvent)
+     */
+    @Override
+    public void onEvent( ObservableEventSource< ? extends T > eventSource,
+        T observedEvent )
+    {
+      if ( !enqueue( observedEvent ) )
+      {
+        RingBufferEventCollector.this.notify( new EventError(
+            EventErrorTypes.FAILED_ENQUEUE, observedEvent ) );
+      }
+    }
+    
+    /*
+     * (non-Javadoc)
+     * 
+     * @see
+     * de.unikassel.android.sdcframework.util.RingBuffer.Subscriber#getCursor()
+     */
+    @Override
+    public RingBuffer.Cursor< T > getCursor()
+    {
+      return cursor;
+    }
+  }
+  
+  /**
+   * The cursor of the collector
+   */
+  private final RingBuffer.Cursor< T > cursor;
+  
+  /**
+   * The event observer
+   */
+  private final EventObserverImpl eventObserver;
+  
+  /**
+   * The observable error event source
+   */
+  private final ObservableEventSourceImpl< EventError > errorEventSource;
+  
+  /**
+   * Constructor
+   * 
+   * @param ring
+   *          the ring buffer to collect the events in
+   * @throws IllegalStateException
+   *           if the maximum count of consumers of the ring buffer is reached
+   */
+  public RingBufferEventCollector( RingBuffer< T > ring )
+  {
+    super();
+    this.cursor = ring.newCursor();
+    if ( cursor == null )
+      throw new IllegalStateException(
+          "maximum count of ring buffer consumers reached" );
+    this.eventObserver = new EventObserverImpl();
+    this.errorEventSource = new ObservableEventSourceImpl< EventError >();
+  }
+  
+  /*
+   * (non-Javadoc)
+   * 
+   * @see
+   * de.unikassel.android.sdcframework.util.facade.EventCollector#getEventObserver
+   * ()
+   */
+  @Override
+  public final EventObserver< T > getEventObserver()
+  {
+    return eventObserver;
+  }
+  
+  /**
+   * Getter for the observable error event source
+   * 
+   * @return the observable error event source
+   */
+  public final ObservableEventSourceImpl< EventError > getErrorEventSource()
+  {
+    return errorEventSource;
+  }
+  
+  /**
+   * Getter for the count of lost events
+   * 
+   * @return the count of events overwritten in the ring buffer before they
+   *         were dequeued
+   */
+  public final long getLostCount()
+  {
+    return cursor.getLostCount();
+  }
+  
+  /**
+   * Does detach the collector from the ring buffer. Its event observer must be
+   * unregistered from the event sources before.
+   */
+  public final void close()
+  {
+    cursor.close();
+  }
+  
+  /*
+   * (non-Javadoc)
+   * 
+   * @see
+   * de.unikassel.android.sdcframework.util.facade.EventCollector#enqueue(de
+   * .unikassel.android.sdcframework.util.facade.ObservableEvent)
+   */
+  @Override
+  public final boolean enqueue( T event )
+  {
+    return cursor.getRingBuffer().publish( event, cursor.getConsumerMask() );
+  }
+  
+  /*
+   * (non-Javadoc)
+   * 
+   * @see de.unikassel.android.sdcframework.util.facade.EventCollector#dequeue()
+   */
+  @Override
+  public final T dequeue() throws InterruptedException
+  {
+    return cursor.take();
+  }
+  
+  /*
+   * (non-Javadoc)
+   * 
+   * @see
+   * de.unikassel.android.sdcframework.util.facade.EventCollector#dequeue(java
+   * .util.Collection, int)
+   */
+  @Override
+  public final int dequeue( Collection< ? super T > collection, int maxElements )
+  {
+    if ( collection != null )
+    {
+      return cursor.drainTo( collection, maxElements );
+    }
+    return 0;
+  }
+  
+  /*
+   * (non-Javadoc)
+   * 
+   * @see
+   * de.unikassel.android.sdcframework.util.facade.EventCollector#getEventCount
+   * ()
+   */
+  @Override
+  public final int getEventCount()
+  {
+    return cursor.size();
+  }
+  
+  /*
+   * (non-Javadoc)
+   * 
+   * @see de.unikassel.android.sdcframework.util.facade.EventCollector#
+   * clearCollectedEvents()
+   */
+  @Override
+  public final void clearCollectedEvents()
+  {
+    cursor.clear();
+  }
+  
+  /*
+   * (non-Javadoc)
+   * 
+   * @see de.unikassel.android.sdcframework.util.facade.ObservableEventSource#
+   * registerEventObserver
+   * (de.unikassel.android.sdcframework.util.facade.EventObserver)
+   */
+  @Override
+  public final void
+      registerEventObserver( EventObserver< ? extends EventError > observer )
+  {
+    errorEventSource.registerEventObserver( observer );
+  }
+  
+  /*
+   * (non-Javadoc)
+   * 
+   * @see de.unikassel.android.sdcframework.util.facade.ObservableEventSource#
+   * unregisterEventObserver
+   * (de.unikassel.android.sdcframework.util.facade.EventObserver)
+   */
+  @Override
+  public final void unregisterEventObserver(
+      EventObserver< ? extends EventError > observer )
+  {
+    errorEventSource.unregisterEventObserver( observer );
+  }
+  
+  /*
+   * (non-Javadoc)
+   * 
+   * @see de.unikassel.android.sdcframework.util.facade.ObservableEventSource#
+   * removeAllObservers()
+   */
+  @Override
+  public final void removeAllObservers()
+  {
+    errorEventSource.removeAllObservers();
+  }
+  
+  /*
+   * (non-Javadoc)
+   * 
+   * @see
+   * de.unikassel.android.sdcframework.util.facade.ObservableEventSource#notify
+   * (de.unikassel.android.sdcframework.util.facade.ObservableEvent)
+   */
+  @Override
+  public final void notify( EventError data )
+  {
+    errorEventSource.notify( data );
+  }
+  
+  /*
+   * (non-Javadoc)
+   * 
+   * @see de.unikassel.android.sdcframework.util.facade.ObservableEventSource#
+   * hasObservers()
+   */
+  @Override
+  public boolean hasObservers()
+  {
+    return errorEventSource.hasObservers();
+  }
+}
@@ -0,0 +1,485 @@
+/*
+ * Copyright (C) 2012, Katy Hilgenberg.
+ * Special acknowledgments to: Knowledge & Data Engineering Group, University of Kassel (http://www.kde.cs.uni-kassel.de).
+ * Contact: sdcf@cs.uni-kassel.de
+ *
+ * This file is part of the SDCFramework (Sensor Data Collection Framework) project.
+ *
+ * The SDCFramework is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The SDCFramework is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the SDCFramework.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.unikassel.android.sdcframework.util;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import de.unikassel.android.sdcframework.data.Sample;
+import de.unikassel.android.sdcframework.devices.facade.SensorDevicePriorities;
+import de.unikassel.android.sdcframework.transmission.facade.SampleRateChangeResponder;
+
+/**
+ * The ring buffer passing samples from the sensor device scanners to the
+ * {@linkplain AbstractAsynchrounousSampleObserver asynchronous sample
+ * observers} ( implemented as singleton ). <br/>
+ * <br/>
+ * A published sample is {@linkplain Sample#retain() retained} once for each
+ * consumer it is addressed to, consumers have to release it when processed.
+ * Samples lost by overrun or skipped by clearing or closing a consumer are
+ * released for the consumers which missed them. <br/>
+ * <br/>
+ * The bus does shed load before a stalled consumer loses samples by overrun.
+ * Depending on the backlog of a consumer, samples of the
+ * {@linkplain SensorDevicePriorities priority levels} are withheld from it,
+ * lowest priority first, and at last the samples of high rate devices are
+ * downsampled. Samples of the highest priority level are only lost by overrun.
+ * The shed samples are counted per device. <br/>
+ * <br/>
+ * While consumers are lagging behind, the bus does raise a
+ * {@linkplain #getThrottleFactor() throttle factor} and signals the change to
+ * the registered {@linkplain SampleRateChangeResponder sample rate change
+ * responders}, which are expected to stretch their sampling interval
+ * accordingly.
+ * 
+ * @author Katy Hilgenberg
+ * 
+ */
+public final class SampleEventBus
+    extends RingBuffer< Sample >
+{
+  /**
+   * The backlog thresholds in percent of the capacity to shed samples, indexed
+   * by the priority level
+   */
+  private static final int[] PRIORITY_THRESHOLDS = { 101, 80, 70, 60, 50 };
+  
+  /**
+   * The backlog threshold in percent of the capacity to downsample high rate
+   * devices
+   */
+  private static final int DOWNSAMPLING_THRESHOLD = 90;
+  
+  /**
+   * The count of samples of a high rate device of which one is kept while
+   * downsampling
+   */
+  private static final int DOWNSAMPLING_FACTOR = 4;
+  
+  /**
+   * The maximum mean sample interval of a high rate device in milliseconds
+   */
+  private static final long HIGH_RATE_INTERVAL = 100L;
+  
+  /**
+   * The backlog threshold in percent of the capacity to throttle the scanners
+   */
+  private static final int THROTTLE_THRESHOLD = 50;
+  
+  /**
+   * The backlog threshold in percent of the capacity to throttle the scanners
+   * with the maximum throttle factor
+   */
+  private static final int MAX_THROTTLE_THRESHOLD = 75;
+  
+  /**
+   * The backlog threshold in percent of the capacity to stop throttling
+   */
+  private static final int RELIEF_THRESHOLD = 25;
+  
+  /**
+   * The maximum throttle factor
+   */
+  public static final int MAX_THROTTLE_FACTOR = 4;
+  
+  /**
+   * The load statistics of a single device
+   * 
+   * @author Katy Hilgenberg
+   */
+  private static final class DeviceLoad
+  {
+    /**
+     * The time stamp of the last sample
+     */
+    private long lastTimeStamp;
+    
+    /**
+     * The smoothed mean sample interval in milliseconds, 0 if unknown
+     */
+    private long meanInterval;
+    
+    /**
+     * The count of published samples
+     */
+    private long cntSamples;
+    
+    /**
+     * The count of shed samples
+     */
+    private long cntDropped;
+    
+    /**
+     * Method to update the statistics for a new sample
+     * 
+     * @param timeStamp
+     *          the sample time stamp
+     */
+    private void update( long timeStamp )
+    {
+      if ( cntSamples > 0 && timeStamp > lastTimeStamp )
+      {
+        long interval = timeStamp - lastTimeStamp;
+        meanInterval =
+            meanInterval == 0 ? interval : ( 7 * meanInterval + interval ) / 8;
+      }
+      lastTimeStamp = timeStamp;
+      ++cntSamples;
+    }
+    
+    /**
+     * Test method for a high rate device
+     * 
+     * @return true if the mean sample interval is below the high rate
+     *         threshold
+     */
+    private boolean isHighRate()
+    {
+      return meanInterval > 0 && meanInterval < HIGH_RATE_INTERVAL;
+    }
+  }
+  
+  /**
+   * The global singleton instance
+   */
+  private static SampleEventBus instance;
+  
+  /**
+   * The configured capacity for the global instance
+   */
+  private static int configuredCapacity = DEFAULT_CAPACITY;
+  
+  /**
+   * The load statistics by device identifier
+   */
+  private final Map< String, DeviceLoad > deviceLoads;
+  
+  /**
+   * The total count of shed samples
+   */
+  private long cntDropped;
+  
+  /**
+   * The count of shed samples at the start of the current overload
+   */
+  private long cntDroppedAtOverload;
+  
+  /**
+   * The current throttle factor
+   */
+  private volatile int throttleFactor;
+  
+  /**
+   * The responders to signal throttle factor changes to
+   */
+  private final CopyOnWriteArrayList< SampleRateChangeResponder > responders;
+  
+  /**
+   * Constructor
+   */
+  public SampleEventBus()
+  {
+    this( DEFAULT_CAPACITY );
+  }
+  
+  /**
+   * Constructor
+   * 
+   * @param capacity
+   *          the minimum capacity, rounded up to a power of two
+   */
+  public SampleEventBus( int capacity )
+  {
+    super( capacity );
+    this.deviceLoads = new HashMap< String, DeviceLoad >();
+    this.throttleFactor = 1;
+    this.responders = new CopyOnWriteArrayList< SampleRateChangeResponder >();
+  }
+  
+  /**
+   * Getter for the global singleton instance
+   * 
+   * @return the global singleton instance
+   */
+  public static synchronized SampleEventBus getInstance()
+  {
+    if ( instance == null )
+    {
+      instance = new SampleEventBus( configuredCapacity );
+    }
+    return instance;
+  }
+  
+  /**
+   * Setter for the capacity of the global instance. An existing instance is
+   * replaced if no consumer is attached, otherwise the capacity will apply
+   * after the consumers are closed and the service is created again.
+   * 
+   * @param capacity
+   *          the minimum capacity, rounded up to a power of two
+   */
+  public static synchronized void setConfiguredCapacity( int capacity )
+  {
+    configuredCapacity = roundCapacity( capacity );
+    if ( instance != null && instance.getCapacity() != configuredCapacity )
+    {
+      if ( instance.getConsumerCount() == 0 )
+      {
+        SampleEventBus bus = new SampleEventBus( configuredCapacity );
+        bus.responders.addAll( instance.responders );
+        instance = bus;
+      }
+      else
+      {
+        Logger.getInstance().info( SampleEventBus.class,
+            "Sample queue capacity " + configuredCapacity
+                + " will apply after restart" );
+      }
+    }
+  }
+  
+  /**
+   * Method to create a collector for the samples of the bus. If the maximum
+   * count of consumers is reached, the collector does use a private bus.
+   * 
+   * @return the created collector
+   */
+  public static RingBufferEventCollector< Sample > createCollector()
+  {
+    try
+    {
+      return new RingBufferEventCollector< Sample >( getInstance() );
+    }
+    catch ( IllegalStateException e )
+    {
+      Logger.getInstance().warning( SampleEventBus.class,
+          "Sample event bus has no free cursor, using a private bus" );
+      return new RingBufferEventCollector< Sample >( new SampleEventBus() );
+    }
+  }
+  
+  /**
+   * Getter for the current throttle factor
+   * 
+   * @return the factor to stretch sampling intervals with, 1 if the consumers
+   *         are keeping up
+   */
+  public final int getThrottleFactor()
+  {
+    return throttleFactor;
+  }
+  
+  /**
+   * Method to register a responder for throttle factor changes. The responder
+   * is called by the publishing thread with the bus lock held and must neither
+   * block nor publish samples.
+   * 
+   * @param responder
+   *          the responder to register
+   */
+  public final void registerSampleRateChangeResponder(
+      SampleRateChangeResponder responder )
+  {
+    responders.addIfAbsent( responder );
+  }
+  
+  /**
+   * Method to unregister a responder for throttle factor changes
+   * 
+   * @param responder
+   *          the responder to unregister
+   */
+  public final void unregisterSampleRateChangeResponder(
+      SampleRateChangeResponder responder )
+  {
+    responders.remove( responder );
+  }
+  
+  /**
+   * Getter for the total count of shed samples
+   * 
+   * @return the total count of shed samples
+   */
+  public final synchronized long getDroppedCount()
+  {
+    return cntDropped;
+  }
+  
+  /**
+   * Getter for the count of shed samples of a device
+   * 
+   * @param deviceIdentifier
+   *          the device identifier
+   * @return the count of shed samples of the device
+   */
+  public final synchronized long getDroppedCount( String deviceIdentifier )
+  {
+    DeviceLoad load = deviceLoads.get( deviceIdentifier );
+    return load == null ? 0L : load.cntDropped;
+  }
+  
+  /**
+   * Getter for the counts of shed samples by device identifier
+   * 
+   * @return the counts of shed samples of the devices with shed samples
+   */
+  public final synchronized Map< String, Long > getDroppedCounts()
+  {
+    Map< String, Long > counts = new HashMap< String, Long >();
+    for ( Entry< String, DeviceLoad > entry : deviceLoads.entrySet() )
+    {
+      if ( entry.getValue().cntDropped > 0 )
+        counts.put( entry.getKey(), entry.getValue().cntDropped );
+    }
+    return counts;
+  }
+  
+  /*
+   * (non-Javadoc)
+   * 
+   * @see de.unikassel.android.sdcframework.util.RingBuffer#filter(java.lang
+   * .Object, long)
+   */
+  @Override
+  protected long filter( Sample event, long consumerMask )
+  {
+    DeviceLoad load = deviceLoads.get( event.getDeviceIdentifier() );
+    if ( load == null )
+    {
+      load = new DeviceLoad();
+      deviceLoads.put( event.getDeviceIdentifier(), load );
+    }
+    load.update( event.getTimeStamp() );
+    
+    int priority =
+        Math.max( 0, Math.min( event.getPriority(),
+            PRIORITY_THRESHOLDS.length - 1 ) );
+    int capacity = getCapacity();
+    int maxFill = 0;
+    long accepted = consumerMask;
+    for ( long mask = consumerMask; mask != 0; mask &= mask - 1 )
+    {
+      int consumer = Long.numberOfTrailingZeros( mask );
+      int fill = (int) ( getBacklog( consumer ) * 100L / capacity );
+      maxFill = Math.max( maxFill, fill );
+      if ( isShed( load, priority, fill ) )
+      {
+        accepted &= ~( 1L << consumer );
+      }
+    }
+    
+    if ( accepted != consumerMask )
+    {
+      ++load.cntDropped;
+      ++cntDropped;
+    }
+    updateThrottleFactor( maxFill );
+    return accepted;
+  }
+  
+  /**
+   * Test method if a sample has to be shed for a consumer
+   * 
+   * @param load
+   *          the load statistics of the sample device
+   * @param priority
+   *          the sample priority level
+   * @param fill
+   *          the backlog of the consumer in percent of the capacity
+   * @return true if the sample has to be shed, false otherwise
+   */
+  private static boolean isShed( DeviceLoad load, int priority, int fill )
+  {
+    if ( fill >= PRIORITY_THRESHOLDS[ priority ] )
+      return true;
+    return fill >= DOWNSAMPLING_THRESHOLD && load.isHighRate()
+        && load.cntSamples % DOWNSAMPLING_FACTOR != 0;
+  }
+  
+  /**
+   * Method to update the throttle factor for the current backlog and to signal
+   * changes to the responders
+   * 
+   * @param fill
+   *          the maximum backlog of the consumers in percent of the capacity
+   */
+  private void updateThrottleFactor( int fill )
+  {
+    int factor = throttleFactor;
+    if ( fill >= MAX_THROTTLE_THRESHOLD )
+      factor = MAX_THROTTLE_FACTOR;
+    else if ( fill >= THROTTLE_THRESHOLD )
+      factor = Math.max( factor, 2 );
+    else if ( fill < RELIEF_THRESHOLD )
+      factor = 1;
+    if ( factor == throttleFactor )
+      return;
+    
+    if ( throttleFactor == 1 )
+    {
+      cntDroppedAtOverload = cntDropped;
+      Logger.getInstance().warning( this,
+          "Sample queue overload, throttling sampling by factor " + factor );
+    }
+    else if ( factor == 1 )
+    {
+      Logger.getInstance().warning( this,
+          "Sample queue overload relieved, samples dropped: "
+              + ( cntDropped - cntDroppedAtOverload )
+              + ", total dropped per device: " + getDroppedCounts() );
+    }
+    throttleFactor = factor;
+    
+    for ( SampleRateChangeResponder responder : responders )
+    {
+      responder.onSampleRateChanged();
+    }
+  }
+  
+  /*
+   * (non-Javadoc)
+   * 
+   * @see de.unikassel.android.sdcframework.util.RingBuffer#onPublish(java.lang
+   * .Object, int)
+   */
+  @Override
+  protected void onPublish( Sample event, int cntConsumers )
+  {
+    for ( int i = 0; i < cntConsumers; ++i )
+    {
+      event.retain();
+    }
+  }
+  
+  /*
+   * (non-Javadoc)
+   * 
+   * @see
+   * de.unikassel.android.sdcframework.util.RingBuffer#onLost(java.lang.Object)
+   */
+  @Override
+  protected void onLost( Sample event )
+  {
+    event.release();
+  }
+}
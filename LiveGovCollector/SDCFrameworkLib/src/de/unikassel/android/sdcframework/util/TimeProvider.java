@@ -24,8 +24,7 @@ import java.sql.Connection;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Calendar;
-import java.util.GregorianCalendar;
+import java.util.Date;
 import java.util.List;
 import java.util.TimeZone;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -63,6 +62,70 @@ public final class TimeProvider
   private final String[] INITIAL_PROVIDERS = { "ntps1-1.cs.tu-berlin.de",
       "ptbtime1.ptb.de", "ptbtime2.ptb.de", "atom.uhr.de" };
   
+  /**
+   * The milliseconds of a day
+   */
+  public static final long DAY_MILLIS = 86400000L;
+  
+  /**
+   * Thread local date format in UTC, the formats are not thread safe
+   * 
+   * @author Katy Hilgenberg
+   * 
+   */
+  private static final class UTCDateFormat
+      extends ThreadLocal< SimpleDateFormat >
+  {
+    /**
+     * The format pattern
+     */
+    private final String pattern;
+    
+    /**
+     * Constructor
+     * 
+     * @param pattern
+     *          the format pattern
+     */
+    public UTCDateFormat( String pattern )
+    {
+      super();
+      this.pattern = pattern;
+    }
+    
+    /*
+     * (non-Javadoc)
+     * 
+     * @see java.lang.ThreadLocal#initialValue()
+     */
+    @SuppressLint( "SimpleDateFormat" ) // intended use of UTC time here
+    @Override
+    protected SimpleDateFormat initialValue()
+    {
+      SimpleDateFormat df = new SimpleDateFormat( pattern );
+      df.setTimeZone( TimeZone.getTimeZone( "GMT" ) );
+      return df;
+    }
+  }
+  
+  /**
+   * The time stamp format
+   */
+  private static final UTCDateFormat UTC_TIME_STAMP_FORMAT =
+      new UTCDateFormat( "yyyy-MM-dd HH:mm:ss.S" );
+  
+  /**
+   * The time format
+   */
+  private static final UTCDateFormat UTC_TIME_FORMAT =
+      new UTCDateFormat( "HH:mm:ss" );
+  
+  /**
+   * The date format
+   */
+  private static final UTCDateFormat UTC_DATE_FORMAT =
+      new UTCDateFormat( "yyyy-MM-dd" );
+  
   /**
    * The maximum count for asynchronous synchronization retires
    */
@@ -470,14 +533,9 @@ public final class TimeProvider
    *          the milliseconds since 01.01.1970
    * @return the time stamp string
    */
-  @SuppressLint( "SimpleDateFormat" ) // intended use of UTC time here
   public final static String toUTCString( long timeStamp )
   {
-    SimpleDateFormat df = new SimpleDateFormat( "yyyy-MM-dd HH:mm:ss.S" );
-    df.setTimeZone( TimeZone.getTimeZone( "GMT" ) );
-    Calendar cal = new GregorianCalendar( TimeZone.getTimeZone( "GMT" ) );
-    cal.setTimeInMillis( timeStamp );
-    return df.format( cal.getTime() );
+    return UTC_TIME_STAMP_FORMAT.get().format( new Date( timeStamp ) );
   }
   
   /**
@@ -487,14 +545,9 @@ public final class TimeProvider
    *          the milliseconds since 01.01.1970
    * @return the time string
    */
-  @SuppressLint( "SimpleDateFormat" ) // intended use of UTC time here
   public final static String toUTCTime( long timeStamp )
   {
-    SimpleDateFormat df = new SimpleDateFormat( "HH:mm:ss" );
-    df.setTimeZone( TimeZone.getTimeZone( "GMT" ) );
-    Calendar cal = new GregorianCalendar( TimeZone.getTimeZone( "GMT" ) );
-    cal.setTimeInMillis( timeStamp );
-    return df.format( cal.getTime() );
+    return UTC_TIME_FORMAT.get().format( new Date( timeStamp ) );
   }
   
   /**
@@ -504,14 +557,46 @@ public final class TimeProvider
    *          the milliseconds since 01.01.1970
    * @return the date string
    */
-  @SuppressLint( "SimpleDateFormat" ) // intended use of UTC time here
   public final static String toUTCDate( long timeStamp )
   {
-    SimpleDateFormat df = new SimpleDateFormat( "yyyy-MM-dd" );
-    df.setTimeZone( TimeZone.getTimeZone( "GMT" ) );
-    Calendar cal = new GregorianCalendar( TimeZone.getTimeZone( "GMT" ) );
-    cal.setTimeInMillis( timeStamp );
-    return df.format( cal.getTime() );
+    return UTC_DATE_FORMAT.get().format( new Date( timeStamp ) );
+  }
+  
+  /**
+   * Does append the time of day of the given time stamp in the format of
+   * {@link #toUTCString(long)} ( HH:mm:ss.S ), without any date formatter
+   * 
+   * @param buffer
+   *          the buffer to append to
+   * @param timeStamp
+   *          the milliseconds since 01.01.1970
+   * @return the buffer
+   */
+  public final static StringBuffer appendUTCTimeOfDay( StringBuffer buffer,
+      long timeStamp )
+  {
+    long millis = timeStamp - getUTCDayTimeMillis( timeStamp );
+    appendTwoDigits( buffer, (int) ( millis / 3600000L ) ).append( ':' );
+    appendTwoDigits( buffer, (int) ( millis / 60000L % 60L ) ).append( ':' );
+    appendTwoDigits( buffer, (int) ( millis / 1000L % 60L ) ).append( '.' );
+    return buffer.append( (int) ( millis % 1000L ) );
+  }
+  
+  /**
+   * Does append a number with at least two digits
+   * 
+   * @param buffer
+   *          the buffer to append to
+   * @param value
+   *          the non negative value
+   * @return the buffer
+   */
+  private final static StringBuffer appendTwoDigits( StringBuffer buffer,
+      int value )
+  {
+    if ( value < 10 )
+      buffer.append( '0' );
+    return buffer.append( value );
   }
   
   /*
@@ -587,14 +672,11 @@ public final class TimeProvider
    */
   public final static long getUTCDayTimeMillis( long ts )
   {
-    Calendar calTime = new GregorianCalendar( TimeZone.getTimeZone( "GMT" ) );
-    calTime.setTimeInMillis( ts );
-    Calendar dayTime = new GregorianCalendar( TimeZone.getTimeZone( "GMT" ) );
-    dayTime.clear();
-    dayTime.set( Calendar.YEAR, calTime.get( Calendar.YEAR ) );
-    dayTime.set( Calendar.MONTH, calTime.get( Calendar.MONTH ) );
-    dayTime.set( Calendar.DAY_OF_MONTH, calTime.get( Calendar.DAY_OF_MONTH ) );
-    return dayTime.getTimeInMillis();
+    // UTC days do have a fixed length in epoch milliseconds
+    long millis = ts % DAY_MILLIS;
+    if ( millis < 0L )
+      millis += DAY_MILLIS;
+    return ts - millis;
   }
   
   /**
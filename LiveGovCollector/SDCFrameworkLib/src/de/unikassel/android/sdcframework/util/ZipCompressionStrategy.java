@@ -45,7 +45,7 @@ public class ZipCompressionStrategy implements CompressionStrategy
   /**
    * The internal buffer size used while piping data
    */
-  private static final int BUFFER_SIZE = 2048;
+  private static final int BUFFER_SIZE = 32768;
   
   /**
    * the internal buffer
@@ -116,32 +116,13 @@ public class ZipCompressionStrategy implements CompressionStrategy
     boolean result = true;
     
     // create s deflater output stream
-    ZipOutputStream deflaterOut = createDeflaterOutPutStream( out );
-    deflaterOut.setMethod( method );
-    deflaterOut.setLevel( level );
+    ZipOutputStream deflaterOut = openArchive( out );
     
     try
     {
       for ( String fileName : files )
       {
-        // create file input stream
-        File file = FileUtils.fileFromPath( fileName );
-        FileInputStream in = new FileInputStream( file );
-        BufferedInputStream bufferedIn = new BufferedInputStream( in );
-        
-        // Create and add a new zip entry
-        ZipEntry zipEntry = createArchiveEntry( file.getName() );
-        
-        try
-        {
-          deflaterOut.putNextEntry( zipEntry );
-          pipeInToOut( bufferedIn, deflaterOut );
-          deflaterOut.closeEntry();
-        }
-        finally
-        {
-          in.close();
-        }
+        addFile( deflaterOut, fileName );
       }
       result = true;
     }
@@ -155,6 +136,66 @@ public class ZipCompressionStrategy implements CompressionStrategy
     return result;
   }
   
+  /*
+   * (non-Javadoc)
+   * 
+   * @see
+   * de.unikassel.android.sdcframework.util.facade.CompressionStrategy#openArchive
+   * (java.io.BufferedOutputStream)
+   */
+  @Override
+  public ZipOutputStream openArchive( BufferedOutputStream out )
+      throws IOException
+  {
+    ZipOutputStream deflaterOut = createDeflaterOutPutStream( out );
+    deflaterOut.setMethod( method );
+    deflaterOut.setLevel( level );
+    return deflaterOut;
+  }
+  
+  /*
+   * (non-Javadoc)
+   * 
+   * @see
+   * de.unikassel.android.sdcframework.util.facade.CompressionStrategy#putNextEntry
+   * (java.util.zip.ZipOutputStream, java.lang.String)
+   */
+  @Override
+  public void putNextEntry( ZipOutputStream out, String entryName )
+      throws IOException
+  {
+    out.putNextEntry( createArchiveEntry( entryName ) );
+  }
+  
+  /*
+   * (non-Javadoc)
+   * 
+   * @see
+   * de.unikassel.android.sdcframework.util.facade.CompressionStrategy#addFile
+   * (java.util.zip.ZipOutputStream, java.lang.String)
+   */
+  @Override
+  public void addFile( ZipOutputStream out, String fileName )
+      throws IOException
+  {
+    // create file input stream
+    File file = FileUtils.fileFromPath( fileName );
+    FileInputStream in = new FileInputStream( file );
+    BufferedInputStream bufferedIn = new BufferedInputStream( in );
+    
+    try
+    {
+      // Create and add a new zip entry
+      putNextEntry( out, file.getName() );
+      pipeInToOut( bufferedIn, out );
+      out.closeEntry();
+    }
+    finally
+    {
+      in.close();
+    }
+  }
+  
   /**
    * Does create an archive entry for the compressed file
    * 
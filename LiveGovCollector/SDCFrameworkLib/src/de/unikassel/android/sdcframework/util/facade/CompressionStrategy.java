@@ -23,6 +23,7 @@ package de.unikassel.android.sdcframework.util.facade;
 import java.io.BufferedOutputStream;
 import java.io.IOException;
 import java.util.List;
+import java.util.zip.ZipOutputStream;
 
 /**
  * Interface for compression strategiy types.
@@ -46,6 +47,45 @@ public interface CompressionStrategy
   public abstract boolean compress( List< String > files,
       BufferedOutputStream out ) throws IOException;
   
+  /**
+   * Method to open an archive stream for incremental archive creation. The
+   * caller is responsible to finish and close the returned stream.
+   * 
+   * @param out
+   *          the output stream to compress entries into
+   * @return the archive stream
+   * @throws IOException
+   *           if creation of the archive stream fails
+   */
+  public abstract ZipOutputStream openArchive( BufferedOutputStream out )
+      throws IOException;
+  
+  /**
+   * Method to start a new entry in an archive stream
+   * 
+   * @param out
+   *          the archive stream
+   * @param entryName
+   *          the name of the entry
+   * @throws IOException
+   *           if writing to the archive stream fails
+   */
+  public abstract void putNextEntry( ZipOutputStream out, String entryName )
+      throws IOException;
+  
+  /**
+   * Method to add a file as new entry to an archive stream
+   * 
+   * @param out
+   *          the archive stream
+   * @param fileName
+   *          the file name and path
+   * @throws IOException
+   *           if reading the file or writing to the archive stream fails
+   */
+  public abstract void addFile( ZipOutputStream out, String fileName )
+      throws IOException;
+  
   /**
    * Getter for an archive file extension of this strategy
    * 
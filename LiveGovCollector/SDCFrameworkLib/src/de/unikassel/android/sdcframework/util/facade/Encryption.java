@@ -23,12 +23,16 @@ package de.unikassel.android.sdcframework.util.facade;
 import java.io.BufferedInputStream;
 import java.io.BufferedOutputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
+import java.io.FilterOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.security.GeneralSecurityException;
 import java.security.KeyFactory;
 import java.security.KeyPair;
 import java.security.KeyPairGenerator;
@@ -36,10 +40,14 @@ import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.security.PrivateKey;
 import java.security.PublicKey;
+import java.security.SecureRandom;
 import java.security.spec.PKCS8EncodedKeySpec;
 import java.security.spec.X509EncodedKeySpec;
 
 import javax.crypto.Cipher;
+import javax.crypto.Mac;
+import javax.crypto.spec.IvParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
 
 /**
  * Utility class for encryption and checksums.
@@ -75,6 +83,57 @@ public final class Encryption
   private static final String RSA_ENCRYPTION = RSA_ALGORITHM
       + "/ECB/PKCS1Padding";
   
+  /**
+   * The AES algorithm description
+   */
+  private static final String AES_ALGORITHM = "AES";
+  
+  /**
+   * The AES transformation description for the hybrid stream encryption
+   */
+  private static final String AES_ENCRYPTION = AES_ALGORITHM
+      + "/CTR/NoPadding";
+  
+  /**
+   * The MAC algorithm description for the hybrid stream encryption
+   */
+  private static final String MAC_ALGORITHM = "HmacSHA256";
+  
+  /**
+   * The AES session key length in bytes
+   */
+  private static final int AES_KEY_LENGTH = 16;
+  
+  /**
+   * The MAC session key length in bytes
+   */
+  private static final int MAC_KEY_LENGTH = 32;
+  
+  /**
+   * The MAC length in bytes
+   */
+  private static final int MAC_LENGTH = 32;
+  
+  /**
+   * The AES initialization vector length in bytes
+   */
+  private static final int IV_LENGTH = 16;
+  
+  /**
+   * The magic bytes at the start of hybrid encrypted files
+   */
+  private static final byte[] HYBRID_MAGIC = { 'S', 'D', 'C', 'H' };
+  
+  /**
+   * The version of the hybrid encrypted file format
+   */
+  private static final int HYBRID_VERSION = 1;
+  
+  /**
+   * The buffer size for the hybrid stream encryption
+   */
+  private static final int HYBRID_BUFFER_SIZE = 64 << 10;
+  
   /**
    * Method to create an MD5 hash for a given string
    * 
@@ -90,25 +149,97 @@ public final class Encryption
       MessageDigest messageDigest =
           java.security.MessageDigest.getInstance( "MD5" );
       messageDigest.update( text.getBytes() );
-      byte digest[] = messageDigest.digest();
-      
-      StringBuffer hexString = new StringBuffer();
-      for ( int i = 0; i < digest.length; i++ )
+      hash = toHexString( messageDigest.digest() );
+    }
+    catch ( NoSuchAlgorithmException e )
+    {
+      e.printStackTrace();
+    }
+    return hash;
+  }
+  
+  /**
+   * Method to create an MD5 hash for a part of a byte array
+   * 
+   * @param bytes
+   *          the byte array
+   * @param offset
+   *          the offset of the part
+   * @param length
+   *          the length of the part
+   * @return the MD5 hash for the part as hex string
+   */
+  public static final String md5( byte[] bytes, int offset, int length )
+  {
+    String hash = null;
+    try
+    {
+      MessageDigest messageDigest = MessageDigest.getInstance( "MD5" );
+      messageDigest.update( bytes, offset, length );
+      hash = toHexString( messageDigest.digest() );
+    }
+    catch ( NoSuchAlgorithmException e )
+    {
+      e.printStackTrace();
+    }
+    return hash;
+  }
+  
+  /**
+   * Method to create an MD5 hash for the content of a file
+   * 
+   * @param file
+   *          the file to create the MD5 hash for
+   * @return the MD5 hash for the file content as hex string
+   * @throws IOException
+   *           if reading the file fails
+   */
+  public static final String md5( File file ) throws IOException
+  {
+    String hash = null;
+    InputStream is = new FileInputStream( file );
+    try
+    {
+      MessageDigest messageDigest = MessageDigest.getInstance( "MD5" );
+      byte[] bytes = new byte[ HYBRID_BUFFER_SIZE ];
+      int cnt;
+      while ( ( cnt = is.read( bytes ) ) != -1 )
       {
-        String hexDigest = Integer.toHexString( 0xFF & digest[ i ] );
-        if ( hexDigest.length() < 2 )
-          hexString.append( '0' );
-        hexString.append( hexDigest );
+        messageDigest.update( bytes, 0, cnt );
       }
-      hash = hexString.toString();
+      hash = toHexString( messageDigest.digest() );
     }
     catch ( NoSuchAlgorithmException e )
     {
       e.printStackTrace();
     }
+    finally
+    {
+      is.close();
+    }
     return hash;
   }
   
+  /**
+   * Method to convert a digest into a hex string
+   * 
+   * @param digest
+   *          the digest
+   * @return the lower case hex string for the digest
+   */
+  private static String toHexString( byte[] digest )
+  {
+    StringBuffer hexString = new StringBuffer();
+    for ( int i = 0; i < digest.length; i++ )
+    {
+      String hexDigest = Integer.toHexString( 0xFF & digest[ i ] );
+      if ( hexDigest.length() < 2 )
+        hexString.append( '0' );
+      hexString.append( hexDigest );
+    }
+    return hexString.toString();
+  }
+  
   /**
    * Method for RSA file encryption
    * 
@@ -223,6 +354,279 @@ public final class Encryption
     return result;
   }
   
+  /**
+   * Method for hybrid file encryption. <br/>
+   * <br/>
+   * The file is encrypted in a single pass with AES in counter mode, using a
+   * random session key which is wrapped with the public RSA key. The
+   * encrypted file is authenticated with a HMAC-SHA256 over header and cipher
+   * text. <br/>
+   * File format: magic "SDCH", version byte, wrapped key length ( 2 bytes ),
+   * wrapped session keys, initialization vector, cipher text, MAC.
+   * 
+   * @param key
+   *          the public key to use for encryption
+   * @param srcFile
+   *          the source file to encrypt
+   * @param destFile
+   *          the file to store encrypted data in
+   * @return true if successful, false otherwise
+   */
+  public static final boolean encryptHybrid( PublicKey key, File srcFile,
+      File destFile )
+  {
+    InputStream is = null;
+    OutputStream os = null;
+    boolean result = false;
+    try
+    {
+      is = new FileInputStream( srcFile );
+      os = new FileOutputStream( destFile );
+      os = createHybridOutputStream( key, os );
+      
+      byte[] bytes = new byte[ HYBRID_BUFFER_SIZE ];
+      int i = is.read( bytes );
+      while ( i != -1 )
+      {
+        os.write( bytes, 0, i );
+        i = is.read( bytes );
+      }
+      os.close();
+      result = true;
+    }
+    catch ( Exception e )
+    {
+      e.printStackTrace();
+    }
+    finally
+    {
+      try
+      {
+        if ( is != null )
+        {
+          is.close();
+        }
+        if ( os != null )
+        {
+          os.close();
+        }
+      }
+      catch ( Exception e )
+      {}
+    }
+    return result;
+  }
+  
+  /**
+   * Method to create a hybrid encryption stream ( compare
+   * {@link #encryptHybrid(PublicKey, File, File)} ). The header is written
+   * immediately, closing the returned stream does write the MAC and closes the
+   * destination stream.
+   * 
+   * @param key
+   *          the public key to use for encryption
+   * @param out
+   *          the destination stream for the encrypted data
+   * @return the stream to write plain data into
+   * @throws GeneralSecurityException
+   *           if the ciphers can not be created
+   * @throws IOException
+   *           if writing the header fails
+   */
+  public static final OutputStream createHybridOutputStream( PublicKey key,
+      OutputStream out ) throws GeneralSecurityException, IOException
+  {
+    return new HybridOutputStream( key, out );
+  }
+  
+  /**
+   * Method to create an RSA block encryption stream ( compare
+   * {@link #encryptRSA(PublicKey, File, File)} ). Closing the returned stream
+   * does encrypt the last block and closes the destination stream.
+   * 
+   * @param key
+   *          the public key to use for encryption
+   * @param out
+   *          the destination stream for the encrypted data
+   * @return the stream to write plain data into
+   * @throws GeneralSecurityException
+   *           if the cipher can not be created
+   */
+  public static final OutputStream createRSAOutputStream( PublicKey key,
+      OutputStream out ) throws GeneralSecurityException
+  {
+    return new RSAOutputStream( key, out );
+  }
+  
+  /**
+   * Method for hybrid file decryption ( compare
+   * {@link #encryptHybrid(PublicKey, File, File)} ). The destination file is
+   * deleted if the MAC does not match.
+   * 
+   * @param key
+   *          the private key to use for decryption
+   * @param srcFile
+   *          the source file to decrypt
+   * @param destFile
+   *          the file to store decrypted data in
+   * @return true if successful, false otherwise
+   */
+  public static final boolean decryptHybrid( PrivateKey key, File srcFile,
+      File destFile )
+  {
+    DataInputStream is = null;
+    OutputStream os = null;
+    boolean result = false;
+    try
+    {
+      is = new DataInputStream( new FileInputStream( srcFile ) );
+      byte[] magic = new byte[ HYBRID_MAGIC.length ];
+      is.readFully( magic );
+      if ( !MessageDigest.isEqual( magic, HYBRID_MAGIC )
+        || is.readUnsignedByte() != HYBRID_VERSION )
+      {
+        throw new IOException( "unknown file format" );
+      }
+      byte[] wrappedKeys = new byte[ is.readUnsignedShort() ];
+      is.readFully( wrappedKeys );
+      byte[] iv = new byte[ IV_LENGTH ];
+      is.readFully( iv );
+      byte[] header = createHybridHeader( wrappedKeys, iv );
+      long cntRemaining = srcFile.length() - header.length - MAC_LENGTH;
+      if ( cntRemaining < 0 )
+      {
+        throw new IOException( "file is truncated" );
+      }
+      
+      // unwrap the session keys with the private key
+      Cipher rsaCipher = Cipher.getInstance( RSA_ENCRYPTION );
+      rsaCipher.init( Cipher.DECRYPT_MODE, key );
+      byte[] sessionKeys = rsaCipher.doFinal( wrappedKeys );
+      if ( sessionKeys.length != AES_KEY_LENGTH + MAC_KEY_LENGTH )
+      {
+        throw new IOException( "invalid session key" );
+      }
+      
+      Cipher cipher = createHybridCipher( Cipher.DECRYPT_MODE, sessionKeys, iv );
+      Mac mac = createHybridMac( sessionKeys );
+      mac.update( header );
+      
+      os = new FileOutputStream( destFile );
+      byte[] bytes = new byte[ HYBRID_BUFFER_SIZE ];
+      byte[] decBytes = new byte[ cipher.getOutputSize( HYBRID_BUFFER_SIZE ) ];
+      while ( cntRemaining > 0 )
+      {
+        int i =
+            is.read( bytes, 0, (int) Math.min( bytes.length, cntRemaining ) );
+        if ( i == -1 )
+        {
+          throw new IOException( "file is truncated" );
+        }
+        cntRemaining -= i;
+        mac.update( bytes, 0, i );
+        int cnt = cipher.update( bytes, 0, i, decBytes );
+        os.write( decBytes, 0, cnt );
+      }
+      int cnt = cipher.doFinal( decBytes, 0 );
+      os.write( decBytes, 0, cnt );
+      os.flush();
+      
+      byte[] expectedMac = new byte[ MAC_LENGTH ];
+      is.readFully( expectedMac );
+      result = MessageDigest.isEqual( expectedMac, mac.doFinal() );
+    }
+    catch ( Exception e )
+    {
+      e.printStackTrace();
+    }
+    finally
+    {
+      try
+      {
+        if ( is != null )
+        {
+          is.close();
+        }
+        if ( os != null )
+        {
+          os.close();
+        }
+      }
+      catch ( Exception e )
+      {}
+      
+      // never keep unauthenticated content
+      if ( !result && destFile.exists() )
+      {
+        destFile.delete();
+      }
+    }
+    return result;
+  }
+  
+  /**
+   * Method to create the header of a hybrid encrypted file
+   * 
+   * @param wrappedKeys
+   *          the RSA encrypted session keys
+   * @param iv
+   *          the AES initialization vector
+   * @return the header bytes
+   * @throws IOException
+   */
+  private static final byte[] createHybridHeader( byte[] wrappedKeys,
+      byte[] iv ) throws IOException
+  {
+    ByteArrayOutputStream bos = new ByteArrayOutputStream();
+    DataOutputStream os = new DataOutputStream( bos );
+    os.write( HYBRID_MAGIC );
+    os.writeByte( HYBRID_VERSION );
+    os.writeShort( wrappedKeys.length );
+    os.write( wrappedKeys );
+    os.write( iv );
+    os.flush();
+    return bos.toByteArray();
+  }
+  
+  /**
+   * Method to create the AES cipher for the hybrid stream encryption
+   * 
+   * @param mode
+   *          the cipher mode
+   * @param sessionKeys
+   *          the session keys ( AES key first )
+   * @param iv
+   *          the initialization vector
+   * @return the initialized cipher
+   * @throws GeneralSecurityException
+   */
+  private static final Cipher createHybridCipher( int mode,
+      byte[] sessionKeys, byte[] iv ) throws GeneralSecurityException
+  {
+    Cipher cipher = Cipher.getInstance( AES_ENCRYPTION );
+    cipher.init( mode,
+        new SecretKeySpec( sessionKeys, 0, AES_KEY_LENGTH, AES_ALGORITHM ),
+        new IvParameterSpec( iv ) );
+    return cipher;
+  }
+  
+  /**
+   * Method to create the MAC for the hybrid stream encryption
+   * 
+   * @param sessionKeys
+   *          the session keys ( MAC key last )
+   * @return the initialized MAC
+   * @throws GeneralSecurityException
+   */
+  private static final Mac createHybridMac( byte[] sessionKeys )
+      throws GeneralSecurityException
+  {
+    Mac mac = Mac.getInstance( MAC_ALGORITHM );
+    mac.init( new SecretKeySpec( sessionKeys, AES_KEY_LENGTH, MAC_KEY_LENGTH,
+        MAC_ALGORITHM ) );
+    return mac;
+  }
+  
   /**
    * Method to create an RSA key pair of RSA_KEY_LENGTH bit length and save the
    * key bytes to files.
@@ -393,4 +797,276 @@ public final class Encryption
     }
     return os.toByteArray();
   }
+  
+  /**
+   * Output stream for the hybrid stream encryption
+   * 
+   * @author Katy Hilgenberg
+   * 
+   */
+  private static final class HybridOutputStream
+      extends FilterOutputStream
+  {
+    /**
+     * The AES cipher
+     */
+    private final Cipher cipher;
+    
+    /**
+     * The MAC for the header and the cipher text
+     */
+    private final Mac mac;
+    
+    /**
+     * The reused buffer for encrypted bytes
+     */
+    private final byte[] encBytes;
+    
+    /**
+     * The reused buffer for single byte writes
+     */
+    private final byte[] singleByte;
+    
+    /**
+     * Flag if the stream is closed
+     */
+    private boolean closed;
+    
+    /**
+     * Constructor
+     * 
+     * @param key
+     *          the public key to wrap the session keys with
+     * @param out
+     *          the destination stream
+     * @throws GeneralSecurityException
+     * @throws IOException
+     */
+    public HybridOutputStream( PublicKey key, OutputStream out )
+        throws GeneralSecurityException, IOException
+    {
+      super( out );
+      
+      // create random session keys and wrap them with the public key
+      SecureRandom random = new SecureRandom();
+      byte[] sessionKeys = new byte[ AES_KEY_LENGTH + MAC_KEY_LENGTH ];
+      random.nextBytes( sessionKeys );
+      byte[] iv = new byte[ IV_LENGTH ];
+      random.nextBytes( iv );
+      
+      Cipher rsaCipher = Cipher.getInstance( RSA_ENCRYPTION );
+      rsaCipher.init( Cipher.ENCRYPT_MODE, key );
+      byte[] header =
+          createHybridHeader( rsaCipher.doFinal( sessionKeys ), iv );
+      
+      this.cipher =
+          createHybridCipher( Cipher.ENCRYPT_MODE, sessionKeys, iv );
+      this.mac = createHybridMac( sessionKeys );
+      this.encBytes = new byte[ cipher.getOutputSize( HYBRID_BUFFER_SIZE ) ];
+      this.singleByte = new byte[ 1 ];
+      this.closed = false;
+      
+      mac.update( header );
+      out.write( header );
+    }
+    
+    /*
+     * (non-Javadoc)
+     * 
+     * @see java.io.FilterOutputStream#write(int)
+     */
+    @Override
+    public void write( int b ) throws IOException
+    {
+      singleByte[ 0 ] = (byte) b;
+      write( singleByte, 0, 1 );
+    }
+    
+    /*
+     * (non-Javadoc)
+     * 
+     * @see java.io.FilterOutputStream#write(byte[], int, int)
+     */
+    @Override
+    public void write( byte[] b, int off, int len ) throws IOException
+    {
+      try
+      {
+        while ( len > 0 )
+        {
+          int cntBytes = Math.min( len, HYBRID_BUFFER_SIZE );
+          int cnt = cipher.update( b, off, cntBytes, encBytes );
+          mac.update( encBytes, 0, cnt );
+          out.write( encBytes, 0, cnt );
+          off += cntBytes;
+          len -= cntBytes;
+        }
+      }
+      catch ( GeneralSecurityException e )
+      {
+        throw new IOException( e.getMessage() );
+      }
+    }
+    
+    /*
+     * (non-Javadoc)
+     * 
+     * @see java.io.FilterOutputStream#close()
+     */
+    @Override
+    public void close() throws IOException
+    {
+      if ( closed )
+        return;
+      closed = true;
+      
+      try
+      {
+        int cnt = cipher.doFinal( encBytes, 0 );
+        mac.update( encBytes, 0, cnt );
+        out.write( encBytes, 0, cnt );
+        out.write( mac.doFinal() );
+        out.flush();
+      }
+      catch ( GeneralSecurityException e )
+      {
+        throw new IOException( e.getMessage() );
+      }
+      finally
+      {
+        out.close();
+      }
+    }
+  }
+  
+  /**
+   * Output stream for the RSA block encryption
+   * 
+   * @author Katy Hilgenberg
+   * 
+   */
+  private static final class RSAOutputStream
+      extends FilterOutputStream
+  {
+    /**
+     * The RSA cipher
+     */
+    private final Cipher cipher;
+    
+    /**
+     * The buffer for the current plain block
+     */
+    private final byte[] block;
+    
+    /**
+     * The count of bytes in the current block
+     */
+    private int cntBlock;
+    
+    /**
+     * Flag if the stream is closed
+     */
+    private boolean closed;
+    
+    /**
+     * Constructor
+     * 
+     * @param key
+     *          the public key for encryption
+     * @param out
+     *          the destination stream
+     * @throws GeneralSecurityException
+     */
+    public RSAOutputStream( PublicKey key, OutputStream out )
+        throws GeneralSecurityException
+    {
+      super( out );
+      this.cipher = Cipher.getInstance( RSA_ENCRYPTION );
+      cipher.init( Cipher.ENCRYPT_MODE, key );
+      this.block = new byte[ RSA_KEY_LENGTH / 8 - 11 ];
+      this.cntBlock = 0;
+      this.closed = false;
+    }
+    
+    /*
+     * (non-Javadoc)
+     * 
+     * @see java.io.FilterOutputStream#write(int)
+     */
+    @Override
+    public void write( int b ) throws IOException
+    {
+      block[ cntBlock++ ] = (byte) b;
+      if ( cntBlock == block.length )
+      {
+        encryptBlock();
+      }
+    }
+    
+    /*
+     * (non-Javadoc)
+     * 
+     * @see java.io.FilterOutputStream#write(byte[], int, int)
+     */
+    @Override
+    public void write( byte[] b, int off, int len ) throws IOException
+    {
+      while ( len > 0 )
+      {
+        int cntBytes = Math.min( len, block.length - cntBlock );
+        System.arraycopy( b, off, block, cntBlock, cntBytes );
+        cntBlock += cntBytes;
+        off += cntBytes;
+        len -= cntBytes;
+        if ( cntBlock == block.length )
+        {
+          encryptBlock();
+        }
+      }
+    }
+    
+    /*
+     * (non-Javadoc)
+     * 
+     * @see java.io.FilterOutputStream#close()
+     */
+    @Override
+    public void close() throws IOException
+    {
+      if ( closed )
+        return;
+      closed = true;
+      
+      try
+      {
+        if ( cntBlock > 0 )
+        {
+          encryptBlock();
+        }
+        out.flush();
+      }
+      finally
+      {
+        out.close();
+      }
+    }
+    
+    /**
+     * Does encrypt the current block
+     * 
+     * @throws IOException
+     */
+    private void encryptBlock() throws IOException
+    {
+      try
+      {
+        out.write( cipher.doFinal( block, 0, cntBlock ) );
+        cntBlock = 0;
+      }
+      catch ( GeneralSecurityException e )
+      {
+        throw new IOException( e.getMessage() );
+      }
+    }
+  }
 }
@@ -21,6 +21,8 @@
 package de.unikassel.android.sdcframework.util.facade;
 
 import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
 
 /**
  * Interface for file encryption strategies.
@@ -41,6 +43,20 @@ public interface FileEncryptionStrategy
    */
   public abstract boolean encryptFile( File srcFile, File destFile );
   
+  /**
+   * Method to open an encryption stream for single pass encryption of streamed
+   * content. The caller is responsible to close the returned stream, which
+   * does finish the encryption and close the destination stream.
+   * 
+   * @param out
+   *          the destination stream for the encrypted data
+   * @return the stream to write plain data into
+   * @throws IOException
+   *           if the encryption stream can not be created
+   */
+  public abstract OutputStream openEncryptedStream( OutputStream out )
+      throws IOException;
+  
   /**
    * Getter for a related three letter code describing the algorithm
    * 
@@ -0,0 +1,42 @@
+/*
+ * Copyright (C) 2012, Katy Hilgenberg.
+ * Special acknowledgments to: Knowledge & Data Engineering Group, University of Kassel (http://www.kde.cs.uni-kassel.de).
+ * Contact: sdcf@cs.uni-kassel.de
+ *
+ * This file is part of the SDCFramework (Sensor Data Collection Framework) project.
+ *
+ * The SDCFramework is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The SDCFramework is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the SDCFramework.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.unikassel.android.sdcframework.util.facade;
+
+/**
+ * Interface for gauges, which do provide the current value of a measure on
+ * request ( e.g. the count of queued samples ). Gauges are registered in the
+ * {@linkplain de.unikassel.android.sdcframework.util.MetricsRegistry metrics
+ * registry} and read only when the metrics are queried.
+ * 
+ * @author Katy Hilgenberg
+ * 
+ */
+public interface Gauge
+{
+  
+  /**
+   * Getter for the current value
+   * 
+   * @return the current value of the measure
+   */
+  public abstract long getValue();
+  
+}
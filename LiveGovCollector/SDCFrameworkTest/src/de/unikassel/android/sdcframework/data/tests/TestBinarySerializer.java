@@ -0,0 +1,358 @@
+/*
+ * Copyright (C) 2012, Katy Hilgenberg.
+ * Special acknowledgments to: Knowledge & Data Engineering Group, University of Kassel (http://www.kde.cs.uni-kassel.de).
+ * Contact: sdcf@cs.uni-kassel.de
+ *
+ * This file is part of the SDCFramework (Sensor Data Collection Framework) project.
+ *
+ * The SDCFramework is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The SDCFramework is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the SDCFramework.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.unikassel.android.sdcframework.data.tests;
+
+import java.util.Vector;
+
+import android.test.suitebuilder.annotation.Suppress;
+
+import de.unikassel.android.sdcframework.data.independent.BasicSample;
+import de.unikassel.android.sdcframework.data.independent.BinarySerializer;
+import de.unikassel.android.sdcframework.data.independent.BluetoothSampleData;
+import de.unikassel.android.sdcframework.data.independent.FileReferenceSampleData;
+import de.unikassel.android.sdcframework.data.independent.GSMNeighborCell;
+import de.unikassel.android.sdcframework.data.independent.GSMSampleData;
+import de.unikassel.android.sdcframework.data.independent.GeoLocation;
+import de.unikassel.android.sdcframework.data.independent.GlobalSerializer;
+import de.unikassel.android.sdcframework.data.independent.SampleData;
+import de.unikassel.android.sdcframework.data.independent.TextSampleData;
+import de.unikassel.android.sdcframework.data.independent.TimeProviderSampleData;
+import de.unikassel.android.sdcframework.data.independent.WifiSampleData;
+import junit.framework.TestCase;
+
+/**
+ * Tests for the binary serializer.
+ * 
+ * @author Katy Hilgenberg
+ * 
+ */
+public class TestBinarySerializer extends TestCase
+{
+  
+  /**
+   * The sample count for the performance comparison
+   */
+  private static final int BENCHMARK_COUNT = 10000;
+  
+  /**
+   * Does create initialized sample data for all known data types
+   * 
+   * @return initialized sample data for all known data types
+   */
+  public static Vector< SampleData > createTestData()
+  {
+    Vector< SampleData > data = new Vector< SampleData >();
+    data.add( TestAccelerometerSampleData.createInitializedAccelerometerSampleData() );
+    data.add( TestGyroscopeSampleData.createInitializedSampleData() );
+    data.add( TestMagneticFieldSampleData.createInitializedSampleData() );
+    data.add( TestOrientationSampleData.createInitializedSampleData() );
+    data.add( TestLightSampleData.createInitializedSampleData() );
+    data.add( TestProximitySampleData.createInitializedSampleData() );
+    data.add( TestPressureSampleData.createInitializedSampleData() );
+    data.add( TestTemperatureSampleData.createInitializedSampleData() );
+    data.add( TestGPSSampleData.createInitializedGPSSampleData() );
+    data.add( TestNetworkLocationSampleData.createInitializedNetworkLocationSampleData() );
+    data.add( TestGSMSampleData.createInitializedGSMSampleData() );
+    data.add( TestWifiSampleData.createInitializedWifiSampleData() );
+    data.add( TestBluetoothSampleData.createInitializedBluetoothSampleData() );
+    data.add( TestTwitterSampleData.createInitializedTwitterSampleData() );
+    data.add( TestSensorBatchSampleData.createInitializedSampleData() );
+    
+    TextSampleData text = new TextSampleData();
+    text.setText( "some text with umlauts \u00e4\u00f6\u00fc" );
+    data.add( text );
+    
+    FileReferenceSampleData file = new FileReferenceSampleData();
+    file.setFile( "audio/record.3gp" );
+    data.add( file );
+    
+    TimeProviderSampleData time = new TimeProviderSampleData();
+    time.setSynced( true );
+    data.add( time );
+    
+    return data;
+  }
+  
+  /**
+   * Test method for the sample data serialization.
+   */
+  public final void testSampleDataSerialization()
+  {
+    for ( SampleData orgData : createTestData() )
+    {
+      try
+      {
+        SampleData data =
+            BinarySerializer.fromBytes( BinarySerializer.toBytes( orgData ) );
+        assertEquals( "Expected equal data type", orgData.getClass(),
+            data.getClass() );
+        assertEquals( "Expected deserialized data equal to the original source",
+            orgData, data );
+      }
+      catch ( Exception e )
+      {
+        e.printStackTrace();
+        fail( "Unexpected exception during serialization of "
+            + orgData.getClass().getSimpleName() );
+      }
+    }
+  }
+  
+  /**
+   * Test method for the serialization of sample data with unset values.
+   */
+  public final void testUninitializedSampleDataSerialization()
+  {
+    Vector< SampleData > test = new Vector< SampleData >();
+    test.add( new GSMSampleData() );
+    test.add( new WifiSampleData() );
+    test.add( new BluetoothSampleData() );
+    test.add( new TextSampleData() );
+    
+    for ( SampleData orgData : test )
+    {
+      try
+      {
+        assertEquals( "Expected deserialized data equal to the original source",
+            orgData,
+            BinarySerializer.fromBytes( BinarySerializer.toBytes( orgData ) ) );
+      }
+      catch ( Exception e )
+      {
+        e.printStackTrace();
+        fail( "Unexpected exception during serialization of "
+            + orgData.getClass().getSimpleName() );
+      }
+    }
+  }
+  
+  /**
+   * Test method for the serialization of the GSM neighbor cells.
+   */
+  public final void testGSMNeighborSerialization()
+  {
+    GSMSampleData orgData = TestGSMSampleData.createInitializedGSMSampleData();
+    Vector< GSMNeighborCell > neighbors = new Vector< GSMNeighborCell >();
+    neighbors.add( new GSMNeighborCell( 4711, -87 ) );
+    neighbors.add( new GSMNeighborCell( 815, -95 ) );
+    orgData.setNeighbors( neighbors );
+    try
+    {
+      GSMSampleData data = (GSMSampleData)
+          BinarySerializer.fromBytes( BinarySerializer.toBytes( orgData ) );
+      assertEquals( "Expected equal neighbor count", neighbors.size(),
+          data.getNeighbors().size() );
+      for ( int i = 0; i < neighbors.size(); ++i )
+      {
+        GSMNeighborCell cell = data.getNeighbors().get( i );
+        assertEquals( "Expected equal cell id", neighbors.get( i ).getCellId(),
+            cell.getCellId() );
+        assertEquals( "Expected equal signal strength",
+            neighbors.get( i ).getSignalStrength(), cell.getSignalStrength() );
+      }
+    }
+    catch ( Exception e )
+    {
+      e.printStackTrace();
+      fail( "Unexpected exception during serialization of GSM neighbors" );
+    }
+  }
+  
+  /**
+   * Test method for the location serialization.
+   */
+  public final void testLocationSerialization()
+  {
+    GeoLocation orgLocation = TestGeoLocation.createInitializedGeoLocation();
+    try
+    {
+      byte[] bytes = BinarySerializer.locationToBytes( orgLocation );
+      assertEquals( "Expected location equal to the original source",
+          orgLocation, BinarySerializer.locationFromBytes( bytes ) );
+    }
+    catch ( Exception e )
+    {
+      e.printStackTrace();
+      fail( "Unexpected exception during location serialization" );
+    }
+  }
+  
+  /**
+   * Test method for the complete sample serialization.
+   */
+  public final void testSampleSerialization()
+  {
+    try
+    {
+      for ( SampleData orgData : createTestData() )
+      {
+        BasicSample orgSample = new BasicSample();
+        orgSample.setDeviceIdentifier( "Test" );
+        orgSample.setTimeStamp( 1304586006722L );
+        orgSample.setPriority( 3 );
+        orgSample.setTimeSynced( true );
+        orgSample.setLocation( TestGeoLocation.createInitializedGeoLocation() );
+        orgSample.setData( orgData );
+        
+        BasicSample sample = new BasicSample();
+        BinarySerializer.sampleFromBytes(
+            BinarySerializer.sampleToBytes( orgSample ), sample );
+        assertEquals( "Expected sample equal to the original source",
+            orgSample, sample );
+      }
+      
+      // without location, data and time sync state
+      BasicSample orgSample = new BasicSample();
+      orgSample.setDeviceIdentifier( "Test" );
+      BasicSample sample = new BasicSample();
+      BinarySerializer.sampleFromBytes(
+          BinarySerializer.sampleToBytes( orgSample ), sample );
+      assertEquals( "Expected sample equal to the original source",
+          orgSample, sample );
+      assertNull( "Expected unknown time sync state", sample.isTimeSynced() );
+    }
+    catch ( Exception e )
+    {
+      e.printStackTrace();
+      fail( "Unexpected exception during sample serialization" );
+    }
+  }
+  
+  /**
+   * Test method for invalid input.
+   */
+  public final void testInvalidInput()
+  {
+    try
+    {
+      BinarySerializer.fromBytes( null );
+      fail( "Expected exception for missing data" );
+    }
+    catch ( Exception e )
+    {}
+    
+    try
+    {
+      BinarySerializer.fromBytes( new byte[] { 99, 1 } );
+      fail( "Expected exception for unknown format version" );
+    }
+    catch ( Exception e )
+    {}
+    
+    try
+    {
+      BinarySerializer.fromBytes( new byte[] {
+          BinarySerializer.FORMAT_VERSION, 127 } );
+      fail( "Expected exception for unknown data type" );
+    }
+    catch ( Exception e )
+    {}
+    
+    try
+    {
+      BinarySerializer.fromBytes( new byte[] {
+          BinarySerializer.FORMAT_VERSION, 1, 0 } );
+      fail( "Expected exception for truncated data" );
+    }
+    catch ( Exception e )
+    {}
+  }
+  
+  /**
+   * Performance comparison of the binary and the XML serialization ( not part
+   * of the default test run ).
+   */
+  @Suppress
+  public final void testPerformance()
+  {
+    Vector< SampleData > test = createTestData();
+    try
+    {
+      // warm up both code paths
+      runBinary( test, BENCHMARK_COUNT / 10 );
+      runXML( test, BENCHMARK_COUNT / 10 );
+      
+      long binaryTime = runBinary( test, BENCHMARK_COUNT );
+      long xmlTime = runXML( test, BENCHMARK_COUNT );
+      
+      System.out.println( "Serialization of " + BENCHMARK_COUNT
+          + " sample data ( encode and decode ): binary " + binaryTime
+          + " ms, XML " + xmlTime + " ms" );
+      assertTrue( "Expected binary serialization faster than XML",
+          binaryTime < xmlTime );
+    }
+    catch ( Exception e )
+    {
+      e.printStackTrace();
+      fail( "Unexpected exception during performance test" );
+    }
+  }
+  
+  /**
+   * Does encode and decode the test data in binary format
+   * 
+   * @param test
+   *          the test data
+   * @param count
+   *          the count of samples to process
+   * @return the elapsed time in milliseconds
+   * @throws Exception
+   *           in case of serialization errors
+   */
+  private static long runBinary( Vector< SampleData > test, int count )
+      throws Exception
+  {
+    long start = System.currentTimeMillis();
+    for ( int i = 0; i < count; ++i )
+    {
+      SampleData data = test.get( i % test.size() );
+      BinarySerializer.fromBytes( BinarySerializer.toBytes( data ) );
+    }
+    return System.currentTimeMillis() - start;
+  }
+  
+  /**
+   * Does encode and decode the test data in XML format the way it was done
+   * for persistence before ( class name lookup and XML parsing )
+   * 
+   * @param test
+   *          the test data
+   * @param count
+   *          the count of samples to process
+   * @return the elapsed time in milliseconds
+   * @throws Exception
+   *           in case of serialization errors
+   */
+  private static long runXML( Vector< SampleData > test, int count )
+      throws Exception
+  {
+    long start = System.currentTimeMillis();
+    for ( int i = 0; i < count; ++i )
+    {
+      SampleData data = test.get( i % test.size() );
+      String className = data.getClass().getName();
+      String xml = data.toXML();
+      GlobalSerializer.fromXML( Class.forName( className ), xml );
+    }
+    return System.currentTimeMillis() - start;
+  }
+  
+}
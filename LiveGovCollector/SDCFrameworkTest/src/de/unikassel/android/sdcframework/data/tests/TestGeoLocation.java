@@ -69,6 +69,24 @@ public class TestGeoLocation extends TestCase
         location.equals( new GeoLocation() ) );
   }
   
+  /**
+   * Test method for the hash code
+   */
+  public final void testHashCode()
+  {
+    GeoLocation location = createInitializedGeoLocation();
+    assertEquals( "Expected equal hash code for equal objects",
+        location.hashCode(), new GeoLocation( location ).hashCode() );
+    
+    GeoLocation zero = new GeoLocation();
+    GeoLocation negativeZero = new GeoLocation();
+    negativeZero.setLat( -0.0 );
+    negativeZero.setLon( -0.0 );
+    assertEquals( "Expected equal objects", zero, negativeZero );
+    assertEquals( "Expected equal hash code for equal objects",
+        zero.hashCode(), negativeZero.hashCode() );
+  }
+  
   /**
    * Test method for serialization.
    */
@@ -0,0 +1,109 @@
+/*
+ * Copyright (C) 2012, Katy Hilgenberg.
+ * Special acknowledgments to: Knowledge & Data Engineering Group, University of Kassel (http://www.kde.cs.uni-kassel.de).
+ * Contact: sdcf@cs.uni-kassel.de
+ *
+ * This file is part of the SDCFramework (Sensor Data Collection Framework) project.
+ *
+ * The SDCFramework is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The SDCFramework is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the SDCFramework.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.unikassel.android.sdcframework.data.tests;
+
+import java.io.ByteArrayOutputStream;
+
+import de.unikassel.android.sdcframework.data.Sample;
+import de.unikassel.android.sdcframework.data.independent.GeoLocation;
+import de.unikassel.android.sdcframework.data.independent.LocationTrack;
+import de.unikassel.android.sdcframework.data.independent.SampleCollectionWriter;
+import de.unikassel.android.sdcframework.devices.facade.SensorDeviceIdentifier;
+import junit.framework.TestCase;
+
+/**
+ * Tests for the location track.
+ * 
+ * @author Katy Hilgenberg
+ * 
+ */
+public class TestLocationTrack extends TestCase
+{
+  
+  /**
+   * Test method for adding locations
+   */
+  public final void testAdd()
+  {
+    LocationTrack track = new LocationTrack();
+    assertTrue( "Expected empty track", track.isEmpty() );
+    
+    GeoLocation first = TestGeoLocation.createInitializedGeoLocation();
+    GeoLocation second = new GeoLocation();
+    second.setLat( 50.36 );
+    second.setLon( 7.56 );
+    
+    Integer firstId = track.add( first );
+    assertEquals( "Expected same id for equal location", firstId,
+        track.add( new GeoLocation( first ) ) );
+    Integer secondId = track.add( second );
+    assertFalse( "Expected new id for another location",
+        firstId.equals( secondId ) );
+    assertEquals( "Expected same id for a revisited location", firstId,
+        track.add( first ) );
+    
+    assertEquals( "Expected distinct locations only", 2, track.size() );
+    assertEquals( "Expected location for id", first,
+        track.getLocation( firstId ) );
+    assertEquals( "Expected location for id", second,
+        track.getLocation( secondId ) );
+    assertNull( "Expected no location for unknown id",
+        track.getLocation( 3 ) );
+  }
+  
+  /**
+   * Test method for the sample serialization with location references
+   */
+  public final void testSampleCollectionWriter() throws Exception
+  {
+    LocationTrack track = new LocationTrack();
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    SampleCollectionWriter writer = new SampleCollectionWriter( out, track );
+    
+    GeoLocation location = TestGeoLocation.createInitializedGeoLocation();
+    for ( int i = 0; i < 10; ++i )
+    {
+      Sample sample = new Sample( SensorDeviceIdentifier.GSM );
+      sample.setData( TestGSMSampleData.createInitializedGSMSampleData() );
+      sample.setTimeStamp( 1000L + i );
+      sample.setLocation( location );
+      writer.write( sample );
+      assertEquals( "Expected location restored", location,
+          sample.getLocation() );
+      assertNull( "Expected location reference reset",
+          sample.getLocationReference() );
+    }
+    writer.finish();
+    
+    String xml = out.toString( "UTF-8" );
+    assertFalse( "Expected no inline locations", xml.contains( "<location>" ) );
+    assertTrue( "Expected location references", xml.contains( "loc=\"1\"" ) );
+    assertEquals( "Expected one location in track", 1, track.size() );
+    
+    out.reset();
+    track.write( out );
+    xml = out.toString( "UTF-8" );
+    assertTrue( "Expected location in track",
+        xml.contains( "<location id=\"1\"><lon>" + location.getLon()
+            + "</lon><lat>" + location.getLat() + "</lat></location>" ) );
+  }
+  
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright (C) 2012, Katy Hilgenberg.
+ * Special acknowledgments to: Knowledge & Data Engineering Group, University of Kassel (http://www.kde.cs.uni-kassel.de).
+ * Contact: sdcf@cs.uni-kassel.de
+ *
+ * This file is part of the SDCFramework (Sensor Data Collection Framework) project.
+ *
+ * The SDCFramework is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The SDCFramework is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the SDCFramework.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.unikassel.android.sdcframework.data.tests;
+
+import de.unikassel.android.sdcframework.data.independent.AccelerometerSampleData;
+import de.unikassel.android.sdcframework.data.independent.GeoLocation;
+import de.unikassel.android.sdcframework.data.independent.ObjectPool;
+import de.unikassel.android.sdcframework.data.independent.SampleDataPool;
+import de.unikassel.android.sdcframework.data.independent.TextSampleData;
+import junit.framework.TestCase;
+
+/**
+ * Tests for the object pool and the sample data pool
+ * 
+ * @author Katy Hilgenberg
+ * 
+ */
+public class TestObjectPool extends TestCase
+{
+  
+  /**
+   * Test method for the bounded object pool
+   */
+  public void testObjectPool()
+  {
+    ObjectPool< Object > pool = new ObjectPool< Object >( 2 );
+    assertNull( "Expected empty pool", pool.obtain() );
+    assertEquals( "Unexpected miss count", 1, pool.getMissedCount() );
+    
+    Object first = new Object();
+    Object second = new Object();
+    assertTrue( "Expected object pooled", pool.recycle( first ) );
+    assertTrue( "Expected object pooled", pool.recycle( second ) );
+    assertFalse( "Expected full pool", pool.recycle( new Object() ) );
+    assertFalse( "Expected null rejected", pool.recycle( null ) );
+    assertEquals( "Unexpected pool size", 2, pool.size() );
+    
+    assertSame( "Expected last recycled object", second, pool.obtain() );
+    assertSame( "Expected first recycled object", first, pool.obtain() );
+    assertNull( "Expected empty pool", pool.obtain() );
+    assertEquals( "Unexpected reuse count", 2, pool.getReusedCount() );
+    assertEquals( "Unexpected miss count", 2, pool.getMissedCount() );
+    
+    try
+    {
+      new ObjectPool< Object >( 0 );
+      fail( "Expected exception for invalid capacity" );
+    }
+    catch ( IllegalArgumentException e )
+    {}
+  }
+  
+  /**
+   * Test method for the sample data pool
+   */
+  public void testSampleDataPool()
+  {
+    // drain the pool of this type
+    while ( SampleDataPool.obtain( AccelerometerSampleData.class ) != null )
+    {}
+    
+    AccelerometerSampleData data = new AccelerometerSampleData();
+    data.setAccelerationX( 1.F );
+    data.setAccelerationY( 2.F );
+    data.setAccelerationZ( 3.F );
+    
+    AccelerometerSampleData copy = (AccelerometerSampleData) data.obtainCopy();
+    assertNotSame( "Expected a copy", data, copy );
+    assertEquals( "Expected equal copy", data, copy );
+    
+    assertTrue( "Expected data recycled", SampleDataPool.recycle( copy ) );
+    AccelerometerSampleData pooledCopy =
+        (AccelerometerSampleData) data.obtainCopy();
+    assertSame( "Expected pooled object reused", copy, pooledCopy );
+    assertEquals( "Expected equal copy", data, pooledCopy );
+    
+    assertTrue( "Expected location recycled",
+        SampleDataPool.recycle( new GeoLocation() ) );
+    assertNotNull( "Expected pooled location",
+        SampleDataPool.obtain( GeoLocation.class ) );
+    
+    TextSampleData text = new TextSampleData();
+    assertFalse( "Expected type without pool rejected",
+        SampleDataPool.recycle( text ) );
+    assertNull( "Expected no pool for type",
+        SampleDataPool.obtain( TextSampleData.class ) );
+    assertNotSame( "Expected a clone for type without pool", text,
+        text.obtainCopy() );
+  }
+}
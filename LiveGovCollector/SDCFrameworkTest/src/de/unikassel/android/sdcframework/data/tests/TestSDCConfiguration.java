@@ -53,6 +53,7 @@ public class TestSDCConfiguration extends TestCase
     assertNull( "Expected priority is null initially", entry.getPriority() );
     assertEquals( "Expected frequency is 0 initially", 0, entry.getFrequency() );
     assertFalse( "Expected enabled is false initially", entry.getEnabled() );
+    assertEquals( "Expected batch size is 0 initially", 0, entry.getBatchSize() );
     
     entry.setSensorID( SensorDeviceIdentifier.Accelerometer.toString() );
     assertEquals( "Expected sensor id set",
@@ -64,6 +65,8 @@ public class TestSDCConfiguration extends TestCase
     assertEquals( "Expected frequency set", 100000, entry.getFrequency() );
     entry.setEnabled( true );
     assertTrue( "Expected enabled set to true", entry.getEnabled() );
+    entry.setBatchSize( 500 );
+    assertEquals( "Expected batch size set", 500, entry.getBatchSize() );
     
     // test sdc configuration
     SDCConfiguration config = new SDCConfiguration();
@@ -376,6 +379,8 @@ public class TestSDCConfiguration extends TestCase
             orgEntry.getEnabled(), newEntry.getEnabled() );
         assertEquals( "Expected same priority state",
             orgEntry.getPriority(), newEntry.getPriority() );
+        assertEquals( "Expected same batch size",
+            orgEntry.getBatchSize(), newEntry.getBatchSize() );
       }
       
       // test service settings
@@ -25,6 +25,7 @@ import android.os.Build;
 import android.os.Parcel;
 
 import de.unikassel.android.sdcframework.data.Sample;
+import de.unikassel.android.sdcframework.data.independent.AccelerometerSampleData;
 import de.unikassel.android.sdcframework.data.independent.GeoLocation;
 import de.unikassel.android.sdcframework.data.independent.GlobalSerializer;
 import de.unikassel.android.sdcframework.data.independent.SampleData;
@@ -323,4 +324,39 @@ public class TestSample extends TestCase
         orgSample, sampleFromParcel );
   }
   
+  /**
+   * Test for the reference counting of pooled samples
+   */
+  public void testPooledSample()
+  {
+    // constructed samples are not affected
+    Sample sample = new Sample( SensorDeviceIdentifier.Accelerometer );
+    sample.setData( new AccelerometerSampleData() );
+    sample.release();
+    assertFalse( "Expected constructed sample not pooled", sample.isPooled() );
+    assertNotNull( "Expected data unchanged", sample.getData() );
+    
+    sample = Sample.obtain();
+    assertTrue( "Expected pooled sample", sample.isPooled() );
+    sample.setDeviceIdentifier( SensorDeviceIdentifier.Accelerometer.toString() );
+    sample.setData( new AccelerometerSampleData() );
+    sample.setLocation( new GeoLocation() );
+    
+    sample.retain();
+    sample.release();
+    assertTrue( "Expected sample still referenced", sample.isPooled() );
+    assertNotNull( "Expected data unchanged", sample.getData() );
+    
+    sample.release();
+    assertFalse( "Expected sample recycled", sample.isPooled() );
+    assertNull( "Expected identifier cleared", sample.getDeviceIdentifier() );
+    assertNull( "Expected data cleared", sample.getData() );
+    assertNull( "Expected location cleared", sample.getLocation() );
+    
+    // further releases must not recycle twice
+    sample.release();
+    assertSame( "Expected recycled sample reused", sample, Sample.obtain() );
+    assertNotSame( "Expected sample recycled once", sample, Sample.obtain() );
+  }
+  
 }
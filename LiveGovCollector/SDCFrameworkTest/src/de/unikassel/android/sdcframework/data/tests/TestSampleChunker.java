@@ -0,0 +1,152 @@
+/*
+ * Copyright (C) 2012, Katy Hilgenberg.
+ * Special acknowledgments to: Knowledge & Data Engineering Group, University of Kassel (http://www.kde.cs.uni-kassel.de).
+ * Contact: sdcf@cs.uni-kassel.de
+ *
+ * This file is part of the SDCFramework (Sensor Data Collection Framework) project.
+ *
+ * The SDCFramework is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The SDCFramework is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the SDCFramework.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.unikassel.android.sdcframework.data.tests;
+
+import android.os.Parcel;
+import de.unikassel.android.sdcframework.data.Sample;
+import de.unikassel.android.sdcframework.data.SampleChunker;
+import de.unikassel.android.sdcframework.data.SampleCollection;
+import de.unikassel.android.sdcframework.data.independent.TextSampleData;
+import de.unikassel.android.sdcframework.devices.facade.SensorDeviceIdentifier;
+import junit.framework.TestCase;
+
+/**
+ * Tests for the sample chunker.
+ * 
+ * @author Katy Hilgenberg
+ * 
+ */
+public class TestSampleChunker extends TestCase
+{
+  
+  /**
+   * Does create a text sample
+   * 
+   * @param timeStamp
+   *          the time stamp
+   * @param textLength
+   *          the length of the text
+   * @return the sample
+   */
+  private static Sample createSample( long timeStamp, int textLength )
+  {
+    StringBuffer text = new StringBuffer( textLength );
+    for ( int i = 0; i < textLength; ++i )
+    {
+      text.append( (char) ( 'a' + i % 26 ) );
+    }
+    TextSampleData data = new TextSampleData();
+    data.setText( text.toString() );
+    
+    Sample sample = new Sample( SensorDeviceIdentifier.Tags );
+    sample.setTimeStamp( timeStamp );
+    sample.setTimeSynced( true );
+    sample.setData( data );
+    return sample;
+  }
+  
+  /**
+   * Test method for the chunk size limitation
+   */
+  public final void testChunking() throws Exception
+  {
+    int chunkSize = SampleChunker.MIN_CHUNK_SIZE;
+    SampleChunker chunker = new SampleChunker( chunkSize );
+    assertNull( "Expected no chunk for an empty chunker", chunker.flush() );
+    
+    int cntSamples = 100;
+    int cntChunked = 0;
+    int cntChunks = 0;
+    for ( int i = 0; i < cntSamples; ++i )
+    {
+      SampleCollection chunk = chunker.add( createSample( i, 100 ) );
+      if ( chunk != null )
+      {
+        assertTrue( "Expected chunk within the size limit",
+            chunk.getEncodedSize() <= chunkSize );
+        assertEquals( "Expected samples in order", cntChunked,
+            chunk.getSamples().get( 0 ).getTimeStamp() );
+        cntChunked += chunk.size();
+        ++cntChunks;
+      }
+    }
+    assertTrue( "Expected several chunks", cntChunks > 1 );
+    assertEquals( "Expected pending samples", cntSamples - cntChunked,
+        chunker.getPendingCount() );
+    
+    SampleCollection chunk = chunker.flush();
+    assertNotNull( "Expected last chunk", chunk );
+    cntChunked += chunk.size();
+    assertEquals( "Expected all samples chunked", cntSamples, cntChunked );
+    assertEquals( "Expected no pending samples", 0, chunker.getPendingCount() );
+  }
+  
+  /**
+   * Test method for samples exceeding the chunk size
+   */
+  public final void testOversizedSample() throws Exception
+  {
+    SampleChunker chunker = new SampleChunker( 0 );
+    assertEquals( "Expected minimum chunk size",
+        SampleChunker.MIN_CHUNK_SIZE, chunker.getMaxChunkSize() );
+    
+    assertNull( "Expected no completed chunk",
+        chunker.add( createSample( 1L, 10 ) ) );
+    SampleCollection chunk =
+        chunker.add( createSample( 2L, 2 * SampleChunker.MIN_CHUNK_SIZE ) );
+    assertNotNull( "Expected completed chunk", chunk );
+    assertEquals( "Expected single sample", 1, chunk.size() );
+    
+    chunk = chunker.add( createSample( 3L, 10 ) );
+    assertNotNull( "Expected completed chunk", chunk );
+    assertEquals( "Expected the oversized sample alone", 1, chunk.size() );
+    assertTrue( "Expected chunk exceeding the size limit",
+        chunk.getEncodedSize() > SampleChunker.MIN_CHUNK_SIZE );
+  }
+  
+  /**
+   * Test method for parceling of chunks
+   */
+  public final void testParcelable() throws Exception
+  {
+    SampleChunker chunker = new SampleChunker( SampleChunker.DEFAULT_CHUNK_SIZE );
+    for ( int i = 0; i < 10; ++i )
+    {
+      assertNull( "Expected no completed chunk",
+          chunker.add( createSample( i, 20 ) ) );
+    }
+    SampleCollection chunk = chunker.flush();
+    
+    Parcel parcel = Parcel.obtain();
+    chunk.writeToParcel( parcel, 0 );
+    parcel.setDataPosition( 0 );
+    SampleCollection chunkFromParcel =
+        SampleCollection.CREATOR.createFromParcel( parcel );
+    parcel.recycle();
+    
+    assertEquals( "Expected same samples after parceling", chunk.getSamples(),
+        chunkFromParcel.getSamples() );
+    
+    chunk.add( createSample( 10L, 20 ) );
+    assertEquals( "Expected encoding invalidated by modification", -1,
+        chunk.getEncodedSize() );
+  }
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright (C) 2012, Katy Hilgenberg.
+ * Special acknowledgments to: Knowledge & Data Engineering Group, University of Kassel (http://www.kde.cs.uni-kassel.de).
+ * Contact: sdcf@cs.uni-kassel.de
+ *
+ * This file is part of the SDCFramework (Sensor Data Collection Framework) project.
+ *
+ * The SDCFramework is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The SDCFramework is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the SDCFramework.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.unikassel.android.sdcframework.data.tests;
+
+import de.unikassel.android.sdcframework.data.independent.GlobalSerializer;
+import de.unikassel.android.sdcframework.data.independent.SampleData;
+import de.unikassel.android.sdcframework.data.independent.SensorBatchSampleData;
+import junit.framework.TestCase;
+
+/**
+ * Tests for the sensor batch samples.
+ * 
+ * @author Katy Hilgenberg
+ * 
+ */
+public class TestSensorBatchSampleData extends TestCase
+{
+  
+  /**
+   * Test method for construction and getter.
+   */
+  public final void testSensorBatchSampleData()
+  {
+    SensorBatchSampleData sampleData = new SensorBatchSampleData();
+    assertEquals( "Expected no events initially", 0, sampleData.getEventCount() );
+    assertNull( "Expected no related data", sampleData.getRelatedData() );
+    
+    sampleData = createInitializedSampleData();
+    assertEquals( "Expected event count", 2, sampleData.getEventCount() );
+    assertEquals( "Expected axes", 3, sampleData.getAxes() );
+    assertEquals( "Expected value of second event y axis", -0.5F,
+        sampleData.getValue( 1, 1 ) );
+    
+    // test copy construction
+    SensorBatchSampleData copy = new SensorBatchSampleData( sampleData );
+    assertEquals( "Expected equal sample", sampleData, copy );
+    assertNotSame( "Expected copied values", sampleData.getValues(),
+        copy.getValues() );
+  }
+  
+  /**
+   * Test method for equal comparison
+   */
+  public final void testEquals()
+  {
+    SensorBatchSampleData sampleData = createInitializedSampleData();
+    
+    assertEquals( "Expected object equal to itself", sampleData, sampleData );
+    
+    assertFalse( "Expected object not equal to an uninitialized sample",
+        sampleData.equals( new SensorBatchSampleData() ) );
+  }
+  
+  /**
+   * Test method for serialization.
+   */
+  public final void testSerialization()
+  {
+    SensorBatchSampleData batchSampleData = createInitializedSampleData();
+    
+    SampleData sampleData = batchSampleData;
+    try
+    {
+      sampleData =
+          GlobalSerializer.fromXML( SensorBatchSampleData.class,
+              sampleData.toXML() );
+    }
+    catch ( Exception e )
+    {
+      e.printStackTrace();
+      fail( "Unexpected exception during serialization to string" );
+    }
+    
+    assertEquals(
+        "Expected object serialized from string equal to the original source",
+        batchSampleData, sampleData );
+  }
+  
+  /**
+   * Does create initialized sensor batch sample
+   * 
+   * @return the initialized sensor batch sample
+   */
+  public static SensorBatchSampleData createInitializedSampleData()
+  {
+    return new SensorBatchSampleData( 3,
+        new long[] { 1000000L, 21000000L },
+        new float[] { 1.5F, 0.5F, 9.81F, 1.25F, -0.5F, 9.79F } );
+  }
+}
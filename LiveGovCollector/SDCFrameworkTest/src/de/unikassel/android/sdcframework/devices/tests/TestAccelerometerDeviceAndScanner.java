@@ -37,6 +37,7 @@ import android.content.Context;
 import android.hardware.Sensor;
 import android.hardware.SensorEvent;
 import android.hardware.SensorManager;
+import android.os.Debug;
 import android.test.AndroidTestCase;
 
 /**
@@ -159,6 +160,42 @@ public class TestAccelerometerDeviceAndScanner extends AndroidTestCase
     device.onDestroy( getContext() );
   }
   
+  /**
+   * Test for the allocation free sample taking with pooled samples
+   */
+  public void testSampleTakingWithoutAllocation()
+  {
+    testPreconditions();
+    
+    AccelerometerDevice device = new AccelerometerDevice( getContext() );
+    
+    // warm up the pools
+    for ( int i = 0; i < 100; ++i )
+    {
+      device.getSample().release();
+    }
+    
+    Debug.startAllocCounting();
+    try
+    {
+      Debug.resetThreadAllocCount();
+      for ( int i = 0; i < 1000; ++i )
+      {
+        Sample sample = device.getSample();
+        assertTrue( "Expected pooled sample", sample.isPooled() );
+        sample.release();
+      }
+      assertEquals( "Expected no allocations per sample", 0,
+          Debug.getThreadAllocCount() );
+    }
+    finally
+    {
+      Debug.stopAllocCounting();
+    }
+    
+    device.onDestroy( getContext() );
+  }
+  
   /**
    * Test for valid device sample updates
    */
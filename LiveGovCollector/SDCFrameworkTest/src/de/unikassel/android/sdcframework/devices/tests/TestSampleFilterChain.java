@@ -0,0 +1,286 @@
+/*
+ * Copyright (C) 2012, Katy Hilgenberg.
+ * Special acknowledgments to: Knowledge & Data Engineering Group, University of Kassel (http://www.kde.cs.uni-kassel.de).
+ * Contact: sdcf@cs.uni-kassel.de
+ *
+ * This file is part of the SDCFramework (Sensor Data Collection Framework) project.
+ *
+ * The SDCFramework is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The SDCFramework is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the SDCFramework.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.unikassel.android.sdcframework.devices.tests;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import de.unikassel.android.sdcframework.data.Sample;
+import de.unikassel.android.sdcframework.data.independent.GSMSampleData;
+import de.unikassel.android.sdcframework.data.independent.LightSampleData;
+import de.unikassel.android.sdcframework.devices.DuplicateSampleFilter;
+import de.unikassel.android.sdcframework.devices.SampleFilterChain;
+import de.unikassel.android.sdcframework.devices.facade.SampleAggregationTypes;
+import de.unikassel.android.sdcframework.devices.facade.SensorDeviceIdentifier;
+import de.unikassel.android.sdcframework.preferences.SampleFilterConfigurationImpl;
+import de.unikassel.android.sdcframework.util.ObservableEventSourceImpl;
+import de.unikassel.android.sdcframework.util.facade.EventObserver;
+import de.unikassel.android.sdcframework.util.facade.ObservableEventSource;
+
+/**
+ * Tests for the sample filter chain.
+ * 
+ * @author Katy Hilgenberg
+ * 
+ */
+public class TestSampleFilterChain extends TestCase
+{
+  /**
+   * The event source for the filter chain
+   */
+  private ObservableEventSourceImpl< Sample > source;
+  
+  /**
+   * The samples notified to the observers
+   */
+  private List< Sample > samples;
+  
+  /**
+   * The time stamp of the next sample
+   */
+  private long timeStamp;
+  
+  /*
+   * (non-Javadoc)
+   * 
+   * @see junit.framework.TestCase#setUp()
+   */
+  @Override
+  protected void setUp() throws Exception
+  {
+    super.setUp();
+    samples = new ArrayList< Sample >();
+    source = new ObservableEventSourceImpl< Sample >();
+    source.registerEventObserver( new EventObserver< Sample >()
+    {
+      @Override
+      public void onEvent( ObservableEventSource< ? extends Sample > eventSource,
+          Sample observedEvent )
+      {
+        samples.add( observedEvent );
+      }
+    } );
+    timeStamp = 0L;
+  }
+  
+  /**
+   * Method to create a light sample
+   * 
+   * @param level
+   *          the light level
+   * @return a light sample with the next time stamp
+   */
+  private Sample createLightSample( float level )
+  {
+    timeStamp += 1000L;
+    Sample sample = new Sample( SensorDeviceIdentifier.Light, timeStamp, 0, true );
+    LightSampleData data = new LightSampleData();
+    data.setLightLevel( level );
+    sample.setData( data );
+    return sample;
+  }
+  
+  /**
+   * Method to create a GSM sample
+   * 
+   * @param cellId
+   *          the cell identifier
+   * @return a GSM sample with the next time stamp
+   */
+  private Sample createGSMSample( int cellId )
+  {
+    timeStamp += 1000L;
+    Sample sample = new Sample( SensorDeviceIdentifier.GSM, timeStamp, 0, true );
+    GSMSampleData data = new GSMSampleData();
+    data.setOperator( "Test" );
+    data.setCellId( cellId );
+    sample.setData( data );
+    return sample;
+  }
+  
+  /**
+   * Method to get the light level of a notified sample
+   * 
+   * @param i
+   *          the index of the notified sample
+   * @return the light level
+   */
+  private float getLightLevel( int i )
+  {
+    return ( (LightSampleData) samples.get( i ).getData() ).getLightLevel();
+  }
+  
+  /**
+   * Test method for the deadband filter
+   */
+  public final void testDeadband()
+  {
+    SampleFilterConfigurationImpl config = new SampleFilterConfigurationImpl();
+    config.setDeadband( 5.f );
+    SampleFilterChain chain = new SampleFilterChain( config, source );
+    
+    float[] levels = { 100.f, 102.f, 105.f, 106.f, 94.f, 96.f };
+    for ( float level : levels )
+    {
+      chain.process( createLightSample( level ) );
+    }
+    
+    assertEquals( "Unexpected count of notified samples", 3, samples.size() );
+    assertEquals( 100.f, getLightLevel( 0 ), 0.001f );
+    assertEquals( 106.f, getLightLevel( 1 ), 0.001f );
+    assertEquals( 94.f, getLightLevel( 2 ), 0.001f );
+    
+    // non numeric samples do pass
+    chain.process( createGSMSample( 1 ) );
+    chain.process( createGSMSample( 1 ) );
+    assertEquals( 5, samples.size() );
+    
+    assertEquals( 8L, chain.getInputCount() );
+    assertEquals( 5L, chain.getOutputCount() );
+    assertTrue( chain.isBuildFrom( config ) );
+  }
+  
+  /**
+   * Test method for the duplicate suppression
+   */
+  public final void testDuplicateSuppression()
+  {
+    SampleFilterConfigurationImpl config = new SampleFilterConfigurationImpl();
+    config.setSuppressDuplicates( true );
+    SampleFilterChain chain = new SampleFilterChain( config, source );
+    
+    int[] cells = { 1, 1, 1, 1, 2, 2, 3 };
+    for ( int cell : cells )
+    {
+      chain.process( createGSMSample( cell ) );
+    }
+    
+    // first sample of a run, last duplicate of a run and the changed sample
+    assertEquals( "Unexpected count of notified samples", 5, samples.size() );
+    assertEquals( 1000L, samples.get( 0 ).getTimeStamp() );
+    assertEquals( 4000L, samples.get( 1 ).getTimeStamp() );
+    assertEquals( 5000L, samples.get( 2 ).getTimeStamp() );
+    assertEquals( 6000L, samples.get( 3 ).getTimeStamp() );
+    assertEquals( 7000L, samples.get( 4 ).getTimeStamp() );
+    
+    DuplicateSampleFilter filter =
+        (DuplicateSampleFilter) chain.getFilters().get( 0 );
+    assertEquals( 2L, filter.getRunCount() );
+    assertEquals( 3, filter.getLongestRun() );
+    assertEquals( 2L, filter.getAbsorbedCount() );
+    
+    // a pending duplicate is emitted on flush
+    chain.process( createGSMSample( 3 ) );
+    assertEquals( 5, samples.size() );
+    chain.flush();
+    assertEquals( 6, samples.size() );
+    assertEquals( 8000L, samples.get( 5 ).getTimeStamp() );
+    assertEquals( 0.25f, chain.getReductionRatio(), 0.001f );
+  }
+  
+  /**
+   * Test method for the maximum run length of the duplicate suppression
+   */
+  public final void testMaxRunLength()
+  {
+    SampleFilterConfigurationImpl config = new SampleFilterConfigurationImpl();
+    config.setSuppressDuplicates( true );
+    config.setMaxRunLength( 3 );
+    SampleFilterChain chain = new SampleFilterChain( config, source );
+    
+    for ( int i = 0; i < 10; ++i )
+    {
+      chain.process( createGSMSample( 1 ) );
+    }
+    
+    // the first sample and each third duplicate are passed
+    assertEquals( "Unexpected count of notified samples", 4, samples.size() );
+    assertEquals( 4000L, samples.get( 1 ).getTimeStamp() );
+    assertEquals( 7000L, samples.get( 2 ).getTimeStamp() );
+    assertEquals( 10000L, samples.get( 3 ).getTimeStamp() );
+  }
+  
+  /**
+   * Test method for the window aggregation
+   */
+  public final void testWindowAggregation()
+  {
+    SampleFilterConfigurationImpl config = new SampleFilterConfigurationImpl();
+    config.setWindow( 3000 );
+    config.setAggregation( SampleAggregationTypes.Mean );
+    SampleFilterChain chain = new SampleFilterChain( config, source );
+    
+    float[] levels = { 10.f, 20.f, 30.f, 40.f, 50.f };
+    for ( float level : levels )
+    {
+      chain.process( createLightSample( level ) );
+    }
+    assertEquals( "Unexpected count of notified samples", 1, samples.size() );
+    assertEquals( 20.f, getLightLevel( 0 ), 0.001f );
+    assertEquals( 3000L, samples.get( 0 ).getTimeStamp() );
+    
+    chain.flush();
+    assertEquals( 2, samples.size() );
+    assertEquals( 45.f, getLightLevel( 1 ), 0.001f );
+    assertEquals( 5000L, samples.get( 1 ).getTimeStamp() );
+    
+    samples.clear();
+    config.setAggregation( SampleAggregationTypes.Maximum );
+    assertFalse( chain.isBuildFrom( config ) );
+    chain = new SampleFilterChain( config, source );
+    for ( float level : levels )
+    {
+      chain.process( createLightSample( level ) );
+    }
+    chain.flush();
+    assertEquals( 2, samples.size() );
+    assertEquals( 30.f, getLightLevel( 0 ), 0.001f );
+    assertEquals( 50.f, getLightLevel( 1 ), 0.001f );
+  }
+  
+  /**
+   * Test method for the combination of all filters
+   */
+  public final void testFilterCombination()
+  {
+    SampleFilterConfigurationImpl config = new SampleFilterConfigurationImpl();
+    config.setDeadband( 1.f );
+    config.setSuppressDuplicates( true );
+    config.setWindow( 10000 );
+    config.setAggregation( SampleAggregationTypes.Minimum );
+    SampleFilterChain chain = new SampleFilterChain( config, source );
+    assertEquals( 3, chain.getFilters().size() );
+    
+    float[] levels = { 10.f, 10.5f, 20.f, 20.f, 20.f, 5.f };
+    for ( float level : levels )
+    {
+      chain.process( createLightSample( level ) );
+    }
+    assertEquals( 0, samples.size() );
+    chain.flush();
+    assertEquals( 1, samples.size() );
+    assertEquals( 5.f, getLightLevel( 0 ), 0.001f );
+    assertEquals( 6L, chain.getInputCount() );
+    assertEquals( 1L, chain.getOutputCount() );
+  }
+}
@@ -24,13 +24,14 @@ import de.unikassel.android.sdcframework.data.Sample;
 import de.unikassel.android.sdcframework.data.tests.TestGPSSampleData;
 import de.unikassel.android.sdcframework.data.tests.TestSampleCollection;
 import de.unikassel.android.sdcframework.devices.SampleTakingDeviceScanner;
+import de.unikassel.android.sdcframework.devices.SampleTakingTask;
+import de.unikassel.android.sdcframework.devices.SamplingScheduler;
 import de.unikassel.android.sdcframework.devices.facade.SampleProvidingSensorDevice;
 import de.unikassel.android.sdcframework.devices.facade.SensorDeviceIdentifier;
 import de.unikassel.android.sdcframework.test.DelegatingMockContext;
 import de.unikassel.android.sdcframework.test.TestUtils;
 import de.unikassel.android.sdcframework.util.tests.SampleEventObserverForTest;
 import android.content.Context;
-import android.os.Handler;
 import android.test.AndroidTestCase;
 
 /**
@@ -148,21 +149,11 @@ public class TestSampleTakingDeviceScanner extends AndroidTestCase
     public boolean wasStopped = false;
     
     /**
-     * Method to access the private handler
+     * Method to access the private sample task
      * 
-     * @return the internal handler
+     * @return the internal sample task
      */
-    public Handler getPrivateHandler()
-    {
-      return super.getHandler();
-    }
-    
-    /**
-     * Method to access the private sample task as runnable
-     * 
-     * @return the internal handler
-     */
-    public Runnable getPrivateSampleTask()
+    public SampleTakingTask getPrivateSampleTask()
     {
       return super.getTimerTask();
     }
@@ -203,10 +194,11 @@ public class TestSampleTakingDeviceScanner extends AndroidTestCase
   {
     SampleTakingDeviceScannerForTest scanner =
         new SampleTakingDeviceScannerForTest();
-    assertNotNull( "Expected internal handler initialized on first access",
-        scanner.getPrivateHandler() );
     assertNotNull( "Expected internal task initialized on first access",
         scanner.getPrivateSampleTask() );
+    assertFalse( "Expected task not scheduled before start",
+        SamplingScheduler.getInstance().isScheduled(
+            scanner.getPrivateSampleTask() ) );
   }
   
   /**
@@ -309,8 +301,8 @@ public class TestSampleTakingDeviceScanner extends AndroidTestCase
       @Override
       public void doPrepareTest()
       {
-        // create the scanner in the looper thread context to implicitly
-        // associate handler with the threads looper
+        // create the scanner in the looper thread context, the sample taking
+        // is done by the sampling scheduler thread anyway
         scanner = new SampleTakingDeviceScannerForTest();
         scanner.wasStarted = false;
         scanner.wasStopped = false;
@@ -325,6 +317,9 @@ public class TestSampleTakingDeviceScanner extends AndroidTestCase
         assertTrue( "Expected scanner running", scanner.isEnabled() );
         assertTrue( "Expected scanner start called", scanner.wasStarted );
         assertFalse( "Expected scanner stop not called", scanner.wasStopped );
+        assertTrue( "Expected sample task scheduled",
+            SamplingScheduler.getInstance().isScheduled(
+                scanner.getPrivateSampleTask() ) );
       }
       
       /**
@@ -341,6 +336,9 @@ public class TestSampleTakingDeviceScanner extends AndroidTestCase
         assertFalse( "Expected scanner not running", scanner.isEnabled() );
         assertFalse( "Expected scanner start not called", scanner.wasStarted );
         assertTrue( "Expected scanner stop called", scanner.wasStopped );
+        assertFalse( "Expected sample task canceled",
+            SamplingScheduler.getInstance().isScheduled(
+                scanner.getPrivateSampleTask() ) );
       }
     }
     ;
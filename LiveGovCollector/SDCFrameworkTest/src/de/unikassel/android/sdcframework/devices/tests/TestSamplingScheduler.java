@@ -0,0 +1,231 @@
+/*
+ * Copyright (C) 2012, Katy Hilgenberg.
+ * Special acknowledgments to: Knowledge & Data Engineering Group, University of Kassel (http://www.kde.cs.uni-kassel.de).
+ * Contact: sdcf@cs.uni-kassel.de
+ *
+ * This file is part of the SDCFramework (Sensor Data Collection Framework) project.
+ *
+ * The SDCFramework is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The SDCFramework is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the SDCFramework.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.unikassel.android.sdcframework.devices.tests;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import android.test.AndroidTestCase;
+import de.unikassel.android.sdcframework.devices.SampleTakingDeviceScanner;
+import de.unikassel.android.sdcframework.devices.SampleTakingTask;
+import de.unikassel.android.sdcframework.devices.SamplingScheduler;
+import de.unikassel.android.sdcframework.devices.facade.SensorDevice;
+import de.unikassel.android.sdcframework.devices.facade.SensorDeviceIdentifier;
+import de.unikassel.android.sdcframework.test.DelegatingMockContext;
+import de.unikassel.android.sdcframework.test.TestUtils;
+
+/**
+ * Tests for the sampling scheduler.
+ * 
+ * @author Katy Hilgenberg
+ * 
+ */
+public class TestSamplingScheduler extends AndroidTestCase
+{
+  /**
+   * A test scanner recording the scheduler time of each sample taking
+   * 
+   * @author Katy Hilgenberg
+   * 
+   */
+  private static class TimeRecordingScannerForTest extends
+      SampleTakingDeviceScanner
+  {
+    /**
+     * The scheduler times of the sample taking
+     */
+    public final List< Long > times = new ArrayList< Long >();
+    
+    /*
+     * (non-Javadoc)
+     * 
+     * @see
+     * de.unikassel.android.sdcframework.devices.SampleTakingDeviceScanner#
+     * takeSample()
+     */
+    @Override
+    public void takeSample()
+    {
+      synchronized ( times )
+      {
+        times.add( SamplingScheduler.getInstance().now() );
+      }
+    }
+    
+    /*
+     * (non-Javadoc)
+     * 
+     * @see
+     * de.unikassel.android.sdcframework.devices.SampleTakingDeviceScanner#
+     * isCompatibleDevice
+     * (de.unikassel.android.sdcframework.devices.facade.SensorDevice)
+     */
+    @Override
+    protected boolean isCompatibleDevice( SensorDevice device )
+    {
+      return true;
+    }
+    
+    /**
+     * Method to access the sample task
+     * 
+     * @return the sample task
+     */
+    public SampleTakingTask getTask()
+    {
+      return getTimerTask();
+    }
+    
+    /**
+     * Getter for the recorded times
+     * 
+     * @return a copy of the recorded times
+     */
+    public List< Long > getTimes()
+    {
+      synchronized ( times )
+      {
+        return new ArrayList< Long >( times );
+      }
+    }
+  }
+  
+  /*
+   * (non-Javadoc)
+   * 
+   * @see junit.framework.TestCase#setUp()
+   */
+  @Override
+  protected void setUp() throws Exception
+  {
+    setContext( new DelegatingMockContext( getContext() ) );
+    super.setUp();
+  }
+  
+  /**
+   * Method to create a running scanner
+   * 
+   * @param frequency
+   *          the sampling frequency in milliseconds
+   * @return the running scanner
+   */
+  private TimeRecordingScannerForTest createScanner( int frequency )
+  {
+    AbstractSensorDeviceForTest device =
+        new AbstractSensorDeviceForTest( SensorDeviceIdentifier.Unknown );
+    device.getConfiguration().setFrequency( frequency );
+    device.getConfiguration().setEnabled( true );
+    TimeRecordingScannerForTest scanner = new TimeRecordingScannerForTest();
+    scanner.setDevice( device, getContext() );
+    assertTrue( "Expected scanner running", scanner.isEnabled() );
+    return scanner;
+  }
+  
+  /**
+   * Test method for fixed rate execution and the shared wakeups of tasks with
+   * the same period
+   */
+  public final void testFixedRateSchedule()
+  {
+    final int frequency = 100;
+    SamplingScheduler scheduler = SamplingScheduler.getInstance();
+    TimeRecordingScannerForTest scanner1 = createScanner( frequency );
+    TimeRecordingScannerForTest scanner2 = createScanner( frequency );
+    assertTrue( scheduler.isScheduled( scanner1.getTask() ) );
+    assertTrue( scheduler.isScheduled( scanner2.getTask() ) );
+    
+    TestUtils.sleep( 1050 );
+    scanner1.setDevice( null, getContext() );
+    scanner2.setDevice( null, getContext() );
+    assertFalse( "Expected task canceled",
+        scheduler.isScheduled( scanner1.getTask() ) );
+    
+    List< Long > times1 = scanner1.getTimes();
+    List< Long > times2 = scanner2.getTimes();
+    assertTrue( "Expected about 10 samples, got " + times1.size(),
+        times1.size() >= 9 && times1.size() <= 11 );
+    
+    int cnt = Math.min( times1.size(), times2.size() );
+    for ( int i = 0; i < cnt; ++i )
+    {
+      // REMARK: a weak test, the tasks share the wakeup but run one after
+      // another
+      assertTrue( "Expected same wakeup for the same period", Math.abs(
+          times1.get( i ) - times2.get( i ) ) < frequency / 2 );
+    }
+    
+    // fixed rate: no drift accumulated over the runs
+    long first = times1.get( 0 );
+    long last = times1.get( times1.size() - 1 );
+    assertTrue( "Expected deadlines aligned to the period",
+        ( first % frequency ) < frequency / 2 );
+    assertTrue( "Unexpected drift " + ( last - first ), Math.abs( last
+        - first - ( times1.size() - 1 ) * frequency ) < frequency / 2 );
+    
+    SampleTakingTask task = scanner1.getTask();
+    assertEquals( times1.size(), task.getRunCount() );
+    assertTrue( task.getMaximumJitter() >= task.getMeanJitter() );
+  }
+  
+  /**
+   * Test method for the cancellation of a task
+   */
+  public final void testCancel()
+  {
+    SamplingScheduler scheduler = SamplingScheduler.getInstance();
+    TimeRecordingScannerForTest scanner = createScanner( 50 );
+    TestUtils.sleep( 200 );
+    scanner.setDevice( null, getContext() );
+    assertFalse( scheduler.isScheduled( scanner.getTask() ) );
+    
+    int cntSamples = scanner.getTimes().size();
+    assertTrue( "Expected samples taken", cntSamples > 0 );
+    TestUtils.sleep( 200 );
+    assertEquals( "Expected no samples after cancel", cntSamples,
+        scanner.getTimes().size() );
+  }
+  
+  /**
+   * Test method for the samples requested out of the schedule
+   */
+  public final void testRequestSample()
+  {
+    SamplingScheduler scheduler = SamplingScheduler.getInstance();
+    // REMARK: a long period, so no scheduled sample is expected meanwhile
+    TimeRecordingScannerForTest scanner = createScanner( 60000 );
+    int cntSamples = scanner.getTimes().size();
+    
+    scanner.requestSample();
+    TestUtils.sleep( 100 );
+    assertEquals( "Expected the requested sample taken", cntSamples + 1,
+        scanner.getTimes().size() );
+    assertTrue( "Expected the schedule unchanged",
+        scheduler.isScheduled( scanner.getTask() ) );
+    assertEquals( "Expected no scheduled run", 0,
+        scanner.getTask().getRunCount() );
+    
+    scanner.setDevice( null, getContext() );
+    scanner.requestSample();
+    TestUtils.sleep( 100 );
+    assertEquals( "Expected no samples for a disabled scanner",
+        cntSamples + 1, scanner.getTimes().size() );
+  }
+}
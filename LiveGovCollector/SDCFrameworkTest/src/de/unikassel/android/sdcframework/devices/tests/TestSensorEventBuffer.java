@@ -0,0 +1,105 @@
+/*
+ * Copyright (C) 2012, Katy Hilgenberg.
+ * Special acknowledgments to: Knowledge & Data Engineering Group, University of Kassel (http://www.kde.cs.uni-kassel.de).
+ * Contact: sdcf@cs.uni-kassel.de
+ *
+ * This file is part of the SDCFramework (Sensor Data Collection Framework) project.
+ *
+ * The SDCFramework is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The SDCFramework is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the SDCFramework.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.unikassel.android.sdcframework.devices.tests;
+
+import java.security.InvalidParameterException;
+
+import de.unikassel.android.sdcframework.data.independent.SensorBatchSampleData;
+import de.unikassel.android.sdcframework.devices.SensorEventBuffer;
+import junit.framework.TestCase;
+
+/**
+ * Tests for the sensor event buffer.
+ * 
+ * @author Katy Hilgenberg
+ * 
+ */
+public class TestSensorEventBuffer extends TestCase
+{
+  
+  /**
+   * Test method for construction
+   */
+  public final void testConstruction()
+  {
+    SensorEventBuffer buffer = new SensorEventBuffer( 10, 3 );
+    assertEquals( "Unexpected capacity", 10, buffer.getCapacity() );
+    assertEquals( "Unexpected axes", 3, buffer.getAxes() );
+    assertTrue( "Expected buffer empty initially", buffer.isEmpty() );
+    
+    try
+    {
+      new SensorEventBuffer( 0, 3 );
+      fail( "Expected exception for invalid capacity" );
+    }
+    catch ( InvalidParameterException e )
+    {}
+  }
+  
+  /**
+   * Test method for adding and draining events
+   */
+  public final void testAddAndDrain()
+  {
+    SensorEventBuffer buffer = new SensorEventBuffer( 4, 3 );
+    assertFalse( "Expected buffer not full",
+        buffer.add( 1L, new float[] { 1F, 2F, 3F } ) );
+    assertFalse( "Expected buffer not full",
+        buffer.add( 2L, new float[] { 4F, 5F } ) );
+    assertEquals( "Unexpected event count", 2, buffer.size() );
+    
+    SensorBatchSampleData data = buffer.drain();
+    assertTrue( "Expected buffer empty after drain", buffer.isEmpty() );
+    assertEquals( "Unexpected event count", 2, data.getEventCount() );
+    assertEquals( "Unexpected time stamp", 2L, data.getTimeStamps()[ 1 ] );
+    assertEquals( "Unexpected value", 3F, data.getValue( 0, 2 ) );
+    assertEquals( "Expected missing value filled with 0", 0F,
+        data.getValue( 1, 2 ) );
+    
+    assertEquals( "Expected empty batch for empty buffer", 0,
+        buffer.drain().getEventCount() );
+  }
+  
+  /**
+   * Test method for the overwriting of the oldest events
+   */
+  public final void testOverwrite()
+  {
+    SensorEventBuffer buffer = new SensorEventBuffer( 3, 1 );
+    for ( int i = 0; i < 5; ++i )
+    {
+      boolean isFull = buffer.add( i, new float[] { i } );
+      assertEquals( "Unexpected full state", i >= 2, isFull );
+    }
+    assertEquals( "Unexpected overwritten count", 2,
+        buffer.getOverwrittenCount() );
+    
+    SensorBatchSampleData data = buffer.drain();
+    assertEquals( "Unexpected event count", 3, data.getEventCount() );
+    for ( int i = 0; i < 3; ++i )
+    {
+      assertEquals( "Expected events in arrival order", i + 2L,
+          data.getTimeStamps()[ i ] );
+      assertEquals( "Expected values in arrival order", i + 2F,
+          data.getValue( i, 0 ) );
+    }
+  }
+}
@@ -293,4 +293,15 @@ class PersistentStorageManagerForTest
       Class< ? extends Activity > controlActivityClass )
   {}
   
+  /*
+   * (non-Javadoc)
+   * 
+   * @see
+   * de.unikassel.android.sdcframework.persistence.facade.PersistentStorageManager
+   * #setUsingTypedTables(boolean)
+   */
+  @Override
+  public void setUsingTypedTables( boolean isUsingTypedTables )
+  {}
+  
 }
\ No newline at end of file
@@ -24,11 +24,13 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Vector;
 
 import de.unikassel.android.sdcframework.data.Sample;
 import de.unikassel.android.sdcframework.data.independent.AccelerometerSampleData;
+import de.unikassel.android.sdcframework.data.independent.BinarySerializer;
 import de.unikassel.android.sdcframework.data.independent.BluetoothSampleData;
 import de.unikassel.android.sdcframework.data.independent.GPSSampleData;
 import de.unikassel.android.sdcframework.data.independent.GSMSampleData;
@@ -45,9 +47,15 @@ import de.unikassel.android.sdcframework.data.tests.TestWifiSampleData;
 import de.unikassel.android.sdcframework.devices.facade.SensorDeviceIdentifier;
 import de.unikassel.android.sdcframework.devices.facade.SensorDevicePriorities;
 import de.unikassel.android.sdcframework.persistence.DatabaseAdapterImpl;
+import de.unikassel.android.sdcframework.persistence.TypedSampleTable;
 import de.unikassel.android.sdcframework.persistence.facade.DatabaseSample;
+import de.unikassel.android.sdcframework.persistence.facade.SampleExporter;
 import de.unikassel.android.sdcframework.test.DelegatingMockContext;
+import android.content.Context;
+import android.database.DatabaseUtils;
+import android.database.sqlite.SQLiteDatabase;
 import android.test.AndroidTestCase;
+import android.test.suitebuilder.annotation.Suppress;
 
 /**
  * @author Katy Hilgenberg
@@ -233,6 +241,88 @@ public class TestDatabaseAdapter extends AndroidTestCase
         dbSample.toSample() );
   }
   
+  /**
+   * Test method for the location track shared by samples with equal locations
+   */
+  public final void testSharedLocations() throws Exception
+  {
+    GeoLocation first = new GeoLocation();
+    first.setLat( 51.31 );
+    first.setLon( 9.46 );
+    GeoLocation second = new GeoLocation();
+    second.setLat( 50.36 );
+    second.setLon( 7.56 );
+    
+    Collection< DatabaseSample > sc = new Vector< DatabaseSample >();
+    for ( int i = 0; i < 20; ++i )
+    {
+      Sample sample =
+          TestSampleCollection.createSample( SensorDeviceIdentifier.GSM,
+              TestGSMSampleData.createInitializedGSMSampleData() );
+      sample.setTimeStamp( 1000L + i );
+      if ( i % 10 != 9 )
+        sample.setLocation( i < 10 ? first : second );
+      sc.add( new DatabaseSample( sample ) );
+    }
+    
+    DatabaseAdapterImpl dbAdapter =
+        new DatabaseAdapterImpl( testDBName, dbMaxDefaultSize, getContext() );
+    assertEquals( "Expected samples added", 20, insertSamples( sc, dbAdapter ) );
+    assertEquals( "Expected each location stored once", 2, getLocationCount() );
+    
+    // the first location is removed with the last sample referring to it
+    Collection< DatabaseSample > removed = new Vector< DatabaseSample >();
+    dbAdapter.open();
+    assertTrue( "Failed to remove samples from database",
+        dbAdapter.removeSamplesOldestTimeStampFirst( 10, removed ) );
+    dbAdapter.close();
+    assertEquals( "Expected unreferenced location deleted", 1,
+        getLocationCount() );
+    
+    int i = 0;
+    for ( DatabaseSample dbSample : removed )
+    {
+      GeoLocation location = dbSample.toSample().getLocation();
+      if ( i++ == 9 )
+        assertNull( "Expected no location", location );
+      else
+        assertEquals( "Expected shared location restored", first, location );
+    }
+    
+    // the last location is referenced again by new samples
+    assertEquals( "Expected samples added", 20, insertSamples(
+        new Vector< DatabaseSample >( removed ), dbAdapter ) );
+    assertEquals( "Expected the first location stored again", 2,
+        getLocationCount() );
+    
+    dbAdapter.open();
+    assertTrue( "Expected all records deleted", dbAdapter.deleteAll() );
+    dbAdapter.close();
+    assertEquals( "Expected location track deleted", 0, getLocationCount() );
+  }
+  
+  /**
+   * Getter for the count of locations in the location track of the test
+   * database
+   * 
+   * @return the count of locations
+   */
+  private final long getLocationCount()
+  {
+    SQLiteDatabase db =
+        getContext().openOrCreateDatabase( testDBName, Context.MODE_PRIVATE,
+            null );
+    try
+    {
+      return DatabaseUtils.queryNumEntries( db,
+          DatabaseAdapterImpl.DB_TABLE_LOCATIONS );
+    }
+    finally
+    {
+      db.close();
+    }
+  }
+  
   /**
    * Test method for sample insertion and removal by oldest time stamp.
    */
@@ -719,6 +809,352 @@ public class TestDatabaseAdapter extends AndroidTestCase
     }
   }
   
+  /**
+   * Test method for the streaming sample export
+   */
+  public final void testExportSamples()
+  {
+    Collection< DatabaseSample > sc = createTestData( 30 );
+    Collection< Sample > typedSamples = createTypedTestData( 10 );
+    
+    DatabaseAdapterImpl dbAdapter =
+        new DatabaseAdapterImpl( testDBName, dbMaxDefaultSize, getContext() );
+    dbAdapter.open();
+    try
+    {
+      dbAdapter.insertSamples( sc, typedSamples );
+      
+      // a failing export must not remove any sample
+      final List< Sample > exported = new ArrayList< Sample >();
+      assertEquals( "Expected no samples exported", 0,
+          dbAdapter.exportSamples( 20, new SampleExporter()
+          {
+            @Override
+            public boolean exportSamples( Iterator< Sample > samples )
+            {
+              while ( samples.hasNext() )
+              {
+                exported.add( samples.next() );
+              }
+              return false;
+            }
+          } ) );
+      assertEquals( "Unexpected iterated sample count", 20, exported.size() );
+      assertEquals( "Unexpected record count after failed export", 40,
+          dbAdapter.getRecordCount() );
+      
+      // a successful export does remove the exported samples, including
+      // samples of the typed tables if the sample table is exhausted
+      exported.clear();
+      SampleExporter exporter = new SampleExporter()
+      {
+        @Override
+        public boolean exportSamples( Iterator< Sample > samples )
+        {
+          while ( samples.hasNext() )
+          {
+            exported.add( samples.next() );
+          }
+          return true;
+        }
+      };
+      assertEquals( "Unexpected exported sample count", 35,
+          dbAdapter.exportSamples( 35, exporter ) );
+      assertEquals( "Unexpected iterated sample count", 35, exported.size() );
+      assertEquals( "Unexpected record count after export", 5,
+          dbAdapter.getRecordCount() );
+      assertEquals( "Unexpected typed record count after export", 5,
+          dbAdapter.getTypedRecordCount() );
+      
+      exported.clear();
+      assertEquals( "Unexpected exported sample count", 5,
+          dbAdapter.exportSamples( 100, exporter ) );
+      assertEquals( "Unexpected record count after export", 0,
+          dbAdapter.getRecordCount() );
+    }
+    catch ( Exception e )
+    {
+      e.printStackTrace();
+      fail( "Unexpected exception: " + e.getMessage() );
+    }
+    finally
+    {
+      dbAdapter.close();
+    }
+  }
+  
+  /**
+   * Test method for the sample export in row id order with deletion after the
+   * acknowledgement
+   */
+  public final void testExportSamplesInRowIdOrder()
+  {
+    Collection< DatabaseSample > sc = createTestData( 30 );
+    Collection< Sample > typedSamples = createTypedTestData( 10 );
+    
+    DatabaseAdapterImpl dbAdapter =
+        new DatabaseAdapterImpl( testDBName, dbMaxDefaultSize, getContext() );
+    dbAdapter.open();
+    try
+    {
+      dbAdapter.insertSamples( sc, typedSamples );
+      
+      final List< Sample > exported = new ArrayList< Sample >();
+      SampleExporter exporter = new SampleExporter()
+      {
+        @Override
+        public boolean exportSamples( Iterator< Sample > samples )
+        {
+          while ( samples.hasNext() )
+          {
+            exported.add( samples.next() );
+          }
+          return true;
+        }
+      };
+      
+      // the exported samples are kept until the export is acknowledged
+      assertEquals( "Unexpected exported sample count", 35,
+          dbAdapter.exportSamplesInRowIdOrder( 35, exporter ) );
+      assertEquals( "Unexpected record count after export", 40,
+          dbAdapter.getRecordCount() );
+      
+      // without acknowledgement the same samples are exported again
+      List< Sample > firstExport = new ArrayList< Sample >( exported );
+      exported.clear();
+      assertEquals( "Unexpected exported sample count", 35,
+          dbAdapter.exportSamplesInRowIdOrder( 35, exporter ) );
+      assertEquals( "Expected same samples exported again", firstExport,
+          exported );
+      
+      assertEquals( "Unexpected acknowledged sample count", 35,
+          dbAdapter.acknowledgeExportedSamples() );
+      assertEquals( "Unexpected record count after acknowledgement", 5,
+          dbAdapter.getRecordCount() );
+      assertEquals( "Unexpected typed record count after acknowledgement", 5,
+          dbAdapter.getTypedRecordCount() );
+      assertEquals( "Expected nothing left to acknowledge", 0,
+          dbAdapter.acknowledgeExportedSamples() );
+      
+      // the export does continue behind the acknowledged samples
+      exported.clear();
+      assertEquals( "Unexpected exported sample count", 5,
+          dbAdapter.exportSamplesInRowIdOrder( 100, exporter ) );
+      List< Sample > allExported = new ArrayList< Sample >( firstExport );
+      allExported.addAll( exported );
+      assertTrue( "Expected all typed samples exported with valid time stamps",
+          allExported.containsAll( typedSamples ) );
+      
+      // a former pending export is replaced by a new one
+      exported.clear();
+      dbAdapter.insertSamples( createTestData( 10 ),
+          new Vector< Sample >() );
+      assertEquals( "Unexpected exported sample count", 2,
+          dbAdapter.exportSamplesInRowIdOrder( 2, exporter ) );
+      assertEquals( "Unexpected acknowledged sample count", 2,
+          dbAdapter.acknowledgeExportedSamples() );
+      assertEquals( "Unexpected record count after acknowledgement", 13,
+          dbAdapter.getRecordCount() );
+      
+      // a priority based export does discard the pending export
+      dbAdapter.exportSamplesInRowIdOrder( 100, exporter );
+      assertEquals( "Unexpected exported sample count", 13,
+          dbAdapter.exportSamples( 100, exporter ) );
+      assertEquals( "Expected nothing left to acknowledge", 0,
+          dbAdapter.acknowledgeExportedSamples() );
+      assertEquals( "Unexpected record count after export", 0,
+          dbAdapter.getRecordCount() );
+    }
+    catch ( Exception e )
+    {
+      e.printStackTrace();
+      fail( "Unexpected exception: " + e.getMessage() );
+    }
+    finally
+    {
+      dbAdapter.close();
+    }
+  }
+  
+  /**
+   * Test method for sample insertion into and removal from the typed sensor
+   * tables
+   */
+  public final void testTypedTables()
+  {
+    Collection< Sample > typedSamples = createTypedTestData( 50 );
+    Sample wifiSample =
+        TestSampleCollection.createSample( SensorDeviceIdentifier.Wifi,
+            TestWifiSampleData.createInitializedWifiSampleData() );
+    Collection< Sample > samples = new Vector< Sample >( typedSamples );
+    samples.add( wifiSample );
+    
+    DatabaseAdapterImpl dbAdapter =
+        new DatabaseAdapterImpl( testDBName, dbMaxDefaultSize, getContext() );
+    dbAdapter.open();
+    try
+    {
+      dbAdapter.insertSamples( new Vector< DatabaseSample >(), samples );
+      assertEquals( "Unexpected record count", samples.size(),
+          dbAdapter.getRecordCount() );
+      assertEquals( "Unexpected typed record count", typedSamples.size(),
+          dbAdapter.getTypedRecordCount() );
+      
+      // remove in two steps to test the time stamp base update
+      Collection< Sample > removed = new Vector< Sample >();
+      assertTrue( dbAdapter.removeTypedSamplesOldestFirst( 20, removed ) );
+      assertEquals( "Unexpected removed sample count", 20, removed.size() );
+      assertTrue( dbAdapter.removeTypedSamplesOldestFirst(
+          typedSamples.size(), removed ) );
+      assertEquals( "Unexpected removed sample count", typedSamples.size(),
+          removed.size() );
+      assertEquals( "Unexpected typed record count", 0,
+          dbAdapter.getTypedRecordCount() );
+      assertEquals( "Expected untyped sample in samples table", 1,
+          dbAdapter.getRecordCount() );
+      
+      List< Sample > expected = new ArrayList< Sample >( typedSamples );
+      List< Sample > actual = new ArrayList< Sample >( removed );
+      Comparator< Sample > comparator = new Comparator< Sample >()
+      {
+        @Override
+        public int compare( Sample o1, Sample o2 )
+        {
+          int result = o1.getDeviceIdentifier().compareTo(
+              o2.getDeviceIdentifier() );
+          if ( result == 0 )
+            result = Long.valueOf( o1.getTimeStamp() ).compareTo(
+                o2.getTimeStamp() );
+          return result;
+        }
+      };
+      Collections.sort( expected, comparator );
+      Collections.sort( actual, comparator );
+      assertEquals( "Expected same samples after removal", expected, actual );
+      
+      // insertion after removal does continue the delta time stamps
+      dbAdapter.insertSamples( new Vector< DatabaseSample >(), typedSamples );
+      assertEquals( "Unexpected deleted count", typedSamples.size(),
+          dbAdapter.deleteSamplesOrdered( typedSamples.size() + 1, false ) );
+      assertEquals( "Unexpected record count", 0, dbAdapter.getRecordCount() );
+    }
+    catch ( Exception e )
+    {
+      e.printStackTrace();
+      fail( "Unexpected exception: " + e.getMessage() );
+    }
+    finally
+    {
+      dbAdapter.close();
+    }
+  }
+  
+  /**
+   * Test to compare the database file size and insert rate of the generic
+   * samples table and the typed sensor tables.
+   */
+  @Suppress
+  public final void testTypedTablesSizeAndRate()
+  {
+    int count = 20000;
+    Collection< Sample > samples = createTypedTestData( count );
+    Collection< DatabaseSample > dbSamples = new Vector< DatabaseSample >();
+    try
+    {
+      for ( Sample sample : samples )
+      {
+        dbSamples.add( new DatabaseSample( sample ) );
+      }
+    }
+    catch ( Exception e )
+    {
+      e.printStackTrace();
+      fail( "Unexpected exception during creation of database samples" );
+    }
+    
+    for ( int i = 0; i < 2; ++i )
+    {
+      boolean typed = i == 1;
+      getContext().deleteDatabase( testDBName );
+      DatabaseAdapterImpl dbAdapter =
+          new DatabaseAdapterImpl( testDBName, 100 * dbMaxDefaultSize,
+              getContext() );
+      dbAdapter.open();
+      long time = System.nanoTime();
+      try
+      {
+        if ( typed )
+        {
+          dbAdapter.insertSamples( new Vector< DatabaseSample >(), samples );
+        }
+        else
+        {
+          dbAdapter.insertSamples( dbSamples );
+        }
+      }
+      catch ( Exception e )
+      {
+        e.printStackTrace();
+        fail( "Unexpected exception during sample insertion" );
+      }
+      finally
+      {
+        time = System.nanoTime() - time;
+        dbAdapter.close();
+      }
+      
+      long size = getContext().getDatabasePath( testDBName ).length();
+      System.out.println( ( typed ? "typed tables: " : "samples table: " )
+          + count + " samples, " + size + " bytes ( " + ( size / count )
+          + " bytes per sample ), " + ( count * 1000000000L / time )
+          + " samples per second" );
+    }
+  }
+  
+  /**
+   * Does create a collection of samples with related typed sensor tables.
+   * Accelerometer and GPS samples are interleaved with increasing time stamps.
+   * 
+   * @param count
+   *          the count of samples to create
+   * @return the created samples
+   */
+  public static Collection< Sample > createTypedTestData( int count )
+  {
+    Collection< Sample > sc = new Vector< Sample >();
+    long timeStamp = System.currentTimeMillis();
+    for ( int i = 0; i < count; ++i )
+    {
+      Sample sample;
+      if ( i % 10 == 9 )
+      {
+        sample = TestSampleCollection.createSample( SensorDeviceIdentifier.GPS,
+            TestGPSSampleData.createInitializedGPSSampleData() );
+      }
+      else
+      {
+        AccelerometerSampleData data = new AccelerometerSampleData();
+        data.setAccelerationX( (float) Math.random() );
+        data.setAccelerationY( (float) Math.random() );
+        data.setAccelerationZ( 9.81f );
+        sample = TestSampleCollection.createSample(
+            SensorDeviceIdentifier.Accelerometer, data );
+      }
+      timeStamp += 1 + i % 3;
+      sample.setTimeStamp( timeStamp );
+      sample.setTimeSynced( i % 2 == 0 );
+      if ( i % 4 == 0 )
+      {
+        GeoLocation loc = new GeoLocation();
+        loc.setLat( 50.5 );
+        loc.setLon( 9.25 );
+        sample.setLocation( loc );
+      }
+      sc.add( sample );
+    }
+    return sc;
+  }
+  
   /**
    * Method to insert a sample collection into the given database
    * 
@@ -805,7 +1241,7 @@ public class TestDatabaseAdapter extends AndroidTestCase
           new DatabaseSample( TestSampleCollection.createSample(
               SensorDeviceIdentifier.GSM,
               TestGSMSampleData.createInitializedGSMSampleData() ) );
-      databaseSample.location = loc.toXML();
+      databaseSample.location = BinarySerializer.locationToBytes( loc );
       sampleCollection.add( databaseSample );
       
     }
@@ -839,7 +1275,7 @@ public class TestDatabaseAdapter extends AndroidTestCase
             new DatabaseSample( TestSampleCollection.createSample(
                 SensorDeviceIdentifier.GSM,
                 TestGSMSampleData.createInitializedGSMSampleData() ) );
-        databaseSample.location = loc.toXML();
+        databaseSample.location = BinarySerializer.locationToBytes( loc );
         sc.add( databaseSample );
       }
     }
@@ -20,12 +20,15 @@
  */
 package de.unikassel.android.sdcframework.persistence.tests;
 
+import java.util.ArrayList;
 import java.util.Collection;
 
 import de.unikassel.android.sdcframework.persistence.DatabaseAdapterImpl;
 import de.unikassel.android.sdcframework.persistence.DatabaseManagerImpl;
 import de.unikassel.android.sdcframework.persistence.GetMaximumDatabaseSizeCommand;
+import de.unikassel.android.sdcframework.persistence.GetRecordCountCommand;
 import de.unikassel.android.sdcframework.persistence.InsertSamplesCommand;
+import de.unikassel.android.sdcframework.persistence.RemoveSamplesCommand;
 import de.unikassel.android.sdcframework.persistence.facade.DatabaseManager;
 import de.unikassel.android.sdcframework.persistence.facade.DatabaseSample;
 import de.unikassel.android.sdcframework.test.DelegatingMockContext;
@@ -239,6 +242,81 @@ public class TestDatabaseManagerImpl extends AndroidTestCase
         manager.getRecordCountInDatabase() );
   }
   
+  /**
+   * Test method for the incrementally maintained record counter.
+   */
+  public final void testRecordCounter()
+  {
+    DatabaseManagerImpl manager =
+        new DatabaseManagerImpl( getContext(), TestDatabaseAdapter.testDBName );
+    assertEquals( "Unexpected sample count in database", 0L,
+        manager.getRecordCountInDatabase() );
+    
+    Collection< DatabaseSample > samples =
+        TestDatabaseAdapter.createTestData( 50 );
+    InsertSamplesCommand insertCommand = new InsertSamplesCommand( samples );
+    assertTrue( "Unexpected result", manager.doExecuteCommand( insertCommand ) );
+    assertEquals( "Unexpected record count change", (long) samples.size(),
+        insertCommand.getRecordCountChange() );
+    assertEquals( "Unexpected sample count in database", 50L,
+        manager.getRecordCountInDatabase() );
+    
+    Collection< DatabaseSample > removed = new ArrayList< DatabaseSample >();
+    RemoveSamplesCommand removeCommand = new RemoveSamplesCommand( removed, 20 );
+    assertTrue( "Unexpected result", manager.doExecuteCommand( removeCommand ) );
+    assertEquals( "Unexpected record count change", -20L,
+        removeCommand.getRecordCountChange() );
+    assertEquals( "Unexpected sample count in database", 30L,
+        manager.getRecordCountInDatabase() );
+    
+    assertEquals( "Unexpected sample count deleted", 10L,
+        manager.doDeleteOldestSamplesInDatabase( 10L, false ) );
+    assertEquals( "Unexpected sample count in database", 20L,
+        manager.getRecordCountInDatabase() );
+    
+    // counter has to match the real record count
+    assertEquals( "Unexpected record count in database",
+        manager.getRecordCountInDatabase(),
+        (long) manager.doExecuteCommand( new GetRecordCountCommand() ) );
+  }
+  
+  /**
+   * Test method for the long-lived database connection mode.
+   */
+  public final void testKeepDatabaseOpen()
+  {
+    DatabaseManagerImpl manager =
+        new DatabaseManagerImpl( getContext(), TestDatabaseAdapter.testDBName );
+    assertFalse( "Expected connection not kept open by default",
+        manager.isKeepDatabaseOpen() );
+    
+    manager.setKeepDatabaseOpen( true );
+    assertTrue( "Expected connection kept open", manager.isKeepDatabaseOpen() );
+    
+    Collection< DatabaseSample > samples =
+        TestDatabaseAdapter.createTestData( 50 );
+    for ( int i = 0; i < 3; ++i )
+    {
+      Boolean result =
+          manager.doExecuteCommand( new InsertSamplesCommand( samples ) );
+      assertTrue( "Unexpected result", result );
+    }
+    assertEquals( "Expected samples inserted", 3L * samples.size(),
+        manager.getRecordCountInDatabase() );
+    assertEquals( "Expected samples deleted", 3L * samples.size(),
+        manager.doDeleteOldestSamplesInDatabase( 3L * samples.size(), false ) );
+    
+    // test access after an explicit close
+    manager.close();
+    assertEquals( "Unexpected sample count in database", 0L,
+        manager.getRecordCountInDatabase() );
+    
+    manager.setKeepDatabaseOpen( false );
+    assertFalse( "Expected connection not kept open",
+        manager.isKeepDatabaseOpen() );
+    manager.close();
+  }
+  
   /**
    * Method to insert samples into the database
    * 
@@ -20,7 +20,10 @@
  */
 package de.unikassel.android.sdcframework.persistence.tests;
 
+import java.util.Arrays;
+
 import de.unikassel.android.sdcframework.data.Sample;
+import de.unikassel.android.sdcframework.data.independent.BinarySerializer;
 import de.unikassel.android.sdcframework.data.independent.GeoLocation;
 import de.unikassel.android.sdcframework.data.tests.TestGSMSampleData;
 import de.unikassel.android.sdcframework.data.tests.TestSampleCollection;
@@ -86,11 +89,11 @@ public class TestDatabaseSample extends TestCase
           dbSample.priority );
       assertEquals( "Expected time stamp set", sample.getTimeStamp(),
           dbSample.timeStamp );
-      assertEquals( "Expected data set", sample.getData().toXML(),
-          dbSample.data );
-      assertEquals( "Expected data class type name set",
-          sample.getData().getClass().getName(), dbSample.dataTypeClassName );
-      assertEquals( "Expected location set", sample.getLocation().toXML(), dbSample.location );
+      assertTrue( "Expected data set", Arrays.equals(
+          BinarySerializer.toBytes( sample.getData() ), dbSample.data ) );
+      assertTrue( "Expected location set", Arrays.equals(
+          BinarySerializer.locationToBytes( sample.getLocation() ),
+          dbSample.location ) );
       
       assertEquals( "Expected equal sample created from database sample",
           sample, dbSample.toSample() );
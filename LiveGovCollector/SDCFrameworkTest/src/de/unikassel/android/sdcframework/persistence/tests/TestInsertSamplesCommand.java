@@ -24,11 +24,13 @@ import java.util.Collection;
 
 import de.unikassel.android.sdcframework.persistence.AbstractDatabaseCommand;
 import de.unikassel.android.sdcframework.persistence.DatabaseAdapterImpl;
+import de.unikassel.android.sdcframework.persistence.DatabaseManagerImpl;
 import de.unikassel.android.sdcframework.persistence.InsertSamplesCommand;
 import de.unikassel.android.sdcframework.persistence.facade.DatabaseSample;
 import de.unikassel.android.sdcframework.test.DelegatingMockContext;
 import android.database.sqlite.SQLiteFullException;
 import android.test.AndroidTestCase;
+import android.test.suitebuilder.annotation.Suppress;
 
 /**
  * Tests for the delete samples database command
@@ -103,4 +105,58 @@ public class TestInsertSamplesCommand extends AndroidTestCase
     }
   }
   
+  /**
+   * Throughput comparison of insert commands with a connection opened per
+   * command and a long-lived connection ( not part of the default test run ).
+   */
+  @Suppress
+  public final void testInsertThroughput()
+  {
+    int cntCommands = 100;
+    Collection< DatabaseSample > sc = TestDatabaseAdapter.createTestData( 50 );
+    
+    long perCommand = measureInserts( false, cntCommands, sc );
+    getContext().deleteDatabase( TestDatabaseAdapter.testDBName );
+    long longLived = measureInserts( true, cntCommands, sc );
+    
+    long cntSamples = (long) cntCommands * sc.size();
+    System.out.println( "Inserted " + cntSamples + " samples in "
+        + cntCommands + " commands: " + perCommand
+        + " ms ( connection per command ), " + longLived
+        + " ms ( long-lived connection )" );
+  }
+  
+  /**
+   * Does execute a count of insert commands and measure the elapsed time
+   * 
+   * @param keepOpen
+   *          flag if the database connection shall be kept open
+   * @param cntCommands
+   *          the count of commands to execute
+   * @param sc
+   *          the samples to insert per command
+   * @return the elapsed time in milliseconds
+   */
+  private long measureInserts( boolean keepOpen, int cntCommands,
+      Collection< DatabaseSample > sc )
+  {
+    DatabaseManagerImpl manager =
+        new DatabaseManagerImpl( getContext(), TestDatabaseAdapter.testDBName );
+    manager.setKeepDatabaseOpen( keepOpen );
+    
+    long start = System.currentTimeMillis();
+    for ( int i = 0; i < cntCommands; ++i )
+    {
+      Boolean result =
+          manager.doExecuteCommand( new InsertSamplesCommand( sc ) );
+      assertTrue( "Unexpected result", result );
+    }
+    long elapsed = System.currentTimeMillis() - start;
+    
+    assertEquals( "Expected all samples inserted", (long) cntCommands
+        * sc.size(), manager.getRecordCountInDatabase() );
+    manager.close();
+    return elapsed;
+  }
+  
 }
@@ -21,11 +21,15 @@
 package de.unikassel.android.sdcframework.transmission.tests;
 
 import java.io.File;
+import java.io.InputStream;
 import java.util.UUID;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
 
 import de.unikassel.android.sdcframework.data.SampleCollection;
 import de.unikassel.android.sdcframework.data.independent.BasicSampleCollection;
 import de.unikassel.android.sdcframework.data.independent.DeviceInformation;
+import de.unikassel.android.sdcframework.data.independent.GlobalSerializer;
 import de.unikassel.android.sdcframework.data.tests.TestSampleCollection;
 import de.unikassel.android.sdcframework.preferences.TransmissionConfigurationImpl;
 import de.unikassel.android.sdcframework.preferences.facade.TransmissionConfiguration;
@@ -230,6 +234,94 @@ public class TestFileManager
         FileUtils.fileFromPath( manager.getCurrentArchive() ).exists() );
   }
   
+  /**
+   * Test method for
+   * {@link de.unikassel.android.sdcframework.transmission.FileManager#createArchive(java.util.Iterator)}
+   * .
+   */
+  public final void testCreateArchiveFromIterator() throws Exception
+  {
+    TransmissionConfiguration config = new TransmissionConfigurationImpl();
+    config.setArchiveType( ArchiveTypes.zip );
+    UUID randomUUID = UUID.randomUUID();
+    FileManager manager = new FileManager( getContext(), config, randomUUID );
+    
+    SampleCollection sc = TestSampleCollection.createSamples( 100 );
+    assertTrue( "Expected archive creation successful",
+        manager.createArchive( sc.iterator() ) );
+    
+    // test the archive content
+    ZipFile zipFile = new ZipFile( manager.getCurrentArchive() );
+    try
+    {
+      assertNotNull( "Expected device information in archive",
+          zipFile.getEntry( DeviceInformation.DEVICE_INFO_FILE ) );
+      ZipEntry entry =
+          zipFile.getEntry( BasicSampleCollection.SAMPLE_COLLECTION_FILE );
+      assertNotNull( "Expected samples in archive", entry );
+      
+      InputStream in = zipFile.getInputStream( entry );
+      SampleCollection samples =
+          GlobalSerializer.serializeFromStream( SampleCollection.class, in );
+      in.close();
+      assertEquals( "Expected all samples in archive", sc.size(),
+          samples.size() );
+    }
+    finally
+    {
+      zipFile.close();
+    }
+    manager.doCleanUp( true );
+  }
+  
+  /**
+   * Test method for
+   * {@link de.unikassel.android.sdcframework.transmission.FileManager#createPendingArchive(java.util.Iterator)}
+   * and
+   * {@link de.unikassel.android.sdcframework.transmission.FileManager#publishPendingArchive()}
+   * .
+   */
+  public final void testPendingArchive()
+  {
+    TransmissionConfiguration config = new TransmissionConfigurationImpl();
+    config.setArchiveType( ArchiveTypes.zip );
+    UUID randomUUID = UUID.randomUUID();
+    FileManager manager = new FileManager( getContext(), config, randomUUID );
+    
+    assertFalse( "Expected nothing to publish",
+        manager.publishPendingArchive() );
+    
+    SampleCollection sc = TestSampleCollection.createSamples( 10 );
+    assertTrue( "Expected pending archive creation successful",
+        manager.createPendingArchive( sc.iterator() ) );
+    assertFalse( "Expected pending archive not available for transmission",
+        manager.hasArchive() );
+    
+    // a pending archive is discarded by a new file manager
+    String tmpDir =
+        getContext().getFilesDir().getPath() + File.separatorChar
+            + FileManager.TEMP_DIR_NAME + File.separatorChar;
+    String pendingFile = tmpDir + FileManager.PENDING_ARCHIVE_FILE + ".zip";
+    assertTrue( "Expected pending archive file created",
+        FileUtils.fileFromPath( pendingFile ).exists() );
+    new FileManager( getContext(), config, randomUUID );
+    assertFalse( "Expected pending archive file discarded",
+        FileUtils.fileFromPath( pendingFile ).exists() );
+    
+    assertTrue( "Expected pending archive creation successful",
+        manager.createPendingArchive( sc.iterator() ) );
+    assertTrue( "Expected pending archive published",
+        manager.publishPendingArchive() );
+    assertTrue( "Expected published archive available for transmission",
+        manager.hasArchive() );
+    assertEquals( "Unexpected archive file name", tmpDir
+        + FileManager.ARCHIVE_FILE + ".zip", manager.getCurrentArchive() );
+    assertFalse( "Expected pending archive file renamed",
+        FileUtils.fileFromPath( pendingFile ).exists() );
+    
+    manager.doCleanUp( true );
+  }
+  
   /**
    * Test method for
    * {@link de.unikassel.android.sdcframework.transmission.FileManager#doCleanUp(boolean)}
@@ -0,0 +1,552 @@
+/*
+ * Copyright (C) 2012, Katy Hilgenberg.
+ * Special acknowledgments to: Knowledge & Data Engineering Group, University of Kassel (http://www.kde.cs.uni-kassel.de).
+ * Contact: sdcf@cs.uni-kassel.de
+ *
+ * This file is part of the SDCFramework (Sensor Data Collection Framework) project.
+ *
+ * The SDCFramework is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The SDCFramework is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the SDCFramework.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.unikassel.android.sdcframework.transmission.tests;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.URI;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+import org.apache.http.client.HttpResponseException;
+import org.apache.http.impl.client.DefaultHttpClient;
+
+import de.unikassel.android.sdcframework.transmission.ResumableUpload;
+import de.unikassel.android.sdcframework.util.facade.Encryption;
+
+/**
+ * Tests for the resumable upload using a local server, which does drop
+ * connections on request.
+ * 
+ * @author Katy Hilgenberg
+ * 
+ */
+public class TestResumableUpload extends TestCase
+{
+  /**
+   * The part size for the tests
+   */
+  private static final int PART_SIZE = 16 << 10;
+  
+  /**
+   * The test file length, not a multiple of the part size
+   */
+  private static final int FILE_LENGTH = 10 * PART_SIZE + 123;
+  
+  /**
+   * The test server
+   */
+  private UploadServer server;
+  
+  /**
+   * The http client
+   */
+  private DefaultHttpClient client;
+  
+  /**
+   * The test file
+   */
+  private File file;
+  
+  /**
+   * The test file content
+   */
+  private byte[] content;
+  
+  /*
+   * (non-Javadoc)
+   * 
+   * @see junit.framework.TestCase#setUp()
+   */
+  @Override
+  protected void setUp() throws Exception
+  {
+    super.setUp();
+    content = new byte[ FILE_LENGTH ];
+    new Random( 42 ).nextBytes( content );
+    file = File.createTempFile( "JUnitTestResumableUpload", ".zip" );
+    OutputStream os = new FileOutputStream( file );
+    os.write( content );
+    os.close();
+    
+    server = new UploadServer();
+    server.start();
+    client = new DefaultHttpClient();
+  }
+  
+  /*
+   * (non-Javadoc)
+   * 
+   * @see junit.framework.TestCase#tearDown()
+   */
+  @Override
+  protected void tearDown() throws Exception
+  {
+    client.getConnectionManager().shutdown();
+    server.close();
+    file.delete();
+    super.tearDown();
+  }
+  
+  /**
+   * Method to create an upload for the test file
+   * 
+   * @return the upload
+   * @throws IOException
+   *           if the file can not be read
+   */
+  private ResumableUpload createUpload() throws IOException
+  {
+    return new ResumableUpload( client, server.getURI(), file,
+        "test_archive.zip", "uuid", PART_SIZE );
+  }
+  
+  /**
+   * Test method for an upload without errors
+   * 
+   * @throws IOException
+   */
+  public final void testUpload() throws IOException
+  {
+    ResumableUpload upload = createUpload();
+    assertEquals( "Unexpected upload id", Encryption.md5( file ),
+        upload.getUploadId() );
+    assertEquals( "Expected new upload", 0L, upload.queryOffset() );
+    upload.upload( 0L );
+    
+    assertTrue( "Unexpected content", Arrays.equals( content,
+        server.getContent() ) );
+    assertEquals( "Expected each part sent once", FILE_LENGTH,
+        upload.getSentBytes() );
+    assertEquals( "Expected the connection to be reused", 1,
+        server.getConnectionCount() );
+  }
+  
+  /**
+   * Test method for dropped connections before and after a part is committed
+   * 
+   * @throws IOException
+   */
+  public final void testUploadWithDroppedConnections() throws IOException
+  {
+    // the 3rd part is lost, the response for the 7th part is lost
+    server.dropBeforeCommit( 3 );
+    server.dropAfterCommit( 7 );
+    
+    ResumableUpload upload = createUpload();
+    upload.upload( upload.queryOffset() );
+    
+    assertTrue( "Unexpected content", Arrays.equals( content,
+        server.getContent() ) );
+    assertEquals( "Expected only the lost part to be resent", FILE_LENGTH
+        + PART_SIZE, upload.getSentBytes() );
+    assertEquals( "Expected a new connection per dropped connection", 3,
+        server.getConnectionCount() );
+  }
+  
+  /**
+   * Test method for the resume of an interrupted upload
+   * 
+   * @throws IOException
+   */
+  public final void testResume() throws IOException
+  {
+    // all parts after the 4th part are lost
+    server.dropBeforeCommit( 5 );
+    server.dropBeforeCommit( 6 );
+    server.dropBeforeCommit( 7 );
+    ResumableUpload upload = createUpload();
+    try
+    {
+      upload.upload( upload.queryOffset() );
+      fail( "Expected upload abort without progress" );
+    }
+    catch ( IOException e )
+    {}
+    assertEquals( "Unexpected committed offset", 4L * PART_SIZE,
+        server.getContent().length );
+    
+    // a new upload does continue at the committed offset
+    upload = createUpload();
+    long offset = upload.queryOffset();
+    assertEquals( "Unexpected offset", 4L * PART_SIZE, offset );
+    upload.upload( offset );
+    
+    assertTrue( "Unexpected content", Arrays.equals( content,
+        server.getContent() ) );
+    assertEquals( "Expected only the remaining parts to be sent", FILE_LENGTH
+        - offset, upload.getSentBytes() );
+  }
+  
+  /**
+   * Test method for the resynchronization after an offset conflict
+   * 
+   * @throws IOException
+   */
+  public final void testOffsetConflict() throws IOException
+  {
+    // an upload from 0 is corrected by the server
+    server.reset( content, 2 * PART_SIZE );
+    ResumableUpload upload = createUpload();
+    upload.upload( 0L );
+    assertTrue( "Unexpected content", Arrays.equals( content,
+        server.getContent() ) );
+    // the first part is rejected, the second part is already committed
+    assertEquals( "Expected the committed parts to be skipped", FILE_LENGTH
+        - PART_SIZE, upload.getSentBytes() );
+  }
+  
+  /**
+   * Test method for a part rejected by a busy server
+   * 
+   * @throws IOException
+   */
+  public final void testRejectedPart() throws IOException
+  {
+    server.reject( 11 );
+    ResumableUpload upload = createUpload();
+    try
+    {
+      upload.upload( upload.queryOffset() );
+      fail( "Expected upload abort for rejected part" );
+    }
+    catch ( HttpResponseException e )
+    {
+      assertEquals( "Unexpected status", 503, e.getStatusCode() );
+    }
+    assertEquals( "Expected the rejected part not to be repeated",
+        FILE_LENGTH, upload.getSentBytes() );
+    
+    upload = createUpload();
+    upload.upload( upload.queryOffset() );
+    assertTrue( "Unexpected content", Arrays.equals( content,
+        server.getContent() ) );
+    assertEquals( "Expected only the rejected part to be sent", 123L,
+        upload.getSentBytes() );
+  }
+  
+  /**
+   * A minimal HTTP server for the resumable upload protocol. Connections are
+   * kept alive and handled by a thread each.
+   */
+  private static final class UploadServer extends Thread
+  {
+    /**
+     * The server socket
+     */
+    private final ServerSocket serverSocket;
+    
+    /**
+     * The committed content
+     */
+    private final ByteArrayOutputStream committed =
+        new ByteArrayOutputStream();
+    
+    /**
+     * The numbers of part requests to drop before resp. after the commit
+     */
+    private final Map< Integer, Boolean > drops =
+        new HashMap< Integer, Boolean >();
+    
+    /**
+     * The number of a part request to reject as busy server
+     */
+    private int rejected;
+    
+    /**
+     * The count of part requests
+     */
+    private int cntParts;
+    
+    /**
+     * The count of accepted connections
+     */
+    private int cntConnections;
+    
+    /**
+     * Constructor
+     * 
+     * @throws IOException
+     */
+    public UploadServer() throws IOException
+    {
+      serverSocket = new ServerSocket( 0, 10, InetAddress.getByName( null ) );
+      setDaemon( true );
+    }
+    
+    /**
+     * Getter for the upload URI
+     * 
+     * @return the upload URI
+     */
+    public URI getURI()
+    {
+      return URI.create( "http://127.0.0.1:" + serverSocket.getLocalPort()
+          + "/upload" );
+    }
+    
+    /**
+     * Method to drop the connection of a part request before the commit
+     * 
+     * @param number
+     *          the number of the part request, starting at 1
+     */
+    public synchronized void dropBeforeCommit( int number )
+    {
+      drops.put( number, Boolean.FALSE );
+    }
+    
+    /**
+     * Method to drop the connection of a part request after the commit
+     * 
+     * @param number
+     *          the number of the part request, starting at 1
+     */
+    public synchronized void dropAfterCommit( int number )
+    {
+      drops.put( number, Boolean.TRUE );
+    }
+    
+    /**
+     * Method to reject a part request with 503
+     * 
+     * @param number
+     *          the number of the part request, starting at 1
+     */
+    public synchronized void reject( int number )
+    {
+      rejected = number;
+    }
+    
+    /**
+     * Method to reset the committed content
+     * 
+     * @param bytes
+     *          the content
+     * @param length
+     *          the length of the committed content
+     */
+    public synchronized void reset( byte[] bytes, int length )
+    {
+      committed.reset();
+      committed.write( bytes, 0, length );
+      cntParts = 0;
+      drops.clear();
+    }
+    
+    /**
+     * Getter for the committed content
+     * 
+     * @return the committed content
+     */
+    public synchronized byte[] getContent()
+    {
+      return committed.toByteArray();
+    }
+    
+    /**
+     * Getter for the count of accepted connections
+     * 
+     * @return the count of accepted connections
+     */
+    public synchronized int getConnectionCount()
+    {
+      return cntConnections;
+    }
+    
+    /**
+     * Method to close the server
+     * 
+     * @throws IOException
+     */
+    public void close() throws IOException
+    {
+      serverSocket.close();
+    }
+    
+    /*
+     * (non-Javadoc)
+     * 
+     * @see java.lang.Thread#run()
+     */
+    @Override
+    public void run()
+    {
+      try
+      {
+        while ( true )
+        {
+          final Socket socket = serverSocket.accept();
+          synchronized ( this )
+          {
+            ++cntConnections;
+          }
+          new Thread()
+          {
+            @Override
+            public void run()
+            {
+              try
+              {
+                while ( handle( socket ) )
+                {}
+              }
+              catch ( IOException e )
+              {}
+              finally
+              {
+                try
+                {
+                  socket.close();
+                }
+                catch ( IOException e )
+                {}
+              }
+            }
+          }.start();
+        }
+      }
+      catch ( IOException e )
+      {
+        // server closed
+      }
+    }
+    
+    /**
+     * Method to handle a request
+     * 
+     * @param socket
+     *          the connection socket
+     * @return true if the connection is kept alive, false otherwise
+     * @throws IOException
+     */
+    private boolean handle( Socket socket ) throws IOException
+    {
+      InputStream is = socket.getInputStream();
+      String requestLine = readLine( is );
+      if ( requestLine == null )
+        return false;
+      Map< String, String > headers = new HashMap< String, String >();
+      String line;
+      while ( ( line = readLine( is ) ) != null && line.length() > 0 )
+      {
+        int i = line.indexOf( ':' );
+        headers.put( line.substring( 0, i ).trim().toLowerCase(),
+            line.substring( i + 1 ).trim() );
+      }
+      byte[] body = new byte[ 0 ];
+      if ( headers.containsKey( "content-length" ) )
+      {
+        body = new byte[ Integer.parseInt( headers.get( "content-length" ) ) ];
+        int cnt = 0;
+        while ( cnt < body.length )
+        {
+          int i = is.read( body, cnt, body.length - cnt );
+          if ( i == -1 )
+            return false;
+          cnt += i;
+        }
+      }
+      
+      int status = 200;
+      long offset;
+      synchronized ( this )
+      {
+        if ( requestLine.startsWith( "POST" ) )
+        {
+          Boolean dropAfterCommit = drops.get( ++cntParts );
+          if ( Boolean.FALSE.equals( dropAfterCommit ) )
+            return false;
+          
+          long partOffset =
+              Long.parseLong( headers.get( ResumableUpload.HEADER_UPLOAD_OFFSET ) );
+          long length =
+              Long.parseLong( headers.get( ResumableUpload.HEADER_UPLOAD_LENGTH ) );
+          if ( cntParts == rejected )
+          {
+            status = 503;
+          }
+          else if ( partOffset != committed.size() )
+          {
+            status = 409;
+          }
+          else if ( !Encryption.md5( body, 0, body.length ).equals(
+              headers.get( ResumableUpload.HEADER_PART_MD5 ) ) )
+          {
+            status = 400;
+          }
+          else
+          {
+            committed.write( body, 0, body.length );
+            if ( committed.size() == length )
+            {
+              // accepted for the asynchronous ingest
+              status = 202;
+            }
+          }
+          if ( Boolean.TRUE.equals( dropAfterCommit ) )
+            return false;
+        }
+        offset = committed.size();
+      }
+      
+      OutputStream os = socket.getOutputStream();
+      os.write( ( "HTTP/1.1 " + status + " X\r\n"
+          + ResumableUpload.HEADER_UPLOAD_OFFSET + ": " + offset + "\r\n"
+          + "Content-Length: 0\r\n\r\n" ).getBytes( "US-ASCII" ) );
+      os.flush();
+      return true;
+    }
+    
+    /**
+     * Method to read a header line
+     * 
+     * @param is
+     *          the input stream
+     * @return the line without line end, or null at the end of the stream
+     * @throws IOException
+     */
+    private static String readLine( InputStream is ) throws IOException
+    {
+      StringBuffer sb = new StringBuffer();
+      int c;
+      while ( ( c = is.read() ) != -1 )
+      {
+        if ( c == '\n' )
+          return sb.toString();
+        if ( c != '\r' )
+          sb.append( (char) c );
+      }
+      return sb.length() > 0 ? sb.toString() : null;
+    }
+  }
+}
@@ -24,15 +24,20 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
 import java.security.PrivateKey;
 import java.security.PublicKey;
+import java.util.Random;
 
 import android.content.Context;
 import android.content.res.AssetManager;
 import android.content.res.Resources;
 import android.test.InstrumentationTestCase;
+import android.test.suitebuilder.annotation.Suppress;
 
 import de.unikassel.android.sdcframework.test.TestUtils;
+import de.unikassel.android.sdcframework.util.CountingOutputStream;
 import de.unikassel.android.sdcframework.util.FileUtils;
 import de.unikassel.android.sdcframework.util.facade.Encryption;
 import junit.framework.AssertionFailedError;
@@ -81,6 +86,16 @@ extends InstrumentationTestCase
    */
   private static final String DEC_ARCHIVE_FILE = "decrypted.zip";
   
+  /**
+   * The hybrid encrypted file for encryption test
+   */
+  private static final String AES_FILE = "encrypted.aes";
+  
+  /**
+   * The source file for the throughput benchmark
+   */
+  private static final String BENCHMARK_FILE = "benchmark.bin";
+  
   /**
    * Test method for {@link de.unikassel.android.sdcframework.util.facade.Encryption#md5(java.lang.String)}.
    */
@@ -149,6 +164,230 @@ extends InstrumentationTestCase
     cleanUp();
   }
   
+  /**
+   * Test method for the hybrid encryption
+   */
+  public final void testHybrid()
+  {
+    String path = getFilesPath();
+    File archiveFile = copyAsset( ARCHIVE_FILE, path );
+    PublicKey pubFromFile =
+        Encryption.readPublicKeyFromFile( copyAsset( Encryption.PUBLIC_KEY_FILE,
+            path ) );
+    assertNotNull( "Expected public key loaded from file", pubFromFile );
+    PrivateKey privFromFile =
+        Encryption.readPrivateKeyFromFile( copyAsset(
+            Encryption.PRIVATE_KEY_FILE, path ) );
+    assertNotNull( "Expected private key loaded from file", privFromFile );
+    
+    // test encryption and decryption
+    File aesFile = FileUtils.fileFromPath( path + AES_FILE );
+    assertTrue( "Expected successful encryption", Encryption.encryptHybrid(
+        pubFromFile, archiveFile, aesFile ) );
+    File decryptedArchiveFile = FileUtils.fileFromPath( path + DEC_ARCHIVE_FILE );
+    assertTrue( "Expected successful decryption", Encryption.decryptHybrid(
+        privFromFile, aesFile, decryptedArchiveFile ) );
+    
+    assertEquals( "Expected same file size", archiveFile.length(),
+        decryptedArchiveFile.length() );
+    assertBinaryEquals( "Expected same file", archiveFile, decryptedArchiveFile );
+    
+    // test modified cipher text is rejected
+    try
+    {
+      RandomAccessFile file = new RandomAccessFile( aesFile, "rw" );
+      file.seek( aesFile.length() >> 1 );
+      int b = file.read();
+      file.seek( aesFile.length() >> 1 );
+      file.write( b ^ 1 );
+      file.close();
+    }
+    catch ( IOException e )
+    {
+      fail( "Unexpected exception " + e.getMessage() );
+    }
+    assertFalse( "Expected decryption failed", Encryption.decryptHybrid(
+        privFromFile, aesFile, decryptedArchiveFile ) );
+    assertFalse( "Expected decrypted file deleted",
+        decryptedArchiveFile.exists() );
+    cleanUp();
+  }
+  
+  /**
+   * Test method for the single pass encryption streams
+   */
+  public final void testEncryptionStreams()
+  {
+    String path = getFilesPath();
+    File archiveFile = copyAsset( ARCHIVE_FILE, path );
+    PublicKey pubKey =
+        Encryption.readPublicKeyFromFile( copyAsset( Encryption.PUBLIC_KEY_FILE,
+            path ) );
+    PrivateKey privKey =
+        Encryption.readPrivateKeyFromFile( copyAsset(
+            Encryption.PRIVATE_KEY_FILE, path ) );
+    File decryptedArchiveFile = FileUtils.fileFromPath( path + DEC_ARCHIVE_FILE );
+    
+    for ( boolean hybrid : new boolean[] { true, false } )
+    {
+      File encryptedFile =
+          FileUtils.fileFromPath( path + ( hybrid ? AES_FILE : RSA_FILE ) );
+      try
+      {
+        CountingOutputStream storageOut =
+            new CountingOutputStream( new FileOutputStream( encryptedFile ) );
+        OutputStream os =
+            hybrid ? Encryption.createHybridOutputStream( pubKey, storageOut )
+                : Encryption.createRSAOutputStream( pubKey, storageOut );
+        
+        // write in odd chunks to test the block handling
+        FileInputStream is = new FileInputStream( archiveFile );
+        byte[] buffer = new byte[ 333 ];
+        int cnt = is.read( buffer );
+        while ( cnt != -1 )
+        {
+          os.write( buffer, 0, cnt );
+          cnt = is.read( buffer );
+        }
+        is.close();
+        os.close();
+        
+        assertEquals( "Expected each byte stored once",
+            encryptedFile.length(), storageOut.getByteCount() );
+      }
+      catch ( Exception e )
+      {
+        fail( "Unexpected exception " + e.getMessage() );
+      }
+      
+      assertTrue( "Expected successful decryption", hybrid
+          ? Encryption.decryptHybrid( privKey, encryptedFile,
+              decryptedArchiveFile )
+          : Encryption.decryptRSA( privKey, encryptedFile,
+              decryptedArchiveFile ) );
+      assertEquals( "Expected same file size", archiveFile.length(),
+          decryptedArchiveFile.length() );
+      assertBinaryEquals( "Expected same file", archiveFile,
+          decryptedArchiveFile );
+    }
+    cleanUp();
+  }
+  
+  /**
+   * Throughput comparison of the RSA and the hybrid encryption for a multi
+   * megabyte archive ( not part of the default test run ).
+   */
+  @Suppress
+  public final void testEncryptionThroughput()
+  {
+    String path = getFilesPath();
+    PublicKey pubKey =
+        Encryption.readPublicKeyFromFile( copyAsset( Encryption.PUBLIC_KEY_FILE,
+            path ) );
+    PrivateKey privKey =
+        Encryption.readPrivateKeyFromFile( copyAsset(
+            Encryption.PRIVATE_KEY_FILE, path ) );
+    
+    // create a file with random ( incompressible ) content
+    File srcFile = FileUtils.fileFromPath( path + BENCHMARK_FILE );
+    int size = 4 << 20;
+    try
+    {
+      byte[] bytes = new byte[ size ];
+      new Random( 0L ).nextBytes( bytes );
+      FileOutputStream os = new FileOutputStream( srcFile );
+      os.write( bytes );
+      os.close();
+    }
+    catch ( IOException e )
+    {
+      fail( "Unexpected exception " + e.getMessage() );
+    }
+    File rsaFile = FileUtils.fileFromPath( path + RSA_FILE );
+    File aesFile = FileUtils.fileFromPath( path + AES_FILE );
+    File decryptedFile = FileUtils.fileFromPath( path + DEC_ARCHIVE_FILE );
+    
+    long start = System.currentTimeMillis();
+    assertTrue( "Expected successful encryption", Encryption.encryptRSA(
+        pubKey, srcFile, rsaFile ) );
+    long rsaEncryption = System.currentTimeMillis() - start;
+    
+    start = System.currentTimeMillis();
+    assertTrue( "Expected successful encryption", Encryption.encryptHybrid(
+        pubKey, srcFile, aesFile ) );
+    long hybridEncryption = System.currentTimeMillis() - start;
+    
+    start = System.currentTimeMillis();
+    assertTrue( "Expected successful decryption", Encryption.decryptHybrid(
+        privKey, aesFile, decryptedFile ) );
+    long hybridDecryption = System.currentTimeMillis() - start;
+    
+    System.out.println( "Encryption of " + size + " bytes: rsa "
+        + rsaEncryption + " ms ( " + rsaFile.length() + " bytes, "
+        + throughput( size, rsaEncryption ) + " KB/s ), hybrid "
+        + hybridEncryption + " ms ( " + aesFile.length() + " bytes, "
+        + throughput( size, hybridEncryption ) + " KB/s ), hybrid decryption "
+        + hybridDecryption + " ms ( " + throughput( size, hybridDecryption )
+        + " KB/s )" );
+    
+    srcFile.delete();
+    rsaFile.delete();
+    aesFile.delete();
+    decryptedFile.delete();
+  }
+  
+  /**
+   * Method to calculate a throughput
+   * 
+   * @param size
+   *          the processed byte count
+   * @param millis
+   *          the elapsed time in milliseconds
+   * @return the throughput in kilobytes per second
+   */
+  private static long throughput( long size, long millis )
+  {
+    return ( size * 1000L / Math.max( 1L, millis ) ) >> 10;
+  }
+  
+  /**
+   * Getter for the files path of the target context
+   * 
+   * @return the files path with trailing separator
+   */
+  private String getFilesPath()
+  {
+    Context targetContext = getInstrumentation().getTargetContext();
+    return targetContext.getFilesDir().getAbsolutePath() + File.separator;
+  }
+  
+  /**
+   * Method to copy a test asset file
+   * 
+   * @param assetFile
+   *          the asset file name
+   * @param path
+   *          the destination path
+   * @return the copied file
+   */
+  private File copyAsset( String assetFile, String path )
+  {
+    Resources resources = getInstrumentation().getContext().getResources();
+    AssetManager assetManager = resources.getAssets();
+    File file = FileUtils.fileFromPath( path + assetFile );
+    try
+    {
+      TestUtils.copyAssetFile( assetManager, assetFile,
+          new FileOutputStream( file ) );
+    }
+    catch ( Exception e )
+    {
+      fail( "Unexpected exception " + e.getMessage() );
+    }
+    assertTrue( "Expected file copied", file.exists() );
+    return file;
+  }
+  
   /**
    * Method to binary compare two files ( test method is copied from the
    * junit-addon project, to avoid adding a library. Refer to:
@@ -243,5 +482,9 @@ extends InstrumentationTestCase
     {
       FileUtils.deleteFile( RSA_FILE );
     }
+    if ( FileUtils.fileFromPath( AES_FILE ).exists() )
+    {
+      FileUtils.deleteFile( AES_FILE );
+    }
   }
 }
@@ -92,6 +92,27 @@ public class TestLogEvent extends TestCase
     }
   }
   
+  /**
+   * Test method for
+   * {@link de.unikassel.android.sdcframework.util.LogEvent#format(Class, String, Object[])}
+   * .
+   */
+  public final void testFormat()
+  {
+    assertEquals( "Unexpected formatted message", "String: 3 of 4 done",
+        LogEvent.format( String.class, "{} of {} done", new Object[] { 3, 4 } ) );
+    assertEquals( "Unexpected formatted message", "no args {}",
+        LogEvent.format( null, "no args {}", null ) );
+    assertEquals( "Unexpected formatted message", "null and {}",
+        LogEvent.format( null, "{} and {}", new Object[] { null } ) );
+    
+    LogEvent event =
+        new LogEvent( this, LogLevel.INFO, 0L, "value {}",
+            new Object[] { 42 } );
+    assertEquals( "Unexpected lazy formatted message", "TestLogEvent: value 42",
+        event.getMessage() );
+  }
+  
   /**
    * Test method for
    * {@link de.unikassel.android.sdcframework.util.LogEvent#LogEvent(android.content.Intent)}
@@ -0,0 +1,138 @@
+/*
+ * Copyright (C) 2012, Katy Hilgenberg.
+ * Special acknowledgments to: Knowledge & Data Engineering Group, University of Kassel (http://www.kde.cs.uni-kassel.de).
+ * Contact: sdcf@cs.uni-kassel.de
+ *
+ * This file is part of the SDCFramework (Sensor Data Collection Framework) project.
+ *
+ * The SDCFramework is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The SDCFramework is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the SDCFramework.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.unikassel.android.sdcframework.util.tests;
+
+import junit.framework.TestCase;
+
+import de.unikassel.android.sdcframework.util.Counter;
+import de.unikassel.android.sdcframework.util.LatencyHistogram;
+import de.unikassel.android.sdcframework.util.MetricsRegistry;
+import de.unikassel.android.sdcframework.util.facade.Gauge;
+
+/**
+ * Tests for the metrics registry and the latency histogram.
+ * 
+ * @author Katy Hilgenberg
+ * 
+ */
+public class TestMetricsRegistry extends TestCase
+{
+  
+  /**
+   * Test method for the histogram percentiles
+   */
+  public final void testHistogramPercentiles()
+  {
+    LatencyHistogram histogram = new LatencyHistogram( "ms" );
+    assertEquals( "Expected zero percentile for empty histogram", 0L,
+        histogram.getValueAtPercentile( 50. ) );
+    
+    for ( long i = 1; i <= 1000; ++i )
+    {
+      histogram.record( i );
+    }
+    assertEquals( "Unexpected count", 1000L, histogram.getCount() );
+    assertEquals( "Unexpected mean", 500L, histogram.getMean() );
+    assertEquals( "Unexpected maximum", 1000L, histogram.getMax() );
+    assertEquals( "Unexpected 100th percentile", 1000L,
+        histogram.getValueAtPercentile( 100. ) );
+    
+    // percentiles are reported as bucket upper bound with 1/16 relative error
+    long p50 = histogram.getValueAtPercentile( 50. );
+    assertTrue( "Expected 50th percentile within error bounds",
+        p50 >= 500L && p50 <= 500L + 500L / 16 );
+    long p99 = histogram.getValueAtPercentile( 99. );
+    assertTrue( "Expected 99th percentile within error bounds",
+        p99 >= 990L && p99 <= 1000L );
+  }
+  
+  /**
+   * Test method for exact small values and clamped out of range values
+   */
+  public final void testHistogramBounds()
+  {
+    LatencyHistogram histogram = new LatencyHistogram( "us" );
+    histogram.record( -5L );
+    histogram.record( 7L );
+    histogram.record( 31L );
+    assertEquals( "Expected negative value recorded as zero", 0L,
+        histogram.getValueAtPercentile( 1. ) );
+    assertEquals( "Expected exact small value", 7L,
+        histogram.getValueAtPercentile( 50. ) );
+    assertEquals( "Expected exact small value", 31L,
+        histogram.getValueAtPercentile( 100. ) );
+    
+    histogram.record( Long.MAX_VALUE );
+    assertEquals( "Expected clamped maximum", LatencyHistogram.MAX_VALUE,
+        histogram.getMax() );
+    assertEquals( "Expected clamped maximum", LatencyHistogram.MAX_VALUE,
+        histogram.getValueAtPercentile( 100. ) );
+    
+    histogram.reset();
+    assertEquals( "Expected empty histogram after reset", 0L,
+        histogram.getCount() );
+    assertEquals( "Expected zero maximum after reset", 0L, histogram.getMax() );
+  }
+  
+  /**
+   * Test method for the registry lookup, reset and dump
+   */
+  public final void testRegistry()
+  {
+    MetricsRegistry registry = MetricsRegistry.getInstance();
+    Counter counter = registry.getCounter( "test.counter" );
+    assertSame( "Expected same counter for same name", counter,
+        registry.getCounter( "test.counter" ) );
+    LatencyHistogram histogram =
+        registry.getHistogram( "test.histogram", "ms" );
+    assertSame( "Expected same histogram for same name", histogram,
+        registry.getHistogram( "test.histogram", "s" ) );
+    
+    Gauge gauge = new Gauge()
+    {
+      @Override
+      public long getValue()
+      {
+        return 42L;
+      }
+    };
+    registry.registerGauge( "test.gauge", gauge );
+    
+    counter.add( 3L );
+    counter.increment();
+    histogram.record( 10L );
+    String dump = registry.dump();
+    assertTrue( "Expected counter in dump", dump.contains( "test.counter: 4\n" ) );
+    assertTrue( "Expected gauge in dump", dump.contains( "test.gauge: 42\n" ) );
+    assertTrue( "Expected histogram in dump",
+        dump.contains( "test.histogram: count=1 " ) );
+    assertTrue( "Expected sorted dump",
+        dump.indexOf( "test.counter" ) < dump.indexOf( "test.gauge" ) );
+    
+    registry.reset();
+    assertEquals( "Expected counter reset", 0L, counter.getValue() );
+    assertEquals( "Expected histogram reset", 0L, histogram.getCount() );
+    
+    registry.unregisterGauge( "test.gauge", gauge );
+    assertFalse( "Expected gauge removed",
+        registry.dump().contains( "test.gauge" ) );
+  }
+}
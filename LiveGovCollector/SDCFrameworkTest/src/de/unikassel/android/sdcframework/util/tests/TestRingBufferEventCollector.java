@@ -0,0 +1,545 @@
+/*
+ * Copyright (C) 2012, Katy Hilgenberg.
+ * Special acknowledgments to: Knowledge & Data Engineering Group, University of Kassel (http://www.kde.cs.uni-kassel.de).
+ * Contact: sdcf@cs.uni-kassel.de
+ *
+ * This file is part of the SDCFramework (Sensor Data Collection Framework) project.
+ *
+ * The SDCFramework is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The SDCFramework is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the SDCFramework.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.unikassel.android.sdcframework.util.tests;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import android.test.suitebuilder.annotation.Suppress;
+
+import junit.framework.TestCase;
+
+import de.unikassel.android.sdcframework.util.EventCollectorImpl;
+import de.unikassel.android.sdcframework.util.ObservableEventSourceImpl;
+import de.unikassel.android.sdcframework.util.RingBuffer;
+import de.unikassel.android.sdcframework.util.RingBufferEventCollector;
+import de.unikassel.android.sdcframework.util.facade.EventCollector;
+import de.unikassel.android.sdcframework.util.facade.ObservableEvent;
+
+/**
+ * Tests for the ring buffer and the ring buffer event collector.
+ * 
+ * @author Katy Hilgenberg
+ * 
+ */
+public class TestRingBufferEventCollector extends TestCase
+{
+  /**
+   * The internal event class extending {@linkplain ObservableEvent}.
+   * 
+   * @author Katy Hilgenberg
+   * 
+   */
+  private static class TestEvent implements ObservableEvent
+  {}
+  
+  /**
+   * Test method for event collection ( enqueue and dequeue )
+   */
+  public final void testEnqueueAndDequeue()
+  {
+    ObservableEventSourceImpl< TestEvent > eventSource =
+        new ObservableEventSourceImpl< TestEvent >();
+    RingBufferEventCollector< TestEvent > eventCollector =
+        new RingBufferEventCollector< TestEvent >(
+            new RingBuffer< TestEvent >( 16 ) );
+    eventSource.registerEventObserver( eventCollector.getEventObserver() );
+    
+    for ( int i = 1; i <= 10; ++i )
+    {
+      TestEvent event = new TestEvent();
+      eventSource.notify( event );
+      assertEquals( "Expected 1 event in queue", 1,
+          eventCollector.getEventCount() );
+      try
+      {
+        assertSame( "Expected dequeued event equals the notified event",
+            event, eventCollector.dequeue() );
+      }
+      catch ( InterruptedException e )
+      {
+        fail( "Unexpected interrupt exception during dequeue" );
+      }
+      assertEquals( "Expected event queue is empty", 0,
+          eventCollector.getEventCount() );
+    }
+    
+    // batch reads
+    for ( int i = 0; i < 5; ++i )
+    {
+      eventSource.notify( new TestEvent() );
+    }
+    List< TestEvent > events = new ArrayList< TestEvent >();
+    assertEquals( "Unexpected batch size", 3,
+        eventCollector.dequeue( events, 3 ) );
+    assertEquals( "Unexpected batch size", 2,
+        eventCollector.dequeue( events, 10 ) );
+    assertEquals( "Unexpected event count", 5, events.size() );
+    
+    eventSource.notify( new TestEvent() );
+    eventCollector.clearCollectedEvents();
+    assertEquals( "Expected event queue is empty", 0,
+        eventCollector.getEventCount() );
+    
+    eventSource.unregisterEventObserver( eventCollector.getEventObserver() );
+    eventCollector.close();
+  }
+  
+  /**
+   * Test method for collectors sharing a ring buffer
+   */
+  public final void testSharedRingBuffer()
+  {
+    RingBuffer< TestEvent > ring = new RingBuffer< TestEvent >( 16 );
+    RingBufferEventCollector< TestEvent > first =
+        new RingBufferEventCollector< TestEvent >( ring );
+    RingBufferEventCollector< TestEvent > second =
+        new RingBufferEventCollector< TestEvent >( ring );
+    
+    ObservableEventSourceImpl< TestEvent > sharedSource =
+        new ObservableEventSourceImpl< TestEvent >();
+    sharedSource.registerEventObserver( first.getEventObserver() );
+    sharedSource.registerEventObserver( second.getEventObserver() );
+    ObservableEventSourceImpl< TestEvent > secondSource =
+        new ObservableEventSourceImpl< TestEvent >();
+    secondSource.registerEventObserver( second.getEventObserver() );
+    
+    // the event of the shared source is published once for both
+    TestEvent sharedEvent = new TestEvent();
+    sharedSource.notify( sharedEvent );
+    assertEquals( "Expected event published once", 1,
+        ring.getPublishedCount() );
+    
+    TestEvent secondEvent = new TestEvent();
+    secondSource.notify( secondEvent );
+    assertEquals( "Unexpected published count", 2, ring.getPublishedCount() );
+    
+    assertEquals( "Unexpected event count", 1, first.getEventCount() );
+    assertEquals( "Unexpected event count", 2, second.getEventCount() );
+    try
+    {
+      assertSame( "Expected shared event", sharedEvent, first.dequeue() );
+      assertSame( "Expected shared event", sharedEvent, second.dequeue() );
+      assertSame( "Expected second event", secondEvent, second.dequeue() );
+    }
+    catch ( InterruptedException e )
+    {
+      fail( "Unexpected interrupt exception during dequeue" );
+    }
+    
+    // closed collectors do not receive events
+    sharedSource.unregisterEventObserver( second.getEventObserver() );
+    secondSource.unregisterEventObserver( second.getEventObserver() );
+    second.close();
+    sharedSource.notify( new TestEvent() );
+    assertEquals( "Unexpected event count", 1, first.getEventCount() );
+    assertEquals( "Unexpected event count", 0, second.getEventCount() );
+    first.close();
+    
+    assertFalse( "Expected nothing published without consumers", ring.publish(
+        new TestEvent(), -1L ) );
+  }
+  
+  /**
+   * Test method for the bounded capacity
+   */
+  public final void testOverrun()
+  {
+    RingBuffer< TestEvent > ring = new RingBuffer< TestEvent >( 3 );
+    assertEquals( "Expected capacity rounded up", 4, ring.getCapacity() );
+    RingBufferEventCollector< TestEvent > eventCollector =
+        new RingBufferEventCollector< TestEvent >( ring );
+    
+    TestEvent[] events = new TestEvent[ 10 ];
+    for ( int i = 0; i < events.length; ++i )
+    {
+      events[ i ] = new TestEvent();
+      assertTrue( "Expected event published", eventCollector.enqueue(
+          events[ i ] ) );
+    }
+    assertEquals( "Expected event count limited by capacity", 4,
+        eventCollector.getEventCount() );
+    
+    List< TestEvent > dequeued = new ArrayList< TestEvent >();
+    assertEquals( "Unexpected dequeued count", 4, eventCollector.dequeue(
+        dequeued, Integer.MAX_VALUE ) );
+    assertSame( "Expected oldest available event", events[ 6 ],
+        dequeued.get( 0 ) );
+    assertEquals( "Unexpected lost count", 6, eventCollector.getLostCount() );
+    eventCollector.close();
+  }
+  
+  /**
+   * Ring buffer recording the events lost by overrun
+   * 
+   * @author Katy Hilgenberg
+   * 
+   */
+  private static class LostEventRingBuffer extends RingBuffer< TestEvent >
+  {
+    /**
+     * The lost events, once for each consumer which missed them
+     */
+    final List< TestEvent > lostEvents = new ArrayList< TestEvent >();
+    
+    /**
+     * Constructor
+     * 
+     * @param capacity
+     *          the minimum capacity
+     */
+    LostEventRingBuffer( int capacity )
+    {
+      super( capacity );
+    }
+    
+    /*
+     * (non-Javadoc)
+     * 
+     * @see
+     * de.unikassel.android.sdcframework.util.RingBuffer#onLost(java.lang.Object)
+     */
+    @Override
+    protected void onLost( TestEvent event )
+    {
+      lostEvents.add( event );
+    }
+  }
+  
+  /**
+   * Test method for the lost hook on overrun
+   */
+  public final void testLostEvents()
+  {
+    LostEventRingBuffer ring = new LostEventRingBuffer( 4 );
+    RingBufferEventCollector< TestEvent > reading =
+        new RingBufferEventCollector< TestEvent >( ring );
+    RingBufferEventCollector< TestEvent > stalled =
+        new RingBufferEventCollector< TestEvent >( ring );
+    ObservableEventSourceImpl< TestEvent > eventSource =
+        new ObservableEventSourceImpl< TestEvent >();
+    eventSource.registerEventObserver( reading.getEventObserver() );
+    eventSource.registerEventObserver( stalled.getEventObserver() );
+    
+    TestEvent[] events = new TestEvent[ 10 ];
+    List< TestEvent > dequeued = new ArrayList< TestEvent >();
+    for ( int i = 0; i < events.length; ++i )
+    {
+      events[ i ] = new TestEvent();
+      eventSource.notify( events[ i ] );
+      reading.dequeue( dequeued, Integer.MAX_VALUE );
+    }
+    
+    // only the events missed by the stalled consumer are lost, once
+    assertEquals( "Unexpected lost event count", 6, ring.lostEvents.size() );
+    for ( int i = 0; i < 6; ++i )
+    {
+      assertSame( "Unexpected lost event", events[ i ],
+          ring.lostEvents.get( i ) );
+    }
+    assertEquals( "Unexpected dequeued count", 4, stalled.dequeue( dequeued,
+        Integer.MAX_VALUE ) );
+    assertEquals( "Unexpected lost count", 6, stalled.getLostCount() );
+    assertEquals( "Unexpected lost count", 0, reading.getLostCount() );
+    
+    eventSource.removeAllObservers();
+    reading.close();
+    stalled.close();
+  }
+  
+  /**
+   * Test method for the lost hook on clearing and closing a consumer
+   */
+  public final void testLostEventsOnClearAndClose()
+  {
+    LostEventRingBuffer ring = new LostEventRingBuffer( 8 );
+    RingBufferEventCollector< TestEvent > reading =
+        new RingBufferEventCollector< TestEvent >( ring );
+    RingBufferEventCollector< TestEvent > closing =
+        new RingBufferEventCollector< TestEvent >( ring );
+    ObservableEventSourceImpl< TestEvent > eventSource =
+        new ObservableEventSourceImpl< TestEvent >();
+    eventSource.registerEventObserver( reading.getEventObserver() );
+    eventSource.registerEventObserver( closing.getEventObserver() );
+    
+    TestEvent[] events = new TestEvent[ 5 ];
+    List< TestEvent > dequeued = new ArrayList< TestEvent >();
+    for ( int i = 0; i < 3; ++i )
+    {
+      events[ i ] = new TestEvent();
+      eventSource.notify( events[ i ] );
+    }
+    reading.dequeue( dequeued, Integer.MAX_VALUE );
+    
+    // the cleared events are lost for the clearing consumer only
+    closing.clearCollectedEvents();
+    assertEquals( "Unexpected lost event count", 3, ring.lostEvents.size() );
+    for ( int i = 0; i < 3; ++i )
+    {
+      assertSame( "Unexpected lost event", events[ i ],
+          ring.lostEvents.get( i ) );
+    }
+    
+    for ( int i = 3; i < 5; ++i )
+    {
+      events[ i ] = new TestEvent();
+      eventSource.notify( events[ i ] );
+    }
+    reading.dequeue( dequeued, Integer.MAX_VALUE );
+    dequeued.clear();
+    assertEquals( "Unexpected dequeued count", 1, closing.dequeue( dequeued, 1 ) );
+    assertSame( "Unexpected dequeued event", events[ 3 ], dequeued.get( 0 ) );
+    
+    // the unread event is lost on close
+    eventSource.unregisterEventObserver( closing.getEventObserver() );
+    closing.close();
+    assertEquals( "Unexpected lost event count", 4, ring.lostEvents.size() );
+    assertSame( "Unexpected lost event", events[ 4 ], ring.lostEvents.get( 3 ) );
+    
+    // later overruns do not pass the closed consumer
+    for ( int i = 0; i < 20; ++i )
+    {
+      eventSource.notify( new TestEvent() );
+      reading.dequeue( dequeued, Integer.MAX_VALUE );
+    }
+    assertEquals( "Unexpected lost event count", 4, ring.lostEvents.size() );
+    closing.close();
+    assertEquals( "Expected close to be idempotent", 4, ring.lostEvents.size() );
+    
+    eventSource.removeAllObservers();
+    reading.close();
+    assertEquals( "Unexpected lost event count", 4, ring.lostEvents.size() );
+  }
+  
+  /**
+   * Test method for the lost hook with a consumer reading concurrently at the
+   * overrun edge, each event has to be either read or lost
+   * 
+   * @throws Exception
+   */
+  public final void testLostEventsConcurrent() throws Exception
+  {
+    final LostEventRingBuffer ring = new LostEventRingBuffer( 16 );
+    final RingBufferEventCollector< TestEvent > eventCollector =
+        new RingBufferEventCollector< TestEvent >( ring );
+    final int cntEvents = 200000;
+    
+    Thread producer = new Thread()
+    {
+      @Override
+      public void run()
+      {
+        for ( int i = 0; i < cntEvents; ++i )
+        {
+          eventCollector.enqueue( new TestEvent() );
+        }
+      }
+    };
+    producer.start();
+    
+    List< TestEvent > dequeued = new ArrayList< TestEvent >();
+    int cntDequeued = 0;
+    while ( producer.isAlive() )
+    {
+      cntDequeued += eventCollector.dequeue( dequeued, 3 );
+      dequeued.clear();
+    }
+    producer.join();
+    cntDequeued += eventCollector.dequeue( dequeued, Integer.MAX_VALUE );
+    
+    assertTrue( "Expected events lost", ring.lostEvents.size() > 0 );
+    assertEquals( "Expected each missed event lost once",
+        eventCollector.getLostCount(), ring.lostEvents.size() );
+    assertEquals( "Expected each event read or lost", cntEvents, cntDequeued
+        + ring.lostEvents.size() );
+    eventCollector.close();
+  }
+  
+  /**
+   * Test method for the consumer limit
+   */
+  public final void testMaximumConsumers()
+  {
+    RingBuffer< TestEvent > ring = new RingBuffer< TestEvent >( 4 );
+    List< RingBufferEventCollector< TestEvent >> collectors =
+        new ArrayList< RingBufferEventCollector< TestEvent >>();
+    for ( int i = 0; i < RingBuffer.MAX_CONSUMERS; ++i )
+    {
+      collectors.add( new RingBufferEventCollector< TestEvent >( ring ) );
+    }
+    try
+    {
+      new RingBufferEventCollector< TestEvent >( ring );
+      fail( "Expected exception for too many consumers" );
+    }
+    catch ( IllegalStateException e )
+    {}
+    
+    // a closed consumer slot is reused
+    collectors.get( 7 ).close();
+    new RingBufferEventCollector< TestEvent >( ring ).close();
+    for ( RingBufferEventCollector< TestEvent > collector : collectors )
+    {
+      collector.close();
+    }
+  }
+  
+  /**
+   * Test method for the blocking dequeue
+   */
+  public final void testBlockingDequeue() throws Exception
+  {
+    final RingBufferEventCollector< TestEvent > eventCollector =
+        new RingBufferEventCollector< TestEvent >(
+            new RingBuffer< TestEvent >( 16 ) );
+    final List< TestEvent > received = new ArrayList< TestEvent >();
+    Thread consumer = new Thread()
+    {
+      @Override
+      public void run()
+      {
+        try
+        {
+          TestEvent event = eventCollector.dequeue();
+          synchronized ( received )
+          {
+            received.add( event );
+          }
+        }
+        catch ( InterruptedException e )
+        {}
+      }
+    };
+    consumer.start();
+    Thread.sleep( 100 );
+    
+    TestEvent event = new TestEvent();
+    eventCollector.enqueue( event );
+    consumer.join( 5000 );
+    assertFalse( "Expected consumer woken up", consumer.isAlive() );
+    synchronized ( received )
+    {
+      assertEquals( "Expected event received", 1, received.size() );
+      assertSame( "Expected enqueued event", event, received.get( 0 ) );
+    }
+    eventCollector.close();
+  }
+  
+  /**
+   * Throughput comparison of the ring buffer collectors and the queue based
+   * collectors for one producer and two consumers ( not part of the default
+   * test run ).
+   */
+  @Suppress
+  public final void testThroughput() throws Exception
+  {
+    int count = 1000000;
+    RingBuffer< TestEvent > ring = new RingBuffer< TestEvent >( 1 << 16 );
+    RingBufferEventCollector< TestEvent > ringFirst =
+        new RingBufferEventCollector< TestEvent >( ring );
+    RingBufferEventCollector< TestEvent > ringSecond =
+        new RingBufferEventCollector< TestEvent >( ring );
+    
+    long queueNanos =
+        runThroughput( count, new EventCollectorImpl< TestEvent >(),
+            new EventCollectorImpl< TestEvent >() );
+    long ringNanos = runThroughput( count, ringFirst, ringSecond );
+    
+    System.out.println( "Delivery of " + count
+        + " events to two consumers: queue collectors "
+        + ( queueNanos / 1000000 ) + " ms, ring buffer collectors "
+        + ( ringNanos / 1000000 ) + " ms ( "
+        + ( ringFirst.getLostCount() + ringSecond.getLostCount() )
+        + " events lost )" );
+    ringFirst.close();
+    ringSecond.close();
+  }
+  
+  /**
+   * Does notify events to two collectors and wait until both have dequeued
+   * them in batches
+   * 
+   * @param count
+   *          the count of events
+   * @param first
+   *          the first collector
+   * @param second
+   *          the second collector
+   * @return the elapsed time in nanoseconds
+   */
+  private long runThroughput( final int count,
+      final EventCollector< TestEvent > first,
+      final EventCollector< TestEvent > second ) throws Exception
+  {
+    ObservableEventSourceImpl< TestEvent > eventSource =
+        new ObservableEventSourceImpl< TestEvent >();
+    eventSource.registerEventObserver( first.getEventObserver() );
+    eventSource.registerEventObserver( second.getEventObserver() );
+    
+    Thread[] consumers = new Thread[ 2 ];
+    for ( int i = 0; i < consumers.length; ++i )
+    {
+      final EventCollector< TestEvent > collector = i == 0 ? first : second;
+      consumers[ i ] = new Thread()
+      {
+        @Override
+        public void run()
+        {
+          List< TestEvent > batch = new ArrayList< TestEvent >( 1024 );
+          int cnt = 0;
+          long lost = 0;
+          while ( cnt + lost < count && !isInterrupted() )
+          {
+            if ( collector instanceof RingBufferEventCollector )
+            {
+              lost =
+                  ( (RingBufferEventCollector< ? >) collector ).getLostCount();
+            }
+            batch.clear();
+            int n = collector.dequeue( batch, 1024 );
+            if ( n == 0 )
+              Thread.yield();
+            cnt += n;
+          }
+        }
+      };
+    }
+    
+    TestEvent event = new TestEvent();
+    long start = System.nanoTime();
+    for ( Thread consumer : consumers )
+    {
+      consumer.start();
+    }
+    for ( int i = 0; i < count; ++i )
+    {
+      eventSource.notify( event );
+    }
+    for ( Thread consumer : consumers )
+    {
+      consumer.join( 10000 );
+      consumer.interrupt();
+    }
+    long nanos = System.nanoTime() - start;
+    eventSource.removeAllObservers();
+    return nanos;
+  }
+}
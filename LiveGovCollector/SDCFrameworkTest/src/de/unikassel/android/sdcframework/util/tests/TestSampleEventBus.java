@@ -0,0 +1,218 @@
+/*
+ * Copyright (C) 2012, Katy Hilgenberg.
+ * Special acknowledgments to: Knowledge & Data Engineering Group, University of Kassel (http://www.kde.cs.uni-kassel.de).
+ * Contact: sdcf@cs.uni-kassel.de
+ *
+ * This file is part of the SDCFramework (Sensor Data Collection Framework) project.
+ *
+ * The SDCFramework is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The SDCFramework is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the SDCFramework.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.unikassel.android.sdcframework.util.tests;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import de.unikassel.android.sdcframework.data.Sample;
+import de.unikassel.android.sdcframework.devices.facade.SensorDevicePriorities;
+import de.unikassel.android.sdcframework.transmission.facade.SampleRateChangeResponder;
+import de.unikassel.android.sdcframework.util.ObservableEventSourceImpl;
+import de.unikassel.android.sdcframework.util.RingBufferEventCollector;
+import de.unikassel.android.sdcframework.util.SampleEventBus;
+
+/**
+ * Tests for the load shedding and the throttling of the sample event bus.
+ * 
+ * @author Katy Hilgenberg
+ * 
+ */
+public class TestSampleEventBus extends TestCase
+{
+  /**
+   * The identifier of the low rate test device
+   */
+  private static final String SLOW_DEVICE = "Slow";
+  
+  /**
+   * The identifier of the high rate test device
+   */
+  private static final String FAST_DEVICE = "Fast";
+  
+  /**
+   * The time stamp of the next sample
+   */
+  private long timeStamp;
+  
+  /**
+   * Method to enqueue samples of a device
+   * 
+   * @param collector
+   *          the collector
+   * @param deviceId
+   *          the device identifier
+   * @param priority
+   *          the sample priority
+   * @param interval
+   *          the time stamp interval in milliseconds
+   * @param count
+   *          the count of samples
+   * @return the count of samples accepted by the bus
+   */
+  private int enqueue( RingBufferEventCollector< Sample > collector,
+      String deviceId, SensorDevicePriorities priority, long interval,
+      int count )
+  {
+    int cntAccepted = 0;
+    for ( int i = 0; i < count; ++i )
+    {
+      timeStamp += interval;
+      if ( collector.enqueue( new Sample( deviceId, timeStamp,
+          priority.ordinal(), true ) ) )
+        ++cntAccepted;
+    }
+    return cntAccepted;
+  }
+  
+  /**
+   * Test method for the priority based load shedding
+   */
+  public final void testPriorityShedding()
+  {
+    SampleEventBus bus = new SampleEventBus( 128 );
+    RingBufferEventCollector< Sample > collector =
+        new RingBufferEventCollector< Sample >( bus );
+    
+    // fill the queue up to half of the capacity
+    assertEquals( 64, enqueue( collector, SLOW_DEVICE,
+        SensorDevicePriorities.Level0, 1000L, 64 ) );
+    
+    assertEquals( "Expected lowest priority sample shed", 0, enqueue(
+        collector, SLOW_DEVICE, SensorDevicePriorities.Level4, 1000L, 1 ) );
+    assertEquals( "Expected higher priority sample accepted", 1, enqueue(
+        collector, SLOW_DEVICE, SensorDevicePriorities.Level3, 1000L, 1 ) );
+    
+    // fill the queue up to 80 percent of the capacity
+    enqueue( collector, SLOW_DEVICE, SensorDevicePriorities.Level0, 1000L,
+        103 - collector.getEventCount() );
+    assertEquals( 103, collector.getEventCount() );
+    assertEquals( "Expected level 1 sample shed", 0, enqueue( collector,
+        SLOW_DEVICE, SensorDevicePriorities.Level1, 1000L, 1 ) );
+    assertEquals( "Expected highest priority sample accepted", 1, enqueue(
+        collector, SLOW_DEVICE, SensorDevicePriorities.Level0, 1000L, 1 ) );
+    
+    assertEquals( 2L, bus.getDroppedCount() );
+    assertEquals( 2L, bus.getDroppedCount( SLOW_DEVICE ) );
+    assertEquals( Long.valueOf( 2L ), bus.getDroppedCounts().get( SLOW_DEVICE ) );
+    assertEquals( "Expected no samples lost", 0L, collector.getLostCount() );
+    collector.close();
+  }
+  
+  /**
+   * Test method for the downsampling of high rate devices
+   */
+  public final void testDownsampling()
+  {
+    SampleEventBus bus = new SampleEventBus( 128 );
+    RingBufferEventCollector< Sample > collector =
+        new RingBufferEventCollector< Sample >( bus );
+    
+    // fill the queue up to 90 percent of the capacity
+    assertEquals( 116, enqueue( collector, SLOW_DEVICE,
+        SensorDevicePriorities.Level0, 1000L, 116 ) );
+    
+    assertEquals( "Expected low rate device not downsampled", 4, enqueue(
+        collector, SLOW_DEVICE, SensorDevicePriorities.Level0, 1000L, 4 ) );
+    assertEquals( "Expected high rate device downsampled", 3, enqueue(
+        collector, FAST_DEVICE, SensorDevicePriorities.Level0, 10L, 8 ) );
+    assertEquals( 5L, bus.getDroppedCount( FAST_DEVICE ) );
+    assertEquals( 0L, bus.getDroppedCount( SLOW_DEVICE ) );
+    collector.close();
+  }
+  
+  /**
+   * Test method for the shedding per consumer
+   */
+  public final void testSheddingPerConsumer()
+  {
+    SampleEventBus bus = new SampleEventBus( 128 );
+    RingBufferEventCollector< Sample > stalled =
+        new RingBufferEventCollector< Sample >( bus );
+    RingBufferEventCollector< Sample > running =
+        new RingBufferEventCollector< Sample >( bus );
+    ObservableEventSourceImpl< Sample > eventSource =
+        new ObservableEventSourceImpl< Sample >();
+    eventSource.registerEventObserver( stalled.getEventObserver() );
+    eventSource.registerEventObserver( running.getEventObserver() );
+    
+    List< Sample > samples = new ArrayList< Sample >();
+    for ( int i = 0; i < 100; ++i )
+    {
+      timeStamp += 1000L;
+      eventSource.notify( new Sample( SLOW_DEVICE, timeStamp,
+          SensorDevicePriorities.Level4.ordinal(), true ) );
+      try
+      {
+        samples.add( running.dequeue() );
+      }
+      catch ( InterruptedException e )
+      {
+        fail( "Unexpected interrupt exception during dequeue" );
+      }
+    }
+    assertEquals( "Expected all samples for the running consumer", 100,
+        samples.size() );
+    assertEquals( "Expected samples shed for the stalled consumer", 64,
+        stalled.getEventCount() );
+    assertEquals( 36L, bus.getDroppedCount( SLOW_DEVICE ) );
+    eventSource.removeAllObservers();
+    stalled.close();
+    running.close();
+  }
+  
+  /**
+   * Test method for the throttle factor and the signaling of the responders
+   */
+  public final void testThrottling()
+  {
+    final int[] cntSignals = new int[ 1 ];
+    SampleEventBus bus = new SampleEventBus( 16 );
+    bus.registerSampleRateChangeResponder( new SampleRateChangeResponder()
+    {
+      @Override
+      public void onSampleRateChanged()
+      {
+        ++cntSignals[ 0 ];
+      }
+    } );
+    RingBufferEventCollector< Sample > collector =
+        new RingBufferEventCollector< Sample >( bus );
+    
+    enqueue( collector, SLOW_DEVICE, SensorDevicePriorities.Level0, 1000L, 8 );
+    assertEquals( 1, bus.getThrottleFactor() );
+    enqueue( collector, SLOW_DEVICE, SensorDevicePriorities.Level0, 1000L, 1 );
+    assertEquals( "Expected throttling at half of the capacity", 2,
+        bus.getThrottleFactor() );
+    enqueue( collector, SLOW_DEVICE, SensorDevicePriorities.Level0, 1000L, 4 );
+    assertEquals( "Expected maximum throttling",
+        SampleEventBus.MAX_THROTTLE_FACTOR, bus.getThrottleFactor() );
+    assertEquals( 2, cntSignals[ 0 ] );
+    
+    collector.clearCollectedEvents();
+    enqueue( collector, SLOW_DEVICE, SensorDevicePriorities.Level0, 1000L, 1 );
+    assertEquals( "Expected throttling stopped", 1, bus.getThrottleFactor() );
+    assertEquals( 3, cntSignals[ 0 ] );
+    collector.close();
+  }
+}
@@ -141,5 +141,29 @@ public class TestTimeProvider extends TestCase
     
     long utcDayTimeMillis = TimeProvider.getUTCDayTimeMillis( timeStamp1 );
     assertEquals( "Unexpected milliseconds", millis, utcDayTimeMillis);
+    
+    assertEquals( "Unexpected milliseconds for day start", millis,
+        TimeProvider.getUTCDayTimeMillis( millis ) );
+    assertEquals( "Unexpected milliseconds before the epoch",
+        -TimeProvider.DAY_MILLIS, TimeProvider.getUTCDayTimeMillis( -1L ) );
+  }
+  
+  /**
+   * Test method for
+   * {@link de.unikassel.android.sdcframework.util.TimeProvider#appendUTCTimeOfDay(StringBuffer, long)}
+   * .
+   */
+  public final void testAppendUTCTimeOfDay()
+  {
+    long[] timeStamps =
+        new long[] { 1304586006722L, 1304553600000L, 1304553600005L,
+            1304639999999L };
+    for ( long timeStamp : timeStamps )
+    {
+      String expected = TimeProvider.toUTCString( timeStamp ).substring( 11 );
+      String actual =
+          TimeProvider.appendUTCTimeOfDay( new StringBuffer(), timeStamp ).toString();
+      assertEquals( "Unexpected time of day for timestamp", expected, actual );
+    }
   }
 }
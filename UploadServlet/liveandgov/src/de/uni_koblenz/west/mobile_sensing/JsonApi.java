@@ -6,8 +6,8 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.Collections;
+import java.util.List;
 
 import javax.naming.Context;
 import javax.naming.InitialContext;
@@ -25,6 +25,29 @@ import javax.sql.DataSource;
 
 public class JsonApi extends HttpServlet {
 	private static final long serialVersionUID = 1L;
+
+	/**
+	 * Selects the tags of a device in a time window ordered by time stamp
+	 */
+	static final String SELECT_ALL_TAGS = ""
+			+ "SELECT ts, "
+			+ "       txt "
+			+ "FROM   tags "
+			+ "WHERE  uuid = ? "
+			+ "       AND ts BETWEEN ? AND ? "
+			+ "ORDER  BY ts "
+			+ "LIMIT  1000";
+
+	/**
+	 * The default target count of points of a GPS track
+	 */
+	static final int DEFAULT_TRACK_POINTS = 1000;
+
+	/**
+	 * The maximum target count of points of a GPS track
+	 */
+	static final int MAX_TRACK_POINTS = 10000;
+
 	DataSource database;
     /**
      * @see HttpServlet#HttpServlet()
@@ -68,56 +91,150 @@ public class JsonApi extends HttpServlet {
 		// TODO
 	}
 
+	/**
+	 * Writes the tags of a device in a time window, each tag localized by the
+	 * GPS coordinate nearest in time. The request parameter
+	 * localization=query selects the former localization with one nearest
+	 * coordinate query per tag, the default is a single merge join.
+	 */
 	private void writeTagsData(HttpServletRequest request, HttpServletResponse response) throws IOException {
-		String selectAllTags = ""
+		int uuid = Integer.parseInt(request.getParameter("uuid"));
+		long tsFrom = Long.parseLong(request.getParameter("tsFrom"));
+		long tsTo = Long.parseLong(request.getParameter("tsTo"));
+		boolean nearestQuery = "query".equals(request.getParameter("localization"));
+
+		Connection connection = null;
+		try {
+			connection = database.getConnection();
+			PrintWriter writer = response.getWriter();
+			if(nearestQuery) {
+				writeTagsNearestQuery(connection, uuid, tsFrom, tsTo, writer);
+			}
+			else {
+				writeTagsMergeJoin(connection, uuid, tsFrom, tsTo, writer);
+			}
+		} catch (SQLException e) {
+			// TODO Auto-generated catch block
+			e.printStackTrace();
+		} finally {
+			try { if (connection != null) connection.close(); } catch (SQLException e) { e.printStackTrace(); }
+		}
+	}
+
+	/**
+	 * Localizes the tags with a single pass over the tags and the GPS
+	 * coordinates of the time window, both ordered by time stamp.
+	 */
+	static void writeTagsMergeJoin(Connection connection, int uuid, long tsFrom, long tsTo, PrintWriter writer) throws SQLException {
+		String selectAllCoords = ""
 				+ "SELECT ts, "
-				+ "       data "
-				+ "FROM   samples "
-				+ "WHERE  sensorid = 'Tags' "
-				+ "       AND uuid = ? "
+				+ "       lat, "
+				+ "       lon "
+				+ "FROM   gps "
+				+ "WHERE  uuid = ? "
 				+ "       AND ts BETWEEN ? AND ? "
-				+ "ORDER  BY ts "
-				+ "LIMIT  1000";
+				+ "ORDER  BY ts";
+
+		PreparedStatement pstmtAllTags = null;
+		ResultSet rs = null;
+		PreparedStatement pstmtAllCoords = null;
+		ResultSet rs2 = null;
+
+		try {
+			pstmtAllTags = connection.prepareStatement(SELECT_ALL_TAGS);
+			pstmtAllTags.setInt(1, uuid);
+			pstmtAllTags.setLong(2, tsFrom);
+			pstmtAllTags.setLong(3, tsTo);
+
+			pstmtAllCoords = connection.prepareStatement(selectAllCoords);
+			pstmtAllCoords.setInt(1, uuid);
+			pstmtAllCoords.setLong(2, tsFrom);
+			pstmtAllCoords.setLong(3, tsTo);
+
+			rs = pstmtAllTags.executeQuery();
+			rs2 = pstmtAllCoords.executeQuery();
+
+			// the last coordinate not after and the first coordinate after the current tag
+			long prevTs = 0;
+			String prevData = null;
+			boolean hasNext = rs2.next();
+			long nextTs = hasNext ? rs2.getLong("ts") : 0;
+			String nextData = hasNext ? latLonToJson(rs2) : null;
+
+			boolean firstPair = true;
+			writer.print("{\"data\":[");
+			while (rs.next()) {
+				if(firstPair) {
+					firstPair = false;
+				}
+				else {
+					writer.print(",");
+				}
+				long ts = rs.getLong("ts");
+				writer.print("{\"tag\":\"" + rs.getString("txt") + "\"");
+				writer.print(",\"ts\":" + ts);
+
+				// advance the coordinates to the time stamp of the tag
+				while (hasNext && nextTs <= ts) {
+					prevTs = nextTs;
+					prevData = nextData;
+					hasNext = rs2.next();
+					if(hasNext) {
+						nextTs = rs2.getLong("ts");
+						nextData = latLonToJson(rs2);
+					}
+					else {
+						nextData = null;
+					}
+				}
+
+				String nearest = nextData;
+				if (prevData != null && (nextData == null || ts - prevTs <= nextTs - ts)) {
+					nearest = prevData;
+				}
+				if (nearest != null) {
+					writer.print(",\"latlon\":" + nearest);
+				}
+				writer.print("}");
+			}
+			writer.print("]}");
+
+		} finally {
+			try { if (rs != null) rs.close(); } catch (SQLException e) { e.printStackTrace(); }
+			try { if (rs2 != null) rs2.close(); } catch (SQLException e) { e.printStackTrace(); }
+			try { if (pstmtAllTags != null) pstmtAllTags.close(); } catch (SQLException e) { e.printStackTrace(); }
+			try { if (pstmtAllCoords != null) pstmtAllCoords.close(); } catch (SQLException e) { e.printStackTrace(); }
+		}
+	}
 
+	/**
+	 * Localizes the tags with one nearest coordinate query per tag.
+	 */
+	static void writeTagsNearestQuery(Connection connection, int uuid, long tsFrom, long tsTo, PrintWriter writer) throws SQLException {
 		String selectNearestCoord = ""
 				+ "SELECT Abs(ts - ?) AS a, "
-				+ "       data "
-				+ "FROM   samples "
-				+ "WHERE  sensorid = 'GPS' "
-				+ "       AND uuid = ? "
+				+ "       lat, "
+				+ "       lon "
+				+ "FROM   gps "
+				+ "WHERE  uuid = ? "
 				+ "       AND ts BETWEEN ? AND ? "
 				+ "ORDER  BY a "
 				+ "LIMIT  1";
-//		String allInOne = ""
-//				+ "SELECT s1.ts AS ts1, "
-//				+ "       s1.data, "
-//				+ "       (SELECT data "
-//				+ "        FROM   samples "
-//				+ "        WHERE  sensorid = 'GPS' "
-//				+ "        ORDER  BY Abs(ts1 - ts) "
-//				+ "        LIMIT  1) "
-//				+ "FROM   samples s1 "
-//				+ "WHERE  s1.sensorid = 'Tags'"
-//				+ "       AND uuid = ? "
-//				+ "       AND ts BETWEEN ? AND ? ";
-		
-		Connection connection = null;
+
 		PreparedStatement pstmtAllTags = null;
 		ResultSet rs = null;
 		PreparedStatement pstmtNearestCoord = null;
 		ResultSet rs2 = null;
 		
 		try {
-			connection = database.getConnection();
-			pstmtAllTags = connection.prepareStatement(selectAllTags);
-			pstmtAllTags.setInt(1, Integer.parseInt(request.getParameter("uuid")));
-			pstmtAllTags.setLong(2, Long.parseLong(request.getParameter("tsFrom")));
-			pstmtAllTags.setLong(3, Long.parseLong(request.getParameter("tsTo")));
+			pstmtAllTags = connection.prepareStatement(SELECT_ALL_TAGS);
+			pstmtAllTags.setInt(1, uuid);
+			pstmtAllTags.setLong(2, tsFrom);
+			pstmtAllTags.setLong(3, tsTo);
 	
 			pstmtNearestCoord = connection.prepareStatement(selectNearestCoord);
 			
 			rs = pstmtAllTags.executeQuery();
-			PrintWriter writer = response.getWriter();
 			boolean firstPair = true;
 			writer.print("{\"data\":[");
 			while (rs.next()) {
@@ -127,34 +244,41 @@ public class JsonApi extends HttpServlet {
 				else {
 					writer.print(",");
 				}
-				writer.print("{\"tag\":\"" + tagXmlToJson(rs.getString("data")) + "\"");
+				writer.print("{\"tag\":\"" + rs.getString("txt") + "\"");
 				writer.print(",\"ts\":" + rs.getLong("ts"));
 				
 				// find the nearest GPS coordinate to localize the tag
 				pstmtNearestCoord.setLong(1, rs.getLong("ts"));
-				pstmtNearestCoord.setInt(2, Integer.parseInt(request.getParameter("uuid")));
-				pstmtNearestCoord.setLong(3, Long.parseLong(request.getParameter("tsFrom")));
-				pstmtNearestCoord.setLong(4, Long.parseLong(request.getParameter("tsTo")));
+				pstmtNearestCoord.setInt(2, uuid);
+				pstmtNearestCoord.setLong(3, tsFrom);
+				pstmtNearestCoord.setLong(4, tsTo);
+				if (rs2 != null) rs2.close();
 				rs2 = pstmtNearestCoord.executeQuery();
 				while (rs2.next()) {
-					writer.print(",\"latlon\":" + latLonXmlToJson(rs2.getString("data")) + "}");
-				}				
+					writer.print(",\"latlon\":" + latLonToJson(rs2));
+				}
+				writer.print("}");
 			}
 			writer.print("]}");
 			
-		} catch (SQLException e) {
-			// TODO Auto-generated catch block
-			e.printStackTrace();
 		} finally {
 			try { if (rs != null) rs.close(); } catch (SQLException e) { e.printStackTrace(); }
 			try { if (rs2 != null) rs2.close(); } catch (SQLException e) { e.printStackTrace(); }
 			try { if (pstmtAllTags != null) pstmtAllTags.close(); } catch (SQLException e) { e.printStackTrace(); }
 			try { if (pstmtNearestCoord != null) pstmtNearestCoord.close(); } catch (SQLException e) { e.printStackTrace(); }
-			try { if (connection != null) connection.close(); } catch (SQLException e) { e.printStackTrace(); }
 		}
 	}
 
+	/**
+	 * Writes the sample count and time range per device and sensor over the
+	 * generic samples table and the typed sensor tables
+	 */
 	private void writeOverviewData(HttpServletRequest request, HttpServletResponse response) throws IOException {
+		StringBuilder allSamples = new StringBuilder("SELECT uuid, sensorid, ts FROM samples");
+		for (SampleMapper mapper : SampleMapper.getMappers()) {
+			allSamples.append(" UNION ALL SELECT uuid, '").append(mapper.getSensorId())
+					.append("', ts FROM `").append(mapper.getTable()).append('`');
+		}
 		String selectAllTags = ""
 				+ "SELECT Count(*), "
 				+ "       s.sensorid, "
@@ -163,7 +287,7 @@ public class JsonApi extends HttpServlet {
 				+ "       d.model, "
 				+ "       Min(s.ts), "
 				+ "       Max(s.ts) "
-				+ "FROM   samples s "
+				+ "FROM   (" + allSamples + ") s "
 				+ "       JOIN devinfo d "
 				+ "         ON s.uuid = d.uuid "
 				+ "GROUP  BY d.uuid, "
@@ -209,80 +333,103 @@ public class JsonApi extends HttpServlet {
 	}
 	
 	
-	private String tagXmlToJson(String xml){
-		// data looks like <txt>37GD</txt>
-		int tagLength = xml.length();
-		return xml.substring(5,tagLength-6);
-	}
-
+	/**
+	 * Writes the GPS track of a device in a time window, downsampled to the
+	 * request parameter points (default DEFAULT_TRACK_POINTS) by the
+	 * TrajectorySampler instead of truncating the track.
+	 */
 	private void writeGPSData(HttpServletRequest request,
 			HttpServletResponse response) throws IOException {
-		
-		String selectSQL = ""
-				+ "SELECT DISTINCT data "
-				+ "FROM   samples "
-				+ "WHERE  sensorid = 'GPS' "
-				+ "       AND uuid = ? "
-				+ "       AND ts BETWEEN ? AND ? "
-				+ "ORDER  BY ts "
-				+ "LIMIT  1000 ";
+		int uuid = Integer.parseInt(request.getParameter("uuid"));
+		long tsFrom = Long.parseLong(request.getParameter("tsFrom"));
+		long tsTo = Long.parseLong(request.getParameter("tsTo"));
+		int points = DEFAULT_TRACK_POINTS;
+		if (request.getParameter("points") != null) {
+			points = Integer.parseInt(request.getParameter("points"));
+		}
+		points = Math.max(TrajectorySampler.MIN_POINTS, Math.min(MAX_TRACK_POINTS, points));
+
 		Connection connection = null;
-		PreparedStatement pstmtGPS = null;
-		ResultSet rs = null;
 		try {
 			connection = database.getConnection();
-			pstmtGPS = connection.prepareStatement(selectSQL);
-			pstmtGPS.setInt(1, Integer.parseInt(request.getParameter("uuid")));
-			pstmtGPS.setLong(2, Long.parseLong(request.getParameter("tsFrom")));
-			pstmtGPS.setLong(3, Long.parseLong(request.getParameter("tsTo")));
-			rs = pstmtGPS.executeQuery();
-			
-			PrintWriter writer = response.getWriter();
-			boolean firstPair = true;
-			writer.print("{\"data\":[");
-			while (rs.next()) {
-				String data = rs.getString("data");
-				if(firstPair) {
-					writer.print(latLonXmlToJson(data));
-					firstPair = false;
-				}
-				else {
-					writer.print("," + latLonXmlToJson(data));
-				}
-			}
-			writer.print("]}");
-			
+			writeTrajectory(connection, uuid, tsFrom, tsTo, points, response.getWriter());
 		} catch (SQLException e) {
 			// TODO Auto-generated catch block
 			e.printStackTrace();
 		} finally {
-			try { if (rs != null) rs.close(); } catch (SQLException e) { e.printStackTrace(); }
-			try { if (pstmtGPS != null) pstmtGPS.close(); } catch (SQLException e) { e.printStackTrace(); }
 			try { if (connection != null) connection.close(); } catch (SQLException e) { e.printStackTrace(); }
 		}
 	}
 
-	private String latLonXmlToJson(String data) {
-		Pattern regexLat = Pattern.compile("<lat>(.*?)</lat>", Pattern.DOTALL);
-		Pattern regexLon = Pattern.compile("<lon>(.*?)</lon>", Pattern.DOTALL);
-		Matcher matcher = regexLat.matcher(data);	
-		String result = "";
-		if (matcher.find()) {
-		    String lat = matcher.group(1);
-			result += ("[" + lat + ",");
-		}
-		else {
-			return "";
-		}
-		matcher = regexLon.matcher(data);				
-		if (matcher.find()) {
-		    String lon = matcher.group(1);
-		    result += (lon + "]");
+	/**
+	 * Writes the downsampled GPS track of a device in a time window. The
+	 * buckets of the sampler span the time range of the coordinates in the
+	 * window, the coordinates are streamed from the database in a single pass.
+	 */
+	static void writeTrajectory(Connection connection, int uuid, long tsFrom, long tsTo, int points, PrintWriter writer) throws SQLException {
+		String selectRange = ""
+				+ "SELECT Min(ts), "
+				+ "       Max(ts) "
+				+ "FROM   gps "
+				+ "WHERE  uuid = ? "
+				+ "       AND ts BETWEEN ? AND ?";
+		String selectAllCoords = ""
+				+ "SELECT ts, "
+				+ "       lat, "
+				+ "       lon "
+				+ "FROM   gps "
+				+ "WHERE  uuid = ? "
+				+ "       AND ts BETWEEN ? AND ? "
+				+ "ORDER  BY ts";
+
+		PreparedStatement pstmt = null;
+		ResultSet rs = null;
+		List<double[]> track = Collections.emptyList();
+		try {
+			pstmt = connection.prepareStatement(selectRange);
+			pstmt.setInt(1, uuid);
+			pstmt.setLong(2, tsFrom);
+			pstmt.setLong(3, tsTo);
+			rs = pstmt.executeQuery();
+			if (rs.next() && rs.getObject(1) != null) {
+				TrajectorySampler sampler = new TrajectorySampler(rs.getLong(1), rs.getLong(2), points);
+				rs.close();
+				pstmt.close();
+
+				// stream the rows instead of buffering the result set
+				pstmt = connection.prepareStatement(selectAllCoords, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+				pstmt.setFetchSize(Integer.MIN_VALUE);
+				pstmt.setInt(1, uuid);
+				pstmt.setLong(2, tsFrom);
+				pstmt.setLong(3, tsTo);
+				rs = pstmt.executeQuery();
+				while (rs.next()) {
+					sampler.add(rs.getLong(1), rs.getDouble(2), rs.getDouble(3));
+				}
+				track = sampler.finish();
+			}
+		} finally {
+			try { if (rs != null) rs.close(); } catch (SQLException e) { e.printStackTrace(); }
+			try { if (pstmt != null) pstmt.close(); } catch (SQLException e) { e.printStackTrace(); }
 		}
-		else {
-			return "";
+
+		StringBuilder sb = new StringBuilder("{\"data\":[");
+		for (int i = 0; i < track.size(); i++) {
+			if (i > 0) {
+				sb.append(',');
+			}
+			double[] coord = track.get(i);
+			sb.append('[').append(coord[0]).append(',').append(coord[1]).append(']');
 		}
-		return result;
+		sb.append("]}");
+		writer.print(sb);
+	}
+
+	/**
+	 * Formats the coordinate of the current row of a gps query as [lat,lon]
+	 */
+	static String latLonToJson(ResultSet rs) throws SQLException {
+		return "[" + rs.getString("lat") + "," + rs.getString("lon") + "]";
 	}
 
 	/**
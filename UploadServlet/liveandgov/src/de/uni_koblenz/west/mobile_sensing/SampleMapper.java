@@ -0,0 +1,272 @@
+package de.uni_koblenz.west.mobile_sensing;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Maps the data of one sample data class to the rows of a typed sensor table.
+ * The Upload servlet decodes the data element of each sample once and passes
+ * the text of its child elements by element name, the mapper converts the
+ * fields to the column types and binds them to the insert statement of its
+ * table.
+ *
+ * The mappers are registered per data class ( the simple class name of the
+ * SampleData class ), samples of other data classes are stored in the generic
+ * samples table. The typed tables are the tables of the apiServ, all of them
+ * start with the columns uuid and ts and end with prio, synced and dataclass.
+ * Further mappers can be added with register, subclasses may override bind for
+ * data which does not map one field per column.
+ */
+public class SampleMapper {
+
+	/**
+	 * The column types
+	 */
+	public enum Type {
+		INTEGER("integer", Types.INTEGER),
+		FLOAT("float", Types.FLOAT),
+		DOUBLE("double", Types.DOUBLE),
+		BOOLEAN("boolean", Types.BOOLEAN),
+		TEXT("text", Types.VARCHAR);
+
+		final String sqlType;
+		final int jdbcType;
+
+		private Type(String sqlType, int jdbcType) {
+			this.sqlType = sqlType;
+			this.jdbcType = jdbcType;
+		}
+	}
+
+	/**
+	 * A column of a typed sensor table filled from a field of the sample data
+	 */
+	public static class Column {
+		final String name;
+		final String field;
+		final Type type;
+		final boolean required;
+		final String defaultValue;
+
+		private Column(String name, String field, Type type, boolean required, String defaultValue) {
+			this.name = name;
+			this.field = field;
+			this.type = type;
+			this.required = required;
+			this.defaultValue = defaultValue;
+		}
+	}
+
+	/**
+	 * The registered mappers by data class
+	 */
+	private static final Map<String, SampleMapper> MAPPERS = Collections.synchronizedMap(new LinkedHashMap<String, SampleMapper>());
+
+	static {
+		register("GPSSampleData", new SampleMapper("GPS", "gps",
+				optional("accuracy", "accuracy", Type.FLOAT, null),
+				optional("alt", "alt", Type.DOUBLE, null),
+				required("lat", "lat", Type.DOUBLE),
+				required("lon", "lon", Type.DOUBLE),
+				optional("speed", "speed", Type.FLOAT, "0")));
+		register("NetworkLocationSampleData", new SampleMapper("NetworkLocation", "networklocation",
+				optional("accuracy", "accuracy", Type.FLOAT, null),
+				required("lat", "lat", Type.DOUBLE),
+				required("lon", "lon", Type.DOUBLE)));
+		register("GSMSampleData", new SampleMapper("GSM", "gsm",
+				optional("operator", "operator", Type.TEXT, ""),
+				required("lac", "lac", Type.INTEGER),
+				required("cid", "cid", Type.INTEGER),
+				required("rssi", "rssi", Type.INTEGER),
+				optional("neighbors", "neighbors", Type.TEXT, null)));
+		register("WifiSampleData", new SampleMapper("Wifi", "wifi",
+				required("bssid", "bssid", Type.TEXT),
+				optional("ssid", "ssid", Type.TEXT, ""),
+				optional("cap", "cap", Type.TEXT, ""),
+				optional("connected", "connected", Type.BOOLEAN, "false"),
+				required("freq", "freq", Type.INTEGER),
+				required("sigLevel", "sigLevel", Type.INTEGER)));
+		register("BluetoothSampleData", new SampleMapper("Bluetooth", "bluetooth",
+				required("address", "adress", Type.TEXT),
+				required("class", "class", Type.TEXT),
+				optional("name", "name", Type.TEXT, ""),
+				required("rssi", "rssi", Type.INTEGER)));
+		register("AccelerometerSampleData", new SampleMapper("Accelerometer", "accelerometer",
+				required("accx", "accX", Type.FLOAT),
+				required("accy", "accY", Type.FLOAT),
+				required("accz", "accZ", Type.FLOAT)));
+		register("MagneticFieldSampleData", new SampleMapper("MagneticField", "magneticfield",
+				required("fieldx", "fieldX", Type.FLOAT),
+				required("fieldy", "fieldY", Type.FLOAT),
+				required("fieldz", "fieldZ", Type.FLOAT)));
+		register("GyroscopeSampleData", new SampleMapper("Gyroscope", "gyroscope",
+				required("angspeedx", "angSpeedX", Type.FLOAT),
+				required("angspeedy", "angSpeedY", Type.FLOAT),
+				required("angspeedz", "angSpeedZ", Type.FLOAT)));
+		register("TextSampleData", new SampleMapper("Tags", "tags",
+				required("txt", "txt", Type.TEXT)));
+	}
+
+	/**
+	 * The sensor id of the mapped samples
+	 */
+	private final String sensorid;
+
+	/**
+	 * The typed sensor table
+	 */
+	private final String table;
+
+	/**
+	 * The data columns between ts and prio
+	 */
+	private final Column[] columns;
+
+	public SampleMapper(String sensorid, String table, Column... columns) {
+		this.sensorid = sensorid;
+		this.table = table;
+		this.columns = columns;
+	}
+
+	/**
+	 * Creates a column for a field which has to be present in the data
+	 */
+	public static Column required(String name, String field, Type type) {
+		return new Column(name, field, type, true, null);
+	}
+
+	/**
+	 * Creates a column for an optional field, a missing field is stored as
+	 * default value ( null for SQL NULL )
+	 */
+	public static Column optional(String name, String field, Type type, String defaultValue) {
+		return new Column(name, field, type, false, defaultValue);
+	}
+
+	/**
+	 * Registers a mapper for a data class, replacing the former mapper
+	 */
+	public static void register(String dataclass, SampleMapper mapper) {
+		MAPPERS.put(dataclass, mapper);
+	}
+
+	/**
+	 * Returns the mapper for a data class given by simple or fully qualified
+	 * class name, or null if the samples are stored in the generic table
+	 */
+	public static SampleMapper forDataClass(String dataclass) {
+		if (dataclass == null) {
+			return null;
+		}
+		return MAPPERS.get(dataclass.substring(dataclass.lastIndexOf('.') + 1));
+	}
+
+	/**
+	 * Returns the registered mappers
+	 */
+	public static Collection<SampleMapper> getMappers() {
+		synchronized (MAPPERS) {
+			return new ArrayList<SampleMapper>(MAPPERS.values());
+		}
+	}
+
+	public String getSensorId() {
+		return sensorid;
+	}
+
+	public String getTable() {
+		return table;
+	}
+
+	/**
+	 * Returns the statement to create the typed table if it does not exist
+	 */
+	public String getCreateStatement() {
+		StringBuilder sql = new StringBuilder("create table if not exists `").append(table).append("` ( ");
+		sql.append("uuid integer not null, ts bigint not null, ");
+		for (Column column : columns) {
+			sql.append('`').append(column.name).append("` ").append(column.type.sqlType).append(", ");
+		}
+		sql.append("prio integer not null, synced integer default null, dataclass text not null, ");
+		sql.append("INDEX (uuid, ts), FOREIGN KEY (uuid) REFERENCES devinfo(uuid) )");
+		return sql.toString();
+	}
+
+	/**
+	 * Returns the insert statement for the typed table
+	 */
+	public String getInsertStatement() {
+		StringBuilder sql = new StringBuilder("INSERT INTO `").append(table).append("` (uuid, ts, ");
+		StringBuilder values = new StringBuilder("?,?,");
+		for (Column column : columns) {
+			sql.append('`').append(column.name).append("`, ");
+			values.append("?,");
+		}
+		sql.append("prio, synced, dataclass) VALUES (").append(values).append("?,?,?)");
+		return sql.toString();
+	}
+
+	/**
+	 * Binds a sample to the insert statement of the typed table.
+	 *
+	 * @param fields
+	 *            the text of the child elements of the data element by name
+	 * @return false if a required field is missing or a field can not be
+	 *         converted, the sample is stored in the generic table then
+	 */
+	public boolean bind(PreparedStatement pstmt, Upload.Sample sample, Map<String, String> fields) throws SQLException {
+		int index = 1;
+		pstmt.setInt(index++, sample.uuid);
+		pstmt.setLong(index++, sample.ts);
+		for (Column column : columns) {
+			String value = fields.get(column.field);
+			if (value == null || value.length() == 0) {
+				if (column.required) {
+					return false;
+				}
+				value = column.defaultValue;
+			}
+			try {
+				setValue(pstmt, index++, column.type, value);
+			} catch (NumberFormatException e) {
+				return false;
+			}
+		}
+		pstmt.setInt(index++, sample.prio);
+		pstmt.setInt(index++, sample.synced);
+		pstmt.setString(index, sample.dataclass);
+		return true;
+	}
+
+	/**
+	 * Converts a field value and binds it to a statement parameter
+	 */
+	static void setValue(PreparedStatement pstmt, int index, Type type, String value) throws SQLException {
+		if (value == null) {
+			pstmt.setNull(index, type.jdbcType);
+			return;
+		}
+		switch (type) {
+		case INTEGER:
+			pstmt.setInt(index, Integer.parseInt(value));
+			break;
+		case FLOAT:
+			pstmt.setFloat(index, Float.parseFloat(value));
+			break;
+		case DOUBLE:
+			pstmt.setDouble(index, Double.parseDouble(value));
+			break;
+		case BOOLEAN:
+			pstmt.setBoolean(index, Boolean.parseBoolean(value));
+			break;
+		default:
+			pstmt.setString(index, value);
+		}
+	}
+}
@@ -0,0 +1,158 @@
+package de.uni_koblenz.west.mobile_sensing;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Random;
+
+/**
+ * Regression benchmark for the tag localization of the JsonApi. Seeds a
+ * benchmark device with GPS coordinates and tags into a local database,
+ * compares the output of the merge join with the output of the nearest
+ * coordinate query per tag and prints the run times of both.
+ *
+ * Usage: TagLocalizationBenchmark jdbcUrl user password [tags] [coordinates]
+ * e.g. jdbc:mysql://localhost/liveandgov_test
+ */
+public class TagLocalizationBenchmark {
+
+	/**
+	 * The uuid of the benchmark device, negative to stay clear of the uuids
+	 * assigned by the Upload servlet
+	 */
+	private static final int BENCHMARK_UUID = -1;
+
+	/**
+	 * The time between two GPS coordinates in milliseconds
+	 */
+	private static final long COORD_INTERVAL = 1000;
+
+	/**
+	 * The count of runs per localization
+	 */
+	private static final int RUNS = 5;
+
+	public static void main(String[] args) throws Exception {
+		if (args.length < 3) {
+			System.out.println("Usage: TagLocalizationBenchmark jdbcUrl user password [tags] [coordinates]");
+			return;
+		}
+		int cntTags = args.length > 3 ? Integer.parseInt(args[3]) : 500;
+		int cntCoords = args.length > 4 ? Integer.parseInt(args[4]) : 50000;
+
+		Class.forName("com.mysql.jdbc.Driver");
+		Connection connection = DriverManager.getConnection(args[0], args[1], args[2]);
+		try {
+			createTables(connection);
+			cleanUp(connection);
+			seed(connection, cntTags, cntCoords);
+			long tsTo = cntCoords * COORD_INTERVAL;
+
+			String expected = null;
+			for (int run = 0; run < RUNS; run++) {
+				StringWriter out = new StringWriter();
+				long start = System.nanoTime();
+				JsonApi.writeTagsNearestQuery(connection, BENCHMARK_UUID, 0, tsTo, new PrintWriter(out));
+				long nanosQuery = System.nanoTime() - start;
+				expected = out.toString();
+
+				out = new StringWriter();
+				start = System.nanoTime();
+				JsonApi.writeTagsMergeJoin(connection, BENCHMARK_UUID, 0, tsTo, new PrintWriter(out));
+				long nanosMerge = System.nanoTime() - start;
+
+				if (!expected.equals(out.toString())) {
+					throw new IllegalStateException("merge join result differs from nearest query result");
+				}
+				System.out.println("run " + run + ": " + cntTags + " tags, " + cntCoords + " coordinates, query "
+						+ (nanosQuery / 1000000) + " ms, merge join " + (nanosMerge / 1000000) + " ms");
+			}
+		} finally {
+			cleanUp(connection);
+			connection.close();
+		}
+	}
+
+	/**
+	 * Creates the typed sensor tables for the GPS coordinates and the tags if
+	 * the Upload servlet did not create them yet
+	 */
+	private static void createTables(Connection connection) throws SQLException {
+		Statement stmt = connection.createStatement();
+		try {
+			stmt.execute(SampleMapper.forDataClass("GPSSampleData").getCreateStatement());
+			stmt.execute(SampleMapper.forDataClass("TextSampleData").getCreateStatement());
+		} finally {
+			stmt.close();
+		}
+	}
+
+	/**
+	 * Inserts the benchmark device, the GPS coordinates and the tags. The tags
+	 * are never placed in the middle between two coordinates, which keeps the
+	 * nearest coordinate unambiguous.
+	 */
+	private static void seed(Connection connection, int cntTags, int cntCoords) throws SQLException {
+		PreparedStatement pstmt = connection.prepareStatement(
+				"INSERT INTO devinfo (uuid, textuuid) VALUES (?,?)");
+		pstmt.setInt(1, BENCHMARK_UUID);
+		pstmt.setString(2, "TagLocalizationBenchmark");
+		pstmt.execute();
+		pstmt.close();
+
+		pstmt = connection.prepareStatement("INSERT INTO gps (uuid, ts, lat, lon, prio, dataclass) VALUES (?,?,?,?,?,?)");
+		Random random = new Random(42);
+		for (int i = 0; i < cntCoords; i++) {
+			pstmt.setInt(1, BENCHMARK_UUID);
+			pstmt.setLong(2, i * COORD_INTERVAL);
+			pstmt.setDouble(3, 50 + random.nextDouble());
+			pstmt.setDouble(4, 7 + random.nextDouble());
+			pstmt.setInt(5, 0);
+			pstmt.setString(6, "GPSSampleData");
+			pstmt.addBatch();
+			if (i % 1000 == 999) {
+				pstmt.executeBatch();
+			}
+		}
+		pstmt.executeBatch();
+		pstmt.close();
+
+		pstmt = connection.prepareStatement("INSERT INTO tags (uuid, ts, txt, prio, dataclass) VALUES (?,?,?,?,?)");
+		for (int i = 0; i < cntTags; i++) {
+			long offset = 1 + random.nextInt((int) COORD_INTERVAL - 1);
+			if (offset * 2 == COORD_INTERVAL) {
+				offset++;
+			}
+			pstmt.setInt(1, BENCHMARK_UUID);
+			pstmt.setLong(2, random.nextInt(cntCoords) * COORD_INTERVAL + offset);
+			pstmt.setString(3, "tag" + i);
+			pstmt.setInt(4, 0);
+			pstmt.setString(5, "TextSampleData");
+			pstmt.addBatch();
+		}
+		pstmt.executeBatch();
+		pstmt.close();
+	}
+
+	/**
+	 * Removes the benchmark device and its samples
+	 */
+	private static void cleanUp(Connection connection) throws SQLException {
+		PreparedStatement pstmt = connection.prepareStatement("DELETE FROM gps WHERE uuid = ?");
+		pstmt.setInt(1, BENCHMARK_UUID);
+		pstmt.execute();
+		pstmt.close();
+		pstmt = connection.prepareStatement("DELETE FROM tags WHERE uuid = ?");
+		pstmt.setInt(1, BENCHMARK_UUID);
+		pstmt.execute();
+		pstmt.close();
+		pstmt = connection.prepareStatement("DELETE FROM devinfo WHERE uuid = ?");
+		pstmt.setInt(1, BENCHMARK_UUID);
+		pstmt.execute();
+		pstmt.close();
+	}
+}
@@ -0,0 +1,211 @@
+package de.uni_koblenz.west.mobile_sensing;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Shape preserving downsampling of a GPS track in a single pass over the
+ * coordinates ordered by time stamp (Largest-Triangle-Three-Buckets over time
+ * buckets).
+ *
+ * The first and the last coordinate are kept. The time range in between is
+ * split into points - 2 buckets of equal duration, and of each bucket the
+ * coordinate is kept which spans the largest triangle with the coordinate kept
+ * of the bucket before and the mean coordinate of the bucket after. Empty
+ * buckets are skipped, so pauses in the track stay visible and the result may
+ * have less than the target count of points. Only two buckets are held in
+ * memory, the result has at most the target count of points.
+ */
+public class TrajectorySampler {
+
+	/**
+	 * The minimum target count of points
+	 */
+	public static final int MIN_POINTS = 3;
+
+	private final long tsMin;
+	private final double bucketDuration;
+	private final int cntBuckets;
+
+	/**
+	 * The kept coordinates as {lat, lon}
+	 */
+	private final List<double[]> result = new ArrayList<double[]>();
+
+	/**
+	 * The complete bucket waiting for the mean of the next bucket
+	 */
+	private Bucket pending = new Bucket();
+
+	/**
+	 * The bucket being filled
+	 */
+	private Bucket current = new Bucket();
+	private int currentIndex = -1;
+
+	/**
+	 * The first coordinate added, which is kept as start point
+	 */
+	private double[] start;
+
+	/**
+	 * The last coordinate added, which is kept as end point
+	 */
+	private double[] last;
+	private long lastTs;
+
+	/**
+	 * The scale of the longitude to keep the triangle areas proportional
+	 */
+	private double lonScale = 1;
+
+	private boolean finished;
+
+	/**
+	 * Creates a sampler for the coordinates in a time range
+	 *
+	 * @param tsMin the time stamp of the first coordinate
+	 * @param tsMax the time stamp of the last coordinate
+	 * @param points the target count of points, at least MIN_POINTS
+	 */
+	public TrajectorySampler(long tsMin, long tsMax, int points) {
+		if (points < MIN_POINTS || tsMax < tsMin) {
+			throw new IllegalArgumentException("invalid time range or point count");
+		}
+		this.tsMin = tsMin;
+		this.cntBuckets = points - 2;
+		this.bucketDuration = Math.max(1, tsMax - tsMin) / (double) cntBuckets;
+	}
+
+	/**
+	 * Adds the next coordinate, the time stamps have to be ascending
+	 */
+	public void add(long ts, double lat, double lon) {
+		if (finished) {
+			throw new IllegalStateException("sampler is finished");
+		}
+		if (start == null) {
+			start = new double[] { lat, lon };
+			result.add(start);
+			lonScale = Math.cos(Math.toRadians(lat));
+			return;
+		}
+		if (last == null) {
+			last = new double[2];
+		} else {
+			// the previous end point candidate becomes a regular coordinate
+			addToBucket(bucketIndex(lastTs), last[0], last[1]);
+		}
+		last[0] = lat;
+		last[1] = lon;
+		lastTs = ts;
+	}
+
+	/**
+	 * Returns the kept coordinates as {lat, lon} after all coordinates were
+	 * added
+	 */
+	public List<double[]> finish() {
+		if (!finished && last != null) {
+			if (!pending.isEmpty()) {
+				if (current.isEmpty()) {
+					select(pending, last[0], last[1]);
+				} else {
+					select(pending, current.meanLat(), current.meanLon());
+				}
+			}
+			if (!current.isEmpty()) {
+				select(current, last[0], last[1]);
+			}
+			result.add(last);
+		}
+		finished = true;
+		return result;
+	}
+
+	private int bucketIndex(long ts) {
+		int index = (int) ((ts - tsMin) / bucketDuration);
+		return Math.max(0, Math.min(cntBuckets - 1, index));
+	}
+
+	private void addToBucket(int index, double lat, double lon) {
+		if (index != currentIndex) {
+			if (!pending.isEmpty()) {
+				select(pending, current.meanLat(), current.meanLon());
+			}
+			Bucket bucket = pending;
+			pending = current;
+			current = bucket;
+			current.clear();
+			currentIndex = index;
+		}
+		current.add(lat, lon);
+	}
+
+	/**
+	 * Keeps the coordinate of a bucket spanning the largest triangle with the
+	 * last kept coordinate and the given coordinate
+	 */
+	private void select(Bucket bucket, double nextLat, double nextLon) {
+		double[] a = result.get(result.size() - 1);
+		double ax = a[1] * lonScale;
+		double cx = nextLon * lonScale;
+		double maxArea = -1;
+		int selected = 0;
+		for (int i = 0; i < bucket.size; i++) {
+			double bx = bucket.lon[i] * lonScale;
+			double area = Math.abs((ax - cx) * (bucket.lat[i] - a[0]) - (ax - bx) * (nextLat - a[0]));
+			if (area > maxArea) {
+				maxArea = area;
+				selected = i;
+			}
+		}
+		result.add(new double[] { bucket.lat[selected], bucket.lon[selected] });
+		bucket.clear();
+	}
+
+	/**
+	 * The coordinates of a time bucket, the arrays are reused
+	 */
+	private static class Bucket {
+		double[] lat = new double[16];
+		double[] lon = new double[16];
+		int size;
+		double sumLat;
+		double sumLon;
+
+		void add(double la, double lo) {
+			if (size == lat.length) {
+				double[] newLat = new double[size * 2];
+				double[] newLon = new double[size * 2];
+				System.arraycopy(lat, 0, newLat, 0, size);
+				System.arraycopy(lon, 0, newLon, 0, size);
+				lat = newLat;
+				lon = newLon;
+			}
+			lat[size] = la;
+			lon[size] = lo;
+			size++;
+			sumLat += la;
+			sumLon += lo;
+		}
+
+		boolean isEmpty() {
+			return size == 0;
+		}
+
+		double meanLat() {
+			return sumLat / size;
+		}
+
+		double meanLon() {
+			return sumLon / size;
+		}
+
+		void clear() {
+			size = 0;
+			sumLat = 0;
+			sumLon = 0;
+		}
+	}
+}
@@ -1,21 +1,44 @@
 package de.uni_koblenz.west.mobile_sensing;
 
+import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileNotFoundException;
+import java.io.FileInputStream;
 import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.FileWriter;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.text.DateFormat;
-import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.Iterator;
-import java.util.List;
+import java.util.Map;
+import java.util.Timer;
+import java.util.TimerTask;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
 
@@ -29,6 +52,7 @@ import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import javax.sql.DataSource;
+import javax.xml.namespace.QName;
 import javax.xml.stream.XMLEventReader;
 import javax.xml.stream.XMLInputFactory;
 import javax.xml.stream.XMLStreamException;
@@ -42,8 +66,174 @@ import javax.xml.stream.events.XMLEvent;
 
 public class Upload extends HttpServlet {
 	private static final long serialVersionUID = 1L;
+
+	/**
+	 * The count of sample rows per JDBC batch
+	 */
+	private static final int INGEST_BATCH_SIZE = 1000;
+
+	/**
+	 * The count of worker threads for the ingest of uploaded archives
+	 */
+	private static final int INGEST_THREADS = 2;
+
+	/**
+	 * The maximum count of uploaded archives waiting for ingest. If the queue
+	 * is full, uploads are rejected with 503 and retried by the devices later.
+	 */
+	private static final int INGEST_QUEUE_CAPACITY = 64;
+
+	/**
+	 * The seconds after which devices should retry a rejected upload
+	 */
+	private static final String RETRY_AFTER = "120";
+
+	/**
+	 * The buffer size for writing uploads to disk
+	 */
+	private static final int COPY_BUFFER_SIZE = 256 << 10;
+
+	/**
+	 * The directory for the uploaded archives
+	 */
+	private static final String UPLOAD_DIR = "/srv/liveandgov/uploads/";
+
+	/**
+	 * The directory for the archives waiting for ingest. The queue is
+	 * persistent, archives are moved to the upload directory after the ingest
+	 * or to the failed directory if the ingest failed, the remaining ones are
+	 * queued again by init.
+	 */
+	private static final String QUEUE_DIR = UPLOAD_DIR + "queue/";
+
+	/**
+	 * The suffix of archives not yet completely written to the queue directory
+	 */
+	private static final String TMP_SUFFIX = ".tmp";
+
+	/**
+	 * The directory for the archives which could not be ingested, they are
+	 * kept for inspection and can be moved back to the queue directory
+	 */
+	private static final String FAILED_DIR = UPLOAD_DIR + "failed/";
+
+	/**
+	 * The maximum count of ingest attempts of an archive while the database
+	 * fails, the archive is moved to the failed directory afterwards
+	 */
+	private static final int INGEST_ATTEMPTS = 5;
+
+	/**
+	 * The delay before the second ingest attempt in milliseconds, doubled for
+	 * each further attempt
+	 */
+	private static final long INGEST_RETRY_DELAY = 60 * 1000L;
+
+	/**
+	 * The directory for the committed parts of resumable uploads
+	 */
+	private static final String PARTIAL_DIR = UPLOAD_DIR + "partial/";
+
+	/**
+	 * The suffix of the committed parts of a resumable upload
+	 */
+	private static final String PART_SUFFIX = ".part";
+
+	/**
+	 * The suffix of the marker of a completed resumable upload, the marker
+	 * holds the upload length for clients resuming an upload they did not get
+	 * the final response for
+	 */
+	private static final String DONE_SUFFIX = ".done";
+
+	/**
+	 * The milliseconds after which the parts of an abandoned resumable upload
+	 * and the markers of completed ones are deleted
+	 */
+	private static final long UPLOAD_TTL = 7 * 24 * 60 * 60 * 1000L;
+
+	/**
+	 * The interval of the expiry of resumable uploads in milliseconds
+	 */
+	private static final long UPLOAD_EXPIRY_INTERVAL = 60 * 60 * 1000L;
+
+	/**
+	 * The maximum part size of resumable uploads in bytes
+	 */
+	private static final int MAX_PART_SIZE = 1 << 20;
+
+	/**
+	 * The headers of the resumable upload protocol, compare
+	 * de.unikassel.android.sdcframework.transmission.ResumableUpload
+	 */
+	static final String HEADER_UPLOAD_ID = "upload-id";
+	static final String HEADER_UPLOAD_LENGTH = "upload-length";
+	static final String HEADER_UPLOAD_OFFSET = "upload-offset";
+	static final String HEADER_PART_MD5 = "part-md5";
+
 	DataSource database;
 
+	/**
+	 * The worker pool for the ingest of uploaded archives
+	 */
+	ThreadPoolExecutor ingestExecutor;
+
+	/**
+	 * The timer queuing the archives again after a failed ingest attempt and
+	 * expiring the files of resumable uploads
+	 */
+	Timer timer;
+
+	/**
+	 * The locks of the resumable uploads in progress by part file name
+	 */
+	private final ConcurrentHashMap<String, ReentrantLock> uploadLocks = new ConcurrentHashMap<String, ReentrantLock>();
+
+	/**
+	 * The count of archives queued for ingest or reserved by running uploads,
+	 * bounded by INGEST_QUEUE_CAPACITY
+	 */
+	final AtomicInteger cntPendingArchives = new AtomicInteger();
+
+	/**
+	 * The count of archives taken from the queue
+	 */
+	final AtomicLong cntDequeuedArchives = new AtomicLong();
+
+	/**
+	 * The time the dequeued archives waited in the queue in milliseconds
+	 */
+	final AtomicLong ingestLagMillis = new AtomicLong();
+
+	/**
+	 * The direct buffer per request thread for writing uploads to disk
+	 */
+	private static final ThreadLocal<ByteBuffer> copyBuffer = new ThreadLocal<ByteBuffer>() {
+		protected ByteBuffer initialValue() {
+			return ByteBuffer.allocateDirect(COPY_BUFFER_SIZE);
+		}
+	};
+
+	/**
+	 * The count of ingested archives
+	 */
+	final AtomicLong cntIngestedArchives = new AtomicLong();
+
+	/**
+	 * The count of ingested sample rows
+	 */
+	final AtomicLong cntIngestedRows = new AtomicLong();
+
+	/**
+	 * The time spent for the ingest in nanoseconds
+	 */
+	final AtomicLong ingestNanos = new AtomicLong();
+
+	/**
+	 * The count of archives moved to the failed directory
+	 */
+	final AtomicLong cntFailedArchives = new AtomicLong();
+
 	PreparedStatement pstmtInsertDeviceInfo;
 
 	String insertSample = "INSERT INTO samples ("
@@ -92,6 +282,15 @@ public class Upload extends HttpServlet {
 		public	String androidVersion;
 	}
 
+	/**
+	 * The sample counts of an ingested archive
+	 */
+	public class SampleCount {
+		public long inserted;
+		/** the samples of a mapped data class not decoded and stored in samples */
+		public long undecoded;
+	}
+
 	public void init(ServletConfig config) throws ServletException {
 		super.init(config);
 		Connection connection = null;
@@ -133,6 +332,11 @@ public class Upload extends HttpServlet {
 
 			stmtLink.execute(createSampleTable);			
 
+			// the typed sensor tables filled at ingest time
+			for (SampleMapper mapper : SampleMapper.getMappers()) {
+				stmtLink.execute(mapper.getCreateStatement());
+			}
+
 		} catch (SQLException e) {
 			throw new UnavailableException(e.getMessage());
 		} catch (NamingException e1) {
@@ -143,7 +347,73 @@ public class Upload extends HttpServlet {
 			try { if (stmtLink != null) stmtLink.close(); } catch (SQLException e) { e.printStackTrace(); }
 			try { if (connection != null) connection.close(); } catch (SQLException e) { e.printStackTrace(); }
 		}
+
+		// the queue is bounded by the pending archive count
+		ingestExecutor = new ThreadPoolExecutor(INGEST_THREADS, INGEST_THREADS,
+				0L, TimeUnit.MILLISECONDS,
+				new LinkedBlockingQueue<Runnable>());
+		timer = new Timer("Upload", true);
+		timer.schedule(new TimerTask() {
+			public void run() {
+				expireUploads();
+			}
+		}, 0, UPLOAD_EXPIRY_INTERVAL);
+		new File(FAILED_DIR).mkdirs();
+		recoverQueue();
+	}
+
+	/**
+	 * Queues the archives left in the queue directory by the last run, in
+	 * upload order. Incomplete archives are deleted, the devices did not get
+	 * an acknowledgment for them.
+	 */
+	private void recoverQueue() {
+		File dir = new File(QUEUE_DIR);
+		if (!dir.exists()) {
+			dir.mkdirs();
+		}
+		File[] files = dir.listFiles();
+		if (files == null) {
+			return;
+		}
+		Arrays.sort(files, new Comparator<File>() {
+			public int compare(File a, File b) {
+				long diff = a.lastModified() - b.lastModified();
+				return diff < 0 ? -1 : (diff > 0 ? 1 : 0);
+			}
+		});
+		for (File file : files) {
+			if (file.getName().endsWith(TMP_SUFFIX)) {
+				file.delete();
+			} else if (file.isFile()) {
+				cntPendingArchives.incrementAndGet();
+				queueIngest(file);
+			}
+		}
+		if (cntPendingArchives.get() > 0) {
+			System.out.println("Upload: queued " + cntPendingArchives.get() + " archive(s) of the last run");
+		}
+	}
+
+	/**
+	 * Finishes the running ingest tasks before the servlet is taken out of
+	 * service. The queued archives and the archives waiting for a retry stay
+	 * in the queue directory for the next run.
+	 */
+	public void destroy() {
+		timer.cancel();
+		ingestExecutor.getQueue().clear();
+		ingestExecutor.shutdown();
+		try {
+			if (!ingestExecutor.awaitTermination(60, TimeUnit.SECONDS)) {
+				System.out.println("Upload: ingest of " + ingestExecutor.getActiveCount() + " archive(s) not finished");
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		super.destroy();
 	}
+
 	/**
 	 * @see HttpServlet#HttpServlet()
 	 */
@@ -158,7 +428,23 @@ public class Upload extends HttpServlet {
 	 */
 	protected void doGet(HttpServletRequest request,
 			HttpServletResponse response) throws ServletException, IOException {
-		// TODO Auto-generated method stub
+		// report the ingest statistics
+		long rows = cntIngestedRows.get();
+		long nanos = ingestNanos.get();
+		response.setContentType("text/plain");
+		PrintWriter out = response.getWriter();
+		out.println("archives: " + cntIngestedArchives.get());
+		out.println("failed: " + cntFailedArchives.get());
+		out.println("rows: " + rows);
+		out.println("rows/sec: " + (nanos > 0 ? (long) (rows * 1e9 / nanos) : 0));
+		out.println("queued: " + ingestExecutor.getQueue().size());
+		out.println("active: " + ingestExecutor.getActiveCount());
+		out.println("pending: " + cntPendingArchives.get() + "/" + INGEST_QUEUE_CAPACITY);
+		IngestTask oldest = (IngestTask) ingestExecutor.getQueue().peek();
+		out.println("lag ms: " + (oldest != null ? System.currentTimeMillis() - oldest.queued : 0));
+		long dequeued = cntDequeuedArchives.get();
+		out.println("mean lag ms: " + (dequeued > 0 ? ingestLagMillis.get() / dequeued : 0));
+		out.close();
 	}
 
 	/**
@@ -166,134 +452,569 @@ public class Upload extends HttpServlet {
 	 *      response)
 	 */
 	protected void doPost(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
+		if (request.getHeader(HEADER_UPLOAD_ID) != null) {
+			doPostPart(request, response);
+			return;
+		}
+		if (!isIngested(request)) {
+			storeBody(request, new File(UPLOAD_DIR + getArchiveName(request)));
+			response.setStatus(HttpServletResponse.SC_OK);
+			return;
+		}
+
+		// reject before reading the body if the queue is full
+		if (!reserveIngest()) {
+			rejectUpload(response);
+			return;
+		}
+		boolean queued = false;
+		try {
+			File archive = new File(QUEUE_DIR + getArchiveName(request));
+			storeBody(request, archive);
+			queueIngest(archive);
+			queued = true;
+		} finally {
+			if (!queued) {
+				cntPendingArchives.decrementAndGet();
+			}
+		}
+		response.setStatus(HttpServletResponse.SC_ACCEPTED);
+	}
+
+	/**
+	 * Writes the request body to a file through a direct buffer. The file is
+	 * written under a temporary name, synced and renamed, so a stored file is
+	 * always complete.
+	 */
+	private void storeBody(HttpServletRequest request, File file) throws IOException {
+		File tmpFile = new File(file.getPath() + TMP_SUFFIX);
+		ReadableByteChannel in = Channels.newChannel(request.getInputStream());
+		FileOutputStream outstream = new FileOutputStream(tmpFile);
+		boolean stored = false;
+		try {
+			FileChannel out = outstream.getChannel();
+			ByteBuffer buffer = copyBuffer.get();
+			buffer.clear();
+			while (in.read(buffer) != -1) {
+				buffer.flip();
+				while (buffer.hasRemaining()) {
+					out.write(buffer);
+				}
+				buffer.clear();
+			}
+			out.force(true);
+			stored = true;
+		} finally {
+			outstream.close();
+			if (!stored) {
+				tmpFile.delete();
+			}
+		}
+		if (!tmpFile.renameTo(file)) {
+			tmpFile.delete();
+			throw new IOException("Could not store " + file);
+		}
+	}
+
+	/**
+	 * Returns true if the uploaded file is an archive to ingest, false for log
+	 * files
+	 */
+	private static boolean isIngested(HttpServletRequest request) {
+		return request.getParameter("logfile") == null;
+	}
+
+	/**
+	 * Reserves a place in the ingest queue, returns false if the queue is full
+	 */
+	private boolean reserveIngest() {
+		if (cntPendingArchives.incrementAndGet() > INGEST_QUEUE_CAPACITY) {
+			cntPendingArchives.decrementAndGet();
+			return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Rejects an upload while the ingest queue is full
+	 */
+	private static void rejectUpload(HttpServletResponse response) throws IOException {
+		response.setHeader("Retry-After", RETRY_AFTER);
+		response.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+	}
+
+	/**
+	 * Reports the committed offset of a resumable upload in the upload-offset
+	 * header, 0 for unknown uploads.
+	 *
+	 * @see HttpServlet#doHead(HttpServletRequest request, HttpServletResponse
+	 *      response)
+	 */
+	protected void doHead(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
+		File partFile = getPartFile(request);
+		if (partFile == null) {
+			response.sendError(HttpServletResponse.SC_BAD_REQUEST);
+			return;
+		}
+		ReentrantLock lock = lockUpload(partFile);
+		try {
+			long done = readDone(partFile);
+			response.setHeader(HEADER_UPLOAD_OFFSET, String.valueOf(done >= 0 ? done : partFile.length()));
+		} finally {
+			unlockUpload(partFile, lock);
+		}
+		response.setStatus(HttpServletResponse.SC_OK);
+	}
+
+	/**
+	 * Appends a part of a resumable upload to the committed parts. A part is
+	 * committed only if its offset matches the committed length and its MD5
+	 * hash matches the part-md5 header, otherwise the committed offset is
+	 * returned with 409 resp. 400 for the client to continue from. The archive
+	 * is moved to the queue directory and queued for ingest once the whole
+	 * file is committed and its MD5 hash matches the upload identifier, the
+	 * last part is rejected with 503 while the queue is full. Parts of an
+	 * already completed upload are not stored again, the upload length is
+	 * returned instead.
+	 */
+	private void doPostPart(HttpServletRequest request, HttpServletResponse response) throws IOException {
+		File partFile = getPartFile(request);
+		long length = parseLong(request.getHeader(HEADER_UPLOAD_LENGTH));
+		long offset = parseLong(request.getHeader(HEADER_UPLOAD_OFFSET));
+		int contentLength = request.getContentLength();
+		if (partFile == null || length < 0 || offset < 0 || contentLength < 0
+				|| contentLength > MAX_PART_SIZE || offset + contentLength > length) {
+			response.sendError(HttpServletResponse.SC_BAD_REQUEST);
+			return;
+		}
+
+		// read the part before the file is locked, a dropped connection does not commit anything
+		byte[] part = new byte[contentLength];
+		InputStream instream = request.getInputStream();
+		int cnt = 0;
+		while (cnt < part.length) {
+			int i = instream.read(part, cnt, part.length - cnt);
+			if (i == -1) {
+				response.sendError(HttpServletResponse.SC_BAD_REQUEST);
+				return;
+			}
+			cnt += i;
+		}
+
+		ReentrantLock lock = lockUpload(partFile);
+		try {
+			long done = readDone(partFile);
+			if (done >= 0) {
+				response.setHeader(HEADER_UPLOAD_OFFSET, String.valueOf(done));
+				response.setStatus(HttpServletResponse.SC_OK);
+				return;
+			}
+			long committed = partFile.length();
+			if (offset != committed) {
+				response.setHeader(HEADER_UPLOAD_OFFSET, String.valueOf(committed));
+				response.setStatus(HttpServletResponse.SC_CONFLICT);
+				return;
+			}
+			if (!md5(part, part.length).equalsIgnoreCase(request.getHeader(HEADER_PART_MD5))) {
+				response.setHeader(HEADER_UPLOAD_OFFSET, String.valueOf(committed));
+				response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+				return;
+			}
+
+			boolean last = committed + part.length == length;
+			boolean ingest = last && isIngested(request);
+			if (ingest && !reserveIngest()) {
+				response.setHeader(HEADER_UPLOAD_OFFSET, String.valueOf(committed));
+				rejectUpload(response);
+				return;
+			}
+			boolean queued = false;
+			try {
+				committed = commitPart(request, response, partFile, part, committed, last, ingest);
+				queued = ingest && committed == length;
+			} finally {
+				if (ingest && !queued) {
+					cntPendingArchives.decrementAndGet();
+				}
+			}
+			if (committed >= 0) {
+				response.setHeader(HEADER_UPLOAD_OFFSET, String.valueOf(committed));
+				response.setStatus(queued ? HttpServletResponse.SC_ACCEPTED : HttpServletResponse.SC_OK);
+			}
+		} finally {
+			unlockUpload(partFile, lock);
+		}
+	}
+
+	/**
+	 * Locks a resumable upload. The lock is removed from the lock map by
+	 * unlockUpload once the part file is gone, so a lock taken from the map
+	 * is only valid if it is still mapped after it was acquired.
+	 */
+	private ReentrantLock lockUpload(File partFile) {
+		String key = partFile.getName();
+		while (true) {
+			ReentrantLock lock = new ReentrantLock();
+			ReentrantLock mapped = uploadLocks.putIfAbsent(key, lock);
+			if (mapped != null) {
+				lock = mapped;
+			}
+			lock.lock();
+			if (uploadLocks.get(key) == lock) {
+				return lock;
+			}
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Unlocks a resumable upload, the lock is removed if the upload is
+	 * completed, restarted or expired
+	 */
+	private void unlockUpload(File partFile, ReentrantLock lock) {
+		if (!partFile.exists()) {
+			uploadLocks.remove(partFile.getName(), lock);
+		}
+		lock.unlock();
+	}
+
+	/**
+	 * Returns the marker of a completed resumable upload
+	 */
+	private static File getDoneFile(File partFile) {
+		String name = partFile.getName();
+		return new File(partFile.getParentFile(), name.substring(0, name.length() - PART_SUFFIX.length()) + DONE_SUFFIX);
+	}
+
+	/**
+	 * Returns the length of a completed resumable upload, or -1 if the upload
+	 * is not completed
+	 */
+	private static long readDone(File partFile) throws IOException {
+		File doneFile = getDoneFile(partFile);
+		if (!doneFile.exists()) {
+			return -1;
+		}
+		BufferedReader reader = new BufferedReader(new FileReader(doneFile));
+		try {
+			return parseLong(reader.readLine());
+		} finally {
+			reader.close();
+		}
+	}
+
+	/**
+	 * Deletes the part files of resumable uploads not continued and the
+	 * markers of uploads completed for more than UPLOAD_TTL
+	 */
+	void expireUploads() {
+		File[] files = new File(PARTIAL_DIR).listFiles();
+		if (files == null) {
+			return;
+		}
+		long expired = System.currentTimeMillis() - UPLOAD_TTL;
+		int cntExpired = 0;
+		for (File file : files) {
+			if (file.getName().endsWith(DONE_SUFFIX)) {
+				if (file.lastModified() < expired && file.delete()) {
+					cntExpired++;
+				}
+			} else if (file.getName().endsWith(PART_SUFFIX)) {
+				ReentrantLock lock = lockUpload(file);
+				try {
+					if (file.lastModified() < expired && file.delete()) {
+						cntExpired++;
+					}
+				} finally {
+					unlockUpload(file, lock);
+				}
+			}
+		}
+		if (cntExpired > 0) {
+			System.out.println("Upload: expired " + cntExpired + " resumable upload file(s)");
+		}
+	}
+
+	/**
+	 * Appends a verified part to the committed parts and stores the completed
+	 * archive. Returns the committed offset, or -1 if an error was sent.
+	 */
+	private long commitPart(HttpServletRequest request, HttpServletResponse response, File partFile,
+			byte[] part, long committed, boolean last, boolean ingest) throws IOException {
+		RandomAccessFile raf = new RandomAccessFile(partFile, "rw");
+		try {
+			raf.seek(committed);
+			raf.write(part);
+			raf.getFD().sync();
+		} finally {
+			raf.close();
+		}
+		committed += part.length;
+
+		if (last) {
+			if (!request.getHeader(HEADER_UPLOAD_ID).equalsIgnoreCase(md5(partFile))) {
+				// the archive is corrupt, start over
+				partFile.delete();
+				response.setHeader(HEADER_UPLOAD_OFFSET, "0");
+				response.setStatus(HttpServletResponse.SC_CONFLICT);
+				return -1;
+			}
+			File archive = new File((ingest ? QUEUE_DIR : UPLOAD_DIR) + getArchiveName(request));
+			if (!partFile.renameTo(archive)) {
+				response.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+				return -1;
+			}
+			// mark the upload completed for a client resuming it after a lost response
+			try {
+				FileWriter writer = new FileWriter(getDoneFile(partFile));
+				try {
+					writer.write(String.valueOf(committed));
+				} finally {
+					writer.close();
+				}
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+			if (ingest) {
+				queueIngest(archive);
+			}
+		}
+		return committed;
+	}
+
+	/**
+	 * Returns the file name for an uploaded archive
+	 */
+	private String getArchiveName(HttpServletRequest request) {
 		String filename = request.getHeader("filename");
 		String uuid = request.getHeader("uuid");
 		Date date = new Date();
 		DateFormat dateformat = DateFormat.getDateInstance(DateFormat.MEDIUM);
 		DateFormat timeformat = DateFormat.getTimeInstance(DateFormat.MEDIUM);
 		String datetimestring = dateformat.format(date)+"_"+timeformat.format(date);
-		String absoluteFilename = "/srv/liveandgov/uploads/"+uuid+"_"+datetimestring+"_"+filename;
-		File outfile = new File(absoluteFilename);
-		OutputStream outstream = new FileOutputStream(outfile);
-		InputStream instream = request.getInputStream();
-		copyStream(instream, outstream);
-		outstream.flush();
-		outstream.close();
-		if(request.getParameter("logfile") == null) {
-			this.loadDataInDatabase(absoluteFilename);
+		return uuid+"_"+datetimestring+"_"+filename;
+	}
+
+	/**
+	 * Returns the file for the committed parts of a resumable upload, or null
+	 * if the uuid or the upload identifier is invalid
+	 */
+	private File getPartFile(HttpServletRequest request) {
+		String uuid = request.getHeader("uuid");
+		String uploadId = request.getHeader(HEADER_UPLOAD_ID);
+		if (uuid == null || uploadId == null || !uuid.matches("[0-9a-fA-F-]{1,64}")
+				|| !uploadId.matches("[0-9a-fA-F]{32}")) {
+			return null;
 		}
+		File dir = new File(PARTIAL_DIR);
+		if (!dir.exists()) {
+			dir.mkdirs();
+		}
+		return new File(dir, uuid + "_" + uploadId.toLowerCase() + PART_SUFFIX);
+	}
+
+	/**
+	 * Queues an archive of the queue directory for ingest, the place in the
+	 * queue has to be reserved
+	 */
+	private void queueIngest(File archive) {
+		ingestExecutor.execute(new IngestTask(archive));
 	}
 
-	private void copyStream(InputStream input, OutputStream output)
-			throws IOException {
-		byte[] buffer = new byte[1024];
-		int bytesRead;
-		while ((bytesRead = input.read(buffer)) != -1) {
-			output.write(buffer, 0, bytesRead);
+	/**
+	 * The ingest of a queued archive. The archive is moved from the queue
+	 * directory to the upload directory afterwards.
+	 */
+	class IngestTask implements Runnable {
+		final File archive;
+		final long queued = System.currentTimeMillis();
+		final int attempt;
+
+		IngestTask(File archive) {
+			this(archive, 1);
+		}
+
+		IngestTask(File archive, int attempt) {
+			this.archive = archive;
+			this.attempt = attempt;
+		}
+
+		public void run() {
+			boolean retry = false;
+			try {
+				cntDequeuedArchives.incrementAndGet();
+				ingestLagMillis.addAndGet(System.currentTimeMillis() - queued);
+				try {
+					loadDataInDatabase(archive.getPath());
+					moveArchive(UPLOAD_DIR);
+				} catch (SQLException e) {
+					// the database may come back, the archive stays queued
+					e.printStackTrace();
+					retry = attempt < INGEST_ATTEMPTS;
+					if (retry) {
+						scheduleRetry();
+					} else {
+						fail();
+					}
+				} catch (IOException e) {
+					e.printStackTrace();
+					fail();
+				} catch (XMLStreamException e) {
+					e.printStackTrace();
+					fail();
+				} catch (RuntimeException e) {
+					e.printStackTrace();
+					fail();
+				}
+			} finally {
+				// the archive stays pending while it waits for the retry
+				if (!retry) {
+					cntPendingArchives.decrementAndGet();
+				}
+			}
 		}
+
+		private void scheduleRetry() {
+			long delay = INGEST_RETRY_DELAY << (attempt - 1);
+			System.out.println("Upload: ingest attempt " + attempt + " of " + archive + " failed, retry in " + (delay / 1000) + " s");
+			timer.schedule(new TimerTask() {
+				public void run() {
+					try {
+						ingestExecutor.execute(new IngestTask(archive, attempt + 1));
+					} catch (RejectedExecutionException e) {
+						// shut down, the archive is queued again by the next run
+						cntPendingArchives.decrementAndGet();
+					}
+				}
+			}, delay);
+		}
+
+		private void fail() {
+			System.out.println("Upload: ingest of " + archive + " failed");
+			cntFailedArchives.incrementAndGet();
+			moveArchive(FAILED_DIR);
+		}
+
+		/**
+		 * Moves the archive out of the queue directory, if this fails the
+		 * archive is left in the queue and ingested again by the next run
+		 */
+		private void moveArchive(String dir) {
+			if (!archive.renameTo(new File(dir, archive.getName()))) {
+				System.out.println("Upload: could not move " + archive + " out of the queue to " + dir);
+			}
+		}
+	}
+
+	/**
+	 * Parses a header value, returns -1 for missing or invalid values
+	 */
+	private static long parseLong(String value) {
+		if (value == null) {
+			return -1;
+		}
+		try {
+			return Long.parseLong(value.trim());
+		} catch (NumberFormatException e) {
+			return -1;
+		}
+	}
+
+	/**
+	 * Returns the hex encoded MD5 hash of the first length bytes
+	 */
+	static String md5(byte[] bytes, int length) {
+		MessageDigest md = newMd5();
+		md.update(bytes, 0, length);
+		return toHex(md.digest());
 	}
 
-	public void loadDataInDatabase(String filename) {
+	/**
+	 * Returns the hex encoded MD5 hash of a file
+	 */
+	static String md5(File file) throws IOException {
+		MessageDigest md = newMd5();
+		InputStream in = new FileInputStream(file);
+		try {
+			byte[] buffer = new byte[8192];
+			int bytesRead;
+			while ((bytesRead = in.read(buffer)) != -1) {
+				md.update(buffer, 0, bytesRead);
+			}
+		} finally {
+			in.close();
+		}
+		return toHex(md.digest());
+	}
 
+	private static MessageDigest newMd5() {
+		try {
+			return MessageDigest.getInstance("MD5");
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static String toHex(byte[] digest) {
+		StringBuilder sb = new StringBuilder(digest.length * 2);
+		for (byte b : digest) {
+			sb.append(Character.forDigit((b >> 4) & 0xf, 16));
+			sb.append(Character.forDigit(b & 0xf, 16));
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * Ingests an uploaded archive. The device info and the samples are
+	 * inserted, the samples of the archive either completely or not at all.
+	 * 
+	 * @throws SQLException if the database fails, the ingest can be retried
+	 * @throws IOException if the archive can not be read
+	 * @throws XMLStreamException if the archive is malformed
+	 */
+	public void loadDataInDatabase(String filename) throws IOException, SQLException, XMLStreamException {
+		long start = System.nanoTime();
+		SampleCount count = new SampleCount();
+		File file = new File(filename);
+		ZipFile zipFile = new ZipFile(file);
 		try {
-			File file = new File(filename);
-			ZipFile zipFile = new ZipFile(file);
 			ZipEntry zipEntry = zipFile.getEntry("devinfo.xml");
 			if (zipEntry != null) {
 				DeviceInfo deviceInfo = this.readDevInfoXML( zipFile.getInputStream(zipEntry));
+				if (deviceInfo.textuuid == null) {
+					throw new XMLStreamException("no device uuid in " + filename);
+				}
 				deviceInfo = this.insertDeviceInfo(deviceInfo);
 
+				// the samples refer to the distinct locations of the location track
+				Map<Integer, String> locations = Collections.emptyMap();
+				zipEntry = zipFile.getEntry("locations.xml");
+				if (zipEntry != null) {
+					locations = this.readLocationTrack(zipFile.getInputStream(zipEntry));
+				}
+
 				zipEntry = zipFile.getEntry("samples.xml");
 				if (zipEntry != null) {					
-					this.insertSamples(this.readSamplesXML(deviceInfo.uuid, zipFile.getInputStream(zipEntry)));
+					count = this.insertSamples(deviceInfo.uuid, zipFile.getInputStream(zipEntry), locations);
 				}
 			}
+		} finally {
 			zipFile.close();
 		}
-		catch (FileNotFoundException e) {
-			System.out.println("File " + filename + "not found in function Upload/loadDataInDatabase");
-		}
-		catch (IOException e) {
-			System.out.println("IO error in function Upload/loadDataInDatabase");
-		}
+
+		long nanos = System.nanoTime() - start;
+		cntIngestedArchives.incrementAndGet();
+		cntIngestedRows.addAndGet(count.inserted);
+		ingestNanos.addAndGet(nanos);
+		System.out.println("Upload: ingested " + count.inserted + " samples from " + filename + " in " + (nanos / 1000000) + " ms ("
+				+ (nanos > 0 ? (long) (count.inserted * 1e9 / nanos) : 0) + " rows/sec)"
+				+ (count.undecoded > 0 ? ", " + count.undecoded + " samples not decoded, stored in samples" : ""));
 	}
 	
 
-	private List<Sample> readSamplesXML(int uuid, InputStream in) {
-		List<Sample> samples = new ArrayList<Sample>();
-		try {
-			// First create a new XMLInputFactory
-			XMLInputFactory inputFactory = XMLInputFactory.newInstance();
-			// Setup a new eventReader
-			XMLEventReader eventReader = inputFactory.createXMLEventReader(in);
-			// Read the XML document    
-			Sample sample = new Sample();
-			boolean insideDataTag = false;
-			while (eventReader.hasNext()) {
-				XMLEvent event = eventReader.nextEvent();
-
-				if (event.isStartElement()) {
-					StartElement startElement = event.asStartElement();
-					if (startElement.getName().getLocalPart() == "sample") {	
-						sample = new Sample();
-						sample.uuid = uuid;
-						sample.data = "";
-						Iterator<Attribute> attributes = startElement.getAttributes();
-						while (attributes.hasNext()) {
-							Attribute attribute = attributes.next();
-							if (attribute.getName().toString().equals("id")) {
-								sample.sensorid = attribute.getValue();
-							}
-							else if (attribute.getName().toString().equals("synced")) {
-								if(attribute.getValue().toString().equals("true")) {
-									sample.synced = 1;
-								}
-								else {
-									sample.synced = 0;
-								}
-							}
-							else if (attribute.getName().toString().equals("ts")) {
-								sample.ts = Long.parseLong(attribute.getValue());
-							}
-							else if (attribute.getName().toString().equals("prio")) {
-								sample.prio = Integer.parseInt(attribute.getValue().toString());
-							}
-						}		
-					}
-					if (startElement.asStartElement().getName().getLocalPart().equals("data")) {
-						Iterator<Attribute> attributes = startElement.getAttributes();
-						while (attributes.hasNext()) {
-							Attribute attribute = attributes.next();
-							if (attribute.getName().toString().equals("class")) {
-								sample.dataclass = attribute.getValue();
-							}
-						}
-						insideDataTag = true;
-						continue;
-					}
-				}
-				if(insideDataTag) {
-					if (event.isEndElement() && event.asEndElement().getName().getLocalPart().equals("data")) {							
-						insideDataTag = false;
-						samples.add(sample);
-					}
-					else {
-						sample.data += event.toString().trim();
-					}
-				}
-			}
-			eventReader.close();
-		} catch (XMLStreamException e) {
-			e.printStackTrace();
-		}
-		
-		return samples;		
-	}
-	 
-	private DeviceInfo readDevInfoXML(InputStream in) {
+	private DeviceInfo readDevInfoXML(InputStream in) throws XMLStreamException {
 		DeviceInfo deviceInfo = new DeviceInfo();
 
-		    try {
 		      // First create a new XMLInputFactory
 		      XMLInputFactory inputFactory = XMLInputFactory.newInstance();
 		      // Setup a new eventReader
@@ -358,42 +1079,250 @@ public class Upload extends HttpServlet {
 			          }
 		        }
 		      }
-		    } catch (XMLStreamException e) {
-		      e.printStackTrace();
-		    }
 			return deviceInfo;		
 	}
-	private void insertSamples(List<Sample> Samples) {
+	/**
+	 * Reads the location track of a locations.xml. The locations are kept in
+	 * the format of the loc column ( the content of the location element ).
+	 * 
+	 * @return the locations by id
+	 */
+	private Map<Integer, String> readLocationTrack(InputStream in) throws XMLStreamException {
+		Map<Integer, String> locations = new HashMap<Integer, String>();
+		XMLEventReader eventReader = null;
+		try {
+			XMLInputFactory inputFactory = XMLInputFactory.newInstance();
+			eventReader = inputFactory.createXMLEventReader(in);
+			StringBuilder loc = new StringBuilder();
+			Integer id = null;
+			while (eventReader.hasNext()) {
+				XMLEvent event = eventReader.nextEvent();
+				if (id == null) {
+					if (event.isStartElement() && event.asStartElement().getName().getLocalPart().equals("location")) {
+						Attribute attribute = event.asStartElement().getAttributeByName(new QName("id"));
+						if (attribute != null) {
+							id = Integer.valueOf(attribute.getValue());
+							loc.setLength(0);
+						}
+					}
+				}
+				else if (event.isEndElement() && event.asEndElement().getName().getLocalPart().equals("location")) {
+					locations.put(id, loc.toString());
+					id = null;
+				}
+				else {
+					loc.append(event.toString().trim());
+				}
+			}
+		} finally {
+			try { if (eventReader != null) eventReader.close(); } catch (XMLStreamException e) { e.printStackTrace(); }
+		}
+		return locations;
+	}
+
+	/**
+	 * Streams the samples of a samples.xml into the database. The samples are
+	 * parsed one by one and inserted in JDBC batches of INGEST_BATCH_SIZE rows.
+	 * All batches of an archive are committed in one transaction, so a failed
+	 * ingest leaves no rows behind and the archive can be ingested again
+	 * without duplicates. The sample location is either given
+	 * by a reference into the location track or, for older archives, inline.
+	 * 
+	 * The data of samples with a SampleMapper for their data class is decoded
+	 * while parsing and inserted into the typed sensor table of the mapper,
+	 * all other samples are inserted into the samples table as XML string.
+	 * 
+	 * @return the count of inserted and of not decoded samples
+	 */
+	private SampleCount insertSamples(int uuid, InputStream in, Map<Integer, String> locations) throws SQLException, XMLStreamException {
 		PreparedStatement pstmtInsertSample = null;
+		Map<SampleMapper, PreparedStatement> typedStatements = new HashMap<SampleMapper, PreparedStatement>();
 		Connection connection = null;
+		XMLEventReader eventReader = null;
+		SampleCount count = new SampleCount();
+		boolean committed = false;
 		try {
 			connection = database.getConnection();
+			connection.setAutoCommit(false);
 			pstmtInsertSample = connection.prepareStatement(insertSample);
-			
-	        for (Sample sample : Samples) {
-	        	pstmtInsertSample.setInt(1, sample.uuid);
-	            pstmtInsertSample.setString(2, sample.sensorid);
-	            pstmtInsertSample.setLong(3, sample.ts);
-	            pstmtInsertSample.setInt(4, sample.prio);
-	            pstmtInsertSample.setInt(5, sample.synced);
-	    		pstmtInsertSample.setString(6, sample.loc);
-	    		pstmtInsertSample.setString(7, sample.data);
-	    		pstmtInsertSample.setString(8, sample.dataclass);       
-
-	    		pstmtInsertSample.addBatch();
-	        }
-	        pstmtInsertSample.executeBatch();
 
-		} catch (SQLException e) {
-			// TODO Auto-generated catch block
-			e.printStackTrace();
+			// the sample and the data buffer are reused for all samples
+			Sample sample = new Sample();
+			sample.uuid = uuid;
+			StringBuilder data = new StringBuilder();
+			// the text of the child elements of the data element by name
+			Map<String, String> fields = new HashMap<String, String>();
+			StringBuilder field = new StringBuilder();
+			String fieldName = null;
+			int fieldDepth = 0;
+			int cntBatch = 0;
+
+			XMLInputFactory inputFactory = XMLInputFactory.newInstance();
+			eventReader = inputFactory.createXMLEventReader(in);
+			StringBuilder loc = new StringBuilder();
+			boolean insideDataTag = false;
+			boolean insideLocationTag = false;
+			while (eventReader.hasNext()) {
+				XMLEvent event = eventReader.nextEvent();
+
+				if (event.isStartElement()) {
+					StartElement startElement = event.asStartElement();
+					if (startElement.getName().getLocalPart().equals("sample")) {
+						sample.sensorid = null;
+						sample.ts = 0;
+						sample.prio = 0;
+						sample.synced = 0;
+						sample.dataclass = null;
+						sample.loc = null;
+						data.setLength(0);
+						fields.clear();
+						Iterator<Attribute> attributes = startElement.getAttributes();
+						while (attributes.hasNext()) {
+							Attribute attribute = attributes.next();
+							if (attribute.getName().toString().equals("id")) {
+								sample.sensorid = attribute.getValue();
+							}
+							else if (attribute.getName().toString().equals("synced")) {
+								if(attribute.getValue().toString().equals("true")) {
+									sample.synced = 1;
+								}
+								else {
+									sample.synced = 0;
+								}
+							}
+							else if (attribute.getName().toString().equals("ts")) {
+								sample.ts = Long.parseLong(attribute.getValue());
+							}
+							else if (attribute.getName().toString().equals("prio")) {
+								sample.prio = Integer.parseInt(attribute.getValue().toString());
+							}
+							else if (attribute.getName().toString().equals("loc")) {
+								sample.loc = locations.get(Integer.valueOf(attribute.getValue()));
+							}
+						}
+						continue;
+					}
+					if (!insideDataTag && startElement.getName().getLocalPart().equals("data")) {
+						Iterator<Attribute> attributes = startElement.getAttributes();
+						while (attributes.hasNext()) {
+							Attribute attribute = attributes.next();
+							if (attribute.getName().toString().equals("class")) {
+								sample.dataclass = attribute.getValue();
+							}
+						}
+						insideDataTag = true;
+						continue;
+					}
+					if (!insideDataTag && startElement.getName().getLocalPart().equals("location")) {
+						loc.setLength(0);
+						insideLocationTag = true;
+						continue;
+					}
+				}
+				if(insideDataTag) {
+					if (fieldDepth == 0 && event.isEndElement() && event.asEndElement().getName().getLocalPart().equals("data")) {
+						insideDataTag = false;
+					}
+					else {
+						data.append(event.toString().trim());
+						if (event.isStartElement()) {
+							if (fieldDepth++ == 0) {
+								fieldName = event.asStartElement().getName().getLocalPart();
+								field.setLength(0);
+							}
+							else {
+								field.append(event.toString().trim());
+							}
+						}
+						else if (event.isEndElement()) {
+							if (--fieldDepth == 0) {
+								fields.put(fieldName, field.toString().trim());
+							}
+							else {
+								field.append(event.toString().trim());
+							}
+						}
+						else if (fieldDepth == 1 && event.isCharacters()) {
+							field.append(event.asCharacters().getData());
+						}
+						else if (fieldDepth > 1) {
+							field.append(event.toString().trim());
+						}
+					}
+				}
+				else if (insideLocationTag) {
+					if (event.isEndElement() && event.asEndElement().getName().getLocalPart().equals("location")) {
+						insideLocationTag = false;
+						sample.loc = loc.toString();
+					}
+					else {
+						loc.append(event.toString().trim());
+					}
+				}
+				else if (event.isEndElement() && event.asEndElement().getName().getLocalPart().equals("sample")) {
+					PreparedStatement pstmt = null;
+					SampleMapper mapper = SampleMapper.forDataClass(sample.dataclass);
+					if (mapper != null) {
+						pstmt = typedStatements.get(mapper);
+						if (pstmt == null) {
+							pstmt = connection.prepareStatement(mapper.getInsertStatement());
+							typedStatements.put(mapper, pstmt);
+						}
+						if (!mapper.bind(pstmt, sample, fields)) {
+							count.undecoded++;
+							pstmt = null;
+						}
+					}
+					if (pstmt == null) {
+						pstmt = pstmtInsertSample;
+						pstmt.setInt(1, sample.uuid);
+						pstmt.setString(2, sample.sensorid);
+						pstmt.setLong(3, sample.ts);
+						pstmt.setInt(4, sample.prio);
+						pstmt.setInt(5, sample.synced);
+						pstmt.setString(6, sample.loc);
+						pstmt.setString(7, data.toString());
+						pstmt.setString(8, sample.dataclass);
+					}
+					pstmt.addBatch();
+
+					if (++cntBatch == INGEST_BATCH_SIZE) {
+						executeBatches(pstmtInsertSample, typedStatements);
+						count.inserted += cntBatch;
+						cntBatch = 0;
+					}
+				}
+			}
+			if (cntBatch > 0) {
+				executeBatches(pstmtInsertSample, typedStatements);
+				count.inserted += cntBatch;
+			}
+			connection.commit();
+			committed = true;
+
 		} finally {
+			// roll back the rows of the archive on any failure, also before autocommit is restored
+			try { if (connection != null && !committed) connection.rollback(); } catch (SQLException e) { e.printStackTrace(); }
+			try { if (eventReader != null) eventReader.close(); } catch (XMLStreamException e) { e.printStackTrace(); }
 			try { if (pstmtInsertSample != null) pstmtInsertSample.close(); } catch (SQLException e) { e.printStackTrace(); }
-			try { if (connection != null) connection.close(); } catch (SQLException e) { e.printStackTrace(); }
+			for (PreparedStatement pstmt : typedStatements.values()) {
+				try { pstmt.close(); } catch (SQLException e) { e.printStackTrace(); }
+			}
+			try { if (connection != null) { connection.setAutoCommit(true); connection.close(); } } catch (SQLException e) { e.printStackTrace(); }
 		}
-		
+		return count;
 	}
-	private DeviceInfo insertDeviceInfo(DeviceInfo deviceInfo) {
+
+	/**
+	 * Executes the batches of the generic and the typed insert statements
+	 */
+	private void executeBatches(PreparedStatement pstmtInsertSample, Map<SampleMapper, PreparedStatement> typedStatements) throws SQLException {
+		pstmtInsertSample.executeBatch();
+		for (PreparedStatement pstmt : typedStatements.values()) {
+			pstmt.executeBatch();
+		}
+	}
+	private DeviceInfo insertDeviceInfo(DeviceInfo deviceInfo) throws SQLException {
 		PreparedStatement pstmtInsertDeviceInfo = null;
 		PreparedStatement pstmtCheckDeviceInfo = null;
 		PreparedStatement pstmtGetMaxIdDeviceInfo = null;
@@ -438,9 +1367,6 @@ public class Upload extends HttpServlet {
 				pstmtInsertDeviceInfo.setString(9, deviceInfo.androidVersion);
 				pstmtInsertDeviceInfo.execute();
 			}
-		} catch (SQLException e) {
-			// TODO Auto-generated catch block
-			e.printStackTrace();
 		} finally {
 			try { if (rs != null) rs.close(); } catch (SQLException e) { e.printStackTrace(); }
 			try { if (pstmtCheckDeviceInfo != null) pstmtCheckDeviceInfo.close(); } catch (SQLException e) { e.printStackTrace(); }
@@ -1,7 +1,9 @@
 var restify = require('restify')
   , routes = require('./routes/routes');
 
-require('./lib/cronTask').cron();
+// The Upload servlet does insert the samples into the typed tables, the
+// transformation of the samples table is left for rows of older uploads
+// ( see /importData ).
 
 var server = restify.createServer({
   name: 'MobileSensing'
@@ -11,12 +11,12 @@ var deleteDataInTable = function () {
       console.log('Error while getting connection to databse.', err);
       return;
     }
-    var query = connection.query('TRUNCATE TABLE `samples`', function (err, rows, fields) {
+    var query = connection.query('DELETE FROM `samples` WHERE `sensorid` IN (?)', [rowTrans.sensorIds], function (err, rows, fields) {
       if(err) {
         console.log('Error while clearing table!', err);
         return;
       }
-      console.log('Table samples cleared!');
+      console.log('Transformed rows removed from table samples!');
       connection.end();
     });
   });
@@ -63,7 +63,7 @@ var changeData = function (cb) {
         }
         connection.end();
       };
-      connection.query('SELECT * FROM `samples` LIMIT ?, ?', [page * rowsPerPage, rowsPerPage])
+      connection.query('SELECT * FROM `samples` WHERE `sensorid` IN (?) LIMIT ?, ?', [rowTrans.sensorIds, page * rowsPerPage, rowsPerPage])
         .stream({ highWaterMark: 80 })
         .pipe(s);
     });
@@ -232,8 +232,12 @@ var rowSensorTransform = {
 
 
 module.exports = {
+  // The sensor ids of the rows moved into typed tables. Rows of other sensors
+  // stay in `samples`, like the samples the Upload servlet has no mapper for.
+  sensorIds: Object.keys(rowSensorTransform),
+
   transform: function (row) {
-    if(row.sensorid !== 'TimeSyncStateChanges') {
+    if(rowSensorTransform.hasOwnProperty(row.sensorid)) {
       rowSensorTransform[row.sensorid](row);
     }
   },